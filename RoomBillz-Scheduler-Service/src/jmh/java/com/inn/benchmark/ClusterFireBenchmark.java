@@ -0,0 +1,173 @@
+package com.inn.benchmark;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.Job;
+import org.quartz.JobBuilder;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SimpleScheduleBuilder;
+import org.quartz.TriggerBuilder;
+import org.quartz.impl.SchedulerRepository;
+import org.quartz.impl.StdSchedulerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import com.inn.jobstore.ShardedJDBCDelegate;
+import com.inn.metrics.InstrumentedJobStoreTX;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Cluster firing throughput: {@code nodes} clustered schedulers in this JVM
+ * share one H2 database, and each invocation times how long the cluster takes
+ * to fire {@code triggers} due one-shot triggers spread over 64 groups.
+ * {@code shardCount=0} is Quartz's single TRIGGER_ACCESS lock; above zero
+ * nodes acquire and fire under per-shard locks. Nodes are started once and
+ * put in standby between invocations, so scheduler startup is not measured.
+ * <p>
+ * All nodes share this JVM's CPUs and one embedded database, so the numbers
+ * show lock contention, not the scaling of separate hosts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ClusterFireBenchmark {
+
+	static final int GROUPS = 64;
+	static final AtomicInteger FIRED = new AtomicInteger();
+
+	@Param({ "1", "2", "4" })
+	int nodes;
+
+	@Param({ "0", "16" })
+	int shardCount;
+
+	@Param("2000")
+	int triggers;
+
+	HikariDataSource dataSource;
+	List<Scheduler> schedulers = new ArrayList<>();
+	int round;
+
+	public static class NoopJob implements Job {
+		@Override
+		public void execute(JobExecutionContext context) {
+			FIRED.incrementAndGet();
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		String url = "jdbc:h2:mem:cluster-" + nodes + "-" + shardCount + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+		dataSource = new HikariDataSource();
+		dataSource.setJdbcUrl(url);
+		dataSource.setUsername("sa");
+		// RB_TRIGGER_GROUP_HASH comes with the service's schema
+		new ResourceDatabasePopulator(new ClassPathResource("org/quartz/impl/jdbcjobstore/tables_h2.sql"),
+				new ClassPathResource("db/scheduler-schema.sql")).execute(dataSource);
+
+		for (int n = 0; n < nodes; n++) {
+			Scheduler scheduler = new StdSchedulerFactory(properties(url, "node-" + n)).getScheduler();
+			// Same instanceName on purpose (it is the cluster name); let the next factory create a new one
+			SchedulerRepository.getInstance().remove(scheduler.getSchedulerName());
+			scheduler.start();
+			scheduler.standby();
+			schedulers.add(scheduler);
+		}
+		for (int g = 0; g < GROUPS; g++)
+			schedulers.get(0).addJob(JobBuilder.newJob(NoopJob.class).withIdentity("noop", "group-" + g)
+					.storeDurably().build(), false);
+		// Two check-in intervals, so every node has seen every other node
+		Thread.sleep(2500);
+
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+		System.out.printf("%n[nodes=%d shardCount=%d] members %s%n", nodes, shardCount,
+				jdbc.queryForList("SELECT INSTANCE_NAME FROM QRTZ_SCHEDULER_STATE", String.class));
+	}
+
+	private Properties properties(String url, String instanceId) {
+		Properties props = new Properties();
+		props.setProperty("org.quartz.scheduler.instanceName", "cluster-bench");
+		props.setProperty("org.quartz.scheduler.instanceId", instanceId);
+		props.setProperty("org.quartz.threadPool.threadCount", "10");
+		props.setProperty("org.quartz.scheduler.batchTriggerAcquisitionMaxCount", "10");
+		props.setProperty("org.quartz.jobStore.class", InstrumentedJobStoreTX.class.getName());
+		props.setProperty("org.quartz.jobStore.driverDelegateClass", ShardedJDBCDelegate.class.getName());
+		props.setProperty("org.quartz.jobStore.tablePrefix", "QRTZ_");
+		props.setProperty("org.quartz.jobStore.misfireThreshold", "60000");
+		props.setProperty("org.quartz.jobStore.isClustered", "true");
+		props.setProperty("org.quartz.jobStore.clusterCheckinInterval", "1000");
+		props.setProperty("org.quartz.jobStore.acquireTriggersWithinLock", "true");
+		props.setProperty("org.quartz.jobStore.shardCount", String.valueOf(shardCount));
+		// Quartz keeps data sources in a JVM-wide registry by name, so each node needs its own
+		String ds = "org.quartz.dataSource." + instanceId;
+		props.setProperty("org.quartz.jobStore.dataSource", instanceId);
+		props.setProperty(ds + ".provider", "hikaricp");
+		props.setProperty(ds + ".driver", "org.h2.Driver");
+		props.setProperty(ds + ".URL", url);
+		props.setProperty(ds + ".user", "sa");
+		props.setProperty(ds + ".password", "");
+		props.setProperty(ds + ".maxConnections", "12");
+		return props;
+	}
+
+	@Setup(Level.Iteration)
+	public void schedule() throws Exception {
+		FIRED.set(0);
+		round++;
+		Date now = new Date();
+		Scheduler scheduler = schedulers.get(0);
+		for (int i = 0; i < triggers; i++) {
+			String group = "group-" + (i % GROUPS);
+			scheduler.scheduleJob(TriggerBuilder.newTrigger().withIdentity("t-" + round + "-" + i, group)
+					.forJob(JobKey.jobKey("noop", group)).startAt(now)
+					.withSchedule(SimpleScheduleBuilder.simpleSchedule().withMisfireHandlingInstructionFireNow())
+					.build());
+		}
+	}
+
+	@Benchmark
+	public int fireAll() throws Exception {
+		for (Scheduler scheduler : schedulers)
+			scheduler.start();
+		while (FIRED.get() < triggers)
+			Thread.sleep(1);
+		for (Scheduler scheduler : schedulers)
+			scheduler.standby();
+		return FIRED.get();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		for (Scheduler scheduler : schedulers)
+			scheduler.shutdown(true);
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+		System.out.printf("%n[nodes=%d shardCount=%d] locks used %s%n", nodes, shardCount,
+				jdbc.queryForList("SELECT LOCK_NAME FROM QRTZ_LOCKS ORDER BY LOCK_NAME", String.class));
+		jdbc.execute("DROP ALL OBJECTS");
+		dataSource.close();
+	}
+}
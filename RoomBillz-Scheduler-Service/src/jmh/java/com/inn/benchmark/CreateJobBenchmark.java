@@ -0,0 +1,63 @@
+package com.inn.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.inn.benchmark.SchedulerFixture.Store;
+import com.inn.dto.CreateJobResponse;
+
+/**
+ * {@code SchedulerService.createJob} throughput: one job plus its cron trigger
+ * per call, each in its own JobStore transaction on the JDBC store. The store is
+ * cleared between iterations so they all start from the same size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CreateJobBenchmark {
+
+	@Param({ "RAM", "JDBC" })
+	String store;
+
+	SchedulerFixture fixture;
+	final AtomicLong sequence = new AtomicLong();
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		fixture = SchedulerFixture.open(Store.valueOf(store), "create-" + store);
+	}
+
+	@TearDown(Level.Iteration)
+	public void clear() throws Exception {
+		fixture.scheduler.clear();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		fixture.close();
+	}
+
+	@Benchmark
+	public CreateJobResponse createJob() throws Exception {
+		long i = sequence.incrementAndGet();
+		return fixture.service
+				.createJob(SchedulerFixture.request("job-" + i, "group-" + (i % SchedulerFixture.GROUPS)));
+	}
+}
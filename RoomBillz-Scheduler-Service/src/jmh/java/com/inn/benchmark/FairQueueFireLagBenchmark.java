@@ -0,0 +1,152 @@
+package com.inn.benchmark;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.Job;
+import org.quartz.JobBuilder;
+import org.quartz.JobExecutionContext;
+import org.quartz.Scheduler;
+import org.quartz.TriggerBuilder;
+import org.quartz.impl.StdSchedulerFactory;
+
+import com.inn.config.FairShareThreadPool;
+
+/**
+ * Fire lag of a small tenant while a large one floods the scheduler: the
+ * "chain" group has {@code flood} triggers due at once, and a "hotel" group has
+ * {@value #SMALL} triggers due one after another across the time the flood
+ * takes to drain on 10 workers. Quartz's SimpleThreadPool (FIFO) is compared
+ * with {@link FairShareThreadPool} at equal weights, with the default look-ahead
+ * of twice the worker count and with one deep enough to hold the whole flood.
+ * <p>
+ * The score is the time until every small-tenant fire has run, which with fair
+ * queuing tracks the last small trigger's due time rather than the flood. Lag
+ * percentiles per group are printed per iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class FairQueueFireLagBenchmark {
+
+	static final int THREADS = 10;
+	static final int SMALL = 50;
+
+	@Param({ "2000", "10000" })
+	int flood;
+
+	@Param({ "FIFO", "FAIR" })
+	String pool;
+
+	@Param({ "2", "2000" })
+	int lookAhead;
+
+	@Param("10")
+	int jobLatencyMs;
+
+	static volatile int sleepMs;
+	static long[] floodLags;
+	static long[] smallLags;
+	static AtomicInteger floodRecorded;
+	static AtomicInteger smallRecorded;
+	static CountDownLatch smallDone;
+
+	Scheduler scheduler;
+
+	public static class SleepingJob implements Job {
+		@Override
+		public void execute(JobExecutionContext context) {
+			long lag = System.currentTimeMillis() - context.getScheduledFireTime().getTime();
+			boolean small = "hotel".equals(context.getJobDetail().getKey().getGroup());
+			if (small)
+				smallLags[smallRecorded.getAndIncrement()] = lag;
+			else
+				floodLags[floodRecorded.getAndIncrement()] = lag;
+			try {
+				Thread.sleep(sleepMs);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if (small)
+				smallDone.countDown();
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void setUp() throws Exception {
+		Properties props = new Properties();
+		props.setProperty("org.quartz.scheduler.instanceName", "bench-fair-" + pool + "-" + flood);
+		props.setProperty("org.quartz.jobStore.class", "org.quartz.simpl.RAMJobStore");
+		props.setProperty("org.quartz.jobStore.misfireThreshold", "600000");
+		props.setProperty("org.quartz.scheduler.batchTriggerAcquisitionMaxCount", "100");
+		props.setProperty("org.quartz.threadPool.threadCount", String.valueOf(THREADS));
+		if ("FAIR".equals(pool)) {
+			props.setProperty("org.quartz.threadPool.class", FairShareThreadPool.class.getName());
+			props.setProperty("org.quartz.threadPool.maxQueued", "20000");
+			props.setProperty("org.quartz.threadPool.lookAhead", String.valueOf(lookAhead));
+		} else {
+			props.setProperty("org.quartz.threadPool.class", "org.quartz.simpl.SimpleThreadPool");
+		}
+		scheduler = new StdSchedulerFactory(props).getScheduler();
+
+		sleepMs = jobLatencyMs;
+		floodLags = new long[flood];
+		smallLags = new long[SMALL];
+		floodRecorded = new AtomicInteger();
+		smallRecorded = new AtomicInteger();
+		smallDone = new CountDownLatch(SMALL);
+
+		// Nothing fires until the benchmark starts the scheduler, so the flood is all due at once
+		long start = System.currentTimeMillis() + 500;
+		for (int i = 0; i < flood; i++) {
+			scheduler.scheduleJob(JobBuilder.newJob(SleepingJob.class).withIdentity("job-" + i, "chain").build(),
+					TriggerBuilder.newTrigger().withIdentity("trigger-" + i, "chain").startAt(new Date(start)).build());
+		}
+		long drainMs = (long) flood * jobLatencyMs / THREADS;
+		for (int i = 0; i < SMALL; i++) {
+			scheduler.scheduleJob(JobBuilder.newJob(SleepingJob.class).withIdentity("job-" + i, "hotel").build(),
+					TriggerBuilder.newTrigger().withIdentity("trigger-" + i, "hotel")
+							.startAt(new Date(start + drainMs * (i + 1) / (SMALL + 1))).build());
+		}
+	}
+
+	@Benchmark
+	public void smallTenantUnderFlood() throws Exception {
+		scheduler.start();
+		smallDone.await();
+	}
+
+	@TearDown(Level.Iteration)
+	public void tearDown() throws Exception {
+		scheduler.shutdown(false);
+		System.out.printf("%n[%s flood=%d] hotel lag ms %s | chain lag ms %s%n", pool, flood,
+				summary(smallLags, smallRecorded.get()), summary(floodLags, floodRecorded.get()));
+	}
+
+	static String summary(long[] lags, int count) {
+		long[] sorted = Arrays.copyOf(lags, count);
+		Arrays.sort(sorted);
+		return String.format("p50=%d p95=%d max=%d (n=%d)", ThreadPoolFireLagBenchmark.percentile(sorted, 50),
+				ThreadPoolFireLagBenchmark.percentile(sorted, 95), count == 0 ? 0 : sorted[count - 1], count);
+	}
+}
@@ -0,0 +1,205 @@
+package com.inn.benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.Job;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.Scheduler;
+import org.quartz.impl.JobExecutionContextImpl;
+import org.quartz.impl.StdSchedulerFactory;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.TriggerFiredBundle;
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inn.config.SchedulerProperties;
+import com.inn.dto.CreateJobRequest;
+import com.inn.dto.HttpHeaderKV;
+import com.inn.http.HttpClientRegistry;
+import com.inn.http.RequestPlanCache;
+import com.inn.http.ResponseBodyReader;
+import com.inn.jobs.HttpCallJob;
+import com.inn.jobs.JobCallResult;
+import com.inn.jobs.OverloadHandler;
+import com.inn.jobs.RestInvokeJob;
+import com.inn.metrics.SchedulerMetrics;
+import com.inn.payload.JobPayloadStore;
+import com.inn.payload.JsonPayloadCodec;
+import com.inn.repository.JobPayloadRepository;
+import com.inn.service.SchedulerService;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Per-fire cost of {@link RestInvokeJob} and {@link HttpCallJob} against a
+ * local stub server that answers immediately, so the score is the client-side
+ * overhead: context setup, pooled-connection reuse, request/response handling
+ * and the metrics wrapper installed by the job factory. The job store is not
+ * involved in execute(), so only RAMJobStore is used here.
+ * <p>
+ * The job carries headers, query params and a JSON body. {@code plan=PER_FIRE}
+ * evicts the compiled request plan before every fire, which is what each fire
+ * cost before plans were cached.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JobExecuteBenchmark {
+
+	@Param({ "REST_INVOKE", "HTTP_CALL" })
+	String job;
+
+	// 4 MB is past the WebClient codec's 2 MB in-memory limit
+	@Param({ "512", "4194304" })
+	int responseBytes;
+
+	@Param({ "CACHED", "PER_FIRE" })
+	String plan;
+
+	HttpServer server;
+	ExecutorService serverExecutor;
+	Scheduler scheduler;
+	HttpClientRegistry clients;
+	RequestPlanCache plans;
+	Job instance;
+	JobDetail jobDetail;
+	OperableTrigger trigger;
+	PrintStream stdout;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		byte[] body = new byte[responseBytes];
+		Arrays.fill(body, (byte) 'x');
+		body[0] = '"';
+		body[body.length - 1] = '"';
+		// Without TCP_NODELAY the stub's split header/body writes stall on delayed ACKs
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+		serverExecutor = Executors.newFixedThreadPool(4);
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/hook", exchange -> {
+			exchange.getRequestBody().readAllBytes();
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, body.length);
+			exchange.getResponseBody().write(body);
+			exchange.close();
+		});
+		server.setExecutor(serverExecutor);
+		server.start();
+
+		Properties props = new Properties();
+		props.setProperty("org.quartz.scheduler.instanceName", "execute-" + job);
+		props.setProperty("org.quartz.jobStore.class", "org.quartz.simpl.RAMJobStore");
+		props.setProperty("org.quartz.threadPool.threadCount", "1");
+		scheduler = new StdSchedulerFactory(props).getScheduler();
+
+		// Same wiring as QuartzConfig's job factory: autowire the job, then wrap it
+		SchedulerProperties properties = new SchedulerProperties();
+		SchedulerMetrics metrics = new SchedulerMetrics(new SimpleMeterRegistry(), properties);
+		clients = new HttpClientRegistry(WebClient.builder(), properties, metrics);
+		DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+		AutowiredAnnotationBeanPostProcessor autowiring = new AutowiredAnnotationBeanPostProcessor();
+		autowiring.setBeanFactory(beans);
+		beans.addBeanPostProcessor(autowiring);
+		beans.registerSingleton("httpClientRegistry", clients);
+		ObjectMapper objectMapper = new ObjectMapper();
+		beans.registerSingleton("objectMapper", objectMapper);
+		beans.registerSingleton("responseBodyReader", new ResponseBodyReader(objectMapper, properties));
+		// The payload stays in the store's cache, so RB_JOB_PAYLOAD is never read
+		JobPayloadStore payloads = new JobPayloadStore(new JobPayloadRepository(null, "QRTZ_") {
+			@Override
+			public boolean insertIfAbsent(String hash, String codec, byte[] payload, long createdAt) {
+				return true;
+			}
+		}, List.of(new JsonPayloadCodec(objectMapper)), properties, new SimpleMeterRegistry());
+		plans = new RequestPlanCache(clients, payloads, objectMapper, properties, new SimpleMeterRegistry());
+		beans.registerSingleton("requestPlanCache", plans);
+		// The target never refuses a call, so nothing is deferred
+		beans.registerSingleton("overloadHandler", new OverloadHandler(scheduler, metrics, null, properties));
+
+		Job raw = "REST_INVOKE".equals(job) ? new RestInvokeJob() : new HttpCallJob();
+		beans.autowireBean(raw);
+		instance = metrics.instrument(raw);
+
+		CreateJobRequest req = new CreateJobRequest();
+		req.setJobName("bench");
+		req.setCronExpression("0 0/5 * * * ?");
+		req.setTargetUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/hook");
+		req.setHttpMethod("POST");
+		// Only ASYNC jobs store headers, query and body; the job class is chosen above
+		req.setExecutionMode("ASYNC");
+		HttpHeaderKV auth = new HttpHeaderKV();
+		auth.setName("Authorization");
+		auth.setValue("Bearer " + "k".repeat(40));
+		HttpHeaderKV tenant = new HttpHeaderKV();
+		tenant.setName("X-Tenant");
+		tenant.setValue("bench");
+		req.setHeaders(List.of(auth, tenant));
+		req.setQueryParams(Map.of("channel", "email", "since", "2024-01-01T00:00:00Z"));
+		req.setBody(Map.of("template", "booking-reminder", "bookingIds", List.of(101, 102, 103), "notify", true));
+		SchedulerService builder = new SchedulerService(scheduler, null, null, payloads, null);
+		jobDetail = builder.buildJobDetail(req);
+		trigger = (OperableTrigger) builder.buildTrigger(req, jobDetail);
+
+		// HttpCallJob prints every call; keep console I/O out of the measurement
+		stdout = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream(), false, StandardCharsets.UTF_8));
+
+		JobExecutionContext probe = fire();
+		if (!(probe.getResult() instanceof JobCallResult r) || !r.success())
+			throw new IllegalStateException("Stub call failed: " + probe.getResult());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		System.setOut(stdout);
+		scheduler.shutdown(false);
+		server.stop(0);
+		serverExecutor.shutdownNow();
+	}
+
+	@Benchmark
+	public JobExecutionContext execute() throws Exception {
+		return fire();
+	}
+
+	private JobExecutionContext fire() throws Exception {
+		if ("PER_FIRE".equals(plan))
+			plans.evict(jobDetail.getKey());
+		Date now = new Date();
+		JobExecutionContext context = new JobExecutionContextImpl(scheduler,
+				new TriggerFiredBundle(jobDetail, trigger, null, false, now, now, null, null), instance);
+		instance.execute(context);
+		return context;
+	}
+}
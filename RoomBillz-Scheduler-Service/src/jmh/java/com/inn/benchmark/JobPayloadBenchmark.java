@@ -0,0 +1,132 @@
+package com.inn.benchmark;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.JobBuilder;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.Trigger;
+
+import com.inn.benchmark.SchedulerFixture.Store;
+import com.inn.jobs.AsyncRestInvokeJob;
+import com.inn.payload.JobPayload;
+
+/**
+ * Per-fire job load on the JDBC store: read the JobDetail (as JobStoreTX does in
+ * triggersFired) and resolve the request payload.
+ * <p>
+ * Both formats start from the same ASYNC jobs written the old way, with
+ * headers, query params and a JSON body inside a Java-serialized JobDataMap.
+ * LEGACY reads them as they are. PAYLOAD runs {@code JobDataMigration}, then
+ * restarts the scheduler with {@code useProperties=true}, so the migration path
+ * is exercised too. Bodies come from one template per group, as jobs created
+ * by the same caller do. JOB_DATA and RB_JOB_PAYLOAD sizes are printed in
+ * setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JobPayloadBenchmark {
+
+	@Param({ "LEGACY", "PAYLOAD" })
+	String format;
+
+	@Param("10000")
+	int jobs;
+
+	@Param({ "8", "64" })
+	int bodyFields;
+
+	SchedulerFixture fixture;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		fixture = SchedulerFixture.open(Store.JDBC, "payload-" + format + "-" + bodyFields);
+		storeLegacyJobs();
+		if ("PAYLOAD".equals(format)) {
+			fixture.migration().run();
+			fixture.restart("org.quartz.jobStore.useProperties", "true");
+		}
+
+		Map<String, Object> sizes = fixture.jdbc.queryForMap(
+				"SELECT AVG(LENGTH(JOB_DATA)) AS AVG_JOB_DATA, SUM(LENGTH(JOB_DATA)) AS JOB_DATA FROM QRTZ_JOB_DETAILS");
+		Map<String, Object> payloads = fixture.jdbc
+				.queryForMap("SELECT COUNT(*) AS ROWS_, COALESCE(SUM(LENGTH(PAYLOAD)), 0) AS BYTES FROM RB_JOB_PAYLOAD");
+		System.out.printf("%n[%s bodyFields=%d] JOB_DATA avg=%s B total=%s B | RB_JOB_PAYLOAD rows=%s total=%s B%n",
+				format, bodyFields, sizes.get("AVG_JOB_DATA"), sizes.get("JOB_DATA"), payloads.get("ROWS_"),
+				payloads.get("BYTES"));
+	}
+
+	// What SchedulerService.buildJobDetail stored before payloads moved out of the map
+	private void storeLegacyJobs() throws Exception {
+		Map<JobDetail, Set<? extends Trigger>> chunk = new HashMap<>();
+		for (int i = 0; i < jobs; i++) {
+			String group = "group-" + (i % SchedulerFixture.GROUPS);
+			JobDataMap map = new JobDataMap();
+			map.put("targetUrl", "http://localhost:8082/api/v1/notifications/reminder");
+			map.put("httpMethod", "POST");
+			map.put("headers", new HashMap<>(Map.of("Authorization", "Bearer " + "k".repeat(40), "X-Tenant", group,
+					"Content-Type", "application/json")));
+			map.put("queryParams", new HashMap<>(Map.of("channel", "email")));
+			map.put("body", body(group));
+			map.put("timeoutMs", 30000);
+
+			JobDetail job = JobBuilder.newJob(AsyncRestInvokeJob.class).withIdentity("job-" + i, group)
+					.usingJobData(map).build();
+			chunk.put(job, Set.of(fixture.service.buildTrigger(SchedulerFixture.request("job-" + i, group), job)));
+			if (chunk.size() == 1000) {
+				fixture.scheduler.scheduleJobs(chunk, false);
+				chunk.clear();
+			}
+		}
+		if (!chunk.isEmpty())
+			fixture.scheduler.scheduleJobs(chunk, false);
+	}
+
+	// Shaped like Jackson's output for a JSON request body
+	private Map<String, Object> body(String group) {
+		Map<String, Object> body = new LinkedHashMap<>();
+		body.put("template", "booking-reminder");
+		body.put("tenant", group);
+		for (int f = 0; f < bodyFields; f++)
+			body.put("field" + f, f % 2 == 0 ? "value-" + f : (Object) f);
+		body.put("recipients", List.of("ops@example.com", "billing@example.com"));
+		return body;
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		fixture.close();
+	}
+
+	@Benchmark
+	public JobPayload loadAndResolve() throws Exception {
+		int i = ThreadLocalRandom.current().nextInt(jobs);
+		JobDetail detail = fixture.scheduler
+				.getJobDetail(JobKey.jobKey("job-" + i, "group-" + (i % SchedulerFixture.GROUPS)));
+		return fixture.payloads.resolve(detail.getJobDataMap());
+	}
+}
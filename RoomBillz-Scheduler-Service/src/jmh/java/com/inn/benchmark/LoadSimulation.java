@@ -0,0 +1,364 @@
+package com.inn.benchmark;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.Scheduler;
+import org.quartz.listeners.JobListenerSupport;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.inn.RoomBillzSchedulerServiceApplication;
+import com.inn.dispatch.DispatchListener;
+import com.inn.dto.BatchCreateResponse;
+import com.inn.dto.CreateJobRequest;
+import com.inn.jobs.AsyncRestInvokeJob;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Offline load simulation: boots the whole application against an H2 JobStore,
+ * points notification.service.url, roombillz.service.url and
+ * document.service.url at {@link StubService}s, creates {@code sim.jobs} jobs
+ * through the REST batch endpoint and lets them fire for a warm-up and a
+ * measured period. Not a JMH benchmark; run it with
+ *
+ * <pre>
+ * mvn -Pbenchmark compile exec:exec@simulation -Dsimulation.args="--sim.jobs=50000 \
+ *     --spring.quartz.properties.org.quartz.threadPool.threadCount=20 \
+ *     --roombillz.scheduler.thread-pool.acquisition-batch-size=200"
+ * </pre>
+ *
+ * Arguments other than {@code sim.*} go to the application, so any Quartz or
+ * roombillz.scheduler setting can be compared between runs. The measured period
+ * reports:
+ * <ul>
+ * <li>fire lag: scheduled fire time to job start</li>
+ * <li>end-to-end: scheduled fire time to the downstream response, when the job
+ * returns for SYNC jobs and on dispatch completion for ASYNC ones</li>
+ * <li>misfires, from scheduler.trigger.misfires</li>
+ * <li>calls and errors per stub</li>
+ * <li>SQL statements per fire, from H2's query statistics over both the Quartz
+ * and the application pool</li>
+ * </ul>
+ * The report is printed and written as JSON to {@code sim.out}.
+ * <p>
+ * Job mix ({@code sim.*}, defaults in brackets): {@code cron-share} [0.5] of
+ * jobs use one of {@code crons} [every 30 s; every minute; every 5 minutes],
+ * which fire together on the boundary; the rest repeat every one of
+ * {@code intervals} [15,60,300] seconds from a random offset.
+ * {@code async-share} [0.5] run ASYNC. Jobs spread evenly over the three
+ * services and {@link SchedulerFixture#GROUPS} groups. Stub latency is
+ * {@code latency} [20/250] ms median/p99 with {@code error-rate} [0.01] 503s,
+ * overridable per stub as {@code sim.notification.latency} and so on.
+ * {@code warmup-seconds} [30] and {@code duration-seconds} [120] set the
+ * periods.
+ */
+public final class LoadSimulation {
+
+	static final String NAME = "simulation";
+	static final int CHUNK = 5000;
+
+	// Replaced when the measured period starts
+	private volatile MillisHistogram fireLag = new MillisHistogram();
+	private volatile MillisHistogram endToEnd = new MillisHistogram();
+	private final LongAdder fires = new LongAdder();
+
+	private final SimpleCommandLinePropertySource options;
+
+	private LoadSimulation(String[] args) {
+		this.options = new SimpleCommandLinePropertySource(args);
+	}
+
+	public static void main(String[] args) throws Exception {
+		new LoadSimulation(args).run(args);
+		// Quartz, Tomcat and HTTP client threads are not all daemons
+		System.exit(0);
+	}
+
+	private void run(String[] args) throws Exception {
+		System.setProperty("spring.devtools.restart.enabled", "false");
+		SchedulerFixture fixture = SchedulerFixture.open(SchedulerFixture.Store.JDBC, NAME);
+		// The application's scheduler takes the same name
+		fixture.scheduler.shutdown(false);
+		fixture.jdbc.execute("SET QUERY_STATISTICS_MAX_ENTRIES 1000");
+
+		List<StubService> stubs = List.of(stub("notification", "/api/v1/notification"),
+				stub("main", "/api/v1/roomBillz"), stub("document", "/api/v1/document"));
+		ConfigurableApplicationContext context = null;
+		try {
+			context = start(args, stubs);
+			Environment env = context.getEnvironment();
+			List<String> targets = List.of(env.getProperty("notification.service.url") + "/reminder",
+					env.getProperty("roombillz.service.url") + "/billing/run",
+					env.getProperty("document.service.url") + "/render");
+			int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+			URI batch = URI.create("http://127.0.0.1:" + port + env.getProperty("server.servlet.context-path", "")
+					+ "/batch");
+			createJobs(batch, targets, context.getBean(ObjectMapper.class));
+
+			long warmup = option("sim.warmup-seconds", 30L);
+			long duration = option("sim.duration-seconds", 120L);
+			System.out.printf("Warming up for %d s, then measuring for %d s%n", warmup, duration);
+			Thread.sleep(warmup * 1000);
+
+			MeterRegistry registry = context.getBean(MeterRegistry.class);
+			double misfiresBefore = misfires(registry);
+			long[] callsBefore = stubs.stream().mapToLong(s -> s.calls.sum()).toArray();
+			long[] errorsBefore = stubs.stream().mapToLong(s -> s.errors.sum()).toArray();
+			fireLag = new MillisHistogram();
+			endToEnd = new MillisHistogram();
+			fires.reset();
+			// Turning statistics on starts them from zero
+			fixture.jdbc.execute("SET QUERY_STATISTICS TRUE");
+
+			Thread.sleep(duration * 1000);
+
+			long fired = fires.sum();
+			List<Map<String, Object>> statements = fixture.jdbc.queryForList("SELECT SQL_STATEMENT, EXECUTION_COUNT"
+					+ " FROM INFORMATION_SCHEMA.QUERY_STATISTICS ORDER BY EXECUTION_COUNT DESC");
+			fixture.jdbc.execute("SET QUERY_STATISTICS FALSE");
+
+			Map<String, Object> report = new LinkedHashMap<>();
+			report.put("settings", settings());
+			report.put("fires", fired);
+			report.put("firesPerSecond", (double) fired / duration);
+			report.put("fireLagMs", fireLag.percentiles());
+			report.put("endToEndMs", endToEnd.percentiles());
+			report.put("misfires", (long) (misfires(registry) - misfiresBefore));
+			Map<String, Object> calls = new LinkedHashMap<>();
+			for (int i = 0; i < stubs.size(); i++) {
+				StubService stub = stubs.get(i);
+				calls.put(stub.name, Map.of("calls", stub.calls.sum() - callsBefore[i], "errors",
+						stub.errors.sum() - errorsBefore[i]));
+			}
+			report.put("stubs", calls);
+			long total = statements.stream().mapToLong(s -> ((Number) s.get("EXECUTION_COUNT")).longValue()).sum();
+			report.put("sqlStatements", total);
+			report.put("sqlStatementsPerFire", fired > 0 ? (double) total / fired : 0);
+			report.put("topStatements", statements.subList(0, Math.min(10, statements.size())));
+			print(report);
+
+			ObjectMapper json = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+			String out = options.getProperty("sim.out");
+			if (out != null) {
+				json.writeValue(new File(out), report);
+				System.out.println("Written to " + out);
+			}
+		} finally {
+			if (context != null)
+				context.close();
+			stubs.forEach(StubService::close);
+			fixture.close();
+		}
+	}
+
+	private StubService stub(String name, String basePath) throws Exception {
+		String[] latency = option("sim." + name + ".latency", option("sim.latency", "20/250")).split("/");
+		double errorRate = option("sim." + name + ".error-rate", option("sim.error-rate", 0.01));
+		return new StubService(name, basePath, Long.parseLong(latency[0]), Long.parseLong(latency[1]), errorRate);
+	}
+
+	private ConfigurableApplicationContext start(String[] args, List<StubService> stubs) throws Exception {
+		String url = "jdbc:h2:mem:" + NAME + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+		Map<String, String> properties = new LinkedHashMap<>();
+		properties.put("server.port", "0");
+		properties.put("spring.datasource.url", url);
+		properties.put("spring.datasource.username", "sa");
+		properties.put("spring.datasource.password", "");
+		properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+		properties.put("spring.quartz.properties.org.quartz.scheduler.instanceName", NAME);
+		properties.put("spring.quartz.properties.org.quartz.dataSource.quartzDataSource.driver", "org.h2.Driver");
+		properties.put("spring.quartz.properties.org.quartz.dataSource.quartzDataSource.URL", url);
+		properties.put("spring.quartz.properties.org.quartz.dataSource.quartzDataSource.user", "sa");
+		properties.put("spring.quartz.properties.org.quartz.dataSource.quartzDataSource.password", "");
+		properties.put("notification.service.url", stubs.get(0).url());
+		properties.put("roombillz.service.url", stubs.get(1).url());
+		properties.put("document.service.url", stubs.get(2).url());
+		properties.put("eureka.client.enabled", "false");
+		properties.put("logging.level.root", "WARN");
+		properties.put("logging.level.org.quartz", "WARN");
+		properties.put("logging.level.com.inn", "WARN");
+		// Repeated keys would be joined into a list, so the caller's replace ours
+		for (String arg : args) {
+			int eq = arg.indexOf('=');
+			if (arg.startsWith("--") && eq > 2)
+				properties.put(arg.substring(2, eq), arg.substring(eq + 1));
+		}
+
+		SpringApplication app = new SpringApplication(RoomBillzSchedulerServiceApplication.class);
+		app.addInitializers(ctx -> ((GenericApplicationContext) ctx).registerBean("simulationDispatchListener",
+				DispatchListener.class, () -> result -> {
+					// Retries are not fires
+					if (result.getRequest().getAttempt() == 0)
+						endToEnd.recordSince(result.getRequest().getScheduledFireTime());
+				}));
+		ConfigurableApplicationContext context = app.run(properties.entrySet().stream()
+				.map(e -> "--" + e.getKey() + "=" + e.getValue()).toArray(String[]::new));
+
+		context.getBean(Scheduler.class).getListenerManager().addJobListener(new JobListenerSupport() {
+			@Override
+			public String getName() {
+				return NAME;
+			}
+
+			@Override
+			public void jobToBeExecuted(JobExecutionContext ctx) {
+				fires.increment();
+				fireLag.recordSince(ctx.getScheduledFireTime());
+			}
+
+			@Override
+			public void jobWasExecuted(JobExecutionContext ctx, JobExecutionException jobException) {
+				// ASYNC calls complete in the dispatch listener above
+				if (ctx.getJobDetail().getJobClass() != AsyncRestInvokeJob.class)
+					endToEnd.recordSince(ctx.getScheduledFireTime());
+			}
+		});
+		return context;
+	}
+
+	private void createJobs(URI batch, List<String> targets, ObjectMapper json) throws Exception {
+		int count = option("sim.jobs", 20000);
+		double cronShare = option("sim.cron-share", 0.5);
+		double asyncShare = option("sim.async-share", 0.5);
+		String[] crons = option("sim.crons", "0/30 * * * * ?;0 * * * * ?;0 0/5 * * * ?").split(";");
+		int[] intervals = Arrays.stream(option("sim.intervals", "15,60,300").split(",")).map(String::trim)
+				.mapToInt(Integer::parseInt).toArray();
+
+		Random random = new Random(42);
+		HttpClient http = HttpClient.newHttpClient();
+		long start = System.nanoTime();
+		int created = 0;
+		List<CreateJobRequest> chunk = new ArrayList<>(CHUNK);
+		for (int i = 0; i < count; i++) {
+			CreateJobRequest req = new CreateJobRequest();
+			req.setJobName("sim-" + i);
+			req.setJobGroup("group-" + (i % SchedulerFixture.GROUPS));
+			req.setTargetUrl(targets.get(i % targets.size()));
+			req.setBody(Map.of("job", i));
+			if (random.nextDouble() < cronShare) {
+				req.setCronExpression(crons[random.nextInt(crons.length)]);
+			} else {
+				int interval = intervals[random.nextInt(intervals.length)];
+				req.setRepeatIntervalSeconds(interval);
+				req.setStartAt(OffsetDateTime.now().plusNanos(random.nextLong(interval * 1_000_000_000L)));
+			}
+			if (random.nextDouble() < asyncShare)
+				req.setExecutionMode("ASYNC");
+			chunk.add(req);
+			if (chunk.size() == CHUNK || i == count - 1) {
+				HttpResponse<byte[]> response = http.send(
+						HttpRequest.newBuilder(batch).header("Content-Type", "application/json")
+								.POST(HttpRequest.BodyPublishers.ofByteArray(json.writeValueAsBytes(chunk))).build(),
+						HttpResponse.BodyHandlers.ofByteArray());
+				if (response.statusCode() != 200)
+					throw new IllegalStateException("POST /batch returned " + response.statusCode() + ": "
+							+ new String(response.body()));
+				created += json.readValue(response.body(), BatchCreateResponse.class).getCreated();
+				chunk.clear();
+			}
+		}
+		System.out.printf("Created %d of %d jobs in %d ms%n", created, count, (System.nanoTime() - start) / 1_000_000);
+	}
+
+	private static double misfires(MeterRegistry registry) {
+		return registry.find("scheduler.trigger.misfires").counters().stream().mapToDouble(Counter::count).sum();
+	}
+
+	private Map<String, String> settings() {
+		Map<String, String> settings = new LinkedHashMap<>();
+		for (String name : options.getPropertyNames())
+			settings.put(name, options.getProperty(name));
+		return settings;
+	}
+
+	private static void print(Map<String, Object> report) {
+		System.out.println();
+		report.forEach((key, value) -> {
+			if (value instanceof List<?> list) {
+				System.out.println(key + ":");
+				list.forEach(row -> System.out.println("  " + row));
+			} else {
+				System.out.println(key + ": " + value);
+			}
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T option(String name, T defaultValue) {
+		String value = options.getProperty(name);
+		if (value == null)
+			return defaultValue;
+		if (defaultValue instanceof Integer)
+			return (T) Integer.valueOf(value);
+		if (defaultValue instanceof Long)
+			return (T) Long.valueOf(value);
+		if (defaultValue instanceof Double)
+			return (T) Double.valueOf(value);
+		return (T) value;
+	}
+
+	/**
+	 * Exact counts per millisecond up to ten minutes, so percentiles over the
+	 * whole period come out exact; longer values count as ten minutes.
+	 */
+	static final class MillisHistogram {
+
+		private static final int MAX_MS = 600_000;
+		private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+		private static final String[] LABELS = { "p50", "p90", "p99", "p99.9" };
+
+		private final AtomicLongArray counts = new AtomicLongArray(MAX_MS + 1);
+
+		void recordSince(Date scheduledFireTime) {
+			long ms = System.currentTimeMillis() - scheduledFireTime.getTime();
+			counts.incrementAndGet((int) Math.clamp(ms, 0, MAX_MS));
+		}
+
+		Map<String, Object> percentiles() {
+			long total = 0;
+			int max = 0;
+			for (int ms = 0; ms <= MAX_MS; ms++) {
+				long count = counts.get(ms);
+				total += count;
+				if (count > 0)
+					max = ms;
+			}
+			Map<String, Object> values = new LinkedHashMap<>();
+			values.put("count", total);
+			for (int i = 0; i < PERCENTILES.length; i++) {
+				long rank = (long) Math.ceil(total * PERCENTILES[i] / 100);
+				long seen = 0;
+				int ms = 0;
+				while (ms < MAX_MS && (seen += counts.get(ms)) < rank)
+					ms++;
+				values.put(LABELS[i], total > 0 ? ms : 0);
+			}
+			values.put("max", max);
+			return values;
+		}
+	}
+}
@@ -0,0 +1,179 @@
+package com.inn.benchmark;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.quartz.JobDetail;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.impl.StdSchedulerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inn.cache.TriggerInfoCache;
+import com.inn.config.SchedulerProperties;
+import com.inn.dto.CreateJobRequest;
+import com.inn.ephemeral.EphemeralJobEngine;
+import com.inn.payload.JobDataMigration;
+import com.inn.payload.JobPayloadStore;
+import com.inn.payload.JsonPayloadCodec;
+import com.inn.repository.EphemeralJobRepository;
+import com.inn.repository.JobPayloadRepository;
+import com.inn.repository.TriggerChangeLogRepository;
+import com.inn.repository.TriggerQueryRepository;
+import com.inn.service.SchedulerService;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * A SchedulerService wired by hand against either RAMJobStore or JobStoreTX on
+ * an in-memory H2 database in MySQL mode, with the RB_ schema from
+ * db/scheduler-schema.sql and Quartz's QRTZ_ tables. The scheduler is never
+ * started, so nothing fires while benchmarks read and write the store.
+ */
+final class SchedulerFixture implements AutoCloseable {
+
+	enum Store {
+		RAM, JDBC
+	}
+
+	static final int GROUPS = 20;
+
+	final JdbcTemplate jdbc;
+	final JobPayloadStore payloads;
+	Scheduler scheduler;
+	SchedulerService service;
+	TriggerInfoCache cache;
+
+	private final HikariDataSource dataSource;
+	private final Properties quartz;
+
+	private SchedulerFixture(HikariDataSource dataSource, Properties quartz) throws SchedulerException {
+		this.dataSource = dataSource;
+		this.quartz = quartz;
+		this.jdbc = new JdbcTemplate(dataSource);
+		this.payloads = new JobPayloadStore(new JobPayloadRepository(jdbc, "QRTZ_"),
+				List.of(new JsonPayloadCodec(new ObjectMapper())), new SchedulerProperties(),
+				new SimpleMeterRegistry());
+		start();
+	}
+
+	private void start() throws SchedulerException {
+		scheduler = new StdSchedulerFactory(quartz).getScheduler();
+		cache = new TriggerInfoCache(new SchedulerProperties(), new SimpleMeterRegistry(),
+				new TriggerChangeLogRepository(jdbc), scheduler, false);
+		// Never started: ephemeral jobs are not created here, only checked for key clashes
+		EphemeralJobEngine ephemeral = new EphemeralJobEngine(scheduler, null,
+				new EphemeralJobRepository(jdbc, "QRTZ_"), null, new SchedulerProperties(), new SimpleMeterRegistry(),
+				false);
+		service = new SchedulerService(scheduler,
+				new TriggerQueryRepository(new NamedParameterJdbcTemplate(jdbc), scheduler, "QRTZ_"), cache, payloads,
+				ephemeral);
+	}
+
+	static SchedulerFixture open(Store store, String name) throws SchedulerException {
+		// The RB_ tables are created for RAM too so the service wiring is identical.
+		// QRTZ_ uses Quartz's H2 DDL: the MySQL one stores booleans as VARCHAR(1),
+		// which only MySQL's driver coerces.
+		String url = "jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+		HikariDataSource dataSource = dataSource(url);
+		ResourceDatabasePopulator schema = new ResourceDatabasePopulator(
+				new ClassPathResource("db/scheduler-schema.sql"));
+		if (store == Store.JDBC)
+			schema.addScript(new ClassPathResource("org/quartz/impl/jdbcjobstore/tables_h2.sql"));
+		schema.execute(dataSource);
+
+		Properties props = new Properties();
+		props.setProperty("org.quartz.scheduler.instanceName", name);
+		props.setProperty("org.quartz.threadPool.threadCount", "1");
+		if (store == Store.JDBC) {
+			// Mirrors application.yaml, minus clustering which only matters once started
+			props.setProperty("org.quartz.jobStore.class", "org.quartz.impl.jdbcjobstore.JobStoreTX");
+			props.setProperty("org.quartz.jobStore.driverDelegateClass",
+					"org.quartz.impl.jdbcjobstore.StdJDBCDelegate");
+			props.setProperty("org.quartz.jobStore.tablePrefix", "QRTZ_");
+			props.setProperty("org.quartz.jobStore.misfireThreshold", "60000");
+			props.setProperty("org.quartz.jobStore.acquireTriggersWithinLock", "true");
+			props.setProperty("org.quartz.jobStore.dataSource", "bench");
+			props.setProperty("org.quartz.dataSource.bench.provider", "hikaricp");
+			props.setProperty("org.quartz.dataSource.bench.driver", "org.h2.Driver");
+			props.setProperty("org.quartz.dataSource.bench.URL", url);
+			props.setProperty("org.quartz.dataSource.bench.user", "sa");
+			props.setProperty("org.quartz.dataSource.bench.password", "");
+			props.setProperty("org.quartz.dataSource.bench.maxConnections", "10");
+		} else {
+			props.setProperty("org.quartz.jobStore.class", "org.quartz.simpl.RAMJobStore");
+		}
+		return new SchedulerFixture(dataSource, props);
+	}
+
+	private static HikariDataSource dataSource(String url) {
+		HikariConfig config = new HikariConfig();
+		config.setJdbcUrl(url);
+		config.setUsername("sa");
+		config.setMaximumPoolSize(4);
+		return new HikariDataSource(config);
+	}
+
+	/**
+	 * Restarts the scheduler on the same database with one Quartz property
+	 * changed, as a redeploy with new configuration would.
+	 */
+	void restart(String property, String value) throws SchedulerException {
+		scheduler.shutdown(false);
+		quartz.setProperty(property, value);
+		start();
+	}
+
+	JobDataMigration migration() {
+		return new JobDataMigration(jdbc, payloads, "QRTZ_");
+	}
+
+	/**
+	 * Schedules {@code count} cron jobs spread over {@link #GROUPS} groups, built
+	 * the same way the REST API builds them.
+	 */
+	void populate(int count) throws SchedulerException {
+		Map<JobDetail, Set<? extends Trigger>> chunk = new HashMap<>();
+		for (int i = 0; i < count; i++) {
+			CreateJobRequest req = request("job-" + i, "group-" + (i % GROUPS));
+			JobDetail job = service.buildJobDetail(req);
+			chunk.put(job, Set.of(service.buildTrigger(req, job)));
+			if (chunk.size() == 1000) {
+				scheduler.scheduleJobs(chunk, false);
+				chunk.clear();
+			}
+		}
+		if (!chunk.isEmpty())
+			scheduler.scheduleJobs(chunk, false);
+	}
+
+	static CreateJobRequest request(String name, String group) {
+		CreateJobRequest req = new CreateJobRequest();
+		req.setJobName(name);
+		req.setJobGroup(group);
+		req.setCronExpression("0 0/5 * * * ?");
+		req.setTargetUrl("http://localhost:8082/api/v1/notifications/reminder");
+		req.setHttpMethod("POST");
+		return req;
+	}
+
+	@Override
+	public void close() throws SchedulerException {
+		try {
+			scheduler.shutdown(false);
+		} finally {
+			jdbc.execute("DROP ALL OBJECTS");
+			dataSource.close();
+		}
+	}
+}
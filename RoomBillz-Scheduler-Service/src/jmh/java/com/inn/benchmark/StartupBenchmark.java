@@ -0,0 +1,104 @@
+package com.inn.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.JobDetail;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.inn.RoomBillzSchedulerServiceApplication;
+import com.inn.dto.CreateJobRequest;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Time from starting the application to its first acquired trigger, with and
+ * without the fast-start profile. The whole application boots in a fresh JVM
+ * per fork against an H2 JobStore holding {@code jobs} cron jobs plus one
+ * trigger that is already due. The web server takes a random port, and there
+ * is no Eureka server to register with.
+ * <p>
+ * Class loading is part of the score, so each fork measures once. AOT and the
+ * CDS archive need the packaged jar; for those, compare the "First trigger
+ * acquired" log line of the Docker image with and without them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+public class StartupBenchmark {
+
+	static final String NAME = "startup";
+
+	@Param({ "default", "fast-start" })
+	String profile;
+
+	@Param({ "1000" })
+	int jobs;
+
+	SchedulerFixture fixture;
+	ConfigurableApplicationContext context;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		System.setProperty("spring.devtools.restart.enabled", "false");
+		fixture = SchedulerFixture.open(SchedulerFixture.Store.JDBC, NAME);
+		fixture.populate(jobs);
+		// No cron expression: a simple trigger starting now
+		CreateJobRequest due = SchedulerFixture.request("due-now", "startup");
+		due.setCronExpression(null);
+		JobDetail job = fixture.service.buildJobDetail(due);
+		fixture.scheduler.scheduleJob(job, fixture.service.buildTrigger(due, job));
+		// The application's scheduler takes the same name
+		fixture.scheduler.shutdown(false);
+	}
+
+	@Benchmark
+	public double firstAcquiredTrigger() throws Exception {
+		SpringApplication app = new SpringApplication(RoomBillzSchedulerServiceApplication.class);
+		// Not JMH's: AOT mode looks up the generated initializer by main class
+		app.setMainApplicationClass(RoomBillzSchedulerServiceApplication.class);
+		if ("fast-start".equals(profile))
+			app.setAdditionalProfiles("fast-start");
+		String url = "jdbc:h2:mem:" + NAME + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+		context = app.run("--server.port=0", "--spring.datasource.url=" + url,
+				"--spring.datasource.username=sa", "--spring.datasource.password=",
+				"--spring.datasource.driver-class-name=org.h2.Driver",
+				"--spring.quartz.properties.org.quartz.scheduler.instanceName=" + NAME,
+				"--spring.quartz.properties.org.quartz.dataSource.quartzDataSource.driver=org.h2.Driver",
+				"--spring.quartz.properties.org.quartz.dataSource.quartzDataSource.URL=" + url,
+				"--spring.quartz.properties.org.quartz.dataSource.quartzDataSource.user=sa",
+				"--spring.quartz.properties.org.quartz.dataSource.quartzDataSource.password=",
+				"--logging.level.org.quartz=WARN", "--logging.level.com.inn=WARN");
+		Gauge firstAcquire = Metrics.globalRegistry.get("scheduler.startup.first.acquire").gauge();
+		while (Double.isNaN(firstAcquire.value()))
+			Thread.sleep(1);
+		return firstAcquire.value();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		if (context != null) {
+			System.out.printf("%n[%s] first trigger acquired %.0f ms after JVM start%n", profile,
+					Metrics.globalRegistry.get("scheduler.startup.first.acquire").gauge().value());
+			context.close();
+		}
+		fixture.close();
+	}
+}
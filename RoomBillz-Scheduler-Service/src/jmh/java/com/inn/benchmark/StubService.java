@@ -0,0 +1,83 @@
+package com.inn.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A stand-in for a downstream service (notification, main, document) on a
+ * random loopback port. Every request under its base path is answered after a
+ * log-normal delay with the given median and p99, and {@code errorRate} of them
+ * fail with 503.
+ */
+final class StubService implements AutoCloseable {
+
+	// Standard normal quantile of 0.99
+	private static final double Z99 = 2.3263;
+	private static final byte[] OK = "{\"status\":\"OK\"}".getBytes(StandardCharsets.UTF_8);
+
+	final String name;
+	final LongAdder calls = new LongAdder();
+	final LongAdder errors = new LongAdder();
+
+	private final String basePath;
+	private final double mu;
+	private final double sigma;
+	private final double errorRate;
+	private final HttpServer server;
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+	StubService(String name, String basePath, long medianMs, long p99Ms, double errorRate) throws IOException {
+		if (medianMs < 1 || p99Ms < medianMs)
+			throw new IllegalArgumentException(name + ": need 1 <= median <= p99, got " + medianMs + "/" + p99Ms);
+		this.name = name;
+		this.basePath = basePath;
+		this.mu = Math.log(medianMs);
+		this.sigma = Math.log((double) p99Ms / medianMs) / Z99;
+		this.errorRate = errorRate;
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+		server.setExecutor(executor);
+		server.createContext(basePath, this::handle);
+		server.start();
+	}
+
+	String url() {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + basePath;
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+			calls.increment();
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			try {
+				Thread.sleep(Math.round(Math.exp(mu + sigma * random.nextGaussian())));
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			if (random.nextDouble() < errorRate) {
+				errors.increment();
+				exchange.sendResponseHeaders(503, -1);
+				return;
+			}
+			exchange.getResponseHeaders().set("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, OK.length);
+			exchange.getResponseBody().write(OK);
+		}
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+}
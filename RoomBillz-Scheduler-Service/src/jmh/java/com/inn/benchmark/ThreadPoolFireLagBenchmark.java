@@ -0,0 +1,130 @@
+package com.inn.benchmark;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.Job;
+import org.quartz.JobBuilder;
+import org.quartz.JobExecutionContext;
+import org.quartz.Scheduler;
+import org.quartz.TriggerBuilder;
+import org.quartz.impl.StdSchedulerFactory;
+
+import com.inn.config.VirtualThreadPool;
+
+/**
+ * Fire lag of Quartz's SimpleThreadPool (10 workers, as in application.yaml)
+ * against {@link VirtualThreadPool} when N triggers become due at once. Each job
+ * simulates an I/O-bound REST call by sleeping.
+ * <p>
+ * The score is the time to drain all fires; lag percentiles (time from release
+ * to job start) are printed per iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ThreadPoolFireLagBenchmark {
+
+	@Param({ "1000", "10000", "50000" })
+	int fires;
+
+	@Param({ "SIMPLE", "VIRTUAL" })
+	String pool;
+
+	@Param("20")
+	int jobLatencyMs;
+
+	static volatile long releasedAt;
+	static volatile int sleepMs;
+	static long[] lags;
+	static AtomicInteger recorded;
+	static CountDownLatch done;
+
+	Scheduler scheduler;
+
+	public static class SleepingJob implements Job {
+		@Override
+		public void execute(JobExecutionContext context) {
+			lags[recorded.getAndIncrement()] = System.currentTimeMillis() - releasedAt;
+			try {
+				Thread.sleep(sleepMs);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			done.countDown();
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void setUp() throws Exception {
+		Properties props = new Properties();
+		props.setProperty("org.quartz.scheduler.instanceName", "bench-" + pool + "-" + fires);
+		props.setProperty("org.quartz.jobStore.class", "org.quartz.simpl.RAMJobStore");
+		props.setProperty("org.quartz.jobStore.misfireThreshold", "600000");
+		props.setProperty("org.quartz.scheduler.batchTriggerAcquisitionMaxCount", "100");
+		if ("VIRTUAL".equals(pool)) {
+			props.setProperty("org.quartz.threadPool.class", VirtualThreadPool.class.getName());
+			props.setProperty("org.quartz.threadPool.maxConcurrency", "10000");
+		} else {
+			props.setProperty("org.quartz.threadPool.class", "org.quartz.simpl.SimpleThreadPool");
+			props.setProperty("org.quartz.threadPool.threadCount", "10");
+		}
+		scheduler = new StdSchedulerFactory(props).getScheduler();
+
+		sleepMs = jobLatencyMs;
+		lags = new long[fires];
+		recorded = new AtomicInteger();
+		done = new CountDownLatch(fires);
+
+		// Everything is due immediately; nothing fires until the scheduler starts
+		Date due = new Date();
+		for (int i = 0; i < fires; i++) {
+			scheduler.scheduleJob(JobBuilder.newJob(SleepingJob.class).withIdentity("job-" + i, "bench").build(),
+					TriggerBuilder.newTrigger().withIdentity("trigger-" + i, "bench").startAt(due).build());
+		}
+	}
+
+	@Benchmark
+	public void fireAll() throws Exception {
+		releasedAt = System.currentTimeMillis();
+		scheduler.start();
+		done.await();
+	}
+
+	@TearDown(Level.Iteration)
+	public void tearDown() throws Exception {
+		scheduler.shutdown(false);
+		long[] sorted = Arrays.copyOf(lags, recorded.get());
+		Arrays.sort(sorted);
+		System.out.printf("%n[%s fires=%d] fire lag ms p50=%d p95=%d p99=%d max=%d%n", pool, fires,
+				percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99),
+				sorted.length == 0 ? 0 : sorted[sorted.length - 1]);
+	}
+
+	static long percentile(long[] sorted, double p) {
+		if (sorted.length == 0)
+			return 0;
+		int idx = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(idx, sorted.length - 1))];
+	}
+}
@@ -0,0 +1,84 @@
+package com.inn.benchmark;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.inn.ephemeral.TimingWheel;
+
+/**
+ * Schedule plus cancel of one timeout with {@code pending} others already
+ * waiting, as an ephemeral job is rescheduled or deleted. WHEEL is the
+ * ephemeral engine's {@link TimingWheel}; HEAP is a ScheduledThreadPoolExecutor
+ * with removeOnCancel, whose heap makes both operations O(log n).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimingWheelBenchmark {
+
+	static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+	@Param({ "WHEEL", "HEAP" })
+	String timer;
+
+	@Param({ "1000", "100000", "1000000" })
+	int pending;
+
+	TimingWheel wheel;
+	ScheduledThreadPoolExecutor heap;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		// Same wheel shape as the roombillz.scheduler.ephemeral defaults
+		wheel = new TimingWheel("bench-wheel", 10, 8, 4);
+		heap = new ScheduledThreadPoolExecutor(1);
+		heap.setRemoveOnCancelPolicy(true);
+		long now = System.currentTimeMillis();
+		for (int i = 0; i < pending; i++) {
+			// Spread over the next hour, like many seconds- to minutes-interval jobs
+			long delay = 1000 + ThreadLocalRandom.current().nextLong(HOUR);
+			if ("WHEEL".equals(timer))
+				wheel.schedule(now + delay, () -> {
+				});
+			else
+				heap.schedule(() -> {
+				}, delay, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		wheel.stop();
+		heap.shutdownNow();
+	}
+
+	@Benchmark
+	public boolean scheduleAndCancel() {
+		long delay = 1000 + ThreadLocalRandom.current().nextLong(HOUR);
+		if ("WHEEL".equals(timer))
+			return wheel.schedule(System.currentTimeMillis() + delay, () -> {
+			}).cancel();
+		ScheduledFuture<?> future = heap.schedule(() -> {
+		}, delay, TimeUnit.MILLISECONDS);
+		return future.cancel(false);
+	}
+}
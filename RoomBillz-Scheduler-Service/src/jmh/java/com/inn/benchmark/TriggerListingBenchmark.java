@@ -0,0 +1,78 @@
+package com.inn.benchmark;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.TriggerKey;
+
+import com.inn.benchmark.SchedulerFixture.Store;
+import com.inn.service.TriggerInfoView;
+
+/**
+ * {@code listAllTriggers} and {@code getTriggerInfo} over 1k, 10k and 100k
+ * stored triggers. Detail lookups are measured both as cache misses (the
+ * trigger is evicted first, so the store is read) and as cache hits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TriggerListingBenchmark {
+
+	@Param({ "RAM", "JDBC" })
+	String store;
+
+	@Param({ "1000", "10000", "100000" })
+	int triggers;
+
+	SchedulerFixture fixture;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		fixture = SchedulerFixture.open(Store.valueOf(store), "listing-" + store + "-" + triggers);
+		fixture.populate(triggers);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		fixture.close();
+	}
+
+	@Benchmark
+	public List<TriggerInfoView> listAllTriggers() throws Exception {
+		return fixture.service.listAllTriggers();
+	}
+
+	@Benchmark
+	public Optional<TriggerInfoView> getTriggerInfoMiss() throws Exception {
+		int i = ThreadLocalRandom.current().nextInt(triggers);
+		String group = "group-" + (i % SchedulerFixture.GROUPS);
+		String name = "job-" + i;
+		fixture.cache.evict(TriggerKey.triggerKey(name + "_trigger", group), false);
+		return fixture.service.getTriggerInfo(group, name);
+	}
+
+	@Benchmark
+	public Optional<TriggerInfoView> getTriggerInfoHit() throws Exception {
+		// Small working set so it stays resident regardless of cache size
+		int i = ThreadLocalRandom.current().nextInt(Math.min(triggers, 1000));
+		return fixture.service.getTriggerInfo("group-" + (i % SchedulerFixture.GROUPS), "job-" + i);
+	}
+}
@@ -0,0 +1,69 @@
+package com.inn.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.inn.benchmark.SchedulerFixture.Store;
+import com.inn.dto.PageResponse;
+import com.inn.dto.TriggerPageQuery;
+import com.inn.service.TriggerInfoView;
+
+/**
+ * The paged {@code listTriggers} query, for comparison with
+ * {@link TriggerListingBenchmark#listAllTriggers}. JDBC only: the query reads
+ * the QRTZ_ tables directly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TriggerPageBenchmark {
+
+	@Param({ "1000", "10000", "100000" })
+	int triggers;
+
+	@Param("100")
+	int limit;
+
+	SchedulerFixture fixture;
+	TriggerPageQuery firstPage;
+	TriggerPageQuery groupPage;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		fixture = SchedulerFixture.open(Store.JDBC, "page-" + triggers);
+		fixture.populate(triggers);
+		firstPage = TriggerPageQuery.builder().limit(limit).build();
+		groupPage = TriggerPageQuery.builder().group("group-7").limit(limit).build();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		fixture.close();
+	}
+
+	@Benchmark
+	public PageResponse<TriggerInfoView> firstPage() throws Exception {
+		return fixture.service.listTriggers(firstPage);
+	}
+
+	@Benchmark
+	public PageResponse<TriggerInfoView> firstPageOfGroup() throws Exception {
+		return fixture.service.listTriggers(groupPage);
+	}
+}
@@ -5,6 +5,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import io.swagger.v3.oas.annotations.ExternalDocumentation;
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
@@ -17,6 +18,7 @@ import io.swagger.v3.oas.annotations.servers.Server;
 @EnableFeignClients
 @EnableDiscoveryClient
 @EnableAspectJAutoProxy
+@EnableScheduling
 @OpenAPIDefinition(
 	    info = @Info(
 	        title = "RoomBillz Scheduler Service",
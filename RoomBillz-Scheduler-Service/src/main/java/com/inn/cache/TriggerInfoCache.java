@@ -0,0 +1,180 @@
+package com.inn.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.TriggerKey;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.inn.config.SchedulerProperties;
+import com.inn.repository.TriggerChangeLogRepository;
+import com.inn.repository.TriggerChangeLogRepository.TriggerChange;
+import com.inn.service.TriggerInfoView;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded, TTL-expiring cache of {@link TriggerInfoView} for detail lookups.
+ * Local changes are evicted by the Quartz listeners in
+ * {@link com.inn.listener.TriggerCacheListener}; when clustered, evictions are
+ * also queued and written to RB_TRIGGER_CHANGE_LOG in batches, and rows from
+ * other nodes are polled and applied. Rows written in the last
+ * {@code changeLogOverlapMs} are read again on every poll, so a row that
+ * commits after rows with higher IDs is still applied; the window has to cover
+ * the longest insert plus the clock skew between nodes. Hit/miss stats are
+ * published as {@code cache.*{cache=triggerInfo}}.
+ */
+@Slf4j
+@Component
+public class TriggerInfoCache {
+
+	private final Cache<TriggerKey, TriggerInfoView> cache;
+	private final Queue<TriggerChange> outbox = new ConcurrentLinkedQueue<>();
+	private final TriggerChangeLogRepository changeLog;
+	private final Scheduler scheduler;
+	private final SchedulerProperties.Cache config;
+	private final boolean clustered;
+
+	private volatile long lastSeenId;
+	// Applied rows still inside the overlap window, by ID; only touched by syncCluster
+	private final Map<Long, Long> recentlyApplied = new HashMap<>();
+
+	public TriggerInfoCache(SchedulerProperties properties, MeterRegistry meterRegistry,
+			TriggerChangeLogRepository changeLog, Scheduler scheduler,
+			@Value("${spring.quartz.properties.org.quartz.jobStore.isClustered:false}") boolean clustered) {
+		this.config = properties.getCache();
+		this.changeLog = changeLog;
+		this.scheduler = scheduler;
+		this.clustered = clustered;
+		this.cache = Caffeine.newBuilder().maximumSize(config.getMaxSize())
+				.expireAfterWrite(Duration.ofMillis(config.getTtlMs())).recordStats().build();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, "triggerInfo");
+	}
+
+	@PostConstruct
+	void init() {
+		if (!clustered)
+			return;
+		try {
+			lastSeenId = changeLog.maxId();
+		} catch (Exception ex) {
+			log.warn("Unable to read trigger change log, cluster invalidation starts from scratch: {}", ex.getMessage());
+		}
+	}
+
+	public TriggerInfoView get(TriggerKey key) {
+		return cache.getIfPresent(key);
+	}
+
+	/**
+	 * Cached view, or the loader's result, cached unless null. An eviction of the
+	 * key waits for a running load, so a change made meanwhile can't be
+	 * overwritten by the view loaded before it.
+	 */
+	public TriggerInfoView get(TriggerKey key, Function<TriggerKey, TriggerInfoView> loader) {
+		return cache.get(key, loader);
+	}
+
+	public void evict(TriggerKey key, boolean publish) {
+		cache.invalidate(key);
+		if (publish)
+			publish(key.getGroup(), key.getName());
+	}
+
+	/**
+	 * Job-level events don't carry trigger keys; drop whatever is cached for the
+	 * job and publish the trigger key this service creates for it.
+	 */
+	public void evictJob(JobKey jobKey, boolean publish) {
+		cache.asMap().values()
+				.removeIf(v -> jobKey.getName().equals(v.getJobName()) && jobKey.getGroup().equals(v.getJobGroup()));
+		if (publish)
+			publish(jobKey.getGroup(), jobKey.getName() + "_trigger");
+	}
+
+	public void evictGroup(String group, boolean publish) {
+		cache.asMap().keySet().removeIf(k -> k.getGroup().equals(group));
+		if (publish)
+			publish(group, null);
+	}
+
+	public void evictAll(boolean publish) {
+		cache.invalidateAll();
+		if (publish)
+			publish("", null);
+	}
+
+	private void publish(String group, String name) {
+		if (clustered)
+			outbox.add(new TriggerChange(0, group, name, 0));
+	}
+
+	@Scheduled(fixedDelayString = "${roombillz.scheduler.cache.sync-interval-ms:2000}")
+	void syncCluster() {
+		if (!clustered)
+			return;
+		try {
+			String schedName = scheduler.getSchedulerName();
+
+			List<TriggerChange> pending = new ArrayList<>();
+			TriggerChange change;
+			while ((change = outbox.poll()) != null)
+				pending.add(change);
+			if (!pending.isEmpty())
+				changeLog.insert(schedName, pending, System.currentTimeMillis());
+
+			long since = System.currentTimeMillis() - config.getChangeLogOverlapMs();
+			recentlyApplied.values().removeIf(changedAt -> changedAt < since);
+			long seen = lastSeenId;
+			long cursor = 0;
+			List<TriggerChange> remote;
+			do {
+				remote = changeLog.findAfter(schedName, cursor, seen, since, 1000);
+				for (TriggerChange c : remote) {
+					cursor = c.id();
+					if (c.id() <= seen && recentlyApplied.containsKey(c.id()))
+						continue;
+					if (c.name() != null)
+						evict(TriggerKey.triggerKey(c.name(), c.group()), false);
+					else if (c.group().isEmpty())
+						evictAll(false);
+					else
+						evictGroup(c.group(), false);
+					if (c.changedAt() >= since)
+						recentlyApplied.put(c.id(), c.changedAt());
+					lastSeenId = Math.max(lastSeenId, c.id());
+				}
+			} while (remote.size() == 1000);
+		} catch (Exception ex) {
+			// TTL still bounds staleness; drop to a clean cache rather than serve unknown state
+			log.warn("Trigger cache cluster sync failed: {}", ex.getMessage());
+			cache.invalidateAll();
+		}
+	}
+
+	@Scheduled(fixedDelay = 60000)
+	void purgeChangeLog() {
+		if (!clustered)
+			return;
+		try {
+			changeLog.deleteOlderThan(System.currentTimeMillis() - config.getChangeLogRetentionMs());
+		} catch (Exception ex) {
+			log.warn("Trigger change log purge failed: {}", ex.getMessage());
+		}
+	}
+}
@@ -0,0 +1,461 @@
+package com.inn.config;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.quartz.SchedulerConfigException;
+import org.quartz.core.JobRunShell;
+import org.quartz.spi.ThreadPool;
+import org.quartz.spi.TriggerFiredBundle;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Quartz {@link ThreadPool} that queues fired jobs per job group and starts
+ * them in weighted fair order, so a tenant with thousands of due triggers
+ * cannot hold every worker while other tenants' fires wait behind it.
+ * <p>
+ * {@link #blockForAvailableThreads()} reports free queue space rather than
+ * free workers, letting the scheduler thread fire up to {@code lookAhead}
+ * times the worker count ahead of execution. Fires of groups at their
+ * {@code groupMaxConcurrency} don't count against that limit, since no free
+ * worker can take them: otherwise a capped group's backlog would block the
+ * scheduler thread while workers sit idle. Fired jobs wait in their group's
+ * FIFO; whenever a
+ * worker is free the backlogged group with the lowest virtual start time runs
+ * next and its start time advances by {@code 1 / weight} (stride scheduling),
+ * so under contention groups get starts in proportion to their weights. A
+ * group that was idle rejoins at the current virtual time instead of cashing in
+ * the time it was idle. Groups at their {@code groupMaxConcurrency} are passed
+ * over until one of their jobs completes.
+ * <p>
+ * Fairness only covers what has been fired: unless the JobStore acquires
+ * fairly as well ({@code org.quartz.jobStore.fairAcquisition}, set together
+ * with this pool), triggers come by next fire time, so the pool reorders
+ * starts within the look-ahead window and does not reach past a flooding
+ * group's backlog. The window is kept
+ * small on purpose. Queued jobs are already fired, and no job requests
+ * recovery, so if the node dies the queued fires are lost: cluster recovery
+ * only releases their triggers, which fire again at their next fire time. A
+ * large window would also take fires away from other nodes that have idle
+ * workers. {@code maxQueued} is the hard cap for a pool with no look-ahead
+ * limit in front of it.
+ * <p>
+ * Runs on a fixed set of {@code threadCount} platform threads, or on virtual
+ * threads capped at {@code maxConcurrency} when {@code virtual} is set. Group
+ * maps are {@code group=value} lists separated by commas. Selected through
+ * {@code roombillz.scheduler.fair-queue}, see {@link QuartzConfig}.
+ */
+@Slf4j
+public class FairShareThreadPool implements ThreadPool {
+
+	/**
+	 * Receives per-group events, on worker threads and without the pool's lock.
+	 */
+	public interface Observer {
+
+		void groupAdded(String group);
+
+		void started(String group, long waitNanos);
+	}
+
+	// Null if JobRunShell no longer has the field; every job then falls into the "" group
+	private static final VarHandle BUNDLE = bundleHandle();
+
+	// By scheduler name, so beans can find the pool Quartz created
+	private static final Map<String, FairShareThreadPool> POOLS = new ConcurrentHashMap<>();
+
+	private final Object lock = new Object();
+	// All groups with queued or running jobs
+	private final Map<String, Group> groups = new HashMap<>();
+	// Groups with queued jobs and spare concurrency, lowest virtual start first
+	private final PriorityQueue<Group> eligible = new PriorityQueue<>(
+			(a, b) -> a.pass != b.pass ? Double.compare(a.pass, b.pass) : Long.compare(a.seq, b.seq));
+
+	private int threadCount = 10;
+	private boolean virtual;
+	private int maxConcurrency = 1000;
+	private int maxQueued = 20000;
+	private int lookAhead = 2;
+	private double defaultWeight = 1;
+	private int defaultGroupMaxConcurrency;
+	private Map<String, Double> weights = Map.of();
+	private Map<String, Integer> groupMaxConcurrency = Map.of();
+
+	private int capacity;
+	private int running;
+	private int queued;
+	// Queued fires of groups at their concurrency cap
+	private int capped;
+	private double virtualTime;
+	private long seq;
+	private boolean shutdown;
+	private volatile Observer observer;
+
+	private ExecutorService executor;
+	private String threadNamePrefix = "QuartzScheduler_Worker";
+	private String instanceName;
+	private String instanceId;
+
+	public static FairShareThreadPool forScheduler(String schedulerName) {
+		return POOLS.get(schedulerName);
+	}
+
+	@Override
+	public void initialize() throws SchedulerConfigException {
+		capacity = virtual ? maxConcurrency : threadCount;
+		if (capacity <= 0)
+			throw new SchedulerConfigException((virtual ? "maxConcurrency" : "threadCount") + " must be > 0");
+		if (maxQueued <= 0 || lookAhead <= 0 || defaultWeight <= 0)
+			throw new SchedulerConfigException("maxQueued, lookAhead and defaultWeight must be > 0");
+		executor = virtual
+				? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(threadNamePrefix + "-", 1).factory())
+				: Executors.newFixedThreadPool(threadCount, Thread.ofPlatform().name(threadNamePrefix + "-", 1).factory());
+		if (instanceName != null)
+			POOLS.put(instanceName, this);
+		log.info("Fair-share thread pool initialized with {} {} workers, {} fires of look-ahead, weights {}", capacity,
+				virtual ? "virtual" : "platform", lookAheadLimit(), weights);
+	}
+
+	@Override
+	public boolean runInThread(Runnable runnable) {
+		if (runnable == null)
+			return false;
+
+		List<Runnable> start;
+		Group added = null;
+		synchronized (lock) {
+			while (queued >= maxQueued && !shutdown) {
+				try {
+					lock.wait(500);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return false;
+				}
+			}
+			if (shutdown)
+				return false;
+
+			String name = groupOf(runnable);
+			Group group = groups.get(name);
+			if (group == null) {
+				group = new Group(name, weights.getOrDefault(name, defaultWeight),
+						groupMaxConcurrency.getOrDefault(name, defaultGroupMaxConcurrency));
+				groups.put(name, group);
+				added = group;
+			}
+			if (group.queue.isEmpty()) {
+				group.pass = Math.max(group.pass, virtualTime);
+				if (group.running < group.maxConcurrency)
+					offer(group);
+			}
+			group.queue.add(new Queued(runnable, System.nanoTime()));
+			queued++;
+			if (group.running >= group.maxConcurrency)
+				capped++;
+			start = drain();
+		}
+
+		Observer o = observer;
+		if (added != null && o != null)
+			o.groupAdded(added.name);
+		return start(start);
+	}
+
+	@Override
+	public int blockForAvailableThreads() {
+		int limit = lookAheadLimit();
+		synchronized (lock) {
+			while (queued - capped >= limit && !shutdown) {
+				try {
+					lock.wait(500);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+			return Math.max(limit - (queued - capped), 0);
+		}
+	}
+
+	// Fires the scheduler thread may queue ahead of free workers
+	int lookAheadLimit() {
+		return (int) Math.min(maxQueued, (long) lookAhead * capacity);
+	}
+
+	// Under lock: takes as many jobs as there are free workers
+	private List<Runnable> drain() {
+		List<Runnable> start = new ArrayList<>();
+		while (running < capacity && !eligible.isEmpty()) {
+			Group group = eligible.poll();
+			Queued job = group.queue.poll();
+			queued--;
+			running++;
+			group.running++;
+			if (group.running == group.maxConcurrency)
+				capped += group.queue.size();
+			virtualTime = group.pass;
+			group.pass += 1 / group.weight;
+			if (!group.queue.isEmpty() && group.running < group.maxConcurrency)
+				offer(group);
+			start.add(() -> run(group, job));
+		}
+		if (!start.isEmpty())
+			lock.notifyAll();
+		return start;
+	}
+
+	private void offer(Group group) {
+		group.seq = seq++;
+		eligible.add(group);
+	}
+
+	private boolean start(List<Runnable> start) {
+		for (Runnable task : start) {
+			try {
+				executor.execute(task);
+			} catch (RuntimeException ex) {
+				// Only after shutdown; cluster recovery releases the fired trigger
+				log.error("Unable to start queued job", ex);
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void run(Group group, Queued job) {
+		Observer o = observer;
+		if (o != null)
+			o.started(group.name, System.nanoTime() - job.enqueuedAt);
+		try {
+			job.runnable.run();
+		} finally {
+			List<Runnable> start;
+			synchronized (lock) {
+				running--;
+				if (group.running-- == group.maxConcurrency)
+					capped -= group.queue.size();
+				if (!group.queue.isEmpty()) {
+					if (group.running == group.maxConcurrency - 1)
+						offer(group);
+				} else if (group.running == 0) {
+					groups.remove(group.name);
+				}
+				start = drain();
+				lock.notifyAll();
+			}
+			start(start);
+		}
+	}
+
+	static String groupOf(Runnable runnable) {
+		if (BUNDLE != null && runnable instanceof JobRunShell shell) {
+			TriggerFiredBundle bundle = (TriggerFiredBundle) BUNDLE.get(shell);
+			if (bundle != null && bundle.getJobDetail() != null)
+				return bundle.getJobDetail().getKey().getGroup();
+		}
+		return "";
+	}
+
+	private static VarHandle bundleHandle() {
+		try {
+			return MethodHandles.privateLookupIn(JobRunShell.class, MethodHandles.lookup())
+					.findVarHandle(JobRunShell.class, "firedTriggerBundle", TriggerFiredBundle.class);
+		} catch (ReflectiveOperationException | RuntimeException ex) {
+			log.warn("JobRunShell.firedTriggerBundle not accessible, fair queueing falls back to a single group", ex);
+			return null;
+		}
+	}
+
+	public int getQueued() {
+		synchronized (lock) {
+			return queued;
+		}
+	}
+
+	public int getQueued(String group) {
+		synchronized (lock) {
+			Group g = groups.get(group);
+			return g != null ? g.queue.size() : 0;
+		}
+	}
+
+	public int getRunning(String group) {
+		synchronized (lock) {
+			Group g = groups.get(group);
+			return g != null ? g.running : 0;
+		}
+	}
+
+	public void setObserver(Observer observer) {
+		this.observer = observer;
+	}
+
+	@Override
+	public void shutdown(boolean waitForJobsToComplete) {
+		List<Runnable> abandoned = new ArrayList<>();
+		synchronized (lock) {
+			shutdown = true;
+			if (!waitForJobsToComplete) {
+				for (Group group : groups.values()) {
+					group.queue.forEach(q -> abandoned.add(q.runnable));
+					queued -= group.queue.size();
+					group.queue.clear();
+				}
+				eligible.clear();
+				capped = 0;
+			}
+			lock.notifyAll();
+		}
+		if (instanceName != null)
+			POOLS.remove(instanceName, this);
+		if (!abandoned.isEmpty())
+			log.info("Shutting down with {} queued fires not started", abandoned.size());
+		if (executor == null)
+			return;
+
+		if (waitForJobsToComplete) {
+			try {
+				// Queued fires still start as workers free up
+				synchronized (lock) {
+					while (queued > 0)
+						lock.wait(1000);
+				}
+				executor.shutdown();
+				while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+					log.debug("Waiting for {} running jobs to complete", running);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		} else {
+			executor.shutdown();
+		}
+	}
+
+	@Override
+	public int getPoolSize() {
+		return capacity > 0 ? capacity : virtual ? maxConcurrency : threadCount;
+	}
+
+	public void setThreadCount(int threadCount) {
+		this.threadCount = threadCount;
+	}
+
+	public void setVirtual(boolean virtual) {
+		this.virtual = virtual;
+	}
+
+	public void setMaxConcurrency(int maxConcurrency) {
+		this.maxConcurrency = maxConcurrency;
+	}
+
+	public void setMaxQueued(int maxQueued) {
+		this.maxQueued = maxQueued;
+	}
+
+	/**
+	 * @param lookAhead fires queued ahead of execution, as a multiple of the
+	 *                  worker count; capped by maxQueued
+	 */
+	public void setLookAhead(int lookAhead) {
+		this.lookAhead = lookAhead;
+	}
+
+	public void setDefaultWeight(double defaultWeight) {
+		this.defaultWeight = defaultWeight;
+	}
+
+	/**
+	 * @param defaultGroupMaxConcurrency jobs of one group running at once; 0 for
+	 *                                   no limit beyond the pool's
+	 */
+	public void setDefaultGroupMaxConcurrency(int defaultGroupMaxConcurrency) {
+		this.defaultGroupMaxConcurrency = defaultGroupMaxConcurrency;
+	}
+
+	/**
+	 * @param weights e.g. {@code chain-a=4,chain-b=2}
+	 */
+	public void setWeights(String weights) {
+		Map<String, Double> parsed = new HashMap<>();
+		parse(weights).forEach((group, value) -> parsed.put(group, Double.parseDouble(value)));
+		this.weights = parsed;
+	}
+
+	/**
+	 * @param groupMaxConcurrency e.g. {@code chain-a=8}
+	 */
+	public void setGroupMaxConcurrency(String groupMaxConcurrency) {
+		Map<String, Integer> parsed = new HashMap<>();
+		parse(groupMaxConcurrency).forEach((group, value) -> parsed.put(group, Integer.parseInt(value)));
+		this.groupMaxConcurrency = parsed;
+	}
+
+	private static Map<String, String> parse(String spec) {
+		Map<String, String> map = new HashMap<>();
+		if (spec == null)
+			return map;
+		for (String entry : spec.split(",")) {
+			int eq = entry.lastIndexOf('=');
+			if (eq > 0)
+				map.put(entry.substring(0, eq).trim(), entry.substring(eq + 1).trim());
+		}
+		return map;
+	}
+
+	public String getThreadNamePrefix() {
+		return threadNamePrefix;
+	}
+
+	public void setThreadNamePrefix(String threadNamePrefix) {
+		this.threadNamePrefix = threadNamePrefix;
+	}
+
+	@Override
+	public void setInstanceId(String schedInstId) {
+		this.instanceId = schedInstId;
+	}
+
+	@Override
+	public void setInstanceName(String schedName) {
+		this.instanceName = schedName;
+	}
+
+	public String getInstanceId() {
+		return instanceId;
+	}
+
+	public String getInstanceName() {
+		return instanceName;
+	}
+
+	private static final class Group {
+		final String name;
+		final double weight;
+		final int maxConcurrency;
+		final ArrayDeque<Queued> queue = new ArrayDeque<>();
+		int running;
+		double pass;
+		long seq;
+
+		Group(String name, double weight, int maxConcurrency) {
+			this.name = name;
+			this.weight = weight > 0 ? weight : 1;
+			this.maxConcurrency = maxConcurrency > 0 ? maxConcurrency : Integer.MAX_VALUE;
+		}
+	}
+
+	private record Queued(Runnable runnable, long enqueuedAt) {
+	}
+}
@@ -0,0 +1,95 @@
+package com.inn.config;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.quartz.SchedulerFactoryBeanCustomizer;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The fast-start profile (application-fast-start.yaml) initializes beans
+ * lazily, so the context a new node refreshes before its scheduler starts
+ * holds little beyond what firing needs, and starts the scheduler ahead of the
+ * other lifecycle beans. Everything else, e.g. the REST API,
+ * springdoc, actuator endpoints and the JPA bootstrap, is created in the
+ * background once the application is ready, or on first use if that comes
+ * sooner.
+ * <p>
+ * Built with the fast-start Maven profile, the jar also carries Spring AOT
+ * output for it; the Dockerfile runs it with -Dspring.aot.enabled=true and a
+ * CDS archive.
+ */
+@Slf4j
+@Configuration
+@Profile("fast-start")
+public class FastStartConfig {
+
+	/**
+	 * The application's own beans stay eager, apart from the web layer: jobs,
+	 * dispatch, Quartz listeners and the engines register themselves while the
+	 * context starts, and they pull in the scheduler and what it depends on.
+	 */
+	@Bean
+	static LazyInitializationExcludeFilter schedulerPathExcludeFilter() {
+		return (beanName, definition, type) -> type != null && type.getName().startsWith("com.inn.")
+				&& !AnnotatedElementUtils.hasAnnotation(type, Controller.class)
+				&& !AnnotatedElementUtils.hasAnnotation(type, ControllerAdvice.class);
+	}
+
+	/**
+	 * Boot hands Quartz the JPA transaction manager for registering jobs defined
+	 * as beans, which would make the scheduler wait for the deferred JPA
+	 * bootstrap. There are no such jobs, and JobStoreTX manages its own
+	 * connections. Runs after Boot's customizer, which sets it.
+	 */
+	@Bean
+	SchedulerFactoryBeanCustomizer noTransactionManagerCustomizer() {
+		return factory -> factory.setTransactionManager(null);
+	}
+
+	/**
+	 * Boot starts the scheduler in the last lifecycle phase, after the web server
+	 * and service registration. Starting it first gets a new node acquiring
+	 * triggers as soon as the context is refreshed, with every listener already
+	 * registered.
+	 */
+	@Bean
+	SchedulerFactoryBeanCustomizer startupPhaseCustomizer() {
+		return factory -> factory.setPhase(Integer.MIN_VALUE);
+	}
+
+	@Bean
+	static ApplicationListener<ApplicationReadyEvent> deferredBeanInitializer() {
+		return event -> {
+			ConfigurableListableBeanFactory beans = event.getApplicationContext().getBeanFactory();
+			Thread.ofPlatform().name("deferred-init").daemon().start(() -> initialize(beans));
+		};
+	}
+
+	private static void initialize(ConfigurableListableBeanFactory beans) {
+		long start = System.nanoTime();
+		int created = 0;
+		for (String name : beans.getBeanDefinitionNames()) {
+			BeanDefinition definition = beans.getMergedBeanDefinition(name);
+			if (!definition.isSingleton() || definition.isAbstract() || beans.containsSingleton(name))
+				continue;
+			try {
+				beans.getBean(name);
+				created++;
+			} catch (BeansException ex) {
+				log.warn("Deferred bean {} failed to initialize: {}", name, ex.getMessage());
+			}
+		}
+		log.info("Initialized {} deferred beans in {} ms", created, (System.nanoTime() - start) / 1_000_000);
+	}
+}
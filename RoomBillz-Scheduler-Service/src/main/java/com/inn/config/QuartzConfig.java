@@ -1,23 +1,114 @@
 package com.inn.config;
 
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import org.quartz.Job;
 import org.quartz.spi.JobFactory;
-import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.quartz.JobStoreType;
+import org.springframework.boot.autoconfigure.quartz.QuartzProperties;
+import org.springframework.boot.autoconfigure.quartz.SchedulerFactoryBeanCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.quartz.SpringBeanJobFactory;
 
+import com.inn.metrics.SchedulerMetrics;
+import com.inn.payload.JobDataMigration;
+
 @Configuration
 public class QuartzConfig {
 
+    /**
+     * Injects @Autowired fields into Job classes through its own post-processor:
+     * with AOT the context registers none, so autowireBean would leave them null.
+     */
     @Bean
-    public JobFactory jobFactory(AutowireCapableBeanFactory beanFactory) {
+    public JobFactory jobFactory(ConfigurableListableBeanFactory beanFactory, SchedulerMetrics metrics) {
+        AutowiredAnnotationBeanPostProcessor injector = new AutowiredAnnotationBeanPostProcessor();
+        injector.setBeanFactory(beanFactory);
         return new SpringBeanJobFactory() {
             @Override
             protected Object createJobInstance(org.quartz.spi.TriggerFiredBundle bundle) throws Exception {
                 Object job = super.createJobInstance(bundle);
-                beanFactory.autowireBean(job);  // ✅ inject @Autowired fields into Job classes
-                return job;
+                injector.processInjection(job);
+                return metrics.instrument((Job) job);
             }
         };
     }
+
+    /**
+     * Boot's Quartz auto-configuration installs its own job factory; without this
+     * the bean above is never used.
+     */
+    @Bean
+    public SchedulerFactoryBeanCustomizer jobFactoryCustomizer(JobFactory jobFactory) {
+        return factory -> factory.setJobFactory(jobFactory);
+    }
+
+    /**
+     * With org.quartz.jobStore.useProperties=true Quartz reads JOB_DATA as
+     * properties text, so rows still holding Java-serialized maps are converted
+     * before the scheduler is created.
+     */
+    @Bean
+    public SchedulerFactoryBeanCustomizer jobDataMigrationCustomizer(QuartzProperties quartzProperties,
+            ObjectProvider<JobDataMigration> migration) {
+        return factory -> {
+            if (quartzProperties.getJobStoreType() == JobStoreType.JDBC && Boolean
+                    .parseBoolean(quartzProperties.getProperties().get("org.quartz.jobStore.useProperties")))
+                migration.getObject().run();
+        };
+    }
+
+    /**
+     * Swaps Quartz's fixed SimpleThreadPool for {@link FairShareThreadPool} when
+     * roombillz.scheduler.fair-queue.enabled is set (on platform or virtual
+     * threads per thread-pool.type), or for {@link VirtualThreadPool} when
+     * roombillz.scheduler.thread-pool.type is VIRTUAL. Batch acquisition is raised
+     * with either, otherwise the scheduler still acquires one trigger per loop.
+     * The fair queue also turns on the JobStore's fair acquisition, which is
+     * what keeps a small group's lag flat behind another group's backlog.
+     */
+    @Bean
+    public SchedulerFactoryBeanCustomizer threadPoolCustomizer(QuartzProperties quartzProperties,
+            SchedulerProperties schedulerProperties) {
+        return factory -> {
+            SchedulerProperties.ThreadPool pool = schedulerProperties.getThreadPool();
+            SchedulerProperties.FairQueue fairQueue = schedulerProperties.getFairQueue();
+            boolean virtual = "VIRTUAL".equalsIgnoreCase(pool.getType());
+            if (!virtual && !fairQueue.isEnabled())
+                return;
+
+            Properties props = new Properties();
+            props.putAll(quartzProperties.getProperties());
+            if (fairQueue.isEnabled()) {
+                props.setProperty("org.quartz.threadPool.class", FairShareThreadPool.class.getName());
+                props.setProperty("org.quartz.threadPool.virtual", String.valueOf(virtual));
+                props.setProperty("org.quartz.threadPool.maxQueued", String.valueOf(fairQueue.getMaxQueued()));
+                props.setProperty("org.quartz.threadPool.lookAhead", String.valueOf(fairQueue.getLookAhead()));
+                props.setProperty("org.quartz.threadPool.defaultWeight", String.valueOf(fairQueue.getDefaultWeight()));
+                props.setProperty("org.quartz.threadPool.defaultGroupMaxConcurrency",
+                        String.valueOf(fairQueue.getDefaultMaxConcurrency()));
+                props.setProperty("org.quartz.threadPool.weights", toSpec(fairQueue.getWeights()));
+                props.setProperty("org.quartz.threadPool.groupMaxConcurrency", toSpec(fairQueue.getMaxConcurrency()));
+                props.setProperty("org.quartz.jobStore.fairAcquisition", "true");
+            } else {
+                props.setProperty("org.quartz.threadPool.class", VirtualThreadPool.class.getName());
+            }
+            props.setProperty("org.quartz.threadPool.maxConcurrency", String.valueOf(pool.getMaxConcurrency()));
+            props.setProperty("org.quartz.scheduler.batchTriggerAcquisitionMaxCount",
+                    String.valueOf(pool.getAcquisitionBatchSize()));
+            factory.setQuartzProperties(props);
+        };
+    }
+
+    // Quartz sets thread pool properties from strings: group=value,group=value
+    private static String toSpec(Map<String, ?> byGroup) {
+        return byGroup.entrySet().stream().map(e -> e.getKey() + "=" + e.getValue())
+                .collect(Collectors.joining(","));
+    }
 }
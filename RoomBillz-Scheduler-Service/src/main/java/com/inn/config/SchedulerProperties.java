@@ -0,0 +1,149 @@
+package com.inn.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "roombillz.scheduler")
+public class SchedulerProperties {
+
+	private Dispatch dispatch = new Dispatch();
+	private CallBatch callBatch = new CallBatch();
+	private ThreadPool threadPool = new ThreadPool();
+	private FairQueue fairQueue = new FairQueue();
+	private Http http = new Http();
+	private Limiter limiter = new Limiter();
+	private Batch batch = new Batch();
+	private Cache cache = new Cache();
+	private History history = new History();
+	private Metrics metrics = new Metrics();
+	private Payload payload = new Payload();
+	private Ephemeral ephemeral = new Ephemeral();
+	private Retry retry = new Retry();
+
+	@Data
+	public static class Dispatch {
+		private int maxInFlight = 256; // concurrent outbound calls across all async jobs
+		private int queueCapacity = 10000; // pending calls before new fires are rejected
+	}
+
+	@Data
+	public static class CallBatch {
+		private int maxSize = 500; // fires per bulk call
+		private long lingerMs = 200; // longest the first fire of a batch waits for others
+		private int maxPending = 50000; // fires waiting in open batches before new ones are rejected
+	}
+
+	@Data
+	public static class ThreadPool {
+		private String type = "PLATFORM"; // PLATFORM (Quartz SimpleThreadPool) or VIRTUAL
+		private int maxConcurrency = 1000; // jobs running at once on virtual threads
+		private int acquisitionBatchSize = 100; // max triggers acquired per scheduler loop
+	}
+
+	@Data
+	public static class FairQueue {
+		private boolean enabled; // queue fired jobs per job group in front of the worker pool
+		private int maxQueued = 20000; // hard cap on fired jobs waiting for a worker
+		private int lookAhead = 2; // fires queued ahead of execution, as a multiple of the worker count; lost if the node dies
+		private double defaultWeight = 1;
+		private int defaultMaxConcurrency; // jobs of one group running at once; 0 = no limit
+		private Map<String, Double> weights = new LinkedHashMap<>(); // by job group
+		private Map<String, Integer> maxConcurrency = new LinkedHashMap<>(); // by job group
+	}
+
+	@Data
+	public static class Http {
+		private int maxConnections = 100; // per target host:port
+		private int pendingAcquireMaxCount = 1000; // requests waiting for a pooled connection
+		private long pendingAcquireTimeoutMs = 10000;
+		private long maxIdleTimeMs = 30000; // keep below the targets' keep-alive timeout; hosts unused this long are dropped
+		private long maxLifeTimeMs = 300000;
+		private long evictIntervalMs = 30000;
+		private int connectTimeoutMs = 5000;
+		private long readTimeoutMs = 60000; // upper bound; jobs apply their own timeoutMs
+		private boolean http2 = true; // offered on https targets via ALPN
+		private int responsePreviewBytes = 512; // leading body bytes kept for logs and history
+		private int maxCaptureBytes = 10 * 1024 * 1024; // FULL and JSON_FIELDS capture limit
+	}
+
+	@Data
+	public static class Limiter {
+		private boolean enabled = true;
+		private int initialLimit = 20; // concurrent calls per target host:port before any feedback
+		private int minLimit = 1;
+		private int maxLimit = 100; // keep at or below http.max-connections
+		private double backoffRatio = 0.9; // limit multiplier on an error, timeout or slow call
+		private double latencyTolerance = 2.0; // slow = this many times the host's smoothed latency
+		private int maxQueue = 200; // calls waiting per host before fires are refused
+		private long maxWaitMs = 5000; // longest a call waits for a permit
+		private long deferDelayMs = 30000; // refused fires of FIRE_AND_PROCEED/IGNORE jobs run again after this
+	}
+
+	@Data
+	public static class Batch {
+		private int chunkSize = 500; // jobs persisted per JobStore transaction
+		private int maxChunkSize = 5000; // most a request may ask for
+		private int parallelism = 4; // chunks persisted concurrently
+		private int maxParallelism = 16; // most a request may ask for
+		private int maxItems = 50000;
+	}
+
+	@Data
+	public static class Cache {
+		private long maxSize = 10000; // TriggerInfoView entries
+		private long ttlMs = 10000; // bounds staleness of fire times after fires on other nodes
+		private long syncIntervalMs = 2000; // change-log flush/poll period when clustered
+		private long changeLogRetentionMs = 600000;
+		private long changeLogOverlapMs = 10000; // re-read window for change-log rows committed out of ID order
+		private long planMaxSize = 10000; // compiled RequestPlans, one per job that has fired
+	}
+
+	@Data
+	public static class History {
+		private boolean enabled = true;
+		private int bufferCapacity = 100000; // records waiting for flush; extra records are dropped
+		private int batchSize = 500; // rows per JDBC batch insert
+		private long flushIntervalMs = 1000;
+		private int retentionDays = 30;
+		private int purgeChunkSize = 5000; // rows per DELETE so purges never hold long locks
+		private int errorMaxLength = 990;
+	}
+
+	@Data
+	public static class Metrics {
+		private int maxGroupTags = 50; // distinct job-group tag values; the rest report as "other"
+		private int maxHostTags = 50; // distinct target-host tag values
+	}
+
+	@Data
+	public static class Payload {
+		private String codec = "json-v1"; // encoding for new RB_JOB_PAYLOAD rows
+		private long cacheMaxSize = 10000; // decoded payloads; rows are immutable, no TTL needed
+		private long sweepGraceMs = 3_600_000; // rows stored more recently are kept
+		private int sweepChunkSize = 500; // hashes per DELETE
+	}
+
+	@Data
+	public static class Ephemeral {
+		private long tickMs = 10; // timing wheel resolution, i.e. the most a fire runs late
+		private int wheelBits = 8; // 256 slots per wheel level
+		private int wheelLevels = 4; // 4 levels of 256 x 10 ms span about 497 days
+		private int workerThreads = 10; // threads running ephemeral fires
+		private int queueCapacity = 1000; // fires waiting for a worker; further fires are skipped
+		private long syncIntervalMs = 5000; // picks up orphaned jobs and changes made on other nodes
+	}
+
+	@Data
+	public static class Retry {
+		private long tickMs = 100; // retry wheel resolution
+		private int workerThreads = 4; // threads running retries
+		private long syncIntervalMs = 10000; // picks up outbox rows of crashed nodes
+	}
+}
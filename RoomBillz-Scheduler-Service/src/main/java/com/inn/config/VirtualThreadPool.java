@@ -0,0 +1,167 @@
+package com.inn.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.quartz.SchedulerConfigException;
+import org.quartz.spi.ThreadPool;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Quartz {@link ThreadPool} that runs every fired job on its own virtual thread.
+ * Instead of a fixed set of workers it caps the number of jobs running at once
+ * ({@code org.quartz.threadPool.maxConcurrency}) and reports the free capacity
+ * from {@link #blockForAvailableThreads()}, so the scheduler thread can acquire
+ * triggers in batches larger than the old worker count.
+ * <p>
+ * Selected through {@code roombillz.scheduler.thread-pool.type}, see
+ * {@link QuartzConfig}.
+ */
+@Slf4j
+public class VirtualThreadPool implements ThreadPool {
+
+	private final Object capacityLock = new Object();
+
+	private int maxConcurrency = 1000;
+	private int busy;
+	private boolean shutdown;
+
+	private ExecutorService executor;
+	private String threadNamePrefix = "QuartzScheduler_Worker";
+	private String instanceName;
+	private String instanceId;
+
+	@Override
+	public void initialize() throws SchedulerConfigException {
+		if (maxConcurrency <= 0)
+			throw new SchedulerConfigException("maxConcurrency must be > 0");
+		executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(threadNamePrefix + "-", 1).factory());
+		log.info("Virtual thread pool initialized with maxConcurrency {}", maxConcurrency);
+	}
+
+	@Override
+	public boolean runInThread(Runnable runnable) {
+		if (runnable == null)
+			return false;
+
+		synchronized (capacityLock) {
+			while (busy >= maxConcurrency && !shutdown) {
+				try {
+					capacityLock.wait(500);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return false;
+				}
+			}
+			if (shutdown)
+				return false;
+			busy++;
+		}
+
+		try {
+			executor.execute(() -> {
+				try {
+					runnable.run();
+				} finally {
+					release();
+				}
+			});
+			return true;
+		} catch (RuntimeException ex) {
+			release();
+			log.error("Unable to start job on virtual thread", ex);
+			return false;
+		}
+	}
+
+	@Override
+	public int blockForAvailableThreads() {
+		synchronized (capacityLock) {
+			while (busy >= maxConcurrency && !shutdown) {
+				try {
+					capacityLock.wait(500);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+			return maxConcurrency - busy;
+		}
+	}
+
+	private void release() {
+		synchronized (capacityLock) {
+			busy--;
+			capacityLock.notifyAll();
+		}
+	}
+
+	@Override
+	public void shutdown(boolean waitForJobsToComplete) {
+		synchronized (capacityLock) {
+			shutdown = true;
+			capacityLock.notifyAll();
+		}
+		if (executor == null)
+			return;
+
+		executor.shutdown();
+		if (waitForJobsToComplete) {
+			try {
+				while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+					log.debug("Waiting for {} running jobs to complete", busy);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	@Override
+	public int getPoolSize() {
+		return maxConcurrency;
+	}
+
+	public int getMaxConcurrency() {
+		return maxConcurrency;
+	}
+
+	public void setMaxConcurrency(int maxConcurrency) {
+		this.maxConcurrency = maxConcurrency;
+	}
+
+	public String getThreadNamePrefix() {
+		return threadNamePrefix;
+	}
+
+	public void setThreadNamePrefix(String threadNamePrefix) {
+		this.threadNamePrefix = threadNamePrefix;
+	}
+
+	/**
+	 * Spring's SchedulerFactoryBean always supplies a default threadCount; it has
+	 * no meaning for this pool and is ignored.
+	 */
+	public void setThreadCount(int threadCount) {
+	}
+
+	@Override
+	public void setInstanceId(String schedInstId) {
+		this.instanceId = schedInstId;
+	}
+
+	@Override
+	public void setInstanceName(String schedName) {
+		this.instanceName = schedName;
+	}
+
+	public String getInstanceId() {
+		return instanceId;
+	}
+
+	public String getInstanceName() {
+		return instanceName;
+	}
+}
@@ -1,5 +1,7 @@
 package com.inn.controller;
 
+import java.io.BufferedReader;
+import java.util.Date;
 import java.util.List;
 
 import org.springframework.http.MediaType;
@@ -11,11 +13,20 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.inn.dto.BatchCreateResponse;
 import com.inn.dto.CreateJobRequest;
 import com.inn.dto.CreateJobResponse;
+import com.inn.dto.ExecutionRecord;
+import com.inn.dto.FireDensityResponse;
 import com.inn.dto.PageResponse;
+import com.inn.dto.TriggerPageQuery;
+import com.inn.service.BatchJobService;
+import com.inn.service.ExecutionHistoryService;
+import com.inn.service.FireDensityService;
+import com.inn.service.JobTransferService;
 import com.inn.service.SchedulerService;
 import com.inn.service.TriggerInfoView;
 
@@ -25,6 +36,8 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
@@ -35,6 +48,10 @@ import lombok.RequiredArgsConstructor;
 public class ScheduleController {
 
 	private final SchedulerService schedulerService;
+	private final BatchJobService batchJobService;
+	private final ExecutionHistoryService executionHistoryService;
+	private final FireDensityService fireDensityService;
+	private final JobTransferService jobTransferService;
 
 	@Operation(summary = "Create a new scheduled job", description = "Creates a new Quartz job with either cron or interval trigger")
 	@ApiResponses(value = {
@@ -46,13 +63,73 @@ public class ScheduleController {
 		return ResponseEntity.ok(schedulerService.createJob(req));
 	}
 
-	@Operation(summary = "List all scheduled jobs", description = "Returns list of all jobs with next and previous fire times")
+	@Operation(summary = "Create jobs in bulk", description = "Validates and schedules a JSON array of jobs in chunked JobStore transactions and returns a per-item result")
 	@ApiResponses(value = {
-			@ApiResponse(responseCode = "200", description = "Jobs listed successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = PageResponse.class))) })
+			@ApiResponse(responseCode = "200", description = "Batch processed, see per-item status", content = @Content(mediaType = "application/json", schema = @Schema(implementation = BatchCreateResponse.class))),
+			@ApiResponse(responseCode = "400", description = "Batch too large", content = @Content) })
+	@PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<BatchCreateResponse> createBatch(@RequestBody List<CreateJobRequest> reqs,
+			@RequestParam(required = false) Integer chunkSize, @RequestParam(required = false) Integer parallelism,
+			@RequestParam(defaultValue = "false") boolean replace) {
+		return ResponseEntity.ok(batchJobService.createJobs(reqs, chunkSize, parallelism, replace));
+	}
+
+	@Operation(summary = "Create jobs in bulk from NDJSON", description = "Same as the JSON batch, one CreateJobRequest per line; malformed lines are reported per item")
+	@PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<BatchCreateResponse> createBatchNdjson(HttpServletRequest request,
+			@RequestParam(required = false) Integer chunkSize, @RequestParam(required = false) Integer parallelism,
+			@RequestParam(defaultValue = "false") boolean replace) throws Exception {
+		try (BufferedReader reader = request.getReader()) {
+			return ResponseEntity.ok(batchJobService.createJobs(reader, chunkSize, parallelism, replace));
+		}
+	}
+
+	@Operation(summary = "Export job definitions", description = "Streams every job (or one group's) as NDJSON: the CreateJobRequest fields plus trigger state. Reads and writes in pages, so memory use does not depend on the number of jobs.")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Jobs streamed") })
+	@GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public void exportJobs(@RequestParam(required = false) String group, HttpServletResponse response)
+			throws Exception {
+		response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+		response.setCharacterEncoding("UTF-8");
+		jobTransferService.exportJobs(group, response.getOutputStream());
+	}
+
+	@Operation(summary = "Import job definitions", description = "Reads an export (or any CreateJobRequest NDJSON) line by line and schedules it in chunked JobStore transactions, resuming trigger state where present. Items lists at most the first 1000 lines that were not created.")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Import processed, see counts", content = @Content(mediaType = "application/json", schema = @Schema(implementation = BatchCreateResponse.class))) })
+	@PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<BatchCreateResponse> importJobs(HttpServletRequest request,
+			@RequestParam(required = false) Integer chunkSize, @RequestParam(required = false) Integer parallelism,
+			@RequestParam(defaultValue = "false") boolean replace) throws Exception {
+		try (BufferedReader reader = request.getReader()) {
+			return ResponseEntity.ok(jobTransferService.importJobs(reader, chunkSize, parallelism, replace));
+		}
+	}
+
+	@Operation(summary = "List scheduled jobs", description = "Returns a page of jobs ordered by next fire time, optionally filtered by group, state and trigger type. Pass nextCursor from the previous page to continue.")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Jobs listed successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = PageResponse.class))),
+			@ApiResponse(responseCode = "400", description = "Invalid filter or cursor", content = @Content) })
 	@GetMapping
-	public ResponseEntity<PageResponse<TriggerInfoView>> list() throws Exception {
-		List<TriggerInfoView> items = schedulerService.listAllTriggers();
-		return ResponseEntity.ok(PageResponse.<TriggerInfoView>builder().items(items).total(items.size()).build());
+	public ResponseEntity<PageResponse<TriggerInfoView>> list(@RequestParam(required = false) String group,
+			@RequestParam(required = false) String state, @RequestParam(required = false) String type,
+			@RequestParam(required = false) String cursor, @RequestParam(defaultValue = "100") int limit,
+			@RequestParam(defaultValue = "ASC") String sort) throws Exception {
+		TriggerPageQuery query = TriggerPageQuery.builder().group(group).state(state).type(type).cursor(cursor)
+				.limit(Math.max(1, Math.min(limit, 1000))).descending("DESC".equalsIgnoreCase(sort)).build();
+		return ResponseEntity.ok(schedulerService.listTriggers(query));
+	}
+
+	@Operation(summary = "Upcoming fire density", description = "Histogram of JobStore fires per SECOND or MINUTE from now (or from) over the next horizonMinutes, with peak and mean per bucket; shows cron storms and the effect of smearWindowSeconds")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "Histogram computed", content = @Content(mediaType = "application/json", schema = @Schema(implementation = FireDensityResponse.class))),
+			@ApiResponse(responseCode = "400", description = "Unknown resolution or too many buckets", content = @Content) })
+	@GetMapping("/fire-density")
+	public ResponseEntity<FireDensityResponse> fireDensity(@RequestParam(required = false) Long from,
+			@RequestParam(defaultValue = "60") int horizonMinutes,
+			@RequestParam(defaultValue = "SECOND") String resolution) throws Exception {
+		return ResponseEntity.ok(fireDensityService
+				.density(new Date(from != null ? from : System.currentTimeMillis()), horizonMinutes, resolution));
 	}
 
 	@Operation(summary = "Get job details", description = "Fetch details for a specific job including trigger state")
@@ -65,6 +142,17 @@ public class ScheduleController {
 				.orElse(ResponseEntity.notFound().build());
 	}
 
+	@Operation(summary = "List recent runs of a job", description = "Returns the job's execution history, most recent first. Pass nextCursor from the previous page to continue.")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Runs listed successfully"),
+			@ApiResponse(responseCode = "400", description = "Invalid cursor", content = @Content) })
+	@GetMapping("/{group}/{name}/executions")
+	public ResponseEntity<PageResponse<ExecutionRecord>> executions(@PathVariable String group,
+			@PathVariable String name, @RequestParam(required = false) Long cursor,
+			@RequestParam(defaultValue = "50") int limit) throws Exception {
+		return ResponseEntity
+				.ok(executionHistoryService.findRuns(group, name, cursor, Math.max(1, Math.min(limit, 500))));
+	}
+
 	@Operation(summary = "Trigger job immediately", description = "Executes the job now without waiting for next schedule")
 	@ApiResponses(value = { @ApiResponse(responseCode = "202", description = "Job triggered"),
 			@ApiResponse(responseCode = "404", description = "Job not found", content = @Content) })
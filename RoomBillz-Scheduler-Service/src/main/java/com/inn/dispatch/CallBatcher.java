@@ -0,0 +1,167 @@
+package com.inn.dispatch;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inn.config.SchedulerProperties;
+import com.inn.http.RequestPlan;
+import com.inn.http.RequestPlanCache;
+import com.inn.metrics.SchedulerMetrics;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Coalesces ASYNC fires of jobs with a {@code batchKey} into bulk calls. Fires
+ * with the same key and batch URI collect in an open batch, which is sent as
+ * one {@link ReactiveDispatcher} request when it reaches {@code maxSize} fires
+ * or {@code lingerMs} after its first fire, whichever comes first.
+ * <p>
+ * The bulk call POSTs a JSON array with one entry per fire, in fire order:
+ * {@code {"jobGroup", "jobName", "scheduledFireTime", "fireTime", "body"}},
+ * where body is the job's own request body. Headers and timeout are those of
+ * the batch's first job, so jobs sharing a key should share them too. See
+ * {@link ReactiveDispatcher} for how the response is mapped back to the fires.
+ */
+@Slf4j
+@Component
+public class CallBatcher {
+
+	private final ReactiveDispatcher dispatcher;
+	private final RequestPlanCache plans;
+	private final ObjectMapper objectMapper;
+	private final SchedulerMetrics metrics;
+	private final SchedulerProperties.CallBatch config;
+	private final Scheduler timer = Schedulers.parallel();
+
+	private final Map<String, Batch> open = new HashMap<>();
+	private final AtomicInteger pending = new AtomicInteger();
+
+	public CallBatcher(ReactiveDispatcher dispatcher, RequestPlanCache plans, ObjectMapper objectMapper,
+			SchedulerMetrics metrics, SchedulerProperties properties) {
+		this.dispatcher = dispatcher;
+		this.plans = plans;
+		this.objectMapper = objectMapper;
+		this.metrics = metrics;
+		this.config = properties.getCallBatch();
+	}
+
+	/**
+	 * @return false if {@code maxPending} fires are already waiting and the
+	 *         request was not accepted
+	 */
+	public boolean submit(DispatchRequest request) {
+		if (pending.incrementAndGet() > config.getMaxPending()) {
+			pending.decrementAndGet();
+			return false;
+		}
+		request.setSubmittedAt(System.nanoTime());
+		RequestPlan plan = request.getPlan();
+		String key = plan.getBatchKey() + '|' + plan.getBatchUri();
+
+		Batch full = null;
+		synchronized (open) {
+			Batch batch = open.get(key);
+			if (batch == null) {
+				batch = new Batch(key);
+				open.put(key, batch);
+				Batch lingering = batch;
+				timer.schedule(() -> flush(lingering, "linger"), config.getLingerMs(), TimeUnit.MILLISECONDS);
+			}
+			batch.items.add(request);
+			if (batch.items.size() >= config.getMaxSize()) {
+				open.remove(key);
+				full = batch;
+			}
+		}
+		if (full != null)
+			send(full, "size");
+		return true;
+	}
+
+	public int getPending() {
+		return pending.get();
+	}
+
+	private void flush(Batch batch, String reason) {
+		synchronized (open) {
+			// Already sent when it filled up
+			if (!open.remove(batch.key, batch))
+				return;
+		}
+		send(batch, reason);
+	}
+
+	private void send(Batch batch, String reason) {
+		List<DispatchRequest> items = batch.items;
+		pending.addAndGet(-items.size());
+		metrics.recordCallBatch(items.size(), reason);
+		DispatchRequest bulk;
+		try {
+			bulk = DispatchRequest.builder().plan(plans.bulk(items.get(0).getPlan(), encode(items))).items(items)
+					.build();
+		} catch (IOException | RuntimeException ex) {
+			reject(items, ex);
+			return;
+		}
+		if (!dispatcher.submit(bulk)) {
+			log.warn("Bulk call of {} fires rejected, dispatch queue full -> {}", items.size(), bulk.getPlan().getUri());
+			reject(items, new IllegalStateException("Dispatch queue full"));
+		}
+	}
+
+	private byte[] encode(List<DispatchRequest> items) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(items.size() * 256);
+		try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+			json.writeStartArray();
+			for (DispatchRequest item : items) {
+				json.writeStartObject();
+				json.writeStringField("jobGroup", item.getJobKey().getGroup());
+				json.writeStringField("jobName", item.getJobKey().getName());
+				if (item.getScheduledFireTime() != null)
+					json.writeNumberField("scheduledFireTime", item.getScheduledFireTime().getTime());
+				if (item.getFireTime() != null)
+					json.writeNumberField("fireTime", item.getFireTime().getTime());
+				byte[] body = item.getPlan().getBody();
+				json.writeFieldName("body");
+				if (body != null && body.length > 0)
+					json.writeRawValue(new String(body, StandardCharsets.UTF_8));
+				else
+					json.writeNull();
+				json.writeEndObject();
+			}
+			json.writeEndArray();
+		}
+		return out.toByteArray();
+	}
+
+	// Reported like a failed call, so history and retries see every fire
+	private void reject(List<DispatchRequest> items, Exception error) {
+		long now = System.nanoTime();
+		for (DispatchRequest item : items) {
+			dispatcher.publish(DispatchResult.builder().request(item).error(error)
+					.durationMs((now - item.getSubmittedAt()) / 1_000_000).build());
+		}
+	}
+
+	private static final class Batch {
+		final String key;
+		final List<DispatchRequest> items = new ArrayList<>();
+
+		Batch(String key) {
+			this.key = key;
+		}
+	}
+}
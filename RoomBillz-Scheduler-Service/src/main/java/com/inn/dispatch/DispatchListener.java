@@ -0,0 +1,10 @@
+package com.inn.dispatch;
+
+/**
+ * Callback for completed async dispatches. Invoked on the reactive I/O thread,
+ * so implementations must not block.
+ */
+public interface DispatchListener {
+
+	void onComplete(DispatchResult result);
+}
@@ -0,0 +1,39 @@
+package com.inn.dispatch;
+
+import java.util.Date;
+import java.util.List;
+
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+
+import com.inn.http.RequestPlan;
+import com.inn.retry.RetryPolicy;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class DispatchRequest {
+	private JobKey jobKey;
+	private JobDetail jobDetail;
+	private int attempt; // 0, or which retry this is
+	private Date scheduledFireTime;
+	private Date fireTime;
+	private RequestPlan plan;
+	private List<DispatchRequest> items; // fires coalesced into this bulk call, see CallBatcher
+	private long submittedAt; // System.nanoTime() when a fire was handed to CallBatcher
+
+	/**
+	 * Snapshot everything the call needs out of the fire context, so the Quartz
+	 * worker can return before the response arrives. The plan is immutable and
+	 * shared with other fires of the job.
+	 */
+	public static DispatchRequest from(JobExecutionContext context, RequestPlan plan) {
+		return DispatchRequest.builder().jobKey(context.getJobDetail().getKey()).jobDetail(context.getJobDetail())
+				.attempt(RetryPolicy.attempt(context.getMergedJobDataMap()))
+				.scheduledFireTime(context.getScheduledFireTime()).fireTime(context.getFireTime()).plan(plan)
+				.build();
+	}
+}
@@ -0,0 +1,20 @@
+package com.inn.dispatch;
+
+import com.inn.http.CapturedBody;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class DispatchResult {
+	private DispatchRequest request;
+	private Integer status; // null when no response was received
+	private CapturedBody response; // null when no response body was read
+	private Throwable error;
+	private long durationMs;
+
+	public boolean isSuccess() {
+		return error == null;
+	}
+}
@@ -0,0 +1,200 @@
+package com.inn.dispatch;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inn.config.SchedulerProperties;
+import com.inn.http.CapturedBody;
+import com.inn.http.RequestPlan;
+import com.inn.http.ResponseBodyReader;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive dispatch stage for async jobs. Quartz workers only enqueue here; at
+ * most {@code maxInFlight} calls run at once and the rest wait in a bounded
+ * queue. Each call also waits for a permit from its target's
+ * {@link com.inn.http.TargetLimiter}, holding its dispatch slot meanwhile; the
+ * limiter's own queue and wait bound how many slots one slow target can take.
+ * Completion is reported to {@link DispatchListener}s off the worker thread,
+ * including refusals by the limiter.
+ * <p>
+ * A bulk call from {@link CallBatcher} takes one slot and one limiter permit
+ * for all its fires, and listeners see one result per fire: the bulk call's
+ * outcome, or the fire's own entry when the response is a JSON array with one
+ * entry per fire (a status number, or an object with {@code status} and
+ * optionally {@code error}).
+ */
+@Slf4j
+@Component
+public class ReactiveDispatcher {
+
+	private final ResponseBodyReader bodies;
+	private final ObjectProvider<DispatchListener> listeners;
+	private final ObjectMapper objectMapper;
+	private final int previewBytes;
+	private final int maxInFlight;
+	private final Semaphore permits;
+	private final BlockingQueue<DispatchRequest> pending;
+	// Drain requests not yet served; only the caller that raised it from 0 drains
+	private final AtomicInteger drainRequests = new AtomicInteger();
+
+	public ReactiveDispatcher(ResponseBodyReader bodies, SchedulerProperties properties,
+			ObjectProvider<DispatchListener> listeners, ObjectMapper objectMapper) {
+		this.bodies = bodies;
+		this.listeners = listeners;
+		this.objectMapper = objectMapper;
+		this.previewBytes = properties.getHttp().getResponsePreviewBytes();
+		this.maxInFlight = properties.getDispatch().getMaxInFlight();
+		this.permits = new Semaphore(maxInFlight);
+		this.pending = new ArrayBlockingQueue<>(properties.getDispatch().getQueueCapacity());
+	}
+
+	/**
+	 * @return false if the pending queue is full and the request was not accepted
+	 */
+	public boolean submit(DispatchRequest request) {
+		if (!pending.offer(request))
+			return false;
+		drain();
+		return true;
+	}
+
+	public int getQueued() {
+		return pending.size();
+	}
+
+	public int getInFlight() {
+		return maxInFlight - permits.availablePermits();
+	}
+
+	private void drain() {
+		// Called on every submit and every completion, so an item offered while all
+		// permits are taken is picked up by whichever call releases the next permit.
+		// Calls made while another one drains (or from within execute) only make it
+		// loop again, so a run of synchronous failures doesn't recurse.
+		if (drainRequests.getAndIncrement() != 0)
+			return;
+		int requests = 1;
+		do {
+			while (!pending.isEmpty() && permits.tryAcquire()) {
+				DispatchRequest next = pending.poll();
+				if (next == null) {
+					permits.release();
+					continue;
+				}
+				execute(next);
+			}
+		} while ((requests = drainRequests.addAndGet(-requests)) != 0);
+	}
+
+	private void execute(DispatchRequest request) {
+		long start = System.nanoTime();
+		RequestPlan plan = request.getPlan();
+		try {
+			plan.getLimiter().acquireAsync().flatMap(target -> exchange(plan).timeout(plan.getTimeout())
+					.doOnNext(response -> target.release(response.status()))
+					.doOnError(ex -> target.release(statusOf(ex)))
+					.doFinally(signal -> target.release(null))).doFinally(signal -> {
+						permits.release();
+						drain();
+					}).subscribe(response -> complete(request, response.status(), response.body(), null, start),
+					ex -> complete(request, statusOf(ex), null, ex, start));
+		} catch (Exception ex) {
+			permits.release();
+			complete(request, null, null, ex, start);
+			drain();
+		}
+	}
+
+	private Mono<Response> exchange(RequestPlan plan) {
+		return plan.retrieve().toEntityFlux(DataBuffer.class)
+				.flatMap(entity -> bodies.read(entity.getBody(), plan.getCapture(), plan.getResponseFields())
+						.map(body -> new Response(entity.getStatusCode().value(), body)));
+	}
+
+	private void complete(DispatchRequest request, Integer status, CapturedBody body, Throwable error, long start) {
+		RequestPlan plan = request.getPlan();
+		if (error == null) {
+			log.info("REST dispatch success -> {} {} | status: {} | {} bytes | response: {}", plan.getMethod(),
+					plan.getUri(), status, body.size(), body.preview());
+		} else {
+			log.error("REST dispatch failed -> {} {} | status: {} | error: {}", plan.getMethod(), plan.getUri(),
+					status, error.getMessage());
+		}
+		if (request.getItems() != null) {
+			completeItems(request.getItems(), status, body, error);
+			return;
+		}
+		publish(DispatchResult.builder().request(request).status(status).response(body).error(error)
+				.durationMs((System.nanoTime() - start) / 1_000_000).build());
+	}
+
+	// Fans a bulk call's outcome out to its fires; their durations include the time spent batching
+	private void completeItems(List<DispatchRequest> items, Integer status, CapturedBody body, Throwable error) {
+		JsonNode entries = error == null ? itemEntries(body, items.size()) : null;
+		long now = System.nanoTime();
+		for (int i = 0; i < items.size(); i++) {
+			DispatchRequest item = items.get(i);
+			DispatchResult.DispatchResultBuilder result = DispatchResult.builder().request(item).status(status)
+					.response(body).error(error).durationMs((now - item.getSubmittedAt()) / 1_000_000);
+			if (entries != null) {
+				JsonNode entry = entries.get(i);
+				JsonNode itemStatus = entry.isObject() ? entry.path("status") : entry;
+				String text = entry.toString();
+				result.response(new CapturedBody(text.length(),
+						text.length() > previewBytes ? text.substring(0, previewBytes) : text, null, false, Map.of()));
+				if (itemStatus.canConvertToInt()) {
+					int code = itemStatus.asInt();
+					result.status(code);
+					if (code < 200 || code >= 300)
+						result.error(new IllegalStateException("Batch item failed with status " + code
+								+ (entry.hasNonNull("error") ? ": " + entry.get("error").asText() : "")));
+				}
+			}
+			publish(result.build());
+		}
+	}
+
+	// The per-fire entries of a bulk response, or null if it doesn't have one per fire
+	private JsonNode itemEntries(CapturedBody body, int count) {
+		if (body == null || body.body() == null || body.truncated())
+			return null;
+		try {
+			JsonNode root = objectMapper.readTree(body.body());
+			return root.isArray() && root.size() == count ? root : null;
+		} catch (JsonProcessingException ex) {
+			return null;
+		}
+	}
+
+	void publish(DispatchResult result) {
+		for (DispatchListener listener : listeners) {
+			try {
+				listener.onComplete(result);
+			} catch (Exception ex) {
+				log.warn("Dispatch listener {} failed: {}", listener.getClass().getSimpleName(), ex.getMessage());
+			}
+		}
+	}
+
+	private static Integer statusOf(Throwable ex) {
+		return ex instanceof WebClientResponseException wcre ? wcre.getStatusCode().value() : null;
+	}
+
+	private record Response(int status, CapturedBody body) {
+	}
+}
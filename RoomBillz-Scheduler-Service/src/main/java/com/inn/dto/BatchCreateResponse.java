@@ -0,0 +1,17 @@
+package com.inn.dto;
+
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class BatchCreateResponse {
+	private int total;
+	private int created;
+	private int invalid;
+	private int failed;
+	private long elapsedMs;
+	private List<BatchItemResult> items;
+}
@@ -0,0 +1,17 @@
+package com.inn.dto;
+
+import java.util.Date;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class BatchItemResult {
+	private int index; // position in the submitted list / NDJSON line
+	private String jobName;
+	private String jobGroup;
+	private String status; // CREATED, INVALID or FAILED
+	private Date nextFireTime;
+	private String error;
+}
@@ -4,8 +4,11 @@ import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Map;
 
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
 import lombok.Data;
 
 @Data
@@ -23,13 +26,38 @@ public class CreateJobRequest {
 	private Integer repeatIntervalSeconds; // e.g., 300
 	private Integer repeatCount; // null or -1 for forever
 
+	// Opt-in: the job may fire up to this many seconds after its schedule, so
+	// jobs sharing a schedule are spread over the window (see FireSmearPlanner)
+	@Min(value = 1, message = "smearWindowSeconds must be positive")
+	@Max(value = 3600, message = "smearWindowSeconds can be at most 3600")
+	private Integer smearWindowSeconds;
+
+	// Fire repeatIntervalSeconds jobs from the in-memory timing wheel: no JobStore
+	// writes per fire, but fires missed while no node runs the job are skipped
+	private boolean ephemeral;
+
 	private OffsetDateTime startAt; // optional
 	private OffsetDateTime endAt; // optional
 
-	// Misfire policy hints for cron/simple
+	// Misfire policy hints for cron/simple; also decides what happens to a fire
+	// refused by an overloaded target: DO_NOTHING skips it, FIRE_AND_PROCEED runs
+	// it once later, IGNORE runs every refused fire later
 	@Pattern(regexp = "IGNORE|FIRE_AND_PROCEED|DO_NOTHING", message = "Invalid misfire policy")
 	private String misfirePolicy = "FIRE_AND_PROCEED";
 
+	// Retries of failed calls (none unless retryMaxAttempts is set): exponential
+	// backoff from retryBackoffMs up to retryMaxBackoffMs with jitter, on the
+	// statuses in retryOn, e.g. "IO,429,500-599" (IO = no response)
+	@Min(value = 0, message = "retryMaxAttempts can't be negative")
+	@Max(value = 20, message = "retryMaxAttempts can be at most 20")
+	private Integer retryMaxAttempts;
+	@Min(value = 100, message = "retryBackoffMs must be at least 100")
+	private Long retryBackoffMs;
+	@Min(value = 100, message = "retryMaxBackoffMs must be at least 100")
+	private Long retryMaxBackoffMs;
+	@Pattern(regexp = "((IO|[1-5]\\d\\d(-[1-5]\\d\\d)?),)*(IO|[1-5]\\d\\d(-[1-5]\\d\\d)?)", message = "Invalid retryOn")
+	private String retryOn;
+
 	// REST target
 	@NotBlank
 	private String targetUrl; // http://notification:8082/api/v1/...
@@ -41,4 +69,21 @@ public class CreateJobRequest {
 	private Map<String, String> queryParams;
 	private Object body; // JSON body if required
 	private Integer timeoutMs = 30000; // request timeout
+
+	// SYNC holds a Quartz worker until the response arrives, ASYNC hands the call
+	// to the reactive dispatch stage and frees the worker immediately
+	@Pattern(regexp = "SYNC|ASYNC", message = "Invalid execution mode")
+	private String executionMode = "SYNC";
+
+	// Jobs with the same batch key firing within the linger window share one bulk
+	// POST to batchUrl (default targetUrl) instead of a call each; implies ASYNC
+	@Size(max = 100)
+	private String batchKey;
+	private String batchUrl;
+
+	// What to keep of the response body: PREVIEW (leading bytes only), FULL, or
+	// JSON_FIELDS with the JSON pointers in responseFields, e.g. "/data/id"
+	@Pattern(regexp = "PREVIEW|FULL|JSON_FIELDS", message = "Invalid response capture")
+	private String responseCapture;
+	private List<@Pattern(regexp = "(/[^/]*)+", message = "Invalid JSON pointer") String> responseFields;
 }
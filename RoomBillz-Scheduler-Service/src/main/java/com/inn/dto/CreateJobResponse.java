@@ -11,6 +11,8 @@ public class CreateJobResponse {
 	private String jobName;
 	private String jobGroup;
 	private String triggerName;
-	private String triggerType; // CRON or SIMPLE
+	private String triggerType; // CRON, SIMPLE or EPHEMERAL
 	private Date nextFireTime;
+	private String cronExpression; // as stored, i.e. after smearing
+	private Integer smearOffsetSeconds;
 }
@@ -0,0 +1,22 @@
+package com.inn.dto;
+
+import java.util.Date;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ExecutionRecord {
+	private Long id;
+	private String jobGroup;
+	private String jobName;
+	private String instanceId; // cluster node that ran the job
+	private Date scheduledFireTime;
+	private Date fireTime;
+	private long durationMs;
+	private Integer httpStatus; // null when no response was received
+	private Long responseSize;
+	private boolean success;
+	private String error; // truncated
+}
@@ -0,0 +1,19 @@
+package com.inn.dto;
+
+import java.util.Date;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class FireDensityResponse {
+	private Date from;
+	private Date to;
+	private String resolution; // SECOND or MINUTE, the width of each bucket
+	private long total; // fires in [from, to)
+	private long peak; // fires in the busiest bucket
+	private Date peakAt;
+	private double mean; // fires per bucket
+	private long[] counts; // fires per bucket, the first starting at from
+}
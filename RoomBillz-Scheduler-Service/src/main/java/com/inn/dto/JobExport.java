@@ -0,0 +1,24 @@
+package com.inn.dto;
+
+import java.util.Date;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * One line of a job export: the job as a {@link CreateJobRequest} plus the
+ * state of its trigger. Importing it restores the schedule where it was, so
+ * startAt is the trigger's start and cron expressions are exported as stored,
+ * already smeared (no smearWindowSeconds). Lines without the state fields
+ * import as newly created jobs.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+public class JobExport extends CreateJobRequest {
+	private String state; // NORMAL/PAUSED/...; PAUSED jobs are imported paused
+	private Date previousFireTime;
+	private Date nextFireTime; // simple triggers resume from here
+	private String timeZone; // CRON only, null for the server's
+}
@@ -10,4 +10,5 @@ import lombok.Data;
 public class PageResponse<T> {
 	private List<T> items;
 	private long total;
+	private String nextCursor; // null on the last page
 }
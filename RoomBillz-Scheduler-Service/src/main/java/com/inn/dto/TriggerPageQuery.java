@@ -0,0 +1,15 @@
+package com.inn.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class TriggerPageQuery {
+	private String group; // trigger group, exact match
+	private String state; // NORMAL, PAUSED, BLOCKED, ERROR, COMPLETE
+	private String type; // CRON or SIMPLE
+	private String cursor; // opaque, from the previous page's nextCursor
+	private int limit;
+	private boolean descending; // order by next fire time
+}
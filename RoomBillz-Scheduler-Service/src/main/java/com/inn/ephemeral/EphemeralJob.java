@@ -0,0 +1,50 @@
+package com.inn.ephemeral;
+
+import java.util.Map;
+
+import org.quartz.JobKey;
+
+/**
+ * Persisted definition of an ephemeral job (RB_EPHEMERAL_JOB). Fire times are
+ * {@code startMs + k * intervalMs} for k from 0 to {@code repeatCount} (-1:
+ * forever), up to {@code endMs}. They follow from the definition alone, so
+ * fires write nothing; fires missed while no node ran the job are skipped.
+ *
+ * @param updatedAt version of the row, changed by every update
+ */
+public record EphemeralJob(JobKey key, String jobClass, Map<String, String> jobData, long startMs, long intervalMs,
+		int repeatCount, Long endMs, boolean paused, long updatedAt) {
+
+	/**
+	 * @return the first fire time after {@code time}, or -1 if the schedule has
+	 *         ended by then
+	 */
+	public long nextFireAfter(long time) {
+		long k = time < startMs ? 0 : (time - startMs) / intervalMs + 1;
+		return fireTime(k);
+	}
+
+	/**
+	 * @return the last fire time at or before {@code time}, or -1 if none
+	 */
+	public long lastFireAtOrBefore(long time) {
+		if (time < startMs)
+			return -1;
+		long k = (time - startMs) / intervalMs;
+		if (repeatCount >= 0)
+			k = Math.min(k, repeatCount);
+		if (endMs != null) {
+			if (endMs < startMs)
+				return -1;
+			k = Math.min(k, (endMs - startMs) / intervalMs);
+		}
+		return startMs + k * intervalMs;
+	}
+
+	private long fireTime(long k) {
+		if (repeatCount >= 0 && k > repeatCount)
+			return -1;
+		long fire = startMs + k * intervalMs;
+		return endMs != null && fire > endMs ? -1 : fire;
+	}
+}
@@ -0,0 +1,340 @@
+package com.inn.ephemeral;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.quartz.Job;
+import org.quartz.JobBuilder;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionException;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.SimpleScheduleBuilder;
+import org.quartz.TriggerBuilder;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.TriggerFiredBundle;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.inn.config.SchedulerProperties;
+import com.inn.http.RequestPlanCache;
+import com.inn.jobs.JobRunner;
+import com.inn.repository.EphemeralJobRepository;
+import com.inn.service.TriggerInfoView;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs ephemeral jobs: fixed-interval jobs fired from an in-memory
+ * {@link TimingWheel} instead of the JDBC JobStore, for seconds-level polls
+ * that don't need Quartz's exactly-once, restart-proof fires. Only the
+ * definition is stored (RB_EPHEMERAL_JOB); a fire writes nothing, where a
+ * JobStore fire updates QRTZ_TRIGGERS and inserts and deletes a
+ * QRTZ_FIRED_TRIGGERS row.
+ * <p>
+ * Fires take the Quartz execution path through {@link JobRunner}, which keeps
+ * execution history and metrics alike for both kinds of job.
+ * <p>
+ * Each job runs on the node that owns its row, normally the one that created
+ * it. Every {@code syncIntervalMs} a node claims jobs whose owner has left the
+ * cluster and applies pause, resume and delete made through other nodes.
+ * While an owner is being replaced, fires may be skipped or, if it was only
+ * unresponsive, doubled.
+ * <p>
+ * Fires wait for a worker in a queue of {@code queueCapacity}; when it is full
+ * the fire is skipped and the job fires again at its next interval, so slow
+ * jobs cannot pile up fires in memory.
+ */
+@Slf4j
+@Component
+public class EphemeralJobEngine {
+
+	public static final String TRIGGER_TYPE = "EPHEMERAL";
+
+	private final Scheduler scheduler;
+	private final JobRunner jobRunner;
+	private final EphemeralJobRepository repository;
+	private final RequestPlanCache plans;
+	private final SchedulerProperties.Ephemeral config;
+	private final boolean clustered;
+	private final Map<JobKey, Entry> active = new ConcurrentHashMap<>();
+
+	private final String schedName;
+	private final String instanceId;
+
+	private TimingWheel wheel;
+	private ExecutorService workers;
+
+	public EphemeralJobEngine(Scheduler scheduler, JobRunner jobRunner, EphemeralJobRepository repository,
+			RequestPlanCache plans, SchedulerProperties properties, MeterRegistry meterRegistry,
+			@Value("${spring.quartz.properties.org.quartz.jobStore.isClustered:false}") boolean clustered)
+			throws SchedulerException {
+		this.scheduler = scheduler;
+		this.jobRunner = jobRunner;
+		this.repository = repository;
+		this.plans = plans;
+		this.config = properties.getEphemeral();
+		this.clustered = clustered;
+		this.schedName = scheduler.getSchedulerName();
+		this.instanceId = scheduler.getSchedulerInstanceId();
+		Gauge.builder("scheduler.ephemeral.jobs", active, Map::size)
+				.description("Ephemeral jobs scheduled on this node's timing wheel").register(meterRegistry);
+	}
+
+	@PostConstruct
+	void start() {
+		wheel = new TimingWheel("ephemeral-wheel", config.getTickMs(), config.getWheelBits(),
+				config.getWheelLevels());
+		workers = new ThreadPoolExecutor(config.getWorkerThreads(), config.getWorkerThreads(), 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(config.getQueueCapacity()),
+				Thread.ofPlatform().name("ephemeral-worker-", 0).daemon().factory());
+	}
+
+	@PreDestroy
+	void stop() throws InterruptedException {
+		wheel.stop();
+		workers.shutdown();
+		workers.awaitTermination(10, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Stores the job and starts it on this node.
+	 *
+	 * @return false if an ephemeral job with this key exists
+	 */
+	public boolean schedule(EphemeralJob job) {
+		if (!repository.insert(schedName, job, instanceId))
+			return false;
+		activate(job);
+		return true;
+	}
+
+	public boolean exists(JobKey key) {
+		return active.containsKey(key) || repository.find(schedName, key) != null;
+	}
+
+	public boolean delete(JobKey key) {
+		boolean deleted = repository.delete(schedName, key);
+		deactivate(key);
+		if (deleted)
+			plans.evict(key);
+		return deleted;
+	}
+
+	/**
+	 * @return false if there is no ephemeral job with this key
+	 */
+	public boolean pause(JobKey key) {
+		return setPaused(key, true);
+	}
+
+	public boolean resume(JobKey key) {
+		return setPaused(key, false);
+	}
+
+	private boolean setPaused(JobKey key, boolean paused) {
+		if (!repository.updatePaused(schedName, key, paused, System.currentTimeMillis()))
+			return false;
+		// Applied here right away if this node runs the job, otherwise by the owner's next sync
+		if (active.containsKey(key)) {
+			EphemeralJob job = repository.find(schedName, key);
+			if (job != null)
+				activate(job);
+		}
+		return true;
+	}
+
+	/**
+	 * Fires the job once on this node, whichever node owns it.
+	 *
+	 * @return false if there is no ephemeral job with this key
+	 */
+	public boolean triggerNow(JobKey key) {
+		Entry entry = active.get(key);
+		if (entry == null) {
+			EphemeralJob job = repository.find(schedName, key);
+			if (job == null)
+				return false;
+			entry = new Entry(job);
+		}
+		submit(entry, System.currentTimeMillis());
+		return true;
+	}
+
+	public Optional<TriggerInfoView> info(JobKey key) {
+		Entry entry = active.get(key);
+		EphemeralJob job = entry != null ? entry.job : repository.find(schedName, key);
+		if (job == null)
+			return Optional.empty();
+		long now = System.currentTimeMillis();
+		long previous = job.lastFireAtOrBefore(now);
+		long next = job.paused() ? -1 : job.nextFireAfter(now);
+		return Optional.of(TriggerInfoView.builder().jobGroup(key.getGroup()).jobName(key.getName())
+				.triggerName(key.getName() + "_trigger").triggerGroup(key.getGroup()).triggerType(TRIGGER_TYPE)
+				.previousFireTime(previous >= 0 ? new Date(previous) : null)
+				.nextFireTime(next >= 0 ? new Date(next) : null).state(job.paused() ? "PAUSED" : "NORMAL")
+				.repeatIntervalMs(job.intervalMs()).build());
+	}
+
+	@Scheduled(initialDelay = 0, fixedDelayString = "${roombillz.scheduler.ephemeral.sync-interval-ms:5000}")
+	void sync() {
+		long started = System.currentTimeMillis();
+		try {
+			int claimed = repository.claimOrphans(schedName, instanceId, clustered, started);
+			if (claimed > 0)
+				log.info("Took over {} ephemeral jobs without a live owner", claimed);
+
+			Set<JobKey> owned = new HashSet<>();
+			for (EphemeralJob job : repository.findByOwner(schedName, instanceId)) {
+				owned.add(job.key());
+				Entry entry = active.get(job.key());
+				if (entry == null || entry.job.updatedAt() != job.updatedAt())
+					activate(job);
+			}
+			// Jobs created here while the sync ran are not in its snapshot yet
+			active.forEach((key, entry) -> {
+				if (!owned.contains(key) && entry.job.updatedAt() < started)
+					deactivate(key);
+			});
+		} catch (Exception ex) {
+			log.warn("Ephemeral job sync failed: {}", ex.getMessage());
+		}
+	}
+
+	private void activate(EphemeralJob job) {
+		Entry entry = new Entry(job);
+		Entry previous = active.put(job.key(), entry);
+		if (previous != null)
+			previous.cancel();
+		if (!job.paused())
+			entry.scheduleAfter(System.currentTimeMillis() - 1);
+	}
+
+	private void deactivate(JobKey key) {
+		Entry entry = active.remove(key);
+		if (entry != null)
+			entry.cancel();
+	}
+
+	// On the wheel thread: plan the next fire first, then hand this one to a worker
+	private void fire(Entry entry, long scheduledMs) {
+		if (!entry.scheduleAfter(scheduledMs))
+			return;
+		try {
+			if (scheduler.isInStandbyMode() || scheduler.isShutdown())
+				return;
+		} catch (SchedulerException ex) {
+			return;
+		}
+		submit(entry, scheduledMs);
+	}
+
+	private void submit(Entry entry, long scheduledMs) {
+		try {
+			workers.execute(() -> execute(entry, scheduledMs));
+		} catch (RejectedExecutionException ex) {
+			log.warn("Ephemeral fire of {} rejected: {}", entry.job.key(), ex.getMessage());
+		}
+	}
+
+	private void execute(Entry entry, long scheduledMs) {
+		EphemeralJob def = entry.job;
+		long next = def.nextFireAfter(scheduledMs);
+		Date fireTime = new Date();
+		long previous = scheduledMs - def.intervalMs();
+		TriggerFiredBundle bundle = new TriggerFiredBundle(entry.detail, entry.trigger, null, false, fireTime,
+				new Date(scheduledMs), previous >= def.startMs() ? new Date(previous) : null,
+				next >= 0 ? new Date(next) : null);
+
+		try {
+			JobExecutionException error = jobRunner.run(bundle);
+			if (error != null)
+				log.warn("Ephemeral job {} failed: {}", def.key(), error.getMessage());
+		} catch (SchedulerException ex) {
+			log.error("Unable to create ephemeral job {}", def.key(), ex);
+		}
+	}
+
+	/**
+	 * A job on the wheel. Holds the JobDetail and trigger handed to every fire,
+	 * built once per definition version.
+	 */
+	private final class Entry {
+		private final EphemeralJob job;
+		private final JobDetail detail;
+		private final OperableTrigger trigger;
+
+		private TimingWheel.Timeout timeout;
+		private boolean cancelled;
+
+		Entry(EphemeralJob job) {
+			this.job = job;
+			this.detail = JobBuilder.newJob(jobClass(job)).withIdentity(job.key())
+					.usingJobData(new JobDataMap(new HashMap<>(job.jobData()))).build();
+			SimpleScheduleBuilder schedule = SimpleScheduleBuilder.simpleSchedule()
+					.withIntervalInMilliseconds(job.intervalMs());
+			schedule = job.repeatCount() >= 0 ? schedule.withRepeatCount(job.repeatCount())
+					: schedule.repeatForever();
+			this.trigger = (OperableTrigger) TriggerBuilder.newTrigger()
+					.withIdentity(job.key().getName() + "_trigger", job.key().getGroup()).forJob(detail)
+					.startAt(new Date(job.startMs())).endAt(job.endMs() != null ? new Date(job.endMs()) : null)
+					.withSchedule(schedule).build();
+		}
+
+		/**
+		 * Puts the first fire after {@code time} on the wheel. Once the schedule has
+		 * ended the job is removed like a Quartz job after its last trigger.
+		 *
+		 * @return false if the entry was cancelled
+		 */
+		synchronized boolean scheduleAfter(long time) {
+			if (cancelled)
+				return false;
+			long next = job.nextFireAfter(Math.max(time, System.currentTimeMillis() - 1));
+			if (next >= 0) {
+				timeout = wheel.schedule(next, () -> fire(this, next));
+			} else if (active.remove(job.key(), this)) {
+				// Off the wheel thread, which must not wait on the database
+				try {
+					workers.execute(() -> delete(job.key()));
+				} catch (RejectedExecutionException ex) {
+					// The row stays; the next sync activates the job again and retries
+					log.warn("Removal of ended ephemeral job {} deferred: {}", job.key(), ex.getMessage());
+				}
+			}
+			return true;
+		}
+
+		synchronized void cancel() {
+			cancelled = true;
+			if (timeout != null)
+				timeout.cancel();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Class<? extends Job> jobClass(EphemeralJob job) {
+		try {
+			return (Class<? extends Job>) Class.forName(job.jobClass());
+		} catch (ClassNotFoundException ex) {
+			throw new IllegalStateException("Unknown job class " + job.jobClass() + " for " + job.key(), ex);
+		}
+	}
+}
@@ -0,0 +1,233 @@
+package com.inn.ephemeral;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hierarchical timing wheel. Level 0 has {@code 2^bits} slots of one tick
+ * each, every further level has as many slots covering a full turn of the level
+ * below. A timeout goes into the lowest level whose span reaches its deadline
+ * and moves down a level each time the wheel below wraps, so schedule and
+ * cancel are O(1) whatever the number of pending timeouts, and a tick only
+ * touches the timeouts that are due. Deadlines beyond the top level wait in
+ * its last slot and are placed again when it comes round.
+ * <p>
+ * A single daemon thread advances the wheel and runs expired tasks; they must
+ * only hand work off. Timeouts never fire early, and normally at most one
+ * tick late.
+ */
+@Slf4j
+public class TimingWheel {
+
+	private final long tickMs;
+	private final int bits;
+	private final int mask;
+	private final int levels;
+	private final Bucket[][] wheel;
+	private final long startMs;
+	private final Thread driver;
+
+	private long tick; // last tick processed
+	private int pending;
+	private volatile boolean running = true;
+
+	public TimingWheel(String name, long tickMs, int bits, int levels) {
+		if (tickMs <= 0 || bits < 1 || levels < 1 || (long) bits * levels > 62)
+			throw new IllegalArgumentException("Invalid wheel: tick " + tickMs + " ms, " + bits + " bits, " + levels
+					+ " levels");
+		this.tickMs = tickMs;
+		this.bits = bits;
+		this.mask = (1 << bits) - 1;
+		this.levels = levels;
+		this.wheel = new Bucket[levels][1 << bits];
+		for (Bucket[] level : wheel)
+			for (int i = 0; i < level.length; i++)
+				level[i] = new Bucket();
+		this.startMs = System.currentTimeMillis();
+		this.driver = Thread.ofPlatform().name(name).daemon().unstarted(this::run);
+		driver.start();
+	}
+
+	/**
+	 * Runs {@code task} on the wheel thread once {@code deadlineMs} (epoch
+	 * millis) has passed; deadlines in the past fire on the next tick.
+	 */
+	public Timeout schedule(long deadlineMs, Runnable task) {
+		Timeout timeout = new Timeout(this, deadlineMs, task);
+		synchronized (this) {
+			place(timeout);
+			pending++;
+		}
+		return timeout;
+	}
+
+	/**
+	 * Timeouts scheduled and not yet fired or cancelled.
+	 */
+	public synchronized int pending() {
+		return pending;
+	}
+
+	public void stop() {
+		running = false;
+		LockSupport.unpark(driver);
+		try {
+			driver.join(TimeUnit.SECONDS.toMillis(5));
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void place(Timeout timeout) {
+		long target = Math.max(deadlineTick(timeout), tick + 1);
+		long delta = target - tick;
+		int level = 0;
+		while (level < levels - 1 && delta >= 1L << (bits * (level + 1)))
+			level++;
+		if (delta >= 1L << (bits * levels))
+			// Beyond the wheel: park in the top slot reached last, placed again on cascade
+			target = tick + (1L << (bits * levels)) - 1;
+		wheel[level][(int) (target >>> (bits * level)) & mask].add(timeout);
+	}
+
+	private long ticksOf(long epochMs) {
+		return Math.floorDiv(epochMs - startMs, tickMs);
+	}
+
+	// First tick at or after the deadline, so nothing fires early
+	private long deadlineTick(Timeout timeout) {
+		return Math.ceilDiv(timeout.deadlineMs - startMs, tickMs);
+	}
+
+	private void run() {
+		while (running) {
+			long now = System.currentTimeMillis();
+			List<Timeout> expired = new ArrayList<>();
+			synchronized (this) {
+				long target = ticksOf(now);
+				while (tick < target)
+					advance(expired);
+			}
+			for (Timeout timeout : expired) {
+				try {
+					timeout.task.run();
+				} catch (RuntimeException ex) {
+					log.error("Timing wheel task failed", ex);
+				}
+			}
+			long next = startMs + (ticksOf(System.currentTimeMillis()) + 1) * tickMs;
+			LockSupport.parkUntil(next);
+		}
+	}
+
+	private void advance(List<Timeout> expired) {
+		tick++;
+		// Whenever a level wraps to slot 0, pull the next slot of the level above down
+		for (int level = 1; level < levels && ((tick >>> (bits * (level - 1))) & mask) == 0; level++)
+			cascade(wheel[level][(int) (tick >>> (bits * level)) & mask]);
+
+		Bucket due = wheel[0][(int) tick & mask];
+		for (Timeout timeout = due.detachAll(); timeout != null;) {
+			Timeout next = timeout.next;
+			timeout.next = null;
+			if (deadlineTick(timeout) <= tick) {
+				timeout.state = Timeout.EXPIRED;
+				pending--;
+				expired.add(timeout);
+			} else {
+				place(timeout);
+			}
+			timeout = next;
+		}
+	}
+
+	private void cascade(Bucket bucket) {
+		for (Timeout timeout = bucket.detachAll(); timeout != null;) {
+			Timeout next = timeout.next;
+			timeout.next = null;
+			place(timeout);
+			timeout = next;
+		}
+	}
+
+	private synchronized boolean cancel(Timeout timeout) {
+		if (timeout.state != Timeout.PENDING)
+			return false;
+		timeout.bucket.remove(timeout);
+		timeout.state = Timeout.CANCELLED;
+		pending--;
+		return true;
+	}
+
+	/**
+	 * Handle of a scheduled task.
+	 */
+	public static final class Timeout {
+
+		private static final int PENDING = 0;
+		private static final int EXPIRED = 1;
+		private static final int CANCELLED = 2;
+
+		private final TimingWheel wheel;
+		private final long deadlineMs;
+		private final Runnable task;
+
+		// Guarded by the wheel
+		private int state = PENDING;
+		private Bucket bucket;
+		private Timeout prev;
+		private Timeout next;
+
+		private Timeout(TimingWheel wheel, long deadlineMs, Runnable task) {
+			this.wheel = wheel;
+			this.deadlineMs = deadlineMs;
+			this.task = task;
+		}
+
+		/**
+		 * @return false if the task already ran or was cancelled before
+		 */
+		public boolean cancel() {
+			return wheel.cancel(this);
+		}
+	}
+
+	// Intrusive doubly linked list, so a cancelled timeout unlinks itself in O(1)
+	private static final class Bucket {
+		private Timeout head;
+
+		void add(Timeout timeout) {
+			timeout.bucket = this;
+			timeout.prev = null;
+			timeout.next = head;
+			if (head != null)
+				head.prev = timeout;
+			head = timeout;
+		}
+
+		void remove(Timeout timeout) {
+			if (timeout.prev != null)
+				timeout.prev.next = timeout.next;
+			else
+				head = timeout.next;
+			if (timeout.next != null)
+				timeout.next.prev = timeout.prev;
+			timeout.prev = timeout.next = null;
+			timeout.bucket = null;
+		}
+
+		Timeout detachAll() {
+			Timeout first = head;
+			head = null;
+			for (Timeout t = first; t != null; t = t.next) {
+				t.bucket = null;
+				t.prev = null;
+			}
+			return first;
+		}
+	}
+}
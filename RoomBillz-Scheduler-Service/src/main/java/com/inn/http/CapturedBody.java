@@ -0,0 +1,18 @@
+package com.inn.http;
+
+import java.util.Map;
+
+/**
+ * What was kept of a response body.
+ *
+ * @param size      bytes received, including those that were discarded
+ * @param preview   leading bytes decoded as UTF-8, for logs
+ * @param body      the whole body in FULL mode, otherwise null
+ * @param truncated true if the body exceeded the capture limit for its mode
+ * @param fields    extracted JSON pointer values in JSON_FIELDS mode, otherwise
+ *                  empty
+ */
+public record CapturedBody(long size, String preview, String body, boolean truncated, Map<String, String> fields) {
+
+	public static final CapturedBody EMPTY = new CapturedBody(0, "", null, false, Map.of());
+}
@@ -0,0 +1,169 @@
+package com.inn.http;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.ReactorClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.inn.config.SchedulerProperties;
+import com.inn.metrics.SchedulerMetrics;
+
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Long-lived HTTP clients for job execution, one connection pool per target
+ * host and port. Jobs look their client up here instead of building a new one
+ * per fire, so keep-alive connections are reused across fires.
+ * <p>
+ * Pool gauges are published by Reactor Netty under
+ * {@code reactor.netty.connection.provider.*} (total, active, idle and pending
+ * connections), tagged with the pool name {@code jobs-<host>-<port>}. Every
+ * response is also counted as {@code scheduler.http.responses{host,status}}.
+ * <p>
+ * Each host also gets a {@link TargetLimiter} that jobs take a permit from
+ * before calling it.
+ * <p>
+ * A host nobody looked up for {@code maxIdleTimeMs} is dropped: its pool is
+ * disposed (calls in flight finish on their connections) and its limiter
+ * gauges are removed, so hosts jobs stopped calling don't pile up. Cached
+ * {@link RequestPlan}s hold on to their host's clients, which is why
+ * {@link RequestPlanCache} checks {@link #isLive} on every hit.
+ */
+@Slf4j
+@Component
+public class HttpClientRegistry {
+
+	private final WebClient.Builder webClientBuilder;
+	private final SchedulerProperties.Http config;
+	private final SchedulerProperties.Limiter limiterConfig;
+	private final SchedulerMetrics metrics;
+	private final Cache<String, HostClient> clients;
+
+	public HttpClientRegistry(WebClient.Builder webClientBuilder, SchedulerProperties properties,
+			SchedulerMetrics metrics) {
+		this.webClientBuilder = webClientBuilder;
+		this.config = properties.getHttp();
+		this.limiterConfig = properties.getLimiter();
+		this.metrics = metrics;
+		this.clients = Caffeine.newBuilder().expireAfterAccess(Duration.ofMillis(config.getMaxIdleTimeMs()))
+				.scheduler(Scheduler.systemScheduler())
+				// Runs inside the removal, so a client created again for the host registers after it
+				.<String, HostClient>evictionListener((key, client, cause) -> dispose(key, client)).build();
+	}
+
+	public WebClient webClient(URI uri) {
+		return hostClient(uri).webClient;
+	}
+
+	public RestTemplate restTemplate(URI uri) {
+		return hostClient(uri).restTemplate;
+	}
+
+	public TargetLimiter limiter(URI uri) {
+		return hostClient(uri).limiter;
+	}
+
+	/**
+	 * Whether the limiter (and the clients created with it) still belongs to a
+	 * registered host; also keeps the host from being dropped as idle.
+	 */
+	public boolean isLive(TargetLimiter limiter) {
+		HostClient client = clients.getIfPresent(limiter.getTarget());
+		return client != null && client.limiter == limiter;
+	}
+
+	private HostClient hostClient(URI uri) {
+		return clients.get(poolKey(uri), key -> create(key, uri));
+	}
+
+	static String poolKey(URI uri) {
+		if (uri.getHost() == null)
+			throw new IllegalArgumentException("Target URL has no host: " + uri);
+		int port = uri.getPort() != -1 ? uri.getPort() : "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+		return uri.getHost() + "-" + port;
+	}
+
+	private HostClient create(String key, URI uri) {
+		ConnectionProvider provider = ConnectionProvider.builder("jobs-" + key)
+				.maxConnections(config.getMaxConnections())
+				.pendingAcquireMaxCount(config.getPendingAcquireMaxCount())
+				.pendingAcquireTimeout(Duration.ofMillis(config.getPendingAcquireTimeoutMs()))
+				.maxIdleTime(Duration.ofMillis(config.getMaxIdleTimeMs()))
+				.maxLifeTime(Duration.ofMillis(config.getMaxLifeTimeMs()))
+				.evictInBackground(Duration.ofMillis(config.getEvictIntervalMs()))
+				.metrics(true)
+				.build();
+
+		HttpClient httpClient = HttpClient.create(provider)
+				.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, config.getConnectTimeoutMs())
+				.responseTimeout(Duration.ofMillis(config.getReadTimeoutMs()))
+				.keepAlive(true);
+
+		// h2 is negotiated via ALPN, so only offer it on TLS; plain-http targets stay on
+		// HTTP/1.1 and rely on keep-alive
+		if (config.isHttp2() && "https".equalsIgnoreCase(uri.getScheme())) {
+			httpClient = httpClient.secure().protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+		}
+
+		log.info("Created HTTP connection pool jobs-{} (maxConnections={})", key, config.getMaxConnections());
+		RestTemplate restTemplate = new RestTemplate(new ReactorClientHttpRequestFactory(httpClient));
+		restTemplate.getInterceptors().add(statusCounter(key));
+		TargetLimiter limiter = new TargetLimiter(key, limiterConfig, limiterConfig.getMaxLimit());
+		metrics.registerTargetLimiter(key, limiter);
+		return new HostClient(provider, webClientBuilder.clone()
+				.clientConnector(new ReactorClientHttpConnector(httpClient)).filter(statusFilter(key)).build(),
+				restTemplate, limiter);
+	}
+
+	private ExchangeFilterFunction statusFilter(String key) {
+		return (request, next) -> next.exchange(request)
+				.doOnNext(response -> metrics.countHttpResponse(key, response.statusCode().value()))
+				.doOnError(ex -> metrics.countHttpResponse(key, null));
+	}
+
+	private ClientHttpRequestInterceptor statusCounter(String key) {
+		return (request, body, execution) -> {
+			try {
+				ClientHttpResponse response = execution.execute(request, body);
+				metrics.countHttpResponse(key, response.getStatusCode().value());
+				return response;
+			} catch (IOException | RuntimeException ex) {
+				metrics.countHttpResponse(key, null);
+				throw ex;
+			}
+		};
+	}
+
+	private void dispose(String key, HostClient client) {
+		log.info("Dropping idle HTTP connection pool jobs-{}", key);
+		metrics.removeTargetLimiter(key);
+		client.provider.disposeLater().subscribe(null,
+				ex -> log.warn("Disposing connection pool jobs-{} failed: {}", key, ex.getMessage()));
+	}
+
+	@PreDestroy
+	void close() {
+		clients.asMap().values().forEach(c -> c.provider.disposeLater().block(Duration.ofSeconds(10)));
+		clients.invalidateAll();
+	}
+
+	private record HostClient(ConnectionProvider provider, WebClient webClient, RestTemplate restTemplate,
+			TargetLimiter limiter) {
+	}
+}
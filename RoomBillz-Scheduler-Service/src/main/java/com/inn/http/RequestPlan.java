@@ -0,0 +1,116 @@
+package com.inn.http;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.inn.payload.JobPayloadStore;
+
+import lombok.Getter;
+
+/**
+ * A job's outbound call with everything that does not change between fires
+ * already resolved: parsed method and URI (query params applied), the header
+ * set including Accept/Content-Type, the JSON body encoded to bytes, and the
+ * pooled clients and concurrency limiter for the target host. Immutable and
+ * shared by every fire of the job; built and cached by {@link RequestPlanCache}.
+ */
+@Getter
+public final class RequestPlan {
+
+	/**
+	 * JobDataMap key of the job's misfire policy, only stored when it is not
+	 * {@link #DEFAULT_MISFIRE_POLICY}.
+	 */
+	public static final String MISFIRE_POLICY = "misfirePolicy";
+	public static final String DEFAULT_MISFIRE_POLICY = "FIRE_AND_PROCEED";
+	/**
+	 * JobDataMap keys of call coalescing, see {@link com.inn.dispatch.CallBatcher}.
+	 */
+	public static final String BATCH_KEY = "batchKey";
+	public static final String BATCH_URL = "batchUrl";
+
+	private final HttpMethod method;
+	private final URI uri;
+	private final byte[] body; // null for GET and DELETE
+	private final Duration timeout;
+	private final ResponseCapture capture;
+	private final List<String> responseFields;
+	private final WebClient webClient;
+	private final RestTemplate restTemplate;
+	private final TargetLimiter limiter;
+	private final String misfirePolicy; // how a fire refused by the limiter is handled
+	private final String batchKey; // null unless fires are coalesced into bulk calls
+	private final URI batchUri; // where bulk calls of batchKey go
+	private final HttpHeaders headers;
+
+	// Built once so a fire doesn't allocate a lambda per request
+	private final Consumer<HttpHeaders> headerWriter;
+
+	// JobDataMap values the plan was compiled from
+	private final Object targetUrl;
+	private final Object httpMethod;
+	private final Object timeoutMs;
+	private final Object responseCapture;
+	private final Object payloadVersion;
+	private final Object misfirePolicyValue;
+	private final Object batchUrl;
+
+	RequestPlan(Map<String, ?> jobData, HttpMethod method, URI uri, HttpHeaders headers, byte[] body,
+			Duration timeout, ResponseCapture capture, List<String> responseFields, WebClient webClient,
+			RestTemplate restTemplate, TargetLimiter limiter, URI batchUri) {
+		this.method = method;
+		this.uri = uri;
+		this.body = body;
+		this.timeout = timeout;
+		this.capture = capture;
+		this.responseFields = responseFields;
+		this.webClient = webClient;
+		this.restTemplate = restTemplate;
+		this.limiter = limiter;
+		this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+		this.headerWriter = h -> h.addAll(this.headers);
+		this.targetUrl = jobData.get("targetUrl");
+		this.httpMethod = jobData.get("httpMethod");
+		this.timeoutMs = jobData.get("timeoutMs");
+		this.responseCapture = jobData.get("responseCapture");
+		this.payloadVersion = JobPayloadStore.version(jobData);
+		this.misfirePolicyValue = jobData.get(MISFIRE_POLICY);
+		this.misfirePolicy = misfirePolicyValue != null ? misfirePolicyValue.toString() : DEFAULT_MISFIRE_POLICY;
+		Object batchKeyValue = jobData.get(BATCH_KEY);
+		this.batchKey = batchKeyValue != null ? batchKeyValue.toString() : null;
+		this.batchUrl = jobData.get(BATCH_URL);
+		this.batchUri = batchUri;
+	}
+
+	/**
+	 * Whether this plan still describes the job. Compared on every fire, which
+	 * also catches jobs replaced on another cluster node.
+	 */
+	boolean compiledFrom(Map<String, ?> jobData) {
+		return Objects.equals(targetUrl, jobData.get("targetUrl"))
+				&& Objects.equals(httpMethod, jobData.get("httpMethod"))
+				&& Objects.equals(timeoutMs, jobData.get("timeoutMs"))
+				&& Objects.equals(responseCapture, jobData.get("responseCapture"))
+				&& Objects.equals(payloadVersion, JobPayloadStore.version(jobData))
+				&& Objects.equals(misfirePolicyValue, jobData.get(MISFIRE_POLICY))
+				&& Objects.equals(batchKey, jobData.get(BATCH_KEY))
+				&& Objects.equals(batchUrl, jobData.get(BATCH_URL));
+	}
+
+	/**
+	 * Starts the call on the job's pooled WebClient.
+	 */
+	public WebClient.ResponseSpec retrieve() {
+		WebClient.RequestBodySpec req = webClient.method(method).uri(uri).headers(headerWriter);
+		return body != null ? req.bodyValue(body).retrieve() : req.retrieve();
+	}
+}
@@ -0,0 +1,130 @@
+package com.inn.http;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.quartz.JobKey;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.inn.config.SchedulerProperties;
+import com.inn.payload.JobPayload;
+import com.inn.payload.JobPayloadStore;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Compiled {@link RequestPlan}s by JobKey, so a fire skips method parsing, URI
+ * building, header copying and body serialization. A cached plan is used only
+ * while the fired JobDataMap still carries the values (and payload version) it
+ * was compiled from, and its host's clients haven't been dropped as idle;
+ * otherwise it is recompiled. Jobs deleted or replaced on this node are
+ * evicted by {@link com.inn.listener.RequestPlanCacheListener}.
+ * Hit/miss stats are published as {@code cache.*{cache=requestPlan}}.
+ */
+@Component
+public class RequestPlanCache {
+
+	private static final int DEFAULT_TIMEOUT_MS = 30000;
+
+	private final HttpClientRegistry clients;
+	private final JobPayloadStore payloads;
+	private final ObjectMapper objectMapper;
+	private final Cache<JobKey, RequestPlan> cache;
+
+	public RequestPlanCache(HttpClientRegistry clients, JobPayloadStore payloads, ObjectMapper objectMapper,
+			SchedulerProperties properties, MeterRegistry meterRegistry) {
+		this.clients = clients;
+		this.payloads = payloads;
+		this.objectMapper = objectMapper;
+		this.cache = Caffeine.newBuilder().maximumSize(properties.getCache().getPlanMaxSize()).recordStats().build();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, "requestPlan");
+	}
+
+	public RequestPlan get(JobKey key, Map<String, ?> jobData) {
+		RequestPlan plan = cache.getIfPresent(key);
+		if (plan == null || !plan.compiledFrom(jobData) || !clients.isLive(plan.getLimiter())) {
+			plan = compile(jobData);
+			cache.put(key, plan);
+		}
+		return plan;
+	}
+
+	public void evict(JobKey key) {
+		cache.invalidate(key);
+	}
+
+	public void evictAll() {
+		cache.invalidateAll();
+	}
+
+	private RequestPlan compile(Map<String, ?> jobData) {
+		JobPayload payload = payloads.resolve(jobData);
+
+		// targetUrl is absolute; resolving it as a path against an empty base drops the host
+		UriComponentsBuilder builder = UriComponentsBuilder.fromUriString((String) jobData.get("targetUrl"));
+		if (payload.queryParams() != null)
+			payload.queryParams().forEach(builder::queryParam);
+		URI uri = builder.encode().build().toUri();
+
+		HttpMethod method = HttpMethod.valueOf((String) jobData.get("httpMethod"));
+		boolean hasBody = method != HttpMethod.GET && method != HttpMethod.DELETE;
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+		if (hasBody)
+			headers.setContentType(MediaType.APPLICATION_JSON);
+		if (payload.headers() != null)
+			payload.headers().forEach(headers::add);
+
+		byte[] body = null;
+		if (hasBody) {
+			try {
+				body = payload.body() != null ? objectMapper.writeValueAsBytes(payload.body()) : new byte[0];
+			} catch (JsonProcessingException ex) {
+				throw new IllegalArgumentException("Job body cannot be serialized: " + ex.getOriginalMessage(), ex);
+			}
+		}
+
+		Object timeoutMs = jobData.get("timeoutMs");
+		Duration timeout = Duration
+				.ofMillis(timeoutMs != null ? Integer.parseInt(timeoutMs.toString()) : DEFAULT_TIMEOUT_MS);
+
+		URI batchUri = null;
+		if (jobData.get(RequestPlan.BATCH_KEY) != null) {
+			Object batchUrl = jobData.get(RequestPlan.BATCH_URL);
+			batchUri = batchUrl != null
+					? UriComponentsBuilder.fromUriString(batchUrl.toString()).encode().build().toUri()
+					: uri;
+		}
+
+		return new RequestPlan(jobData, method, uri, headers, body, timeout,
+				ResponseCapture.of((String) jobData.get("responseCapture")), payload.responseFields(),
+				clients.webClient(uri), clients.restTemplate(uri), clients.limiter(uri), batchUri);
+	}
+
+	/**
+	 * The bulk call for a batch of fires sharing {@code first}'s batch key: a
+	 * JSON POST of {@code body} to its batch URI with its headers and timeout,
+	 * keeping the whole response so per-item results can be read from it. Built
+	 * per batch, never cached.
+	 */
+	public RequestPlan bulk(RequestPlan first, byte[] body) {
+		URI uri = first.getBatchUri();
+		HttpHeaders headers = new HttpHeaders();
+		headers.addAll(first.getHeaders());
+		headers.setContentType(MediaType.APPLICATION_JSON);
+		return new RequestPlan(Map.of(), HttpMethod.POST, uri, headers, body, first.getTimeout(), ResponseCapture.FULL,
+				null, clients.webClient(uri), clients.restTemplate(uri), clients.limiter(uri), null);
+	}
+}
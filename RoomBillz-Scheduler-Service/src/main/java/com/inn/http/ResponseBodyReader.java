@@ -0,0 +1,125 @@
+package com.inn.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inn.config.SchedulerProperties;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reads job response bodies with bounded memory. Only the bytes the
+ * {@link ResponseCapture} mode needs are copied; the rest of the stream is
+ * counted and released as it arrives, so large bodies cost neither a full
+ * allocation nor a decode, and are not subject to the codec's in-memory limit.
+ */
+@Slf4j
+@Component
+public class ResponseBodyReader {
+
+	private final ObjectMapper objectMapper;
+	private final int previewBytes;
+	private final int maxCaptureBytes;
+
+	public ResponseBodyReader(ObjectMapper objectMapper, SchedulerProperties properties) {
+		this.objectMapper = objectMapper;
+		this.previewBytes = properties.getHttp().getResponsePreviewBytes();
+		this.maxCaptureBytes = properties.getHttp().getMaxCaptureBytes();
+	}
+
+	public Mono<CapturedBody> read(Flux<DataBuffer> body, ResponseCapture mode, List<String> fields) {
+		return Mono.defer(() -> {
+			Head head = new Head(limit(mode));
+			return body.doOnNext(buffer -> {
+				try {
+					head.append(buffer);
+				} finally {
+					DataBufferUtils.release(buffer);
+				}
+			}).then(Mono.fromSupplier(() -> capture(head.bytes.toByteArray(), head.size, mode, fields)));
+		});
+	}
+
+	/**
+	 * Blocking variant for RestTemplate response extractors. Reads the stream to
+	 * the end so the connection can be reused.
+	 */
+	public CapturedBody read(InputStream body, ResponseCapture mode, List<String> fields) throws IOException {
+		if (body == null)
+			return CapturedBody.EMPTY;
+		byte[] head = body.readNBytes(limit(mode));
+		long rest = body.transferTo(OutputStream.nullOutputStream());
+		return capture(head, head.length + rest, mode, fields);
+	}
+
+	private int limit(ResponseCapture mode) {
+		return mode == ResponseCapture.PREVIEW ? previewBytes : maxCaptureBytes;
+	}
+
+	private CapturedBody capture(byte[] head, long size, ResponseCapture mode, List<String> fields) {
+		boolean truncated = size > head.length;
+		String preview = new String(head, 0, Math.min(head.length, previewBytes), StandardCharsets.UTF_8);
+		String full = mode == ResponseCapture.FULL ? new String(head, StandardCharsets.UTF_8) : null;
+		Map<String, String> values = mode == ResponseCapture.JSON_FIELDS && !truncated ? extract(head, fields)
+				: Map.of();
+		if (truncated && mode != ResponseCapture.PREVIEW)
+			log.warn("Response body of {} bytes exceeds max-capture-bytes={}, {} capture skipped", size,
+					maxCaptureBytes, mode);
+		return new CapturedBody(size, preview, full, truncated, values);
+	}
+
+	private Map<String, String> extract(byte[] json, List<String> pointers) {
+		if (pointers == null || pointers.isEmpty() || json.length == 0)
+			return Map.of();
+		try {
+			JsonNode root = objectMapper.readTree(json);
+			Map<String, String> values = new LinkedHashMap<>();
+			for (String pointer : pointers) {
+				JsonNode node = root.at(pointer);
+				if (!node.isMissingNode())
+					values.put(pointer, node.isValueNode() ? node.asText() : node.toString());
+			}
+			return values;
+		} catch (IOException | IllegalArgumentException ex) {
+			log.warn("Unable to extract response fields {}: {}", pointers, ex.getMessage());
+			return Map.of();
+		}
+	}
+
+	// Copies at most limit bytes, counts all of them
+	private static class Head {
+		private final int limit;
+		private final ByteArrayOutputStream bytes;
+		private long size;
+
+		Head(int limit) {
+			this.limit = limit;
+			this.bytes = new ByteArrayOutputStream(Math.min(limit, 8192));
+		}
+
+		void append(DataBuffer buffer) {
+			int readable = buffer.readableByteCount();
+			size += readable;
+			int take = Math.min(readable, limit - bytes.size());
+			if (take > 0) {
+				byte[] chunk = new byte[take];
+				buffer.read(chunk);
+				bytes.writeBytes(chunk);
+			}
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package com.inn.http;
+
+/**
+ * How much of a job's response body is kept. Whatever is not kept is still read
+ * off the connection, so it can go back to the pool, but never decoded.
+ */
+public enum ResponseCapture {
+
+	/** First {@code response-preview-bytes} for logging and history (default). */
+	PREVIEW,
+
+	/** The whole body, up to {@code max-capture-bytes}. */
+	FULL,
+
+	/**
+	 * Values of the job's {@code responseFields} JSON pointers (e.g.
+	 * {@code /data/id}). The body is buffered up to {@code max-capture-bytes} to
+	 * parse it.
+	 */
+	JSON_FIELDS;
+
+	public static ResponseCapture of(String value) {
+		return value == null || value.isBlank() ? PREVIEW : valueOf(value);
+	}
+}
@@ -0,0 +1,191 @@
+package com.inn.http;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.inn.config.SchedulerProperties;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Adaptive in-flight limit for one target host (AIMD). Every completed call
+ * feeds back its latency and outcome: the limit grows by one per limit's worth
+ * of good calls while it is in use, and shrinks by {@code backoffRatio} when a
+ * call times out, fails without a response, gets 429/502/503/504, or takes
+ * longer than {@code latencyTolerance} times the host's smoothed latency.
+ * Calls over the limit wait in a bounded FIFO queue; when it is full, or the
+ * wait exceeds {@code maxWaitMs}, the call is refused with
+ * {@link TargetOverloadedException}. With {@code enabled: false} every call
+ * gets a permit straight away and nothing is tracked.
+ */
+public class TargetLimiter {
+
+	private final String target;
+	private final SchedulerProperties.Limiter config;
+	private final boolean enabled;
+	private final int maxLimit;
+
+	// Guarded by this
+	private double limit;
+	private int inFlight;
+	private double latencyNanos; // long-term EWMA of good calls, 0 until the first
+	private final ArrayDeque<CompletableFuture<Permit>> waiters = new ArrayDeque<>();
+
+	TargetLimiter(String target, SchedulerProperties.Limiter config, int maxLimit) {
+		this.target = target;
+		this.config = config;
+		this.enabled = config.isEnabled();
+		this.maxLimit = Math.max(config.getMinLimit(), maxLimit);
+		this.limit = Math.min(config.getInitialLimit(), this.maxLimit);
+	}
+
+	/**
+	 * Blocks up to {@code maxWaitMs} for a permit; for callers on a worker
+	 * thread.
+	 */
+	public Permit acquire() {
+		CompletableFuture<Permit> pending = request();
+		try {
+			return pending.get(config.getMaxWaitMs(), TimeUnit.MILLISECONDS);
+		} catch (TimeoutException ex) {
+			return abandon(pending, "no permit within " + config.getMaxWaitMs() + " ms");
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return abandon(pending, "interrupted while waiting");
+		} catch (ExecutionException ex) {
+			throw (TargetOverloadedException) ex.getCause();
+		}
+	}
+
+	/**
+	 * Permit without blocking a thread, failing with
+	 * {@link TargetOverloadedException} like {@link #acquire()}.
+	 */
+	public Mono<Permit> acquireAsync() {
+		return Mono.defer(() -> {
+			CompletableFuture<Permit> pending = request();
+			return Mono.fromFuture(pending, true)
+					.timeout(Duration.ofMillis(config.getMaxWaitMs()), Mono.fromCallable(
+							() -> abandon(pending, "no permit within " + config.getMaxWaitMs() + " ms")))
+					.doOnCancel(() -> discard(pending));
+		});
+	}
+
+	String getTarget() {
+		return target;
+	}
+
+	public synchronized int getLimit() {
+		return (int) limit;
+	}
+
+	public synchronized int getInFlight() {
+		return inFlight;
+	}
+
+	public synchronized int getQueued() {
+		return waiters.size();
+	}
+
+	private synchronized CompletableFuture<Permit> request() {
+		if (!enabled)
+			return CompletableFuture.completedFuture(new Permit());
+		if (inFlight < (int) limit && waiters.isEmpty()) {
+			inFlight++;
+			return CompletableFuture.completedFuture(new Permit());
+		}
+		if (waiters.size() >= config.getMaxQueue())
+			return CompletableFuture
+					.failedFuture(new TargetOverloadedException(target, "queue full (" + waiters.size() + ")"));
+		CompletableFuture<Permit> pending = new CompletableFuture<>();
+		waiters.add(pending);
+		return pending;
+	}
+
+	// A waiter gives up; if the permit was granted in the meantime it is kept
+	private Permit abandon(CompletableFuture<Permit> pending, String reason) {
+		synchronized (this) {
+			waiters.remove(pending);
+		}
+		if (pending.completeExceptionally(new TargetOverloadedException(target, reason)))
+			throw new TargetOverloadedException(target, reason);
+		return pending.join();
+	}
+
+	// The caller went away; a permit granted in the meantime goes back unused
+	private void discard(CompletableFuture<Permit> pending) {
+		synchronized (this) {
+			waiters.remove(pending);
+		}
+		if (!pending.completeExceptionally(new TargetOverloadedException(target, "cancelled"))
+				&& !pending.isCompletedExceptionally())
+			pending.join().discard();
+	}
+
+	private void release(long latencyNanos, Integer status) {
+		if (!enabled)
+			return;
+		List<CompletableFuture<Permit>> granted = new ArrayList<>();
+		synchronized (this) {
+			inFlight--;
+			adjust(latencyNanos, status);
+			while (inFlight < (int) limit && !waiters.isEmpty()) {
+				inFlight++;
+				granted.add(waiters.poll());
+			}
+		}
+		// Completed outside the lock: a waiter may go straight on to its call
+		for (CompletableFuture<Permit> waiter : granted)
+			if (!waiter.complete(new Permit()))
+				release(0, null);
+	}
+
+	private void adjust(long nanos, Integer status) {
+		if (nanos == 0)
+			return; // permit handed back unused
+		boolean failed = status == null || status == 429 || status == 502 || status == 503 || status == 504;
+		boolean slow = latencyNanos > 0 && nanos > latencyNanos * config.getLatencyTolerance();
+		if (failed || slow) {
+			limit = Math.max(config.getMinLimit(), limit * config.getBackoffRatio());
+		} else {
+			latencyNanos = latencyNanos == 0 ? nanos : latencyNanos * 0.95 + nanos * 0.05;
+			// Additive increase only while the limit is the constraint
+			if (inFlight + 1 >= (int) limit / 2)
+				limit = Math.min(maxLimit, limit + 1 / limit);
+		}
+	}
+
+	/**
+	 * One call's slot; released exactly once with how the call ended.
+	 */
+	public final class Permit {
+		private final long start = System.nanoTime();
+		private boolean released;
+
+		/**
+		 * @param status HTTP status, or null for timeouts and I/O errors
+		 */
+		public void release(Integer status) {
+			if (markReleased())
+				TargetLimiter.this.release(Math.max(1, System.nanoTime() - start), status);
+		}
+
+		void discard() {
+			if (markReleased())
+				TargetLimiter.this.release(0, null);
+		}
+
+		private synchronized boolean markReleased() {
+			if (released)
+				return false;
+			released = true;
+			return true;
+		}
+	}
+}
@@ -0,0 +1,21 @@
+package com.inn.http;
+
+/**
+ * A call was refused by its target's {@link TargetLimiter}: the target is at
+ * its concurrency limit and the wait queue is full or the wait timed out.
+ */
+public class TargetOverloadedException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String target;
+
+	public TargetOverloadedException(String target, String reason) {
+		super("Target " + target + " overloaded: " + reason);
+		this.target = target;
+	}
+
+	public String getTarget() {
+		return target;
+	}
+}
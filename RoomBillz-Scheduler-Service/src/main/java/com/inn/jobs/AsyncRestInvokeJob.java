@@ -0,0 +1,52 @@
+package com.inn.jobs;
+
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.inn.dispatch.CallBatcher;
+import com.inn.dispatch.DispatchRequest;
+import com.inn.dispatch.ReactiveDispatcher;
+import com.inn.http.RequestPlanCache;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hands the REST call to {@link ReactiveDispatcher} and returns immediately, so
+ * the Quartz worker thread is not held for the response. Jobs with a batch key
+ * go through {@link CallBatcher} first, to share a bulk call with co-firing
+ * jobs of the same key.
+ */
+@Slf4j
+@Component
+public class AsyncRestInvokeJob implements Job {
+
+	@Autowired
+	private ReactiveDispatcher dispatcher;
+
+	@Autowired
+	private CallBatcher batcher;
+
+	@Autowired
+	private RequestPlanCache plans;
+
+	@Override
+	public void execute(JobExecutionContext context) throws JobExecutionException {
+		DispatchRequest request = DispatchRequest.from(context,
+				plans.get(context.getJobDetail().getKey(), context.getMergedJobDataMap()));
+
+		if (request.getPlan().getBatchKey() != null) {
+			if (!batcher.submit(request)) {
+				log.warn("REST dispatch rejected, batches full -> {} {}", request.getPlan().getMethod(),
+						request.getPlan().getBatchUri());
+				throw new JobExecutionException("Call batches full for job " + request.getJobKey());
+			}
+		} else if (!dispatcher.submit(request)) {
+			log.warn("REST dispatch rejected, queue full -> {} {}", request.getPlan().getMethod(),
+					request.getPlan().getUri());
+			throw new JobExecutionException("Dispatch queue full for job " + request.getJobKey());
+		}
+	}
+}
@@ -2,30 +2,64 @@ package com.inn.jobs;
 
 import org.quartz.Job;
 import org.quartz.JobExecutionContext;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.client.RestClientResponseException;
 
+import com.inn.http.RequestPlan;
+import com.inn.http.RequestPlanCache;
+import com.inn.http.ResponseBodyReader;
+import com.inn.http.TargetLimiter;
+import com.inn.http.TargetOverloadedException;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
 @Component
 public class HttpCallJob implements Job {
 
+	@Autowired
+	private RequestPlanCache plans;
+
+	@Autowired
+	private ResponseBodyReader bodies;
+
+	@Autowired
+	private OverloadHandler overload;
+
 	@Override
 	public void execute(JobExecutionContext context) {
 		String url = context.getMergedJobDataMap().getString("targetUrl");
-		String httpMethod = context.getMergedJobDataMap().getString("httpMethod");
-
-		RestTemplate restTemplate = new RestTemplate();
 
 		try {
-			ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.valueOf(httpMethod), null,
-					String.class);
+			RequestPlan plan = plans.get(context.getJobDetail().getKey(), context.getMergedJobDataMap());
+			TargetLimiter.Permit permit = plan.getLimiter().acquire();
+			Integer status = null;
+			try {
+				// Read the body as a stream instead of a String; error statuses still throw before this runs
+				JobCallResult result = plan.getRestTemplate().execute(plan.getUri(), plan.getMethod(), null,
+						response -> new JobCallResult(response.getStatusCode().value(),
+								bodies.read(response.getBody(), plan.getCapture(), plan.getResponseFields()), null));
+				status = result.status();
+				context.setResult(result);
 
-			System.out.println("Scheduler executed call: " + url + " Status: " + response.getStatusCode());
+				log.info("Scheduler executed call -> {} | status: {}", url, result.status());
+			} catch (RestClientResponseException e) {
+				status = e.getStatusCode().value();
+				throw e;
+			} finally {
+				permit.release(status);
+			}
 
+		} catch (TargetOverloadedException e) {
+			// Not a job failure: the fire is shed or deferred per the misfire policy, and logged there
+			String action = overload.handle(context, e);
+			context.setResult(new JobCallResult(null, null, action + ": " + e.getMessage()));
 		} catch (Exception e) {
-			System.err.println("Scheduler failed calling: " + url);
-			System.err.println("Reason: " + e.getMessage());
+			context.setResult(new JobCallResult(
+					e instanceof RestClientResponseException rce ? rce.getStatusCode().value() : null, null,
+					e.getMessage()));
+			log.error("Scheduler call failed -> {} | error: {}", url, e.getMessage(), e);
 		}
 	}
 }
@@ -0,0 +1,18 @@
+package com.inn.jobs;
+
+import com.inn.http.CapturedBody;
+
+/**
+ * Outcome of the outbound call, set as the Quartz job result so listeners can
+ * record it.
+ */
+public record JobCallResult(Integer status, CapturedBody response, String error) {
+
+	public boolean success() {
+		return error == null;
+	}
+
+	public long responseSize() {
+		return response != null ? response.size() : 0;
+	}
+}
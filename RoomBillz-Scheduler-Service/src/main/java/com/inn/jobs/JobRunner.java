@@ -0,0 +1,71 @@
+package com.inn.jobs;
+
+import java.util.List;
+
+import org.quartz.Job;
+import org.quartz.JobExecutionException;
+import org.quartz.JobListener;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.impl.JobExecutionContextImpl;
+import org.quartz.spi.JobFactory;
+import org.quartz.spi.TriggerFiredBundle;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs a job outside the JobStore the way a Quartz worker would: the job is
+ * created by the scheduler's JobFactory (so it is autowired and instrumented)
+ * and the scheduler's job listeners see it, which keeps execution history,
+ * metrics and retries alike for every kind of fire.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JobRunner {
+
+	private final Scheduler scheduler;
+	private final JobFactory jobFactory;
+
+	/**
+	 * Runs on the calling thread.
+	 *
+	 * @return the job's failure, or null if it completed
+	 * @throws SchedulerException if the job could not be created
+	 */
+	public JobExecutionException run(TriggerFiredBundle bundle) throws SchedulerException {
+		Job job = jobFactory.newJob(bundle, scheduler);
+		JobExecutionContextImpl context = new JobExecutionContextImpl(scheduler, bundle, job);
+
+		List<JobListener> listeners;
+		try {
+			listeners = scheduler.getListenerManager().getJobListeners();
+		} catch (SchedulerException ex) {
+			listeners = List.of();
+		}
+		for (JobListener listener : listeners)
+			listener.jobToBeExecuted(context);
+
+		long start = System.currentTimeMillis();
+		JobExecutionException error = null;
+		try {
+			job.execute(context);
+		} catch (JobExecutionException ex) {
+			error = ex;
+		} catch (RuntimeException ex) {
+			error = new JobExecutionException(ex);
+		}
+		context.setJobRunTime(System.currentTimeMillis() - start);
+
+		for (JobListener listener : listeners) {
+			try {
+				listener.jobWasExecuted(context, error);
+			} catch (RuntimeException ex) {
+				log.warn("Job listener {} failed: {}", listener.getName(), ex.getMessage());
+			}
+		}
+		return error;
+	}
+}
@@ -0,0 +1,119 @@
+package com.inn.jobs;
+
+import java.util.Date;
+
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+import org.quartz.ObjectAlreadyExistsException;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.SimpleScheduleBuilder;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.springframework.stereotype.Component;
+
+import com.inn.config.SchedulerProperties;
+import com.inn.dispatch.DispatchListener;
+import com.inn.dispatch.DispatchResult;
+import com.inn.http.RequestPlan;
+import com.inn.http.TargetOverloadedException;
+import com.inn.metrics.SchedulerMetrics;
+import com.inn.retry.RetryEngine;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Decides what happens to a fire whose target refused it
+ * ({@link TargetOverloadedException}), following the job's misfire policy:
+ * <ul>
+ * <li>DO_NOTHING: the fire is shed, the job waits for its next regular fire.
+ * <li>FIRE_AND_PROCEED: one extra fire {@code deferDelayMs} later; further
+ * refusals while it is pending collapse into it.
+ * <li>IGNORE: one extra fire per refused fire, so none is lost. These wait on
+ * {@link RetryEngine}'s wheel as attempt 0 rather than as Quartz triggers: a
+ * trigger per refused fire would cost several JobStore writes while the target
+ * is overloaded and crowd the trigger listings, where this writes one
+ * RB_RETRY_OUTBOX row.
+ * </ul>
+ * A deferral that can't be stored is shed instead.
+ */
+@Slf4j
+@Component
+public class OverloadHandler implements DispatchListener {
+
+	static final String DEFERRED_SUFFIX = "_deferred";
+	// Set on the fire context when the fire was shed or deferred instead of failing
+	public static final String REFUSED = "overloadRefused";
+
+	private final Scheduler scheduler;
+	private final SchedulerMetrics metrics;
+	private final RetryEngine retries;
+	private final long deferDelayMs;
+
+	public OverloadHandler(Scheduler scheduler, SchedulerMetrics metrics, RetryEngine retries,
+			SchedulerProperties properties) {
+		this.scheduler = scheduler;
+		this.metrics = metrics;
+		this.retries = retries;
+		this.deferDelayMs = properties.getLimiter().getDeferDelayMs();
+	}
+
+	/**
+	 * @param detail the fired job, or null to load it again for an IGNORE
+	 *               deferral
+	 * @return "shed" or "deferred"
+	 */
+	public String handle(JobKey jobKey, JobDetail detail, Date scheduledFireTime, String misfirePolicy,
+			TargetOverloadedException ex) {
+		String action = switch (misfirePolicy) {
+		case "DO_NOTHING" -> "shed";
+		case "IGNORE" -> deferEach(jobKey, detail, scheduledFireTime);
+		default -> defer(jobKey);
+		};
+		metrics.countOverload(ex.getTarget(), action);
+		log.warn("Fire of {} {}: {}", jobKey, action, ex.getMessage());
+		return action;
+	}
+
+	public String handle(JobExecutionContext context, TargetOverloadedException ex) {
+		String policy = context.getMergedJobDataMap().getString(RequestPlan.MISFIRE_POLICY);
+		context.put(REFUSED, Boolean.TRUE);
+		return handle(context.getJobDetail().getKey(), context.getJobDetail(), context.getScheduledFireTime(),
+				policy != null ? policy : RequestPlan.DEFAULT_MISFIRE_POLICY, ex);
+	}
+
+	@Override
+	public void onComplete(DispatchResult result) {
+		if (result.getError() instanceof TargetOverloadedException ex)
+			handle(result.getRequest().getJobKey(), result.getRequest().getJobDetail(),
+					result.getRequest().getScheduledFireTime(), result.getRequest().getPlan().getMisfirePolicy(), ex);
+	}
+
+	// Runs the refused fire once more after the delay, like a fresh fire
+	private String deferEach(JobKey jobKey, JobDetail detail, Date scheduledFireTime) {
+		try {
+			retries.schedule(jobKey, detail, scheduledFireTime, 0, deferDelayMs);
+		} catch (RuntimeException ex) {
+			log.warn("Could not defer fire of {}: {}", jobKey, ex.getMessage());
+			return "shed";
+		}
+		return "deferred";
+	}
+
+	private String defer(JobKey jobKey) {
+		Trigger trigger = TriggerBuilder.newTrigger()
+				.withIdentity(jobKey.getName() + DEFERRED_SUFFIX, jobKey.getGroup()).forJob(jobKey)
+				.startAt(new Date(System.currentTimeMillis() + deferDelayMs))
+				.withSchedule(SimpleScheduleBuilder.simpleSchedule().withMisfireHandlingInstructionFireNow()).build();
+		try {
+			scheduler.scheduleJob(trigger);
+		} catch (ObjectAlreadyExistsException ex) {
+			// Already deferred: this fire is covered by the pending one
+		} catch (SchedulerException ex) {
+			log.warn("Could not defer fire of {}: {}", jobKey, ex.getMessage());
+			return "shed";
+		}
+		return "deferred";
+	}
+}
@@ -1,33 +1,34 @@
 package com.inn.jobs;
 
-import java.time.Duration;
-import java.util.Map;
-
 import org.quartz.Job;
 import org.quartz.JobDataMap;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.MediaType;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.inn.util.JsonUtils;
+import com.inn.http.RequestPlan;
+import com.inn.http.RequestPlanCache;
+import com.inn.http.ResponseBodyReader;
+import com.inn.http.TargetLimiter;
+import com.inn.http.TargetOverloadedException;
 
 import lombok.extern.slf4j.Slf4j;
-import reactor.core.publisher.Mono;
 
 @Slf4j
 @Component
 public class RestInvokeJob implements Job {
 
 	@Autowired
-	private WebClient.Builder webClientBuilder;
+	private RequestPlanCache plans;
+
+	@Autowired
+	private ResponseBodyReader bodies;
 
 	@Autowired
-	private ObjectMapper objectMapper;
+	private OverloadHandler overload;
 
 	@Override
 	public void execute(JobExecutionContext context) throws JobExecutionException {
@@ -35,40 +36,37 @@ public class RestInvokeJob implements Job {
 
 		String url = map.getString("targetUrl");
 		String method = map.getString("httpMethod");
-		Integer timeoutMs = map.containsKey("timeoutMs") ? map.getInt("timeoutMs") : 30000;
-
-		@SuppressWarnings("unchecked")
-		Map<String, String> queryParams = (Map<String, String>) map.get("queryParams");
-		@SuppressWarnings("unchecked")
-		Map<String, String> headers = (Map<String, String>) map.get("headers");
-		Object body = map.get("body");
 
 		try {
-			WebClient.RequestBodySpec req = webClientBuilder.build().method(HttpMethod.valueOf(method)).uri(builder -> {
-				builder = builder.path(url);
-				if (queryParams != null) {
-					queryParams.forEach(builder::queryParam);
-				}
-				return builder.build();
-			}).accept(MediaType.APPLICATION_JSON);
+			// Method, URI, headers and the encoded body are compiled once per job
+			RequestPlan plan = plans.get(context.getJobDetail().getKey(), map);
 
-			if (headers != null) {
-				for (var e : headers.entrySet())
-					req = req.header(e.getKey(), e.getValue());
+			TargetLimiter.Permit permit = plan.getLimiter().acquire();
+			Integer status = null;
+			try {
+				// Stream the body: only what the capture mode needs is copied, the rest is released
+				JobCallResult result = plan.retrieve().toEntityFlux(DataBuffer.class)
+						.flatMap(entity -> bodies.read(entity.getBody(), plan.getCapture(), plan.getResponseFields())
+								.map(response -> new JobCallResult(entity.getStatusCode().value(), response, null)))
+						.timeout(plan.getTimeout()).block();
+				status = result.status();
+				context.setResult(result);
+				log.info("REST trigger success -> {} {} | {} bytes | response: {}", method, url,
+						result.responseSize(), result.response().preview());
+			} catch (WebClientResponseException ex) {
+				status = ex.getStatusCode().value();
+				throw ex;
+			} finally {
+				permit.release(status);
 			}
-
-			Mono<String> call;
-			if ("GET".equalsIgnoreCase(method) || "DELETE".equalsIgnoreCase(method)) {
-				call = req.retrieve().bodyToMono(String.class);
-			} else {
-				call = req.contentType(MediaType.APPLICATION_JSON).bodyValue(body != null ? body : "").retrieve()
-						.bodyToMono(String.class);
-			}
-
-			String response = call.timeout(Duration.ofMillis(timeoutMs)).block();
-			log.info("REST trigger success -> {} {} | response: {}", method, url,
-					JsonUtils.safeTruncate(response, 500));
+		} catch (TargetOverloadedException ex) {
+			// Not a job failure: the fire is shed or deferred per the misfire policy
+			String action = overload.handle(context, ex);
+			context.setResult(new JobCallResult(null, null, action + ": " + ex.getMessage()));
 		} catch (Exception ex) {
+			context.setResult(new JobCallResult(
+					ex instanceof WebClientResponseException wcre ? wcre.getStatusCode().value() : null, null,
+					ex.getMessage()));
 			log.error("REST trigger failed -> {} {} | error: {}", method, url, ex.getMessage(), ex);
 			throw new JobExecutionException(ex);
 		}
@@ -0,0 +1,110 @@
+package com.inn.jobstore;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Which trigger shards this node owns. Job groups hash to one of
+ * {@code shardCount} shards (trigger and job groups are the same in this
+ * service, so all triggers of a job share a shard), and each shard is owned by
+ * the live node with the highest rendezvous score for it. Adding or removing a
+ * node only moves the shards that node wins or held. Immutable; a new instance
+ * is computed at every cluster check-in.
+ */
+final class ShardAssignment {
+
+	static final String LOCK_PREFIX = "TRIGGER_ACCESS_";
+
+	private final int shardCount;
+	private final boolean[] owned;
+	private final int ownedCount;
+	private final List<String> members;
+
+	private ShardAssignment(int shardCount, boolean[] owned, List<String> members) {
+		this.shardCount = shardCount;
+		this.owned = owned;
+		this.members = members;
+		int count = 0;
+		for (boolean o : owned)
+			if (o)
+				count++;
+		this.ownedCount = count;
+	}
+
+	static ShardAssignment compute(String self, Collection<String> liveInstances, int shardCount) {
+		List<String> members = new ArrayList<>(liveInstances);
+		if (!members.contains(self))
+			members.add(self);
+		Collections.sort(members);
+
+		boolean[] owned = new boolean[shardCount];
+		for (int shard = 0; shard < shardCount; shard++) {
+			String owner = null;
+			long best = Long.MIN_VALUE;
+			for (String member : members) {
+				long score = mix(((long) member.hashCode() << 32) ^ shard);
+				if (owner == null || score > best) {
+					owner = member;
+					best = score;
+				}
+			}
+			owned[shard] = self.equals(owner);
+		}
+		return new ShardAssignment(shardCount, owned, Collections.unmodifiableList(members));
+	}
+
+	/**
+	 * Non-negative hash of a group, stored in RB_TRIGGER_GROUP_HASH so the
+	 * acquire query can compute shards as {@code MOD(GROUP_HASH, shardCount)}.
+	 */
+	static long groupHash(String group) {
+		return mix(group.hashCode()) >>> 1;
+	}
+
+	static int shardOf(String group, int shardCount) {
+		return (int) (groupHash(group) % shardCount);
+	}
+
+	static String lockName(int shard) {
+		return LOCK_PREFIX + shard;
+	}
+
+	boolean owns(String group) {
+		return owned[shardOf(group, shardCount)];
+	}
+
+	/**
+	 * @return shards owned by other nodes, in ascending order
+	 */
+	List<Integer> foreignShards() {
+		List<Integer> foreign = new ArrayList<>(shardCount - ownedCount);
+		for (int shard = 0; shard < shardCount; shard++)
+			if (!owned[shard])
+				foreign.add(shard);
+		return foreign;
+	}
+
+	List<String> members() {
+		return members;
+	}
+
+	int ownedCount() {
+		return ownedCount;
+	}
+
+	int shardCount() {
+		return shardCount;
+	}
+
+	// MurmurHash3 finalizer: spreads similar instance ids and group names
+	private static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
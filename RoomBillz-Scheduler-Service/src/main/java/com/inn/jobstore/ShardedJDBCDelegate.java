@@ -0,0 +1,210 @@
+package com.inn.jobstore;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.quartz.TriggerKey;
+import org.quartz.impl.jdbcjobstore.StdJDBCDelegate;
+
+/**
+ * StdJDBCDelegate whose trigger acquisition skips groups owned by other nodes,
+ * see {@link ShardedJobStoreTX}. The acquire query filters on
+ * {@code MOD(GROUP_HASH, shardCount)} from RB_TRIGGER_GROUP_HASH, so it binds
+ * at most one value per shard however many groups there are. Groups are added
+ * to that table at every cluster check-in and when acquisition first meets
+ * them; until then they are selected and skipped here. Triggers overdue by
+ * more than the takeover delay are acquired whatever their shard, so a shard
+ * whose owner stopped keeps firing until the next check-in reassigns it.
+ * <p>
+ * With fair acquisition, triggers that are already due come round-robin across
+ * trigger groups (each group's earliest first, then each group's second, ...)
+ * instead of strictly by fire time, so a group with a backlog of thousands of
+ * due triggers no longer fills every acquisition batch ahead of a small group's
+ * single due trigger. Triggers not due yet follow in fire time order, which
+ * keeps JobStoreSupport's batch window intact. The ranking covers every
+ * trigger due within the acquisition window, so each acquisition sorts the
+ * whole backlog: cheap while nothing is behind, proportional to the backlog
+ * under a flood. Needs window functions (MySQL 8). Groups take turns one
+ * trigger each; weights only apply in {@link com.inn.config.FairShareThreadPool}.
+ * <p>
+ * Behaves exactly like StdJDBCDelegate while no assignment is set and fair
+ * acquisition is off.
+ */
+public class ShardedJDBCDelegate extends StdJDBCDelegate {
+
+	static final String TABLE_GROUP_HASH = "RB_TRIGGER_GROUP_HASH";
+
+	private AtomicReference<ShardAssignment> assignment;
+	private long takeoverMs;
+	private boolean fair;
+
+	private volatile AcquireQuery query;
+	private final ThreadLocal<List<TriggerKey>> preselected = new ThreadLocal<>();
+
+	void shard(AtomicReference<ShardAssignment> assignment, long takeoverMs) {
+		this.assignment = assignment;
+		this.takeoverMs = takeoverMs;
+	}
+
+	void fair(boolean fair) {
+		this.fair = fair;
+		this.query = null;
+	}
+
+	/**
+	 * Makes this thread's next trigger selection return {@code keys} instead of
+	 * querying, and any further one return nothing, until cleared with
+	 * {@code null}. Lets acquisition work on triggers selected before their
+	 * shards were locked.
+	 */
+	void preselected(List<TriggerKey> keys) {
+		if (keys == null)
+			preselected.remove();
+		else
+			preselected.set(keys);
+	}
+
+	@Override
+	public List<TriggerKey> selectTriggerToAcquire(Connection conn, long noLaterThan, long noEarlierThan,
+			int maxCount) throws SQLException {
+		List<TriggerKey> given = preselected.get();
+		if (given != null) {
+			preselected.set(List.of());
+			return given;
+		}
+		ShardAssignment current = assignment != null ? assignment.get() : null;
+		if (current == null && !fair)
+			return super.selectTriggerToAcquire(conn, noLaterThan, noEarlierThan, maxCount);
+
+		AcquireQuery q = query;
+		if (q == null || q.assignment() != current) {
+			List<Integer> foreign = current != null ? current.foreignShards() : List.of();
+			q = new AcquireQuery(current, foreign, acquireSql(foreign.size()));
+			query = q;
+		}
+		long now = System.currentTimeMillis();
+		long takeoverBefore = now - takeoverMs;
+
+		List<TriggerKey> keys = new ArrayList<>();
+		Set<String> unregistered = new HashSet<>();
+		try (PreparedStatement ps = conn.prepareStatement(q.sql())) {
+			maxCount = Math.max(maxCount, 1);
+			ps.setMaxRows(maxCount);
+			ps.setFetchSize(maxCount);
+			int i = 1;
+			ps.setString(i++, STATE_WAITING);
+			ps.setBigDecimal(i++, new BigDecimal(String.valueOf(noLaterThan)));
+			ps.setBigDecimal(i++, new BigDecimal(String.valueOf(noEarlierThan)));
+			if (!q.foreignShards().isEmpty()) {
+				ps.setBigDecimal(i++, new BigDecimal(String.valueOf(takeoverBefore)));
+				ps.setInt(i++, current.shardCount());
+				for (int shard : q.foreignShards())
+					ps.setInt(i++, shard);
+			}
+			if (fair)
+				ps.setBigDecimal(i++, new BigDecimal(String.valueOf(now)));
+
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next() && keys.size() < maxCount) {
+					String group = rs.getString(COL_TRIGGER_GROUP);
+					if (current != null && !current.owns(group) && rs.getLong(COL_NEXT_FIRE_TIME) > takeoverBefore) {
+						// Not in RB_TRIGGER_GROUP_HASH yet; leave it to its owner from now on
+						unregistered.add(group);
+						continue;
+					}
+					keys.add(TriggerKey.triggerKey(rs.getString(COL_TRIGGER_NAME), group));
+				}
+			}
+		}
+		registerGroups(conn, unregistered);
+		return keys;
+	}
+
+	/**
+	 * Adds groups that have triggers but no RB_TRIGGER_GROUP_HASH row, and drops
+	 * rows of groups that no longer have any. Called at cluster check-in.
+	 */
+	void syncGroupHashes(Connection conn) throws SQLException {
+		List<String> missing = new ArrayList<>();
+		try (PreparedStatement ps = conn.prepareStatement(rtp("SELECT DISTINCT T." + COL_TRIGGER_GROUP + " FROM "
+				+ TABLE_PREFIX_SUBST + TABLE_TRIGGERS + " T WHERE T." + COL_SCHEDULER_NAME + " = " + SCHED_NAME_SUBST
+				+ " AND NOT EXISTS (SELECT 1 FROM " + TABLE_GROUP_HASH + " H WHERE H.SCHED_NAME = T."
+				+ COL_SCHEDULER_NAME + " AND H.TRIGGER_GROUP = T." + COL_TRIGGER_GROUP + ")"));
+				ResultSet rs = ps.executeQuery()) {
+			while (rs.next())
+				missing.add(rs.getString(1));
+		}
+		registerGroups(conn, missing);
+		try (PreparedStatement ps = conn.prepareStatement(rtp("DELETE FROM " + TABLE_GROUP_HASH
+				+ " WHERE SCHED_NAME = " + SCHED_NAME_SUBST + " AND NOT EXISTS (SELECT 1 FROM " + TABLE_PREFIX_SUBST
+				+ TABLE_TRIGGERS + " T WHERE T." + COL_SCHEDULER_NAME + " = " + TABLE_GROUP_HASH + ".SCHED_NAME AND T."
+				+ COL_TRIGGER_GROUP + " = " + TABLE_GROUP_HASH + ".TRIGGER_GROUP)"))) {
+			ps.executeUpdate();
+		}
+	}
+
+	private void registerGroups(Connection conn, Collection<String> groups) throws SQLException {
+		if (groups.isEmpty())
+			return;
+		try (PreparedStatement ps = conn.prepareStatement(rtp("INSERT INTO " + TABLE_GROUP_HASH
+				+ " (SCHED_NAME, TRIGGER_GROUP, GROUP_HASH) VALUES (" + SCHED_NAME_SUBST + ", ?, ?)"))) {
+			for (String group : groups) {
+				ps.setString(1, group);
+				ps.setLong(2, ShardAssignment.groupHash(group));
+				try {
+					ps.executeUpdate();
+				} catch (SQLException ex) {
+					// Another node registered it first
+					if (ex.getSQLState() == null || !ex.getSQLState().startsWith("23"))
+						throw ex;
+				}
+			}
+		}
+	}
+
+	private String acquireSql(int foreignCount) {
+		StringBuilder sql = new StringBuilder("SELECT ").append(COL_TRIGGER_NAME).append(", ")
+				.append(COL_TRIGGER_GROUP).append(", ").append(COL_NEXT_FIRE_TIME).append(", ").append(COL_PRIORITY);
+		if (fair)
+			sql.append(", ROW_NUMBER() OVER (PARTITION BY ").append(COL_TRIGGER_GROUP).append(" ORDER BY ")
+					.append(COL_NEXT_FIRE_TIME).append(" ASC, ").append(COL_PRIORITY).append(" DESC) AS GROUP_RANK");
+		sql.append(" FROM ").append(TABLE_PREFIX_SUBST).append(TABLE_TRIGGERS).append(" T WHERE ")
+				.append(COL_SCHEDULER_NAME).append(" = ").append(SCHED_NAME_SUBST).append(" AND ")
+				.append(COL_TRIGGER_STATE).append(" = ? AND ").append(COL_NEXT_FIRE_TIME).append(" <= ? AND (")
+				.append(COL_MISFIRE_INSTRUCTION).append(" = -1 OR (").append(COL_MISFIRE_INSTRUCTION)
+				.append(" <> -1 AND ").append(COL_NEXT_FIRE_TIME).append(" >= ?))");
+		if (foreignCount > 0) {
+			sql.append(" AND (").append(COL_NEXT_FIRE_TIME).append(" <= ? OR NOT EXISTS (SELECT 1 FROM ")
+					.append(TABLE_GROUP_HASH).append(" H WHERE H.SCHED_NAME = T.").append(COL_SCHEDULER_NAME)
+					.append(" AND H.TRIGGER_GROUP = T.").append(COL_TRIGGER_GROUP)
+					.append(" AND MOD(H.GROUP_HASH, ?) IN (");
+			for (int i = 0; i < foreignCount; i++)
+				sql.append(i == 0 ? "?" : ", ?");
+			sql.append(")))");
+		}
+		if (fair) {
+			// Due triggers by rank within their group, then the rest by fire time
+			sql.insert(0, "SELECT " + COL_TRIGGER_NAME + ", " + COL_TRIGGER_GROUP + ", " + COL_NEXT_FIRE_TIME + ", "
+					+ COL_PRIORITY + " FROM (");
+			sql.append(") A ORDER BY CASE WHEN ").append(COL_NEXT_FIRE_TIME)
+					.append(" <= ? THEN GROUP_RANK ELSE 2147483647 END ASC, ");
+		} else {
+			sql.append(" ORDER BY ");
+		}
+		sql.append(COL_NEXT_FIRE_TIME).append(" ASC, ").append(COL_PRIORITY).append(" DESC");
+		return rtp(sql.toString());
+	}
+
+	// Built once per assignment, i.e. at most once per check-in
+	private record AcquireQuery(ShardAssignment assignment, List<Integer> foreignShards, String sql) {
+	}
+}
@@ -0,0 +1,425 @@
+package com.inn.jobstore;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.quartz.JobDetail;
+import org.quartz.JobPersistenceException;
+import org.quartz.SchedulerConfigException;
+import org.quartz.Trigger.CompletedExecutionInstruction;
+import org.quartz.TriggerKey;
+import org.quartz.impl.jdbcjobstore.DriverDelegate;
+import org.quartz.impl.jdbcjobstore.FiredTriggerRecord;
+import org.quartz.impl.jdbcjobstore.JobStoreSupport;
+import org.quartz.impl.jdbcjobstore.LockException;
+import org.quartz.impl.jdbcjobstore.SchedulerStateRecord;
+import org.quartz.spi.ClassLoadHelper;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.SchedulerSignaler;
+import org.quartz.spi.TriggerFiredBundle;
+import org.quartz.spi.TriggerFiredResult;
+
+/**
+ * JobStoreTX that partitions trigger firing across cluster nodes. With
+ * {@code org.quartz.jobStore.shardCount} above zero, job groups hash into that
+ * many shards, each owned by one live node (see {@link ShardAssignment}).
+ * Acquisition, firing and completion then lock only the QRTZ_LOCKS rows of the
+ * shards involved ({@code TRIGGER_ACCESS_<n>}) instead of the single
+ * TRIGGER_ACCESS row, and a node only selects triggers of its own shards, so
+ * nodes stop queueing behind each other. Acquisition looks for due triggers
+ * before locking, so idle polls take no lock at all.
+ * <p>
+ * Everything else that changes triggers (scheduling, pause, resume, delete,
+ * misfire handling, cluster recovery) takes TRIGGER_ACCESS as in JobStoreTX
+ * and then every shard lock, in ascending order. JobStoreSupport does not say
+ * which groups such a change touches, and pausing a group or all triggers
+ * touches many, so it excludes firing on all shards; firing never takes
+ * TRIGGER_ACCESS, so the two cannot wait on each other in a cycle.
+ * <p>
+ * New triggers can be stored PAUSED in the transaction that creates them, see
+ * {@link #storingPaused}.
+ * <p>
+ * Ownership is recomputed at every cluster check-in from QRTZ_SCHEDULER_STATE.
+ * Until all nodes have checked in after a join or leave, two nodes may both
+ * claim a shard: they then serialize on its lock and Quartz's
+ * WAITING-to-ACQUIRED update still lets only one of them fire each trigger. A
+ * shard nobody claims yet is picked up through the takeover delay of
+ * {@link ShardedJDBCDelegate}.
+ * <p>
+ * Requires {@link ShardedJDBCDelegate}, clustering and the RB_TRIGGER_GROUP_HASH
+ * table; without a shard count it behaves exactly like JobStoreTX, apart from
+ * fair acquisition when that is set. Extends JobStoreSupport with JobStoreTX's
+ * two methods rather than JobStoreTX, whose raw executeInLock override makes
+ * javac warn on every subclass.
+ */
+public class ShardedJobStoreTX extends JobStoreSupport {
+
+	// New triggers the current thread stores PAUSED instead of WAITING
+	private static final ThreadLocal<Set<TriggerKey>> STORE_PAUSED = new ThreadLocal<>();
+
+	private final AtomicReference<ShardAssignment> assignment = new AtomicReference<>();
+
+	private int shardCount;
+	private long shardTakeoverMs = 15000;
+	private boolean fairAcquisition;
+	private volatile boolean stopped;
+
+	/**
+	 * Runs {@code action}, in which scheduling any of {@code triggers} stores it
+	 * PAUSED. Scheduling and pausing in one transaction leaves no moment in which
+	 * a due trigger could fire. Only applies when the scheduler runs on this
+	 * store; the caller has to pause the triggers itself otherwise.
+	 */
+	public static <T> T storingPaused(Set<TriggerKey> triggers, Supplier<T> action) {
+		if (triggers.isEmpty())
+			return action.get();
+		STORE_PAUSED.set(triggers);
+		try {
+			return action.get();
+		} finally {
+			STORE_PAUSED.remove();
+		}
+	}
+
+	public void setShardCount(int shardCount) {
+		this.shardCount = shardCount;
+	}
+
+	public void setShardTakeoverMs(long shardTakeoverMs) {
+		this.shardTakeoverMs = shardTakeoverMs;
+	}
+
+	/**
+	 * @param fairAcquisition acquire due triggers round-robin across trigger
+	 *                        groups, see {@link ShardedJDBCDelegate}
+	 */
+	public void setFairAcquisition(boolean fairAcquisition) {
+		this.fairAcquisition = fairAcquisition;
+	}
+
+	@Override
+	public void initialize(ClassLoadHelper loadHelper, SchedulerSignaler signaler) throws SchedulerConfigException {
+		super.initialize(loadHelper, signaler);
+		if (!isSharded() && !fairAcquisition)
+			return;
+		if (isSharded() && shardTakeoverMs >= getMisfireThreshold())
+			throw new SchedulerConfigException("shardTakeoverMs (" + shardTakeoverMs
+					+ ") must be below misfireThreshold (" + getMisfireThreshold() + ")");
+		try {
+			DriverDelegate delegate = getDelegate();
+			if (!(delegate instanceof ShardedJDBCDelegate sharded))
+				throw new SchedulerConfigException("shardCount and fairAcquisition require driverDelegateClass "
+						+ ShardedJDBCDelegate.class.getName() + ", found " + delegate.getClass().getName());
+			sharded.fair(fairAcquisition);
+			if (!isSharded())
+				return;
+			sharded.shard(assignment, shardTakeoverMs);
+		} catch (JobPersistenceException ex) {
+			throw new SchedulerConfigException("Unable to set up sharded acquisition", ex);
+		}
+		// Own every shard until the first check-in says otherwise
+		assignment.set(ShardAssignment.compute(getInstanceId(), List.of(), shardCount));
+	}
+
+	private boolean isSharded() {
+		return shardCount > 0 && isClustered();
+	}
+
+	@Override
+	protected Connection getNonManagedTXConnection() throws JobPersistenceException {
+		return getConnection();
+	}
+
+	@Override
+	protected <T> T executeInLock(String lockName, TransactionCallback<T> txCallback)
+			throws JobPersistenceException {
+		return executeInNonManagedTXLock(lockName, txCallback, null);
+	}
+
+	/**
+	 * @return shards this node currently owns, or -1 when not sharding
+	 */
+	public int getOwnedShardCount() {
+		ShardAssignment current = assignment.get();
+		return current != null ? current.ownedCount() : -1;
+	}
+
+	@Override
+	protected List<SchedulerStateRecord> clusterCheckIn(Connection conn) throws JobPersistenceException {
+		List<SchedulerStateRecord> failed = super.clusterCheckIn(conn);
+		if (isSharded())
+			rebalance(conn, failed);
+		return failed;
+	}
+
+	private void rebalance(Connection conn, List<SchedulerStateRecord> failed) throws JobPersistenceException {
+		try {
+			Set<String> failedIds = new HashSet<>();
+			for (SchedulerStateRecord rec : failed)
+				failedIds.add(rec.getSchedulerInstanceId());
+			List<String> live = new ArrayList<>();
+			for (SchedulerStateRecord rec : getDelegate().selectSchedulerStateRecords(conn, null))
+				if (!failedIds.contains(rec.getSchedulerInstanceId()))
+					live.add(rec.getSchedulerInstanceId());
+
+			((ShardedJDBCDelegate) getDelegate()).syncGroupHashes(conn);
+			ShardAssignment next = ShardAssignment.compute(getInstanceId(), live, shardCount);
+			ShardAssignment previous = assignment.getAndSet(next);
+			if (previous == null || !previous.members().equals(next.members()))
+				getLog().info("Trigger shards rebalanced: {} of {} owned, members {}", next.ownedCount(),
+						shardCount, next.members());
+		} catch (SQLException ex) {
+			throw new JobPersistenceException("Unable to read cluster members for shard assignment", ex);
+		}
+	}
+
+	/**
+	 * Changes made under TRIGGER_ACCESS also lock every shard, see the class
+	 * comment.
+	 */
+	@Override
+	protected <T> T executeInNonManagedTXLock(String lockName, TransactionCallback<T> txCallback,
+			TransactionValidator<T> txValidator) throws JobPersistenceException {
+		ShardAssignment current = assignment.get();
+		if (current == null || !LOCK_TRIGGER_ACCESS.equals(lockName))
+			return super.executeInNonManagedTXLock(lockName, txCallback, txValidator);
+		ShardLocks locks = new ShardLocks();
+		try {
+			return super.executeInNonManagedTXLock(lockName, conn -> {
+				locks.obtain(conn, allLockNames(current));
+				return txCallback.execute(conn);
+			}, txValidator);
+		} finally {
+			locks.release();
+		}
+	}
+
+	// The misfire handler and check-in recovery take TRIGGER_ACCESS themselves
+	@Override
+	protected RecoverMisfiredJobsResult recoverMisfiredJobs(Connection conn, boolean recovering)
+			throws JobPersistenceException, SQLException {
+		ShardAssignment current = assignment.get();
+		if (current == null)
+			return super.recoverMisfiredJobs(conn, recovering);
+		ShardLocks locks = new ShardLocks();
+		try {
+			locks.obtain(conn, allLockNames(current));
+			return super.recoverMisfiredJobs(conn, recovering);
+		} finally {
+			locks.release();
+		}
+	}
+
+	@Override
+	protected void clusterRecover(Connection conn, List<SchedulerStateRecord> failedInstances)
+			throws JobPersistenceException {
+		ShardAssignment current = assignment.get();
+		if (current == null) {
+			super.clusterRecover(conn, failedInstances);
+			return;
+		}
+		ShardLocks locks = new ShardLocks();
+		try {
+			locks.obtain(conn, allLockNames(current));
+			super.clusterRecover(conn, failedInstances);
+		} finally {
+			locks.release();
+		}
+	}
+
+	@Override
+	protected void storeTrigger(Connection conn, OperableTrigger newTrigger, JobDetail job, boolean replaceExisting,
+			String state, boolean forceState, boolean recovering) throws JobPersistenceException {
+		Set<TriggerKey> paused = STORE_PAUSED.get();
+		if (paused != null && STATE_WAITING.equals(state) && paused.contains(newTrigger.getKey()))
+			state = STATE_PAUSED;
+		super.storeTrigger(conn, newTrigger, job, replaceExisting, state, forceState, recovering);
+	}
+
+	@Override
+	public List<OperableTrigger> acquireNextTriggers(long noLaterThan, int maxCount, long timeWindow)
+			throws JobPersistenceException {
+		ShardAssignment current = assignment.get();
+		if (current == null)
+			return super.acquireNextTriggers(noLaterThan, maxCount, timeWindow);
+
+		// Same callback and commit validation as JobStoreSupport, under the locks of
+		// the shards that have due triggers. acquireNextTrigger then works on exactly
+		// those triggers; any that another node took meanwhile fail its WAITING check
+		ShardedJDBCDelegate delegate = (ShardedJDBCDelegate) getDelegate();
+		return executeInShardLocks((conn, locks) -> {
+			List<TriggerKey> due;
+			try {
+				due = getDelegate().selectTriggerToAcquire(conn, noLaterThan + timeWindow, getMisfireTime(),
+						maxCount);
+			} catch (SQLException ex) {
+				throw new JobPersistenceException("Couldn't acquire next trigger: " + ex.getMessage(), ex);
+			}
+			if (due.isEmpty())
+				return new ArrayList<>();
+			locks.obtain(conn, lockNames(shardsOf(due.stream().map(TriggerKey::getGroup).toList(), current)));
+			delegate.preselected(due);
+			try {
+				return acquireNextTrigger(conn, noLaterThan, maxCount, timeWindow);
+			} finally {
+				delegate.preselected(null);
+			}
+		}, (conn, result) -> {
+			Set<String> fireInstanceIds = new HashSet<>();
+			for (FiredTriggerRecord ft : firedTriggerRecords(conn))
+				fireInstanceIds.add(ft.getFireInstanceId());
+			for (OperableTrigger tr : result)
+				if (fireInstanceIds.contains(tr.getFireInstanceId()))
+					return true;
+			return false;
+		});
+	}
+
+	@Override
+	public List<TriggerFiredResult> triggersFired(List<OperableTrigger> triggers) throws JobPersistenceException {
+		ShardAssignment current = assignment.get();
+		if (current == null)
+			return super.triggersFired(triggers);
+
+		List<String> names = lockNames(shardsOf(triggers.stream().map(t -> t.getKey().getGroup()).toList(), current));
+		return executeInShardLocks((conn, locks) -> {
+			locks.obtain(conn, names);
+			List<TriggerFiredResult> results = new ArrayList<>();
+			for (OperableTrigger trigger : triggers) {
+				try {
+					TriggerFiredBundle bundle = triggerFired(conn, trigger);
+					results.add(new TriggerFiredResult(bundle));
+				} catch (JobPersistenceException | RuntimeException ex) {
+					results.add(new TriggerFiredResult(ex));
+				}
+			}
+			return results;
+		}, (conn, result) -> {
+			Set<String> executing = new HashSet<>();
+			for (FiredTriggerRecord ft : firedTriggerRecords(conn))
+				if (STATE_EXECUTING.equals(ft.getFireInstanceState()))
+					executing.add(ft.getFireInstanceId());
+			for (TriggerFiredResult tr : result)
+				if (tr.getTriggerFiredBundle() != null
+						&& executing.contains(tr.getTriggerFiredBundle().getTrigger().getFireInstanceId()))
+					return true;
+			return false;
+		});
+	}
+
+	@Override
+	public void triggeredJobComplete(OperableTrigger trigger, JobDetail jobDetail,
+			CompletedExecutionInstruction triggerInstCode) {
+		ShardAssignment current = assignment.get();
+		if (current == null) {
+			super.triggeredJobComplete(trigger, jobDetail, triggerInstCode);
+			return;
+		}
+
+		// Retried until it succeeds, like JobStoreSupport: a lost completion leaves the trigger blocked
+		List<String> names = lockNames(shardsOf(List.of(trigger.getKey().getGroup()), current));
+		for (int retry = 1; !stopped; retry++) {
+			try {
+				executeInShardLocks((conn, locks) -> {
+					locks.obtain(conn, names);
+					triggeredJobComplete(conn, trigger, jobDetail, triggerInstCode);
+					return null;
+				}, null);
+				return;
+			} catch (JobPersistenceException | RuntimeException ex) {
+				if (retry % 4 == 0)
+					getLog().error("Unable to complete trigger {}, retrying", trigger.getKey(), ex);
+			}
+			try {
+				Thread.sleep(getDbRetryInterval());
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while completing trigger " + trigger.getKey(), ex);
+			}
+		}
+		throw new IllegalStateException("JobStore is shutdown - aborting retry");
+	}
+
+	@Override
+	public void shutdown() {
+		stopped = true;
+		super.shutdown();
+	}
+
+	private static BitSet shardsOf(List<String> groups, ShardAssignment current) {
+		BitSet shards = new BitSet(current.shardCount());
+		for (String group : groups)
+			shards.set(ShardAssignment.shardOf(group, current.shardCount()));
+		return shards;
+	}
+
+	private static List<String> allLockNames(ShardAssignment current) {
+		BitSet shards = new BitSet(current.shardCount());
+		shards.set(0, current.shardCount());
+		return lockNames(shards);
+	}
+
+	/**
+	 * Lock names of the given shards, in ascending shard order. Every caller
+	 * takes shard locks in this order, so two nodes never wait on each other in
+	 * a cycle.
+	 */
+	private static List<String> lockNames(BitSet shards) {
+		List<String> locks = new ArrayList<>(shards.cardinality());
+		for (int shard = shards.nextSetBit(0); shard >= 0; shard = shards.nextSetBit(shard + 1))
+			locks.add(ShardAssignment.lockName(shard));
+		return locks;
+	}
+
+	/**
+	 * Runs the callback in one non-managed transaction, like
+	 * executeInNonManagedTXLock, letting it take shard locks once it knows which
+	 * it needs. Locked QRTZ_LOCKS rows are held until commit or rollback; the
+	 * semaphore's per-thread bookkeeping is cleared afterwards.
+	 */
+	private <T> T executeInShardLocks(ShardCallback<T> callback, TransactionValidator<T> validator)
+			throws JobPersistenceException {
+		ShardLocks locks = new ShardLocks();
+		try {
+			return executeInNonManagedTXLock(null, conn -> callback.execute(conn, locks), validator);
+		} finally {
+			locks.release();
+		}
+	}
+
+	@FunctionalInterface
+	private interface ShardCallback<T> {
+		T execute(Connection conn, ShardLocks locks) throws JobPersistenceException;
+	}
+
+	private final class ShardLocks {
+		private final List<String> held = new ArrayList<>();
+
+		void obtain(Connection conn, List<String> names) throws JobPersistenceException {
+			for (String name : names)
+				if (getLockHandler().obtainLock(conn, name))
+					held.add(name);
+		}
+
+		void release() throws LockException {
+			for (String name : held)
+				getLockHandler().releaseLock(name);
+			held.clear();
+		}
+	}
+
+	private List<FiredTriggerRecord> firedTriggerRecords(Connection conn) throws JobPersistenceException {
+		try {
+			return getDelegate().selectInstancesFiredTriggerRecords(conn, getInstanceId());
+		} catch (SQLException ex) {
+			throw new JobPersistenceException("error validating trigger acquisition", ex);
+		}
+	}
+}
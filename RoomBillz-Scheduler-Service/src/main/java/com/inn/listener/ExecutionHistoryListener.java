@@ -0,0 +1,84 @@
+package com.inn.listener;
+
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.listeners.JobListenerSupport;
+import org.springframework.stereotype.Component;
+
+import com.inn.config.SchedulerProperties;
+import com.inn.dispatch.DispatchListener;
+import com.inn.dispatch.DispatchResult;
+import com.inn.dto.ExecutionRecord;
+import com.inn.jobs.AsyncRestInvokeJob;
+import com.inn.jobs.JobCallResult;
+import com.inn.service.ExecutionHistoryService;
+import com.inn.util.JsonUtils;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Feeds the execution journal. Blocking jobs are recorded when Quartz reports
+ * them executed; ASYNC jobs only hand off to the dispatcher, so they are
+ * recorded when the dispatch completes.
+ */
+@Component
+@RequiredArgsConstructor
+public class ExecutionHistoryListener extends JobListenerSupport implements DispatchListener {
+
+	private final Scheduler scheduler;
+	private final ExecutionHistoryService history;
+	private final SchedulerProperties properties;
+
+	private String instanceId;
+
+	@PostConstruct
+	void register() throws SchedulerException {
+		instanceId = scheduler.getSchedulerInstanceId();
+		scheduler.getListenerManager().addJobListener(this);
+	}
+
+	@Override
+	public String getName() {
+		return "executionHistory";
+	}
+
+	@Override
+	public void jobWasExecuted(JobExecutionContext context, JobExecutionException jobException) {
+		if (jobException == null && context.getJobDetail().getJobClass() == AsyncRestInvokeJob.class)
+			return;
+
+		JobCallResult call = context.getResult() instanceof JobCallResult r ? r : null;
+		String error = null;
+		if (jobException != null)
+			error = jobException.getCause() != null ? jobException.getCause().getMessage() : jobException.getMessage();
+		else if (call != null)
+			error = call.error();
+
+		JobKey key = context.getJobDetail().getKey();
+		history.record(ExecutionRecord.builder().jobGroup(key.getGroup()).jobName(key.getName()).instanceId(instanceId)
+				.scheduledFireTime(context.getScheduledFireTime()).fireTime(context.getFireTime())
+				.durationMs(context.getJobRunTime()).httpStatus(call != null ? call.status() : null)
+				.responseSize(call != null ? call.responseSize() : null).success(error == null)
+				.error(truncate(error)).build());
+	}
+
+	@Override
+	public void onComplete(DispatchResult result) {
+		JobKey key = result.getRequest().getJobKey();
+		history.record(ExecutionRecord.builder().jobGroup(key.getGroup()).jobName(key.getName()).instanceId(instanceId)
+				.scheduledFireTime(result.getRequest().getScheduledFireTime())
+				.fireTime(result.getRequest().getFireTime()).durationMs(result.getDurationMs())
+				.httpStatus(result.getStatus())
+				.responseSize(result.getResponse() != null ? result.getResponse().size() : null)
+				.success(result.isSuccess())
+				.error(result.isSuccess() ? null : truncate(result.getError().getMessage())).build());
+	}
+
+	private String truncate(String error) {
+		return JsonUtils.safeTruncate(error, properties.getHistory().getErrorMaxLength());
+	}
+}
@@ -0,0 +1,46 @@
+package com.inn.listener;
+
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.listeners.SchedulerListenerSupport;
+import org.springframework.stereotype.Component;
+
+import com.inn.http.RequestPlanCache;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Drops compiled request plans of jobs deleted or replaced on this node. Plans
+ * of jobs changed on other nodes are caught on their next fire, when the plan
+ * no longer matches the JobDataMap.
+ */
+@Component
+@RequiredArgsConstructor
+public class RequestPlanCacheListener extends SchedulerListenerSupport {
+
+	private final Scheduler scheduler;
+	private final RequestPlanCache plans;
+
+	@PostConstruct
+	void register() throws SchedulerException {
+		scheduler.getListenerManager().addSchedulerListener(this);
+	}
+
+	@Override
+	public void jobAdded(JobDetail jobDetail) {
+		plans.evict(jobDetail.getKey());
+	}
+
+	@Override
+	public void jobDeleted(JobKey jobKey) {
+		plans.evict(jobKey);
+	}
+
+	@Override
+	public void schedulingDataCleared() {
+		plans.evictAll();
+	}
+}
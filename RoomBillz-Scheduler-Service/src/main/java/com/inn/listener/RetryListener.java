@@ -0,0 +1,102 @@
+package com.inn.listener;
+
+import java.util.Date;
+
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.listeners.JobListenerSupport;
+import org.springframework.stereotype.Component;
+
+import com.inn.dispatch.DispatchListener;
+import com.inn.dispatch.DispatchResult;
+import com.inn.http.TargetOverloadedException;
+import com.inn.jobs.AsyncRestInvokeJob;
+import com.inn.jobs.JobCallResult;
+import com.inn.jobs.OverloadHandler;
+import com.inn.metrics.SchedulerMetrics;
+import com.inn.retry.RetryEngine;
+import com.inn.retry.RetryPolicy;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Queues a retry when a call of a job with a {@link RetryPolicy} fails with a
+ * retryable outcome, and counts how retried fires end up. Like
+ * {@link ExecutionHistoryListener}, ASYNC jobs are judged when the dispatch
+ * completes. Fires refused by an overloaded target are left to
+ * {@link OverloadHandler}.
+ * <p>
+ * {@code scheduler.retry{outcome=recovered}} over recovered plus failed is the
+ * eventual success rate of retried fires.
+ * <p>
+ * Never throws: Quartz skips completing the fire in the JobStore when a job
+ * listener fails, which would leave the trigger blocked.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RetryListener extends JobListenerSupport implements DispatchListener {
+
+	private final Scheduler scheduler;
+	private final RetryEngine retries;
+	private final SchedulerMetrics metrics;
+
+	@PostConstruct
+	void register() throws SchedulerException {
+		scheduler.getListenerManager().addJobListener(this);
+	}
+
+	@Override
+	public String getName() {
+		return "retry";
+	}
+
+	@Override
+	public void jobWasExecuted(JobExecutionContext context, JobExecutionException jobException) {
+		if (jobException == null && context.getJobDetail().getJobClass() == AsyncRestInvokeJob.class)
+			return;
+		if (context.get(OverloadHandler.REFUSED) != null)
+			return;
+		JobCallResult call = context.getResult() instanceof JobCallResult r ? r : null;
+		boolean failed = jobException != null || (call != null && !call.success());
+		try {
+			completed(context.getJobDetail(), RetryPolicy.attempt(context.getMergedJobDataMap()),
+					context.getScheduledFireTime(), failed, call != null ? call.status() : null);
+		} catch (RuntimeException ex) {
+			log.error("Retry handling of {} failed", context.getJobDetail().getKey(), ex);
+		}
+	}
+
+	@Override
+	public void onComplete(DispatchResult result) {
+		if (result.getError() instanceof TargetOverloadedException || result.getRequest().getJobDetail() == null)
+			return;
+		try {
+			completed(result.getRequest().getJobDetail(), result.getRequest().getAttempt(),
+					result.getRequest().getScheduledFireTime(), !result.isSuccess(), result.getStatus());
+		} catch (RuntimeException ex) {
+			log.error("Retry handling of {} failed", result.getRequest().getJobDetail().getKey(), ex);
+		}
+	}
+
+	private void completed(JobDetail detail, int attempt, Date scheduledFireTime, boolean failed, Integer status) {
+		RetryPolicy policy = RetryPolicy.of(detail.getJobDataMap());
+		if (policy == RetryPolicy.NONE)
+			return;
+		String group = detail.getKey().getGroup();
+		if (!failed) {
+			if (attempt > 0)
+				metrics.countRetry(group, "recovered");
+		} else if (attempt < policy.maxAttempts() && policy.retryable(status)) {
+			retries.schedule(detail, scheduledFireTime, attempt + 1, policy.delayMs(attempt + 1));
+			metrics.countRetry(group, "scheduled");
+		} else if (attempt > 0) {
+			metrics.countRetry(group, "failed");
+		}
+	}
+}
@@ -0,0 +1,133 @@
+package com.inn.listener;
+
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.Trigger.CompletedExecutionInstruction;
+import org.quartz.TriggerKey;
+import org.quartz.listeners.SchedulerListenerSupport;
+import org.quartz.listeners.TriggerListenerSupport;
+import org.springframework.stereotype.Component;
+
+import com.inn.cache.TriggerInfoCache;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Keeps {@link TriggerInfoCache} in step with the scheduler. Schedule, pause,
+ * resume and delete are published to the other cluster nodes; fires only evict
+ * locally since every node fires and TTL covers the rest.
+ */
+@Component
+@RequiredArgsConstructor
+public class TriggerCacheListener extends SchedulerListenerSupport {
+
+	private final Scheduler scheduler;
+	private final TriggerInfoCache cache;
+
+	@PostConstruct
+	void register() throws SchedulerException {
+		scheduler.getListenerManager().addSchedulerListener(this);
+		scheduler.getListenerManager().addTriggerListener(new FireListener());
+	}
+
+	@Override
+	public void jobScheduled(Trigger trigger) {
+		cache.evict(trigger.getKey(), true);
+	}
+
+	@Override
+	public void jobUnscheduled(TriggerKey triggerKey) {
+		cache.evict(triggerKey, true);
+	}
+
+	@Override
+	public void triggerFinalized(Trigger trigger) {
+		cache.evict(trigger.getKey(), true);
+	}
+
+	@Override
+	public void triggerPaused(TriggerKey triggerKey) {
+		cache.evict(triggerKey, true);
+	}
+
+	@Override
+	public void triggersPaused(String triggerGroup) {
+		evictGroup(triggerGroup);
+	}
+
+	@Override
+	public void triggerResumed(TriggerKey triggerKey) {
+		cache.evict(triggerKey, true);
+	}
+
+	@Override
+	public void triggersResumed(String triggerGroup) {
+		evictGroup(triggerGroup);
+	}
+
+	@Override
+	public void jobPaused(JobKey jobKey) {
+		cache.evictJob(jobKey, true);
+	}
+
+	@Override
+	public void jobsPaused(String jobGroup) {
+		evictGroup(jobGroup);
+	}
+
+	@Override
+	public void jobResumed(JobKey jobKey) {
+		cache.evictJob(jobKey, true);
+	}
+
+	@Override
+	public void jobsResumed(String jobGroup) {
+		evictGroup(jobGroup);
+	}
+
+	@Override
+	public void jobDeleted(JobKey jobKey) {
+		cache.evictJob(jobKey, true);
+	}
+
+	@Override
+	public void schedulingDataCleared() {
+		cache.evictAll(true);
+	}
+
+	// Quartz passes a null group for "all groups"; trigger and job groups are the same in this service
+	private void evictGroup(String group) {
+		if (group == null)
+			cache.evictAll(true);
+		else
+			cache.evictGroup(group, true);
+	}
+
+	private class FireListener extends TriggerListenerSupport {
+
+		@Override
+		public String getName() {
+			return "triggerInfoCache";
+		}
+
+		@Override
+		public void triggerFired(Trigger trigger, JobExecutionContext context) {
+			cache.evict(trigger.getKey(), false);
+		}
+
+		@Override
+		public void triggerMisfired(Trigger trigger) {
+			cache.evict(trigger.getKey(), false);
+		}
+
+		@Override
+		public void triggerComplete(Trigger trigger, JobExecutionContext context,
+				CompletedExecutionInstruction triggerInstructionCode) {
+			cache.evict(trigger.getKey(), false);
+		}
+	}
+}
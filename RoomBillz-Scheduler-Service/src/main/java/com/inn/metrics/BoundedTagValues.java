@@ -0,0 +1,38 @@
+package com.inn.metrics;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caps the number of distinct values a tag can take. The first {@code max}
+ * values seen are kept as-is, everything after that is reported as "other", so
+ * tens of thousands of job groups can't blow up the time-series count. A new
+ * value reserves its slot before it is added, so racing threads can't take
+ * more than {@code max} between them.
+ */
+class BoundedTagValues {
+
+	static final String OTHER = "other";
+
+	private final int max;
+	private final Set<String> seen = ConcurrentHashMap.newKeySet();
+	private final AtomicInteger reserved = new AtomicInteger();
+
+	BoundedTagValues(int max) {
+		this.max = max;
+	}
+
+	String value(String raw) {
+		if (raw == null)
+			return "none";
+		if (seen.contains(raw))
+			return raw;
+		if (reserved.getAndUpdate(n -> n < max ? n + 1 : n) >= max)
+			return seen.contains(raw) ? raw : OTHER;
+		// Another thread added the same value first: give the slot back
+		if (!seen.add(raw))
+			reserved.decrementAndGet();
+		return raw;
+	}
+}
@@ -0,0 +1,46 @@
+package com.inn.metrics;
+
+import java.util.Date;
+
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+
+import com.inn.jobs.JobCallResult;
+
+/**
+ * Wraps every job created by the Quartz JobFactory to record fire lag and
+ * execution time per job group.
+ */
+class InstrumentedJob implements Job {
+
+	private final Job delegate;
+	private final SchedulerMetrics metrics;
+
+	InstrumentedJob(Job delegate, SchedulerMetrics metrics) {
+		this.delegate = delegate;
+		this.metrics = metrics;
+	}
+
+	@Override
+	public void execute(JobExecutionContext context) throws JobExecutionException {
+		String group = context.getJobDetail().getKey().getGroup();
+		Date scheduled = context.getScheduledFireTime();
+		if (scheduled != null)
+			metrics.recordFireLag(group, System.currentTimeMillis() - scheduled.getTime());
+
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			delegate.execute(context);
+			// HttpCallJob reports failures through its result instead of throwing
+			success = !(context.getResult() instanceof JobCallResult r) || r.success();
+		} finally {
+			metrics.recordExecution(group, success, System.nanoTime() - start);
+		}
+	}
+
+	Job getDelegate() {
+		return delegate;
+	}
+}
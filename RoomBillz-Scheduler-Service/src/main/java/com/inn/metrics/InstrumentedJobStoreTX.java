@@ -0,0 +1,63 @@
+package com.inn.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.quartz.JobPersistenceException;
+import org.quartz.spi.OperableTrigger;
+
+import com.inn.jobstore.ShardedJobStoreTX;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * JobStoreTX that times trigger acquisition, the step that takes the
+ * TRIGGER_ACCESS row lock (or the shard locks, see {@link ShardedJobStoreTX}).
+ * Quartz instantiates the store itself, so meters go to the global registry,
+ * which Spring Boot links to the application registry.
+ * <p>
+ * Also reports how long after JVM start the node first acquired a trigger, the
+ * point from which it takes its share of the cluster's fires.
+ */
+public class InstrumentedJobStoreTX extends ShardedJobStoreTX {
+
+	private final Timer acquireTimer = Timer.builder("scheduler.jobstore.acquire")
+			.description("Time to acquire the next batch of triggers, including the DB lock").publishPercentiles(0.5, 0.99)
+			.register(Metrics.globalRegistry);
+
+	private final DistributionSummary acquireBatch = DistributionSummary.builder("scheduler.jobstore.acquire.batch")
+			.description("Triggers returned per acquisition").register(Metrics.globalRegistry);
+
+	private volatile long firstAcquireMs = -1;
+
+	{
+		Gauge.builder("scheduler.jobstore.shards.owned", this, InstrumentedJobStoreTX::getOwnedShardCount)
+				.description("Trigger shards this node acquires, -1 when sharding is off")
+				.register(Metrics.globalRegistry);
+		Gauge.builder("scheduler.startup.first.acquire", this,
+				store -> store.firstAcquireMs >= 0 ? store.firstAcquireMs : Double.NaN)
+				.description("JVM start to the first acquired trigger").baseUnit("milliseconds")
+				.register(Metrics.globalRegistry);
+	}
+
+	@Override
+	public List<OperableTrigger> acquireNextTriggers(long noLaterThan, int maxCount, long timeWindow)
+			throws JobPersistenceException {
+		long start = System.nanoTime();
+		try {
+			List<OperableTrigger> triggers = super.acquireNextTriggers(noLaterThan, maxCount, timeWindow);
+			acquireBatch.record(triggers.size());
+			if (firstAcquireMs < 0 && !triggers.isEmpty()) {
+				firstAcquireMs = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+				getLog().info("First trigger acquired {} ms after JVM start", firstAcquireMs);
+			}
+			return triggers;
+		} finally {
+			acquireTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+}
@@ -0,0 +1,203 @@
+package com.inn.metrics;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.quartz.Job;
+import org.springframework.stereotype.Component;
+
+import com.inn.config.FairShareThreadPool;
+import com.inn.config.SchedulerProperties;
+import com.inn.dispatch.DispatchListener;
+import com.inn.dispatch.DispatchResult;
+import com.inn.http.TargetLimiter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Scheduler hot-path meters. Job-group and host tags go through
+ * {@link BoundedTagValues}, and meters are cached per tag combination so the
+ * per-fire cost is a map lookup.
+ * <p>
+ * Deliberately depends on nothing but the registry: it is used by the Quartz
+ * JobFactory, which must exist before the Scheduler bean.
+ */
+@Component
+public class SchedulerMetrics implements DispatchListener {
+
+	// Fire lag / duration buckets, fixed so histograms stay small per group
+	private static final Duration[] SLOS = { Duration.ofMillis(10), Duration.ofMillis(50), Duration.ofMillis(100),
+			Duration.ofMillis(250), Duration.ofMillis(500), Duration.ofSeconds(1), Duration.ofMillis(2500),
+			Duration.ofSeconds(5), Duration.ofSeconds(10), Duration.ofSeconds(30), Duration.ofSeconds(60) };
+
+	private final MeterRegistry registry;
+	private final BoundedTagValues groups;
+	private final BoundedTagValues hosts;
+
+	private final Map<String, Timer> fireLag = new ConcurrentHashMap<>();
+	private final Map<String, Timer> execution = new ConcurrentHashMap<>();
+	private final Map<String, Timer> dispatch = new ConcurrentHashMap<>();
+	private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+	private final Map<String, Timer> queueWait = new ConcurrentHashMap<>();
+	private final Map<String, DistributionSummary> batchSize = new ConcurrentHashMap<>();
+	private final Set<String> queueGauges = ConcurrentHashMap.newKeySet();
+
+	public SchedulerMetrics(MeterRegistry registry, SchedulerProperties properties) {
+		this.registry = registry;
+		this.groups = new BoundedTagValues(properties.getMetrics().getMaxGroupTags());
+		this.hosts = new BoundedTagValues(properties.getMetrics().getMaxHostTags());
+	}
+
+	public Job instrument(Job job) {
+		return new InstrumentedJob(job, this);
+	}
+
+	public void recordFireLag(String group, long lagMs) {
+		String g = groups.value(group);
+		fireLag.computeIfAbsent(g, k -> Timer.builder("scheduler.job.fire.lag")
+				.description("Scheduled fire time to actual job start").tag("group", k).serviceLevelObjectives(SLOS)
+				.register(registry)).record(Math.max(0, lagMs), TimeUnit.MILLISECONDS);
+	}
+
+	public void recordExecution(String group, boolean success, long nanos) {
+		String g = groups.value(group);
+		String outcome = success ? "success" : "failure";
+		execution.computeIfAbsent(g + '|' + outcome, k -> Timer.builder("scheduler.job.execution")
+				.description("Job execution time on the worker thread").tag("group", g).tag("outcome", outcome)
+				.serviceLevelObjectives(SLOS).register(registry)).record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	public void countMisfire(String group) {
+		count("scheduler.trigger.misfires", "group", groups.value(group));
+	}
+
+	public void countVeto(String group) {
+		count("scheduler.job.vetoed", "group", groups.value(group));
+	}
+
+	/**
+	 * @param status HTTP status code, or null when no response was received
+	 */
+	public void countHttpResponse(String host, Integer status) {
+		String h = hosts.value(host);
+		String s = status != null ? String.valueOf(status) : "IO_ERROR";
+		counters.computeIfAbsent("scheduler.http.responses|" + h + '|' + s,
+				k -> Counter.builder("scheduler.http.responses").description("Outbound job calls by target and status")
+						.tag("host", h).tag("status", s).register(registry))
+				.increment();
+	}
+
+	/**
+	 * Limit, in-flight and queued gauges of a target's concurrency limiter.
+	 * Hosts past the tag bound share the "other" value and get no gauges.
+	 */
+	public void registerTargetLimiter(String host, TargetLimiter limiter) {
+		String h = hosts.value(host);
+		if (BoundedTagValues.OTHER.equals(h))
+			return;
+		Gauge.builder("scheduler.http.limit", limiter, TargetLimiter::getLimit)
+				.description("Adaptive concurrency limit per target").tag("host", h).register(registry);
+		Gauge.builder("scheduler.http.inflight", limiter, TargetLimiter::getInFlight)
+				.description("Calls in flight per target").tag("host", h).register(registry);
+		Gauge.builder("scheduler.http.queued", limiter, TargetLimiter::getQueued)
+				.description("Calls waiting for a permit per target").tag("host", h).register(registry);
+	}
+
+	/**
+	 * Drops the gauges {@link #registerTargetLimiter} added for the host.
+	 */
+	public void removeTargetLimiter(String host) {
+		String h = hosts.value(host);
+		if (BoundedTagValues.OTHER.equals(h))
+			return;
+		for (String name : List.of("scheduler.http.limit", "scheduler.http.inflight", "scheduler.http.queued")) {
+			Gauge gauge = registry.find(name).tag("host", h).gauge();
+			if (gauge != null)
+				registry.remove(gauge);
+		}
+	}
+
+	/**
+	 * @param action "shed" or "deferred"
+	 */
+	public void countOverload(String host, String action) {
+		String h = hosts.value(host);
+		counters.computeIfAbsent("scheduler.http.overload|" + h + '|' + action,
+				k -> Counter.builder("scheduler.http.overload")
+						.description("Fires refused by an overloaded target, by what happened to them")
+						.tag("host", h).tag("action", action).register(registry))
+				.increment();
+	}
+
+	/**
+	 * @param outcome "scheduled" per retry queued, then per retried fire
+	 *                "recovered" or "failed"
+	 */
+	public void countRetry(String group, String outcome) {
+		String g = groups.value(group);
+		counters.computeIfAbsent("scheduler.retry|" + g + '|' + outcome,
+				k -> Counter.builder("scheduler.retry").description("Retries of failed job calls by outcome")
+						.tag("group", g).tag("outcome", outcome).register(registry))
+				.increment();
+	}
+
+	/**
+	 * @param reason "size" when the batch filled up, "linger" when its wait ran out
+	 */
+	public void recordCallBatch(int size, String reason) {
+		batchSize.computeIfAbsent(reason, k -> DistributionSummary.builder("scheduler.batch.size")
+				.description("Fires coalesced per bulk call, by what closed the batch").tag("reason", k)
+				.serviceLevelObjectives(1, 10, 50, 100, 250, 500, 1000).register(registry)).record(size);
+	}
+
+	/**
+	 * Queued and running gauges per job group of a {@link FairShareThreadPool},
+	 * registered as groups first show up, and the time fires wait in the queue.
+	 * Groups past the tag bound share the "other" timer and get no gauges.
+	 */
+	public FairShareThreadPool.Observer fairShareObserver(FairShareThreadPool pool) {
+		return new FairShareThreadPool.Observer() {
+
+			@Override
+			public void groupAdded(String group) {
+				String g = groups.value(group);
+				if (BoundedTagValues.OTHER.equals(g) || !queueGauges.add(g))
+					return;
+				Gauge.builder("scheduler.fairqueue.queued", pool, p -> p.getQueued(group))
+						.description("Fired jobs waiting for a worker per group").tag("group", g).register(registry);
+				Gauge.builder("scheduler.fairqueue.running", pool, p -> p.getRunning(group))
+						.description("Jobs running per group").tag("group", g).register(registry);
+			}
+
+			@Override
+			public void started(String group, long waitNanos) {
+				String g = groups.value(group);
+				queueWait.computeIfAbsent(g, k -> Timer.builder("scheduler.fairqueue.wait")
+						.description("Time fired jobs wait for a worker").tag("group", k).serviceLevelObjectives(SLOS)
+						.register(registry)).record(waitNanos, TimeUnit.NANOSECONDS);
+			}
+		};
+	}
+
+	@Override
+	public void onComplete(DispatchResult result) {
+		String g = groups.value(result.getRequest().getJobKey().getGroup());
+		String outcome = result.isSuccess() ? "success" : "failure";
+		dispatch.computeIfAbsent(g + '|' + outcome, k -> Timer.builder("scheduler.dispatch.duration")
+				.description("Async dispatch time from hand-off to response").tag("group", g).tag("outcome", outcome)
+				.serviceLevelObjectives(SLOS).register(registry)).record(result.getDurationMs(), TimeUnit.MILLISECONDS);
+	}
+
+	private void count(String name, String tag, String value) {
+		counters.computeIfAbsent(name + '|' + value, k -> Counter.builder(name).tag(tag, value).register(registry))
+				.increment();
+	}
+}
@@ -0,0 +1,112 @@
+package com.inn.metrics;
+
+import org.quartz.JobExecutionContext;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.listeners.JobListenerSupport;
+import org.quartz.listeners.TriggerListenerSupport;
+import org.springframework.stereotype.Component;
+
+import com.inn.config.FairShareThreadPool;
+import com.inn.dispatch.CallBatcher;
+import com.inn.dispatch.ReactiveDispatcher;
+import com.inn.service.ExecutionHistoryService;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Saturation gauges and Quartz listener counters. Quartz's own worker pools
+ * hand out threads rather than queue work; with {@link FairShareThreadPool}
+ * fired jobs queue per group and get their own gauges, otherwise the queue-depth
+ * gauge is the async dispatcher's pending queue.
+ */
+@Component
+@RequiredArgsConstructor
+public class SchedulerMetricsBinder implements MeterBinder {
+
+	private final Scheduler scheduler;
+	private final SchedulerMetrics metrics;
+	private final ReactiveDispatcher dispatcher;
+	private final CallBatcher batcher;
+	private final ExecutionHistoryService history;
+
+	@PostConstruct
+	void register() throws SchedulerException {
+		scheduler.getListenerManager().addTriggerListener(new MisfireListener());
+		scheduler.getListenerManager().addJobListener(new VetoListener());
+		FairShareThreadPool pool = fairSharePool();
+		if (pool != null)
+			pool.setObserver(metrics.fairShareObserver(pool));
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("scheduler.threadpool.size", scheduler, s -> {
+			try {
+				return s.getMetaData().getThreadPoolSize();
+			} catch (SchedulerException ex) {
+				return Double.NaN;
+			}
+		}).description("Configured Quartz worker threads (max concurrency for virtual pools)").register(registry);
+
+		Gauge.builder("scheduler.threadpool.busy", scheduler, s -> {
+			try {
+				return s.getCurrentlyExecutingJobs().size();
+			} catch (SchedulerException ex) {
+				return Double.NaN;
+			}
+		}).description("Jobs currently executing on this node").register(registry);
+
+		FairShareThreadPool pool = fairSharePool();
+		if (pool != null)
+			Gauge.builder("scheduler.fairqueue.backlog", pool, FairShareThreadPool::getQueued)
+					.description("Fired jobs waiting for a worker, all groups").register(registry);
+		Gauge.builder("scheduler.dispatch.queued", dispatcher, ReactiveDispatcher::getQueued)
+				.description("Async calls waiting for a dispatch permit").register(registry);
+		Gauge.builder("scheduler.dispatch.inflight", dispatcher, ReactiveDispatcher::getInFlight)
+				.description("Async calls currently in flight").register(registry);
+		Gauge.builder("scheduler.batch.pending", batcher, CallBatcher::getPending)
+				.description("Fires waiting in open call batches").register(registry);
+		Gauge.builder("scheduler.history.buffered", history, ExecutionHistoryService::getBuffered)
+				.description("Execution records awaiting flush").register(registry);
+	}
+
+	private FairShareThreadPool fairSharePool() {
+		try {
+			return FairShareThreadPool.forScheduler(scheduler.getSchedulerName());
+		} catch (SchedulerException ex) {
+			return null;
+		}
+	}
+
+	private class MisfireListener extends TriggerListenerSupport {
+
+		@Override
+		public String getName() {
+			return "schedulerMetricsMisfires";
+		}
+
+		@Override
+		public void triggerMisfired(Trigger trigger) {
+			metrics.countMisfire(trigger.getKey().getGroup());
+		}
+	}
+
+	private class VetoListener extends JobListenerSupport {
+
+		@Override
+		public String getName() {
+			return "schedulerMetricsVetoes";
+		}
+
+		@Override
+		public void jobExecutionVetoed(JobExecutionContext context) {
+			metrics.countVeto(context.getJobDetail().getKey().getGroup());
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package com.inn.payload;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Converts JOB_DATA in QRTZ_JOB_DETAILS and QRTZ_TRIGGERS from Java-serialized
+ * maps to the properties text Quartz reads when
+ * {@code org.quartz.jobStore.useProperties=true}. Payload entries of older jobs
+ * (headers, queryParams, body, responseFields) move to RB_JOB_PAYLOAD on the
+ * way. Rows that are not Java-serialized are left alone, so it is safe to run
+ * on every start.
+ * <p>
+ * Nodes still running with useProperties=false cannot read converted rows:
+ * switch all nodes at once.
+ */
+@Slf4j
+@Component
+public class JobDataMigration {
+
+	private static final int PAGE = 500;
+
+	// Legacy maps hold JDK collections, boxed values and Quartz's own map types
+	private static final ObjectInputFilter FILTER = ObjectInputFilter.Config
+			.createFilter("maxdepth=32;java.base/*;org.quartz.**;!*");
+
+	private final JdbcTemplate jdbc;
+	private final JobPayloadStore payloads;
+	private final String prefix;
+
+	public JobDataMigration(JdbcTemplate jdbc, JobPayloadStore payloads,
+			@Value("${spring.quartz.properties.org.quartz.jobStore.tablePrefix:QRTZ_}") String prefix) {
+		this.jdbc = jdbc;
+		this.payloads = payloads;
+		this.prefix = prefix;
+	}
+
+	public void run() {
+		long start = System.currentTimeMillis();
+		int jobs = convert(prefix + "JOB_DETAILS", "JOB_GROUP", "JOB_NAME");
+		int triggers = convert(prefix + "TRIGGERS", "TRIGGER_GROUP", "TRIGGER_NAME");
+		if (jobs > 0 || triggers > 0)
+			log.info("Converted JOB_DATA to properties for {} jobs and {} triggers in {} ms", jobs, triggers,
+					System.currentTimeMillis() - start);
+	}
+
+	private int convert(String table, String groupColumn, String nameColumn) {
+		String select = "SELECT SCHED_NAME, " + groupColumn + ", " + nameColumn + ", JOB_DATA FROM " + table
+				+ " WHERE (SCHED_NAME, " + groupColumn + ", " + nameColumn + ") > (?, ?, ?)" + " ORDER BY SCHED_NAME, "
+				+ groupColumn + ", " + nameColumn + " LIMIT " + PAGE;
+		String update = "UPDATE " + table + " SET JOB_DATA = ? WHERE SCHED_NAME = ? AND " + groupColumn + " = ? AND "
+				+ nameColumn + " = ?";
+
+		int converted = 0;
+		Object[] after = { "", "", "" };
+		while (true) {
+			List<Object[]> updates = new ArrayList<>();
+			List<Object[]> rows = jdbc.query(select, (rs, i) -> new Object[] { rs.getString(1), rs.getString(2),
+					rs.getString(3), rs.getBytes(4) }, after);
+			for (Object[] row : rows) {
+				byte[] data = (byte[]) row[3];
+				if (isJavaSerialized(data))
+					updates.add(new Object[] { toProperties(deserialize(data, row[1] + "." + row[2])), row[0], row[1],
+							row[2] });
+			}
+			if (!updates.isEmpty())
+				jdbc.batchUpdate(update, updates);
+			converted += updates.size();
+
+			if (rows.size() < PAGE)
+				return converted;
+			Object[] last = rows.get(rows.size() - 1);
+			after = new Object[] { last[0], last[1], last[2] };
+		}
+	}
+
+	/**
+	 * Reads a JOB_DATA column in either format.
+	 *
+	 * @param owner names the row in errors
+	 */
+	public static Map<String, Object> read(byte[] data, String owner) {
+		if (data == null || data.length == 0)
+			return new HashMap<>();
+		if (isJavaSerialized(data))
+			return deserialize(data, owner);
+		Properties properties = new Properties();
+		try {
+			properties.load(new ByteArrayInputStream(data));
+		} catch (IOException ex) {
+			throw new IllegalStateException("Unreadable JOB_DATA for " + owner, ex);
+		}
+		Map<String, Object> map = new HashMap<>();
+		properties.forEach((key, value) -> map.put(key.toString(), value));
+		return map;
+	}
+
+	private static boolean isJavaSerialized(byte[] data) {
+		return data != null && data.length > 1 && data[0] == (byte) 0xAC && data[1] == (byte) 0xED;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> deserialize(byte[] data, String owner) {
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+			in.setObjectInputFilter(FILTER);
+			return (Map<String, Object>) in.readObject();
+		} catch (IOException | ClassNotFoundException ex) {
+			throw new IllegalStateException("Unreadable JOB_DATA for " + owner, ex);
+		}
+	}
+
+	// Same layout as StdJDBCDelegate.serializeProperties
+	private byte[] toProperties(Map<String, Object> map) {
+		Properties properties = new Properties();
+		JobPayload payload = JobPayloadStore.legacy(map);
+		if (!payload.isEmpty())
+			properties.setProperty(JobPayloadStore.REF, payloads.put(payload));
+		map.forEach((key, value) -> {
+			if (value != null && !JobPayloadStore.isPayloadKey(key))
+				properties.setProperty(key, value.toString());
+		});
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			properties.store(out, "");
+			return out.toByteArray();
+		} catch (IOException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+}
@@ -0,0 +1,18 @@
+package com.inn.payload;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The bulky part of a job's request spec. Kept out of the JobDataMap and stored
+ * once per distinct content in RB_JOB_PAYLOAD, see {@link JobPayloadStore}.
+ */
+public record JobPayload(Map<String, String> headers, Map<String, String> queryParams, Object body,
+		List<String> responseFields) {
+
+	public static final JobPayload EMPTY = new JobPayload(null, null, null, null);
+
+	public boolean isEmpty() {
+		return headers == null && queryParams == null && body == null && responseFields == null;
+	}
+}
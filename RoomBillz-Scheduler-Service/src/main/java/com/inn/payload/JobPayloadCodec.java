@@ -0,0 +1,18 @@
+package com.inn.payload;
+
+import java.io.IOException;
+
+/**
+ * Encoding of {@link JobPayload} rows. The codec id is stored with each row, so
+ * rows written by an older codec stay readable after the default changes.
+ * Encodings must be deterministic: equal payloads must produce equal bytes for
+ * content-hash deduplication to work.
+ */
+public interface JobPayloadCodec {
+
+	String id();
+
+	byte[] encode(JobPayload payload) throws IOException;
+
+	JobPayload decode(byte[] bytes) throws IOException;
+}
@@ -0,0 +1,228 @@
+package com.inn.payload;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.inn.config.SchedulerProperties;
+import com.inn.repository.JobPayloadRepository;
+import com.inn.repository.JobPayloadRepository.StoredPayload;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Content-addressed storage for {@link JobPayload}s. The JobDataMap only carries
+ * the SHA-256 of the encoded payload under {@link #REF}; identical payloads
+ * (jobs created from the same template) share one RB_JOB_PAYLOAD row. Rows are
+ * immutable, so decoded payloads are cached without invalidation and a fire
+ * normally costs a cache lookup instead of a deserialization.
+ * <p>
+ * Payloads are stored before the job that references them, outside its
+ * transaction, and rows outlive deleted jobs; a periodic {@link #sweep}
+ * deletes rows no job references. Rows stored within the sweep grace period
+ * are kept, and {@link #put} stores its row again once half of that period has
+ * passed, so a job being created always finds its row. Bulk creates
+ * {@link #encode} their payloads and store a chunk's worth with one
+ * {@link #putAll} right before scheduling the chunk; if the chunk then fails,
+ * its rows are left to the sweep.
+ */
+@Slf4j
+@Component
+public class JobPayloadStore {
+
+	public static final String REF = "payloadRef";
+
+	private final JobPayloadRepository repository;
+	private final Map<String, JobPayloadCodec> codecs;
+	private final JobPayloadCodec writeCodec;
+	private final Cache<String, JobPayload> cache;
+	// Hashes this node stored within half the grace period
+	private final Cache<String, Boolean> stored;
+	private final SchedulerProperties.Payload config;
+
+	public JobPayloadStore(JobPayloadRepository repository, List<JobPayloadCodec> codecs,
+			SchedulerProperties properties, MeterRegistry meterRegistry) {
+		this.repository = repository;
+		this.codecs = codecs.stream().collect(Collectors.toMap(JobPayloadCodec::id, Function.identity()));
+		this.writeCodec = this.codecs.get(properties.getPayload().getCodec());
+		if (writeCodec == null)
+			throw new IllegalStateException("Unknown job payload codec " + properties.getPayload().getCodec()
+					+ ", available: " + this.codecs.keySet());
+		this.cache = Caffeine.newBuilder().maximumSize(properties.getPayload().getCacheMaxSize()).recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, "jobPayload");
+		this.config = properties.getPayload();
+		this.stored = Caffeine.newBuilder().maximumSize(config.getCacheMaxSize())
+				.expireAfterWrite(Duration.ofMillis(config.getSweepGraceMs() / 2)).build();
+	}
+
+	/**
+	 * Stores the payload if its content is new.
+	 *
+	 * @return the reference to put in the JobDataMap
+	 */
+	public String put(JobPayload payload) {
+		Encoded encoded = encode(payload);
+		String hash = encoded.ref();
+		if (stored.getIfPresent(hash) == null) {
+			long now = System.currentTimeMillis();
+			// A row swept between the insert and the touch is inserted again
+			if (!repository.insertIfAbsent(hash, writeCodec.id(), encoded.bytes(), now) && !repository.touch(hash, now))
+				repository.insertIfAbsent(hash, writeCodec.id(), encoded.bytes(), now);
+			stored.put(hash, Boolean.TRUE);
+		}
+		return hash;
+	}
+
+	/**
+	 * Encodes the payload without storing it; see {@link #putAll}.
+	 */
+	public Encoded encode(JobPayload payload) {
+		byte[] bytes;
+		try {
+			bytes = writeCodec.encode(payload);
+		} catch (IOException ex) {
+			throw new IllegalArgumentException("Job payload cannot be encoded: " + ex.getMessage(), ex);
+		}
+		String hash = sha256(bytes);
+		// Cache the decoded copy, not the caller's (mutable) request objects
+		if (cache.getIfPresent(hash) == null)
+			cache.put(hash, decode(writeCodec, bytes));
+		return new Encoded(hash, bytes);
+	}
+
+	/**
+	 * Stores the encoded payloads whose content is new in one batched
+	 * statement, instead of a round trip per payload.
+	 */
+	public void putAll(Collection<Encoded> payloads) {
+		Map<String, byte[]> pending = new LinkedHashMap<>();
+		for (Encoded encoded : payloads) {
+			if (stored.getIfPresent(encoded.ref()) == null)
+				pending.putIfAbsent(encoded.ref(), encoded.bytes());
+		}
+		if (pending.isEmpty())
+			return;
+		repository.upsertAll(pending, writeCodec.id(), System.currentTimeMillis());
+		pending.keySet().forEach(hash -> stored.put(hash, Boolean.TRUE));
+	}
+
+	/**
+	 * Deletes RB_JOB_PAYLOAD rows stored before the grace period that no job,
+	 * trigger or ephemeral job references. The cutoff is taken before the scan
+	 * and checked again by the delete, so rows stored meanwhile are kept.
+	 */
+	@Scheduled(cron = "${roombillz.scheduler.payload.sweep-cron:0 47 * * * *}")
+	void sweep() {
+		long cutoff = System.currentTimeMillis() - config.getSweepGraceMs();
+		int total = 0;
+		try {
+			Set<String> unreferenced = repository.findStoredBefore(cutoff);
+			if (unreferenced.isEmpty())
+				return;
+			repository.forEachJobData((owner, data) -> {
+				Object ref = JobDataMigration.read(data, owner).get(REF);
+				if (ref != null)
+					unreferenced.remove(ref.toString());
+			});
+			List<String> chunk = new ArrayList<>(config.getSweepChunkSize());
+			for (String hash : unreferenced) {
+				chunk.add(hash);
+				if (chunk.size() == config.getSweepChunkSize()) {
+					total += repository.deleteStoredBefore(chunk, cutoff);
+					chunk.clear();
+				}
+			}
+			total += repository.deleteStoredBefore(chunk, cutoff);
+		} catch (Exception ex) {
+			log.warn("Job payload sweep failed after {} rows: {}", total, ex.getMessage());
+		}
+		if (total > 0)
+			log.info("Swept {} unreferenced job payload rows", total);
+	}
+
+	public JobPayload get(String ref) {
+		return cache.get(ref, this::load);
+	}
+
+	/**
+	 * Payload of a fired job: by reference, or read inline from the map for jobs
+	 * stored before payloads moved out of the JobDataMap.
+	 */
+	public JobPayload resolve(Map<String, ?> jobData) {
+		Object ref = jobData.get(REF);
+		return ref != null ? get(ref.toString()) : legacy(jobData);
+	}
+
+	/**
+	 * Identifies a job's payload content: the reference, which is a content hash,
+	 * or the inline payload itself for legacy jobs. Equal versions mean equal
+	 * payloads.
+	 */
+	public static Object version(Map<String, ?> jobData) {
+		Object ref = jobData.get(REF);
+		return ref != null ? ref : legacy(jobData);
+	}
+
+	@SuppressWarnings("unchecked")
+	static JobPayload legacy(Map<String, ?> jobData) {
+		return new JobPayload((Map<String, String>) jobData.get("headers"),
+				(Map<String, String>) jobData.get("queryParams"), jobData.get("body"),
+				(List<String>) jobData.get("responseFields"));
+	}
+
+	static boolean isPayloadKey(String key) {
+		return "headers".equals(key) || "queryParams".equals(key) || "body".equals(key)
+				|| "responseFields".equals(key);
+	}
+
+	private JobPayload load(String ref) {
+		StoredPayload row = repository.find(ref);
+		if (row == null)
+			throw new IllegalStateException("Job payload " + ref + " not found");
+		JobPayloadCodec codec = codecs.get(row.codec());
+		if (codec == null)
+			throw new IllegalStateException("Job payload " + ref + " uses unknown codec " + row.codec());
+		return decode(codec, row.payload());
+	}
+
+	private static JobPayload decode(JobPayloadCodec codec, byte[] bytes) {
+		try {
+			return codec.decode(bytes);
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	/**
+	 * A payload encoded with the write codec; {@code ref} goes in the JobDataMap.
+	 */
+	public record Encoded(String ref, byte[] bytes) {
+	}
+
+	private static String sha256(byte[] bytes) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+}
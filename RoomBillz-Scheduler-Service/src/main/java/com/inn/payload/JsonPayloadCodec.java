@@ -0,0 +1,51 @@
+package com.inn.payload;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Compact JSON: one-letter keys, nulls omitted, and map entries sorted so equal
+ * payloads encode to equal bytes.
+ */
+@Component
+public class JsonPayloadCodec implements JobPayloadCodec {
+
+	public static final String ID = "json-v1";
+
+	private final ObjectMapper mapper;
+
+	public JsonPayloadCodec(ObjectMapper objectMapper) {
+		this.mapper = objectMapper.copy().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true)
+				.configure(SerializationFeature.INDENT_OUTPUT, false);
+	}
+
+	@Override
+	public String id() {
+		return ID;
+	}
+
+	@Override
+	public byte[] encode(JobPayload payload) throws IOException {
+		return mapper.writeValueAsBytes(new Wire(payload.headers(), payload.queryParams(), payload.body(),
+				payload.responseFields()));
+	}
+
+	@Override
+	public JobPayload decode(byte[] bytes) throws IOException {
+		Wire wire = mapper.readValue(bytes, Wire.class);
+		return new JobPayload(wire.headers, wire.queryParams, wire.body, wire.responseFields);
+	}
+
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	private record Wire(@JsonProperty("h") Map<String, String> headers, @JsonProperty("q") Map<String, String> queryParams,
+			@JsonProperty("b") Object body, @JsonProperty("f") List<String> responseFields) {
+	}
+}
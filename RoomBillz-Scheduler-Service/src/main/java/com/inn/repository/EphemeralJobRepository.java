@@ -0,0 +1,160 @@
+package com.inn.repository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.quartz.JobKey;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.inn.ephemeral.EphemeralJob;
+
+/**
+ * RB_EPHEMERAL_JOB access. Rows change only when a job is created, paused,
+ * resumed, deleted or claimed by another node, never when it fires. JOB_DATA
+ * is properties text, as in QRTZ_JOB_DETAILS with useProperties.
+ */
+@Repository
+public class EphemeralJobRepository {
+
+	private static final String COLUMNS = "JOB_GROUP, JOB_NAME, JOB_CLASS, JOB_DATA, START_TIME, INTERVAL_MS,"
+			+ " REPEAT_COUNT, END_TIME, PAUSED, UPDATED_AT";
+
+	private final JdbcTemplate jdbc;
+	private final String prefix;
+
+	public EphemeralJobRepository(JdbcTemplate jdbc,
+			@Value("${spring.quartz.properties.org.quartz.jobStore.tablePrefix:QRTZ_}") String prefix) {
+		this.jdbc = jdbc;
+		this.prefix = prefix;
+	}
+
+	/**
+	 * @return false if the job already exists
+	 */
+	public boolean insert(String schedName, EphemeralJob job, String owner) {
+		try {
+			jdbc.update("INSERT INTO RB_EPHEMERAL_JOB (SCHED_NAME, " + COLUMNS + ", OWNER)"
+					+ " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", ps -> {
+						ps.setString(1, schedName);
+						ps.setString(2, job.key().getGroup());
+						ps.setString(3, job.key().getName());
+						ps.setString(4, job.jobClass());
+						ps.setBytes(5, toProperties(job.jobData()));
+						ps.setLong(6, job.startMs());
+						ps.setLong(7, job.intervalMs());
+						ps.setInt(8, job.repeatCount());
+						ps.setObject(9, job.endMs(), Types.BIGINT);
+						ps.setBoolean(10, job.paused());
+						ps.setLong(11, job.updatedAt());
+						ps.setString(12, owner);
+					});
+			return true;
+		} catch (DuplicateKeyException ex) {
+			return false;
+		}
+	}
+
+	public EphemeralJob find(String schedName, JobKey key) {
+		List<EphemeralJob> rows = jdbc.query("SELECT " + COLUMNS
+				+ " FROM RB_EPHEMERAL_JOB WHERE SCHED_NAME = ? AND JOB_GROUP = ? AND JOB_NAME = ?",
+				EphemeralJobRepository::toJob, schedName, key.getGroup(), key.getName());
+		return rows.isEmpty() ? null : rows.get(0);
+	}
+
+	public List<EphemeralJob> findByOwner(String schedName, String owner) {
+		return jdbc.query("SELECT " + COLUMNS + " FROM RB_EPHEMERAL_JOB WHERE SCHED_NAME = ? AND OWNER = ?",
+				EphemeralJobRepository::toJob, schedName, owner);
+	}
+
+	/**
+	 * A page of jobs keyset-ordered by group and name, for export.
+	 *
+	 * @param group    only this job group, or all if null
+	 * @param afterJob exclusive start, null for the first page
+	 */
+	public List<EphemeralJob> findPage(String schedName, String group, JobKey afterJob, int limit) {
+		StringBuilder sql = new StringBuilder("SELECT " + COLUMNS + " FROM RB_EPHEMERAL_JOB WHERE SCHED_NAME = ?");
+		List<Object> args = new ArrayList<>(List.of(schedName));
+		if (group != null) {
+			sql.append(" AND JOB_GROUP = ?");
+			args.add(group);
+		}
+		if (afterJob != null) {
+			sql.append(" AND (JOB_GROUP, JOB_NAME) > (?, ?)");
+			args.add(afterJob.getGroup());
+			args.add(afterJob.getName());
+		}
+		sql.append(" ORDER BY JOB_GROUP, JOB_NAME LIMIT ").append(limit);
+		return jdbc.query(sql.toString(), EphemeralJobRepository::toJob, args.toArray());
+	}
+
+	public boolean updatePaused(String schedName, JobKey key, boolean paused, long updatedAt) {
+		return jdbc.update("UPDATE RB_EPHEMERAL_JOB SET PAUSED = ?, UPDATED_AT = ?"
+				+ " WHERE SCHED_NAME = ? AND JOB_GROUP = ? AND JOB_NAME = ?", paused, updatedAt, schedName,
+				key.getGroup(), key.getName()) > 0;
+	}
+
+	public boolean delete(String schedName, JobKey key) {
+		return jdbc.update("DELETE FROM RB_EPHEMERAL_JOB WHERE SCHED_NAME = ? AND JOB_GROUP = ? AND JOB_NAME = ?",
+				schedName, key.getGroup(), key.getName()) > 0;
+	}
+
+	/**
+	 * Takes over jobs without a live owner: when clustered, owners missing from
+	 * QRTZ_SCHEDULER_STATE, which Quartz's cluster recovery has removed;
+	 * otherwise every other owner, i.e. earlier runs of this instance.
+	 *
+	 * @return number of jobs claimed
+	 */
+	public int claimOrphans(String schedName, String owner, boolean clustered, long updatedAt) {
+		if (!clustered)
+			return jdbc.update("UPDATE RB_EPHEMERAL_JOB SET OWNER = ?, UPDATED_AT = ?"
+					+ " WHERE SCHED_NAME = ? AND (OWNER IS NULL OR OWNER <> ?)", owner, updatedAt, schedName, owner);
+		return jdbc.update("UPDATE RB_EPHEMERAL_JOB SET OWNER = ?, UPDATED_AT = ? WHERE SCHED_NAME = ?"
+				+ " AND (OWNER IS NULL OR OWNER NOT IN (SELECT INSTANCE_NAME FROM " + prefix
+				+ "SCHEDULER_STATE WHERE SCHED_NAME = ?))", owner, updatedAt, schedName, schedName);
+	}
+
+	private static EphemeralJob toJob(ResultSet rs, int rowNum) throws SQLException {
+		return new EphemeralJob(JobKey.jobKey(rs.getString(2), rs.getString(1)), rs.getString(3),
+				fromProperties(rs.getBytes(4)), rs.getLong(5), rs.getLong(6), rs.getInt(7),
+				rs.getObject(8) != null ? rs.getLong(8) : null, rs.getBoolean(9), rs.getLong(10));
+	}
+
+	private static byte[] toProperties(Map<String, String> data) {
+		Properties properties = new Properties();
+		properties.putAll(data);
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			properties.store(out, "");
+			return out.toByteArray();
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	private static Map<String, String> fromProperties(byte[] bytes) {
+		Properties properties = new Properties();
+		try {
+			properties.load(new ByteArrayInputStream(bytes));
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		Map<String, String> data = new HashMap<>();
+		properties.forEach((key, value) -> data.put(key.toString(), value.toString()));
+		return data;
+	}
+}
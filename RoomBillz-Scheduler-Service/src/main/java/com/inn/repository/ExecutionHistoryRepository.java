@@ -0,0 +1,84 @@
+package com.inn.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.inn.dto.ExecutionRecord;
+
+import lombok.RequiredArgsConstructor;
+
+@Repository
+@RequiredArgsConstructor
+public class ExecutionHistoryRepository {
+
+	private static final String COLUMNS = "ID, INSTANCE_ID, JOB_GROUP, JOB_NAME, SCHEDULED_FIRE_TIME, FIRE_TIME,"
+			+ " DURATION_MS, HTTP_STATUS, RESPONSE_SIZE, SUCCESS, ERROR";
+
+	private final JdbcTemplate jdbc;
+
+	public void insertBatch(String schedName, List<ExecutionRecord> records, int batchSize) {
+		jdbc.batchUpdate("INSERT INTO RB_JOB_EXECUTION_HISTORY (SCHED_NAME, INSTANCE_ID, JOB_GROUP, JOB_NAME,"
+				+ " SCHEDULED_FIRE_TIME, FIRE_TIME, DURATION_MS, HTTP_STATUS, RESPONSE_SIZE, SUCCESS, ERROR)"
+				+ " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", records, batchSize, (ps, r) -> {
+					ps.setString(1, schedName);
+					ps.setString(2, r.getInstanceId());
+					ps.setString(3, r.getJobGroup());
+					ps.setString(4, r.getJobName());
+					ps.setObject(5, r.getScheduledFireTime() != null ? r.getScheduledFireTime().getTime() : null,
+							Types.BIGINT);
+					ps.setLong(6, r.getFireTime().getTime());
+					ps.setLong(7, r.getDurationMs());
+					ps.setObject(8, r.getHttpStatus(), Types.INTEGER);
+					ps.setObject(9, r.getResponseSize(), Types.BIGINT);
+					ps.setBoolean(10, r.isSuccess());
+					ps.setString(11, r.getError());
+				});
+	}
+
+	/**
+	 * Most recent runs first; {@code beforeId} is the keyset cursor from the
+	 * previous page.
+	 */
+	public List<ExecutionRecord> findByJob(String schedName, String group, String name, Long beforeId, int limit) {
+		if (beforeId == null) {
+			return jdbc.query("SELECT " + COLUMNS + " FROM RB_JOB_EXECUTION_HISTORY"
+					+ " WHERE SCHED_NAME = ? AND JOB_GROUP = ? AND JOB_NAME = ? ORDER BY ID DESC LIMIT ?",
+					ExecutionHistoryRepository::toRecord, schedName, group, name, limit);
+		}
+		return jdbc.query("SELECT " + COLUMNS + " FROM RB_JOB_EXECUTION_HISTORY"
+				+ " WHERE SCHED_NAME = ? AND JOB_GROUP = ? AND JOB_NAME = ? AND ID < ? ORDER BY ID DESC LIMIT ?",
+				ExecutionHistoryRepository::toRecord, schedName, group, name, beforeId, limit);
+	}
+
+	public long countByJob(String schedName, String group, String name) {
+		return jdbc.queryForObject("SELECT COUNT(*) FROM RB_JOB_EXECUTION_HISTORY"
+				+ " WHERE SCHED_NAME = ? AND JOB_GROUP = ? AND JOB_NAME = ?", Long.class, schedName, group, name);
+	}
+
+	public int deleteOlderThan(long cutoff, int limit) {
+		return jdbc.update("DELETE FROM RB_JOB_EXECUTION_HISTORY WHERE FIRE_TIME < ? LIMIT ?", cutoff, limit);
+	}
+
+	private static ExecutionRecord toRecord(ResultSet rs, int rowNum) throws SQLException {
+		long scheduled = rs.getLong("SCHEDULED_FIRE_TIME");
+		Date scheduledFireTime = rs.wasNull() ? null : new Date(scheduled);
+		Integer status = rs.getInt("HTTP_STATUS");
+		if (rs.wasNull())
+			status = null;
+		Long size = rs.getLong("RESPONSE_SIZE");
+		if (rs.wasNull())
+			size = null;
+
+		return ExecutionRecord.builder().id(rs.getLong("ID")).instanceId(rs.getString("INSTANCE_ID"))
+				.jobGroup(rs.getString("JOB_GROUP")).jobName(rs.getString("JOB_NAME"))
+				.scheduledFireTime(scheduledFireTime).fireTime(new Date(rs.getLong("FIRE_TIME")))
+				.durationMs(rs.getLong("DURATION_MS")).httpStatus(status).responseSize(size)
+				.success(rs.getBoolean("SUCCESS")).error(rs.getString("ERROR")).build();
+	}
+}
@@ -0,0 +1,125 @@
+package com.inn.repository;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * RB_JOB_PAYLOAD access. Rows are content-addressed and their content is never
+ * updated; CREATED_AT is moved forward whenever a job stores the same content
+ * again, so the sweep only sees rows nobody stored recently.
+ */
+@Repository
+public class JobPayloadRepository {
+
+	private static final int PAGE = 500;
+
+	private final JdbcTemplate jdbc;
+	private final String prefix;
+
+	public JobPayloadRepository(JdbcTemplate jdbc,
+			@Value("${spring.quartz.properties.org.quartz.jobStore.tablePrefix:QRTZ_}") String prefix) {
+		this.jdbc = jdbc;
+		this.prefix = prefix;
+	}
+
+	/**
+	 * @return false if a row with this hash already existed
+	 */
+	public boolean insertIfAbsent(String hash, String codec, byte[] payload, long createdAt) {
+		try {
+			jdbc.update("INSERT INTO RB_JOB_PAYLOAD (HASH, CODEC, PAYLOAD, CREATED_AT) VALUES (?, ?, ?, ?)", hash,
+					codec, payload, createdAt);
+			return true;
+		} catch (DuplicateKeyException ex) {
+			return false;
+		}
+	}
+
+	/**
+	 * Inserts the rows, or moves CREATED_AT forward on those that exist, as one
+	 * JDBC batch. Rows go in hash order so concurrent batches lock them in the
+	 * same order.
+	 */
+	public void upsertAll(Map<String, byte[]> payloads, String codec, long createdAt) {
+		List<Object[]> rows = new ArrayList<>(payloads.size());
+		new TreeMap<>(payloads)
+				.forEach((hash, payload) -> rows.add(new Object[] { hash, codec, payload, createdAt, createdAt }));
+		jdbc.batchUpdate("INSERT INTO RB_JOB_PAYLOAD (HASH, CODEC, PAYLOAD, CREATED_AT) VALUES (?, ?, ?, ?)"
+				+ " ON DUPLICATE KEY UPDATE CREATED_AT = ?", rows);
+	}
+
+	/**
+	 * @return false if the row is gone
+	 */
+	public boolean touch(String hash, long at) {
+		return jdbc.update("UPDATE RB_JOB_PAYLOAD SET CREATED_AT = ? WHERE HASH = ?", at, hash) > 0;
+	}
+
+	public StoredPayload find(String hash) {
+		List<StoredPayload> rows = jdbc.query("SELECT CODEC, PAYLOAD FROM RB_JOB_PAYLOAD WHERE HASH = ?",
+				(rs, i) -> new StoredPayload(rs.getString(1), rs.getBytes(2)), hash);
+		return rows.isEmpty() ? null : rows.get(0);
+	}
+
+	public Set<String> findStoredBefore(long cutoff) {
+		return new HashSet<>(
+				jdbc.queryForList("SELECT HASH FROM RB_JOB_PAYLOAD WHERE CREATED_AT < ?", String.class, cutoff));
+	}
+
+	/**
+	 * Deletes the rows among {@code hashes} not stored again since
+	 * {@code cutoff}.
+	 */
+	public int deleteStoredBefore(List<String> hashes, long cutoff) {
+		if (hashes.isEmpty())
+			return 0;
+		String in = String.join(",", hashes.stream().map(hash -> "?").toList());
+		Object[] args = new Object[hashes.size() + 1];
+		args[0] = cutoff;
+		for (int i = 0; i < hashes.size(); i++)
+			args[i + 1] = hashes.get(i);
+		return jdbc.update("DELETE FROM RB_JOB_PAYLOAD WHERE CREATED_AT < ? AND HASH IN (" + in + ")", args);
+	}
+
+	/**
+	 * Pages through JOB_DATA of the jobs, triggers and ephemeral jobs of every
+	 * scheduler sharing the tables, which is where payload references live.
+	 *
+	 * @param action gets the owner ("group.name") and the raw column
+	 */
+	public void forEachJobData(BiConsumer<String, byte[]> action) {
+		scan(prefix + "JOB_DETAILS", "JOB_GROUP", "JOB_NAME", action);
+		scan(prefix + "TRIGGERS", "TRIGGER_GROUP", "TRIGGER_NAME", action);
+		scan("RB_EPHEMERAL_JOB", "JOB_GROUP", "JOB_NAME", action);
+	}
+
+	private void scan(String table, String groupColumn, String nameColumn, BiConsumer<String, byte[]> action) {
+		String select = "SELECT SCHED_NAME, " + groupColumn + ", " + nameColumn + ", JOB_DATA FROM " + table
+				+ " WHERE (SCHED_NAME, " + groupColumn + ", " + nameColumn + ") > (?, ?, ?)" + " ORDER BY SCHED_NAME, "
+				+ groupColumn + ", " + nameColumn + " LIMIT " + PAGE;
+		Object[] after = { "", "", "" };
+		while (true) {
+			List<Object[]> rows = jdbc.query(select, (rs, i) -> new Object[] { rs.getString(1), rs.getString(2),
+					rs.getString(3), rs.getBytes(4) }, after);
+			for (Object[] row : rows)
+				action.accept(row[1] + "." + row[2], (byte[]) row[3]);
+			if (rows.size() < PAGE)
+				return;
+			Object[] last = rows.get(rows.size() - 1);
+			after = new Object[] { last[0], last[1], last[2] };
+		}
+	}
+
+	public record StoredPayload(String codec, byte[] payload) {
+	}
+}
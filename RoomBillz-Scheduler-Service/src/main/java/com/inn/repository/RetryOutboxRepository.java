@@ -0,0 +1,89 @@
+package com.inn.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+
+import org.quartz.JobKey;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Repository;
+
+/**
+ * RB_RETRY_OUTBOX access: the crash-recovery copy of the retries pending on
+ * each node's retry wheel.
+ */
+@Repository
+public class RetryOutboxRepository {
+
+	private final JdbcTemplate jdbc;
+	private final String prefix;
+
+	public RetryOutboxRepository(JdbcTemplate jdbc,
+			@Value("${spring.quartz.properties.org.quartz.jobStore.tablePrefix:QRTZ_}") String prefix) {
+		this.jdbc = jdbc;
+		this.prefix = prefix;
+	}
+
+	/**
+	 * @return the row id
+	 */
+	public long insert(String schedName, String owner, PendingRetry retry) {
+		GeneratedKeyHolder keys = new GeneratedKeyHolder();
+		jdbc.update(con -> {
+			PreparedStatement ps = con.prepareStatement("INSERT INTO RB_RETRY_OUTBOX (SCHED_NAME, JOB_GROUP,"
+					+ " JOB_NAME, ATTEMPT, DUE_AT, SCHEDULED_FIRE_TIME, OWNER) VALUES (?, ?, ?, ?, ?, ?, ?)",
+					Statement.RETURN_GENERATED_KEYS);
+			ps.setString(1, schedName);
+			ps.setString(2, retry.jobKey().getGroup());
+			ps.setString(3, retry.jobKey().getName());
+			ps.setInt(4, retry.attempt());
+			ps.setLong(5, retry.dueAt());
+			ps.setObject(6, retry.scheduledFireTime(), Types.BIGINT);
+			ps.setString(7, owner);
+			return ps;
+		}, keys);
+		return keys.getKey().longValue();
+	}
+
+	public void delete(long id) {
+		jdbc.update("DELETE FROM RB_RETRY_OUTBOX WHERE ID = ?", id);
+	}
+
+	public List<PendingRetry> findByOwner(String schedName, String owner) {
+		return jdbc.query("SELECT ID, JOB_GROUP, JOB_NAME, ATTEMPT, DUE_AT, SCHEDULED_FIRE_TIME FROM RB_RETRY_OUTBOX"
+				+ " WHERE SCHED_NAME = ? AND OWNER = ?",
+				(rs, i) -> new PendingRetry(rs.getLong(1), JobKey.jobKey(rs.getString(3), rs.getString(2)),
+						rs.getInt(4), rs.getLong(5), rs.getObject(6) != null ? rs.getLong(6) : null),
+				schedName, owner);
+	}
+
+	/**
+	 * Takes over retries without a live owner, like
+	 * {@link EphemeralJobRepository#claimOrphans}.
+	 *
+	 * @return number of retries claimed
+	 */
+	public int claimOrphans(String schedName, String owner, boolean clustered) {
+		if (!clustered)
+			return jdbc.update("UPDATE RB_RETRY_OUTBOX SET OWNER = ?"
+					+ " WHERE SCHED_NAME = ? AND (OWNER IS NULL OR OWNER <> ?)", owner, schedName, owner);
+		return jdbc.update("UPDATE RB_RETRY_OUTBOX SET OWNER = ? WHERE SCHED_NAME = ?"
+				+ " AND (OWNER IS NULL OR OWNER NOT IN (SELECT INSTANCE_NAME FROM " + prefix
+				+ "SCHEDULER_STATE WHERE SCHED_NAME = ?))", owner, schedName, schedName);
+	}
+
+	/**
+	 * @param id                0 until stored
+	 * @param attempt           which retry this is, 1-based
+	 * @param scheduledFireTime of the fire that failed, null if unknown
+	 */
+	public record PendingRetry(long id, JobKey jobKey, int attempt, long dueAt, Long scheduledFireTime) {
+
+		public PendingRetry withId(long id) {
+			return new PendingRetry(id, jobKey, attempt, dueAt, scheduledFireTime);
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package com.inn.repository;
+
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * RB_TRIGGER_CHANGE_LOG access. Each node appends the trigger keys it changed and
+ * polls for rows written by the others.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TriggerChangeLogRepository {
+
+	private final JdbcTemplate jdbc;
+
+	public void insert(String schedName, List<TriggerChange> changes, long changedAt) {
+		jdbc.batchUpdate(
+				"INSERT INTO RB_TRIGGER_CHANGE_LOG (SCHED_NAME, TRIGGER_GROUP, TRIGGER_NAME, CHANGED_AT) VALUES (?, ?, ?, ?)",
+				changes, 500, (ps, c) -> {
+					ps.setString(1, schedName);
+					ps.setString(2, c.group());
+					ps.setString(3, c.name());
+					ps.setLong(4, changedAt);
+				});
+	}
+
+	public long maxId() {
+		Long max = jdbc.queryForObject("SELECT MAX(ID) FROM RB_TRIGGER_CHANGE_LOG", Long.class);
+		return max != null ? max : 0L;
+	}
+
+	/**
+	 * Rows above {@code cursor} that are either above {@code afterId} or changed
+	 * at or after {@code changedSince}, in ID order. The second part re-reads
+	 * recent rows, since an AUTO_INCREMENT ID is taken at insert and a row with
+	 * a lower ID can commit after one with a higher ID was already read.
+	 */
+	public List<TriggerChange> findAfter(String schedName, long cursor, long afterId, long changedSince, int limit) {
+		return jdbc.query(
+				"SELECT ID, TRIGGER_GROUP, TRIGGER_NAME, CHANGED_AT FROM RB_TRIGGER_CHANGE_LOG WHERE SCHED_NAME = ? AND ID > ?"
+						+ " AND (ID > ? OR CHANGED_AT >= ?) ORDER BY ID LIMIT ?",
+				(rs, i) -> new TriggerChange(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getLong(4)),
+				schedName, cursor, afterId, changedSince, limit);
+	}
+
+	public int deleteOlderThan(long cutoff) {
+		return jdbc.update("DELETE FROM RB_TRIGGER_CHANGE_LOG WHERE CHANGED_AT < ?", cutoff);
+	}
+
+	/**
+	 * @param name trigger name, or null for every trigger in the group; an empty
+	 *             group with a null name means everything
+	 */
+	public record TriggerChange(long id, String group, String name, long changedAt) {
+	}
+}
@@ -0,0 +1,271 @@
+package com.inn.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.inn.dto.PageResponse;
+import com.inn.dto.TriggerPageQuery;
+import com.inn.service.TriggerInfoView;
+
+/**
+ * Read model over the Quartz tables. Builds {@link TriggerInfoView} pages with
+ * one joined query instead of a getTrigger/getTriggerState round trip per
+ * trigger, and pages with a keyset cursor on (NEXT_FIRE_TIME, TRIGGER_GROUP,
+ * TRIGGER_NAME) so deep pages cost the same as the first one.
+ */
+@Repository
+public class TriggerQueryRepository {
+
+	// Raw TRIGGER_STATE values behind each Trigger.TriggerState, as mapped by JobStoreSupport
+	private static final Map<String, List<String>> STATE_FILTER = Map.of(
+			"NORMAL", List.of("WAITING", "ACQUIRED", "EXECUTING"),
+			"PAUSED", List.of("PAUSED", "PAUSED_BLOCKED"),
+			"BLOCKED", List.of("BLOCKED"),
+			"ERROR", List.of("ERROR"),
+			"COMPLETE", List.of("COMPLETE"));
+
+	private final NamedParameterJdbcTemplate jdbc;
+	private final Scheduler scheduler;
+	private final String prefix;
+
+	public TriggerQueryRepository(NamedParameterJdbcTemplate jdbc, Scheduler scheduler,
+			@Value("${spring.quartz.properties.org.quartz.jobStore.tablePrefix:QRTZ_}") String prefix) {
+		this.jdbc = jdbc;
+		this.scheduler = scheduler;
+		this.prefix = prefix;
+	}
+
+	public PageResponse<TriggerInfoView> findPage(TriggerPageQuery query) throws SchedulerException {
+		MapSqlParameterSource params = new MapSqlParameterSource("sched", scheduler.getSchedulerName());
+		StringBuilder where = new StringBuilder(" WHERE t.SCHED_NAME = :sched");
+
+		if (query.getGroup() != null) {
+			where.append(" AND t.TRIGGER_GROUP = :group");
+			params.addValue("group", query.getGroup());
+		}
+		if (query.getState() != null) {
+			List<String> states = STATE_FILTER.get(query.getState().toUpperCase());
+			if (states == null)
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown trigger state " + query.getState());
+			where.append(" AND t.TRIGGER_STATE IN (:states)");
+			params.addValue("states", states);
+		}
+		if (query.getType() != null) {
+			where.append(" AND t.TRIGGER_TYPE = :type");
+			params.addValue("type", query.getType().toUpperCase());
+		}
+
+		long total = jdbc.queryForObject("SELECT COUNT(*) FROM " + prefix + "TRIGGERS t" + where, params, Long.class);
+
+		String op = query.isDescending() ? "<" : ">";
+		if (query.getCursor() != null) {
+			Cursor c = Cursor.decode(query.getCursor());
+			where.append(" AND (t.NEXT_FIRE_TIME " + op + " :cNext OR (t.NEXT_FIRE_TIME = :cNext AND (t.TRIGGER_GROUP " + op
+					+ " :cGroup OR (t.TRIGGER_GROUP = :cGroup AND t.TRIGGER_NAME " + op + " :cName))))");
+			params.addValue("cNext", c.nextFireTime()).addValue("cGroup", c.group()).addValue("cName", c.name());
+		}
+
+		String dir = query.isDescending() ? " DESC" : " ASC";
+		String sql = "SELECT t.JOB_NAME, t.JOB_GROUP, t.TRIGGER_NAME, t.TRIGGER_GROUP, t.TRIGGER_TYPE, t.TRIGGER_STATE,"
+				+ " t.PREV_FIRE_TIME, t.NEXT_FIRE_TIME, c.CRON_EXPRESSION, s.REPEAT_INTERVAL"
+				+ " FROM " + prefix + "TRIGGERS t"
+				+ " LEFT JOIN " + prefix + "CRON_TRIGGERS c ON c.SCHED_NAME = t.SCHED_NAME"
+				+ " AND c.TRIGGER_NAME = t.TRIGGER_NAME AND c.TRIGGER_GROUP = t.TRIGGER_GROUP"
+				+ " LEFT JOIN " + prefix + "SIMPLE_TRIGGERS s ON s.SCHED_NAME = t.SCHED_NAME"
+				+ " AND s.TRIGGER_NAME = t.TRIGGER_NAME AND s.TRIGGER_GROUP = t.TRIGGER_GROUP"
+				+ where
+				+ " ORDER BY t.NEXT_FIRE_TIME" + dir + ", t.TRIGGER_GROUP" + dir + ", t.TRIGGER_NAME" + dir
+				+ " LIMIT :limit";
+		// one extra row tells us whether another page exists
+		params.addValue("limit", query.getLimit() + 1);
+
+		List<Row> rows = new ArrayList<>(query.getLimit() + 1);
+		jdbc.query(sql, params, rs -> {
+			rows.add(new Row(rs.getLong("NEXT_FIRE_TIME"), toView(rs)));
+		});
+
+		String nextCursor = null;
+		if (rows.size() > query.getLimit()) {
+			rows.remove(rows.size() - 1);
+			Row last = rows.get(rows.size() - 1);
+			nextCursor = new Cursor(last.nextFireTime(), last.view().getTriggerGroup(), last.view().getTriggerName())
+					.encode();
+		}
+
+		return PageResponse.<TriggerInfoView>builder().items(rows.stream().map(Row::view).toList()).total(total)
+				.nextCursor(nextCursor).build();
+	}
+
+	/**
+	 * Active cron triggers grouped by schedule and end time: jobs mostly share a
+	 * handful of expressions, so callers expand each one once instead of once
+	 * per trigger.
+	 */
+	public List<CronSchedule> findCronSchedules() throws SchedulerException {
+		return jdbc.query("SELECT c.CRON_EXPRESSION, c.TIME_ZONE_ID, t.END_TIME, COUNT(*) AS CNT"
+				+ " FROM " + prefix + "TRIGGERS t JOIN " + prefix + "CRON_TRIGGERS c ON c.SCHED_NAME = t.SCHED_NAME"
+				+ " AND c.TRIGGER_NAME = t.TRIGGER_NAME AND c.TRIGGER_GROUP = t.TRIGGER_GROUP"
+				+ " WHERE t.SCHED_NAME = :sched AND t.TRIGGER_STATE IN (:states)"
+				+ " GROUP BY c.CRON_EXPRESSION, c.TIME_ZONE_ID, t.END_TIME", activeParams(),
+				(rs, i) -> new CronSchedule(rs.getString("CRON_EXPRESSION"), rs.getString("TIME_ZONE_ID"),
+						rs.getLong("END_TIME"), rs.getLong("CNT")));
+	}
+
+	/**
+	 * Active simple triggers due before {@code before}, grouped by next fire time,
+	 * interval (0 for one-shot triggers), fires left and end time.
+	 */
+	public List<SimpleSchedule> findSimpleSchedules(long before) throws SchedulerException {
+		return jdbc.query("SELECT t.NEXT_FIRE_TIME, s.REPEAT_INTERVAL, s.REPEAT_COUNT, s.TIMES_TRIGGERED, t.END_TIME,"
+				+ " COUNT(*) AS CNT"
+				+ " FROM " + prefix + "TRIGGERS t JOIN " + prefix + "SIMPLE_TRIGGERS s ON s.SCHED_NAME = t.SCHED_NAME"
+				+ " AND s.TRIGGER_NAME = t.TRIGGER_NAME AND s.TRIGGER_GROUP = t.TRIGGER_GROUP"
+				+ " WHERE t.SCHED_NAME = :sched AND t.TRIGGER_STATE IN (:states)"
+				+ " AND t.NEXT_FIRE_TIME > 0 AND t.NEXT_FIRE_TIME < :before"
+				+ " GROUP BY t.NEXT_FIRE_TIME, s.REPEAT_INTERVAL, s.REPEAT_COUNT, s.TIMES_TRIGGERED, t.END_TIME",
+				activeParams().addValue("before", before), (rs, i) -> {
+					long repeatCount = rs.getLong("REPEAT_COUNT");
+					// The next fire is number TIMES_TRIGGERED + 1 of REPEAT_COUNT + 1
+					long remaining = repeatCount < 0 ? -1 : Math.max(0, repeatCount + 1 - rs.getLong("TIMES_TRIGGERED"));
+					return new SimpleSchedule(rs.getLong("NEXT_FIRE_TIME"), rs.getLong("REPEAT_INTERVAL"), remaining,
+							rs.getLong("END_TIME"), rs.getLong("CNT"));
+				});
+	}
+
+	/**
+	 * A page of jobs with their primary trigger ({@code <name>_trigger}) for
+	 * export, keyset-ordered by job group and name so any number of jobs is read
+	 * in pages of bounded size. Jobs without a primary trigger are skipped.
+	 *
+	 * @param group    only this job group, or all if null
+	 * @param afterJob exclusive start, null for the first page
+	 */
+	public List<ExportRow> findExportPage(String group, JobKey afterJob, int limit) throws SchedulerException {
+		MapSqlParameterSource params = new MapSqlParameterSource("sched", scheduler.getSchedulerName())
+				.addValue("limit", limit);
+		StringBuilder where = new StringBuilder(" WHERE j.SCHED_NAME = :sched");
+		if (group != null) {
+			where.append(" AND j.JOB_GROUP = :group");
+			params.addValue("group", group);
+		}
+		if (afterJob != null) {
+			where.append(" AND (j.JOB_GROUP, j.JOB_NAME) > (:aGroup, :aName)");
+			params.addValue("aGroup", afterJob.getGroup()).addValue("aName", afterJob.getName());
+		}
+		String sql = "SELECT j.JOB_GROUP, j.JOB_NAME, j.JOB_CLASS_NAME, j.JOB_DATA, t.TRIGGER_STATE, t.PREV_FIRE_TIME,"
+				+ " t.NEXT_FIRE_TIME, t.START_TIME, t.END_TIME, c.CRON_EXPRESSION, c.TIME_ZONE_ID, s.REPEAT_INTERVAL,"
+				+ " s.REPEAT_COUNT, s.TIMES_TRIGGERED"
+				+ " FROM " + prefix + "JOB_DETAILS j"
+				+ " JOIN " + prefix + "TRIGGERS t ON t.SCHED_NAME = j.SCHED_NAME AND t.JOB_GROUP = j.JOB_GROUP"
+				+ " AND t.JOB_NAME = j.JOB_NAME AND t.TRIGGER_GROUP = j.JOB_GROUP"
+				+ " AND t.TRIGGER_NAME = CONCAT(j.JOB_NAME, '_trigger')"
+				+ " LEFT JOIN " + prefix + "CRON_TRIGGERS c ON c.SCHED_NAME = t.SCHED_NAME"
+				+ " AND c.TRIGGER_NAME = t.TRIGGER_NAME AND c.TRIGGER_GROUP = t.TRIGGER_GROUP"
+				+ " LEFT JOIN " + prefix + "SIMPLE_TRIGGERS s ON s.SCHED_NAME = t.SCHED_NAME"
+				+ " AND s.TRIGGER_NAME = t.TRIGGER_NAME AND s.TRIGGER_GROUP = t.TRIGGER_GROUP"
+				+ where
+				+ " ORDER BY j.JOB_GROUP, j.JOB_NAME LIMIT :limit";
+		return jdbc.query(sql, params, (rs, i) -> {
+			Long interval = rs.getLong("REPEAT_INTERVAL");
+			if (rs.wasNull())
+				interval = null;
+			return new ExportRow(JobKey.jobKey(rs.getString("JOB_NAME"), rs.getString("JOB_GROUP")),
+					rs.getString("JOB_CLASS_NAME"), rs.getBytes("JOB_DATA"),
+					toTriggerState(rs.getString("TRIGGER_STATE")), toDate(rs.getLong("PREV_FIRE_TIME")),
+					toDate(rs.getLong("NEXT_FIRE_TIME")), toDate(rs.getLong("START_TIME")),
+					toDate(rs.getLong("END_TIME")), rs.getString("CRON_EXPRESSION"), rs.getString("TIME_ZONE_ID"),
+					interval, rs.getInt("REPEAT_COUNT"), rs.getInt("TIMES_TRIGGERED"));
+		});
+	}
+
+	private MapSqlParameterSource activeParams() throws SchedulerException {
+		return new MapSqlParameterSource("sched", scheduler.getSchedulerName()).addValue("states",
+				STATE_FILTER.get("NORMAL"));
+	}
+
+	private static TriggerInfoView toView(ResultSet rs) throws SQLException {
+		Long interval = rs.getLong("REPEAT_INTERVAL");
+		if (rs.wasNull())
+			interval = null;
+		return TriggerInfoView.builder().jobName(rs.getString("JOB_NAME")).jobGroup(rs.getString("JOB_GROUP"))
+				.triggerName(rs.getString("TRIGGER_NAME")).triggerGroup(rs.getString("TRIGGER_GROUP"))
+				.triggerType(rs.getString("TRIGGER_TYPE")).state(toTriggerState(rs.getString("TRIGGER_STATE")))
+				.previousFireTime(toDate(rs.getLong("PREV_FIRE_TIME")))
+				.nextFireTime(toDate(rs.getLong("NEXT_FIRE_TIME"))).cronExpression(rs.getString("CRON_EXPRESSION"))
+				.repeatIntervalMs(interval).build();
+	}
+
+	// Quartz stores "no fire time" as -1
+	private static Date toDate(long millis) {
+		return millis > 0 ? new Date(millis) : null;
+	}
+
+	private static String toTriggerState(String raw) {
+		return switch (raw) {
+		case "PAUSED", "PAUSED_BLOCKED" -> "PAUSED";
+		case "BLOCKED", "ERROR", "COMPLETE" -> raw;
+		case "DELETED" -> "NONE";
+		default -> "NORMAL";
+		};
+	}
+
+	private record Row(long nextFireTime, TriggerInfoView view) {
+	}
+
+	/**
+	 * @param endTime 0 if the triggers don't end
+	 */
+	public record CronSchedule(String cronExpression, String timeZoneId, long endTime, long triggers) {
+	}
+
+	/**
+	 * @param remainingFires fires left including the next one, -1 for no limit
+	 * @param endTime        0 if the triggers don't end
+	 */
+	public record SimpleSchedule(long nextFireTime, long repeatIntervalMs, long remainingFires, long endTime,
+			long triggers) {
+	}
+
+	/**
+	 * @param jobData        raw JOB_DATA, properties text or Java-serialized
+	 * @param cronExpression null for simple triggers
+	 * @param repeatInterval null for cron triggers
+	 */
+	public record ExportRow(JobKey jobKey, String jobClass, byte[] jobData, String state, Date previousFireTime,
+			Date nextFireTime, Date startTime, Date endTime, String cronExpression, String timeZoneId,
+			Long repeatInterval, int repeatCount, int timesTriggered) {
+	}
+
+	private record Cursor(long nextFireTime, String group, String name) {
+
+		String encode() {
+			String raw = nextFireTime + "\n" + group + "\n" + name;
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+		}
+
+		static Cursor decode(String cursor) {
+			try {
+				String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\n", 3);
+				return new Cursor(Long.parseLong(parts[0]), parts[1], parts[2]);
+			} catch (RuntimeException ex) {
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+			}
+		}
+	}
+}
@@ -0,0 +1,188 @@
+package com.inn.retry;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionException;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.TriggerBuilder;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.TriggerFiredBundle;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.inn.config.SchedulerProperties;
+import com.inn.ephemeral.TimingWheel;
+import com.inn.jobs.JobRunner;
+import com.inn.repository.RetryOutboxRepository;
+import com.inn.repository.RetryOutboxRepository.PendingRetry;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Holds failed calls until their backoff has passed, then runs the job again
+ * through {@link JobRunner} with {@link RetryPolicy#ATTEMPT} in the trigger
+ * data. Pending retries wait on an in-memory {@link TimingWheel}; a one-off
+ * Quartz trigger per retry would cost several JobStore writes (trigger rows,
+ * acquisition, fired-trigger row) exactly while the target is struggling,
+ * where this writes one RB_RETRY_OUTBOX row and deletes it after the run.
+ * <p>
+ * The outbox only serves crash recovery: every {@code syncIntervalMs} a node
+ * claims the rows of nodes that left the cluster and puts them on its wheel.
+ * Recovered retries reload the JobDetail from the JobStore, so those of
+ * ephemeral jobs are dropped. A retry can run twice if its node dies between
+ * the run and the delete.
+ */
+@Slf4j
+@Component
+public class RetryEngine {
+
+	private final Scheduler scheduler;
+	private final JobRunner jobRunner;
+	private final RetryOutboxRepository outbox;
+	private final SchedulerProperties.Retry config;
+	private final boolean clustered;
+	private final String schedName;
+	private final String instanceId;
+
+	// By outbox id; retries that could not be stored get negative ids
+	private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+	private final AtomicLong unstored = new AtomicLong();
+
+	private TimingWheel wheel;
+	private ExecutorService workers;
+
+	public RetryEngine(Scheduler scheduler, JobRunner jobRunner, RetryOutboxRepository outbox,
+			SchedulerProperties properties, MeterRegistry meterRegistry,
+			@Value("${spring.quartz.properties.org.quartz.jobStore.isClustered:false}") boolean clustered)
+			throws SchedulerException {
+		this.scheduler = scheduler;
+		this.jobRunner = jobRunner;
+		this.outbox = outbox;
+		this.config = properties.getRetry();
+		this.clustered = clustered;
+		this.schedName = scheduler.getSchedulerName();
+		this.instanceId = scheduler.getSchedulerInstanceId();
+		Gauge.builder("scheduler.retry.backlog", pending, Map::size)
+				.description("Retries waiting for their backoff on this node").register(meterRegistry);
+	}
+
+	@PostConstruct
+	void start() {
+		wheel = new TimingWheel("retry-wheel", config.getTickMs(), 8, 3);
+		workers = Executors.newFixedThreadPool(config.getWorkerThreads(),
+				Thread.ofPlatform().name("retry-worker-", 0).daemon().factory());
+	}
+
+	@PreDestroy
+	void stop() throws InterruptedException {
+		// Pending retries stay in the outbox for the next owner
+		wheel.stop();
+		workers.shutdown();
+		workers.awaitTermination(10, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Runs retry {@code attempt} of the job after {@code delayMs}.
+	 */
+	public void schedule(JobDetail detail, Date scheduledFireTime, int attempt, long delayMs) {
+		schedule(detail.getKey(), detail, scheduledFireTime, attempt, delayMs);
+	}
+
+	/**
+	 * @param detail null to load the job from the JobStore when it runs
+	 */
+	public void schedule(JobKey jobKey, JobDetail detail, Date scheduledFireTime, int attempt, long delayMs) {
+		PendingRetry retry = new PendingRetry(0, jobKey, attempt, System.currentTimeMillis() + delayMs,
+				scheduledFireTime != null ? scheduledFireTime.getTime() : null);
+		try {
+			retry = retry.withId(outbox.insert(schedName, instanceId, retry));
+		} catch (DataAccessException ex) {
+			log.warn("Retry {} of {} not stored, kept in memory only: {}", attempt, jobKey, ex.getMessage());
+			retry = retry.withId(unstored.decrementAndGet());
+		}
+		enqueue(retry, detail);
+	}
+
+	@Scheduled(initialDelay = 0, fixedDelayString = "${roombillz.scheduler.retry.sync-interval-ms:10000}")
+	void sync() {
+		try {
+			int claimed = outbox.claimOrphans(schedName, instanceId, clustered);
+			if (claimed > 0)
+				log.info("Took over {} pending retries without a live owner", claimed);
+			for (PendingRetry retry : outbox.findByOwner(schedName, instanceId))
+				enqueue(retry, null);
+		} catch (Exception ex) {
+			log.warn("Retry outbox sync failed: {}", ex.getMessage());
+		}
+	}
+
+	private void enqueue(PendingRetry retry, JobDetail detail) {
+		Pending entry = new Pending(retry, detail);
+		// The sync may find a row before schedule() has queued it, or while it runs
+		if (pending.putIfAbsent(retry.id(), entry) == null)
+			wheel.schedule(retry.dueAt(), () -> submit(entry));
+	}
+
+	// On the wheel thread
+	private void submit(Pending entry) {
+		try {
+			workers.execute(() -> execute(entry));
+		} catch (RejectedExecutionException ex) {
+			log.warn("Retry of {} rejected: {}", entry.retry.jobKey(), ex.getMessage());
+		}
+	}
+
+	private void execute(Pending entry) {
+		PendingRetry retry = entry.retry;
+		try {
+			if (scheduler.isShutdown())
+				return;
+			if (scheduler.isInStandbyMode()) {
+				wheel.schedule(System.currentTimeMillis() + config.getSyncIntervalMs(), () -> submit(entry));
+				return;
+			}
+			JobDetail detail = entry.detail != null ? entry.detail : scheduler.getJobDetail(retry.jobKey());
+			if (detail == null) {
+				log.info("Dropping retry {} of {}: the job no longer exists", retry.attempt(), retry.jobKey());
+			} else {
+				OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger()
+						.withIdentity(retry.jobKey().getName() + "_retry", retry.jobKey().getGroup()).forJob(detail)
+						.usingJobData(RetryPolicy.ATTEMPT, String.valueOf(retry.attempt())).build();
+				Date scheduled = retry.scheduledFireTime() != null ? new Date(retry.scheduledFireTime()) : null;
+				JobExecutionException error = jobRunner
+						.run(new TriggerFiredBundle(detail, trigger, null, false, new Date(), scheduled, null, null));
+				if (error != null)
+					log.warn("Retry {} of {} failed: {}", retry.attempt(), retry.jobKey(), error.getMessage());
+			}
+		} catch (SchedulerException ex) {
+			log.error("Unable to run retry {} of {}", retry.attempt(), retry.jobKey(), ex);
+		}
+		// Delete before forgetting it, so a concurrent sync can't queue the row again
+		try {
+			if (retry.id() > 0)
+				outbox.delete(retry.id());
+		} catch (DataAccessException ex) {
+			log.warn("Could not delete outbox row {}: {}", retry.id(), ex.getMessage());
+		}
+		pending.remove(retry.id());
+	}
+
+	private record Pending(PendingRetry retry, JobDetail detail) {
+	}
+}
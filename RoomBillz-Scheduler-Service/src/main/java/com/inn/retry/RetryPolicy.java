@@ -0,0 +1,102 @@
+package com.inn.retry;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A job's retry settings, read from its JobDataMap. Delays grow exponentially
+ * from {@code backoffMs} up to {@code maxBackoffMs} with equal jitter (half
+ * fixed, half random), so jobs failing together against one target don't all
+ * come back at the same moment.
+ *
+ * @param maxAttempts retries after the scheduled call; 0 disables retries
+ * @param retryOn     HTTP statuses worth retrying
+ * @param retryOnIo   whether calls without a response (I/O error, timeout) are
+ *                    retried
+ */
+public record RetryPolicy(int maxAttempts, long backoffMs, long maxBackoffMs, BitSet retryOn, boolean retryOnIo) {
+
+	// JobDataMap keys, only stored for jobs that set them
+	public static final String MAX_ATTEMPTS = "retryMaxAttempts";
+	public static final String BACKOFF_MS = "retryBackoffMs";
+	public static final String MAX_BACKOFF_MS = "retryMaxBackoffMs";
+	public static final String RETRY_ON = "retryOn";
+	// Trigger data of a retry fire: which retry it is, 1-based
+	public static final String ATTEMPT = "retryAttempt";
+
+	public static final long DEFAULT_BACKOFF_MS = 1000;
+	public static final long DEFAULT_MAX_BACKOFF_MS = 300_000;
+	public static final String DEFAULT_RETRY_ON = "IO,408,429,500-599";
+
+	public static final RetryPolicy NONE = new RetryPolicy(0, 0, 0, new BitSet(), false);
+
+	/**
+	 * @throws IllegalArgumentException if a setting doesn't parse or a status
+	 *                                  range is reversed
+	 */
+	public static RetryPolicy of(Map<String, ?> jobData) {
+		Object maxAttempts = jobData.get(MAX_ATTEMPTS);
+		if (maxAttempts == null || Integer.parseInt(maxAttempts.toString()) <= 0)
+			return NONE;
+		Object backoff = jobData.get(BACKOFF_MS);
+		Object maxBackoff = jobData.get(MAX_BACKOFF_MS);
+		Object retryOn = jobData.get(RETRY_ON);
+		String spec = retryOn != null ? retryOn.toString() : DEFAULT_RETRY_ON;
+		BitSet statuses = new BitSet(600);
+		boolean io = false;
+		for (String part : spec.split(",")) {
+			part = part.trim();
+			if (part.equalsIgnoreCase("IO")) {
+				io = true;
+			} else if (part.indexOf('-') > 0) {
+				int dash = part.indexOf('-');
+				int from = status(part.substring(0, dash));
+				int to = status(part.substring(dash + 1));
+				if (from > to)
+					throw new IllegalArgumentException("Invalid retryOn range " + part);
+				statuses.set(from, to + 1);
+			} else if (!part.isEmpty()) {
+				statuses.set(status(part));
+			}
+		}
+		long backoffMs = backoff != null ? Long.parseLong(backoff.toString()) : DEFAULT_BACKOFF_MS;
+		long maxBackoffMs = maxBackoff != null ? Long.parseLong(maxBackoff.toString()) : DEFAULT_MAX_BACKOFF_MS;
+		if (backoffMs < 0 || maxBackoffMs < 0)
+			throw new IllegalArgumentException("Retry backoff can't be negative");
+		return new RetryPolicy(Integer.parseInt(maxAttempts.toString()), backoffMs, maxBackoffMs, statuses, io);
+	}
+
+	private static int status(String value) {
+		int status = Integer.parseInt(value.trim());
+		if (status < 100 || status > 599)
+			throw new IllegalArgumentException("Invalid retryOn status " + value);
+		return status;
+	}
+
+	/**
+	 * The retry number of a fire: 0 for scheduled fires.
+	 */
+	public static int attempt(Map<String, ?> mergedJobData) {
+		Object attempt = mergedJobData.get(ATTEMPT);
+		return attempt != null ? Integer.parseInt(attempt.toString()) : 0;
+	}
+
+	/**
+	 * @param status HTTP status, or null when no response was received
+	 */
+	public boolean retryable(Integer status) {
+		return status == null ? retryOnIo : status >= 0 && retryOn.get(status);
+	}
+
+	/**
+	 * Delay before retry {@code attempt} (1-based).
+	 */
+	public long delayMs(int attempt) {
+		int shift = Math.min(Math.max(attempt - 1, 0), 30);
+		// Compared before shifting, so a large backoffMs can't overflow
+		long ceiling = backoffMs > maxBackoffMs >> shift ? maxBackoffMs : Math.min(maxBackoffMs, backoffMs << shift);
+		long half = ceiling / 2;
+		return half + ThreadLocalRandom.current().nextLong(ceiling - half + 1);
+	}
+}
@@ -0,0 +1,249 @@
+package com.inn.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inn.config.SchedulerProperties;
+import com.inn.dto.BatchCreateResponse;
+import com.inn.dto.BatchItemResult;
+import com.inn.dto.CreateJobRequest;
+import com.inn.dto.CreateJobResponse;
+import com.inn.payload.JobPayloadStore;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bulk job creation. Items are validated and built up front, then persisted in
+ * chunks through {@link Scheduler#scheduleJobs(Map, boolean)} so each chunk costs
+ * one JobStore transaction and one TRIGGER_ACCESS lock instead of one per job.
+ * A chunk's payloads are stored with one batched statement right before it.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BatchJobService {
+
+	private final Scheduler scheduler;
+	private final SchedulerService schedulerService;
+	private final JobPayloadStore payloadStore;
+	private final Validator validator;
+	private final ObjectMapper objectMapper;
+	private final SchedulerProperties properties;
+
+	public BatchCreateResponse createJobs(List<CreateJobRequest> requests, Integer chunkSize, Integer parallelism,
+			boolean replace) {
+		checkLimits(chunkSize, parallelism);
+		checkSize(requests.size());
+		List<BatchEntry> entries = new ArrayList<>(requests.size());
+		for (int i = 0; i < requests.size(); i++)
+			entries.add(new BatchEntry(i, requests.get(i), null));
+		return process(entries, chunkSize, parallelism, replace);
+	}
+
+	public BatchCreateResponse createJobs(BufferedReader ndjson, Integer chunkSize, Integer parallelism,
+			boolean replace) throws IOException {
+		checkLimits(chunkSize, parallelism);
+		List<BatchEntry> entries = new ArrayList<>();
+		String line;
+		while ((line = ndjson.readLine()) != null) {
+			if (line.isBlank())
+				continue;
+			checkSize(entries.size() + 1);
+			try {
+				entries.add(new BatchEntry(entries.size(), objectMapper.readValue(line, CreateJobRequest.class), null));
+			} catch (JsonProcessingException ex) {
+				entries.add(new BatchEntry(entries.size(), null, "Malformed JSON: " + ex.getOriginalMessage()));
+			}
+		}
+		return process(entries, chunkSize, parallelism, replace);
+	}
+
+	private void checkSize(int size) {
+		int max = properties.getBatch().getMaxItems();
+		if (size > max)
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Batch exceeds max of " + max + " items");
+	}
+
+	private void checkLimits(Integer chunkSize, Integer parallelism) {
+		SchedulerProperties.Batch batch = properties.getBatch();
+		if (chunkSize != null && chunkSize > batch.getMaxChunkSize())
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+					"chunkSize can be at most " + batch.getMaxChunkSize());
+		if (parallelism != null && parallelism > batch.getMaxParallelism())
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+					"parallelism can be at most " + batch.getMaxParallelism());
+	}
+
+	private BatchCreateResponse process(List<BatchEntry> entries, Integer chunkSize, Integer parallelism,
+			boolean replace) {
+		long start = System.currentTimeMillis();
+		BatchItemResult[] results = new BatchItemResult[entries.size()];
+
+		List<PreparedJob> prepared = new ArrayList<>(entries.size());
+		Set<JobKey> seen = new HashSet<>();
+		for (BatchEntry entry : entries) {
+			String error = entry.error() != null ? entry.error() : validate(entry.request());
+			if (error == null && entry.request().isEphemeral()) {
+				// Not JobStore rows, so not part of the chunked transactions
+				results[entry.index()] = createEphemeral(entry.index(), entry.request());
+				continue;
+			}
+			if (error == null) {
+				try {
+					List<JobPayloadStore.Encoded> payloads = new ArrayList<>(1);
+					JobDetail jobDetail = schedulerService.buildJobDetail(entry.request(), payloads);
+					if (seen.add(jobDetail.getKey())) {
+						prepared.add(new PreparedJob(entry.index(), jobDetail,
+								schedulerService.buildTrigger(entry.request(), jobDetail), payloads));
+					} else {
+						error = "Duplicate job key in batch";
+					}
+				} catch (RuntimeException ex) {
+					error = ex.getMessage();
+				}
+			}
+			if (error != null)
+				results[entry.index()] = invalid(entry.index(), entry.request(), error);
+		}
+
+		int size = chunkSize != null && chunkSize > 0 ? chunkSize : properties.getBatch().getChunkSize();
+		int threads = parallelism != null && parallelism > 0 ? parallelism : properties.getBatch().getParallelism();
+
+		List<Callable<Void>> tasks = new ArrayList<>();
+		for (int from = 0; from < prepared.size(); from += size) {
+			List<PreparedJob> chunk = prepared.subList(from, Math.min(from + size, prepared.size()));
+			tasks.add(() -> {
+				persistChunk(chunk, replace, result -> results[result.getIndex()] = result);
+				return null;
+			});
+		}
+
+		if (!tasks.isEmpty()) {
+			try (ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, tasks.size()))) {
+				pool.invokeAll(tasks);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while persisting batch", e);
+			}
+		}
+
+		List<BatchItemResult> items = Arrays.asList(results);
+		Map<String, Long> counts = items.stream()
+				.collect(Collectors.groupingBy(BatchItemResult::getStatus, Collectors.counting()));
+		long elapsed = System.currentTimeMillis() - start;
+		log.info("Batch create: {} items in {} chunks, {} ms, {}", items.size(), tasks.size(), elapsed, counts);
+
+		return BatchCreateResponse.builder().total(items.size()).created(counts.getOrDefault("CREATED", 0L).intValue())
+				.invalid(counts.getOrDefault("INVALID", 0L).intValue())
+				.failed(counts.getOrDefault("FAILED", 0L).intValue()).elapsedMs(elapsed).items(items).build();
+	}
+
+	void persistChunk(List<PreparedJob> chunk, boolean replace, Consumer<BatchItemResult> results) {
+		Map<JobDetail, Set<? extends Trigger>> jobs = new LinkedHashMap<>();
+		List<JobPayloadStore.Encoded> payloads = new ArrayList<>();
+		for (PreparedJob p : chunk) {
+			jobs.put(p.jobDetail(), Set.of(p.trigger()));
+			payloads.addAll(p.payloads());
+		}
+
+		try {
+			payloadStore.putAll(payloads);
+		} catch (RuntimeException ex) {
+			// Without their payload rows none of the jobs could fire
+			log.warn("Payloads of a batch chunk of {} could not be stored: {}", chunk.size(), ex.getMessage());
+			for (PreparedJob p : chunk)
+				results.accept(failed(p, ex));
+			return;
+		}
+
+		try {
+			scheduler.scheduleJobs(jobs, replace);
+			for (PreparedJob p : chunk)
+				results.accept(created(p));
+			return;
+		} catch (SchedulerException | RuntimeException ex) {
+			// The chunk rolled back as a whole; retry one by one so a single conflict
+			// doesn't fail its neighbours
+			log.warn("Batch chunk of {} failed ({}), retrying items individually", chunk.size(), ex.getMessage());
+		}
+
+		for (PreparedJob p : chunk) {
+			try {
+				scheduler.scheduleJob(p.jobDetail(), Set.of(p.trigger()), replace);
+				results.accept(created(p));
+			} catch (SchedulerException | RuntimeException ex) {
+				results.accept(failed(p, ex));
+			}
+		}
+	}
+
+	BatchItemResult createEphemeral(int index, CreateJobRequest req) {
+		try {
+			CreateJobResponse created = schedulerService.createJob(req);
+			return BatchItemResult.builder().index(index).jobName(req.getJobName()).jobGroup(req.getJobGroup())
+					.status("CREATED").nextFireTime(created.getNextFireTime()).build();
+		} catch (ResponseStatusException ex) {
+			return invalid(index, req, ex.getReason());
+		} catch (SchedulerException | RuntimeException ex) {
+			return BatchItemResult.builder().index(index).jobName(req.getJobName()).jobGroup(req.getJobGroup())
+					.status("FAILED").error(ex.getMessage()).build();
+		}
+	}
+
+	String validate(CreateJobRequest req) {
+		Set<ConstraintViolation<CreateJobRequest>> violations = validator.validate(req);
+		if (violations.isEmpty())
+			return null;
+		return violations.stream().map(v -> v.getPropertyPath() + ": " + v.getMessage()).sorted()
+				.collect(Collectors.joining("; "));
+	}
+
+	private static BatchItemResult created(PreparedJob p) {
+		return BatchItemResult.builder().index(p.index()).jobName(p.jobDetail().getKey().getName())
+				.jobGroup(p.jobDetail().getKey().getGroup()).status("CREATED")
+				.nextFireTime(p.trigger().getNextFireTime()).build();
+	}
+
+	private static BatchItemResult failed(PreparedJob p, Exception ex) {
+		return BatchItemResult.builder().index(p.index()).jobName(p.jobDetail().getKey().getName())
+				.jobGroup(p.jobDetail().getKey().getGroup()).status("FAILED").error(ex.getMessage()).build();
+	}
+
+	static BatchItemResult invalid(int index, CreateJobRequest req, String error) {
+		return BatchItemResult.builder().index(index).jobName(req != null ? req.getJobName() : null)
+				.jobGroup(req != null ? req.getJobGroup() : null).status("INVALID").error(error).build();
+	}
+
+	private record BatchEntry(int index, CreateJobRequest request, String error) {
+	}
+
+	// payloads: not stored yet, the job references them
+	record PreparedJob(int index, JobDetail jobDetail, Trigger trigger, List<JobPayloadStore.Encoded> payloads) {
+	}
+}
@@ -0,0 +1,130 @@
+package com.inn.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.inn.config.SchedulerProperties;
+import com.inn.dto.ExecutionRecord;
+import com.inn.dto.PageResponse;
+import com.inn.repository.ExecutionHistoryRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Execution journal with write-behind batching. {@link #record} only appends to
+ * a lock-free queue, so recording never adds latency to the job; a scheduled
+ * flush drains it into JDBC batch inserts. When the buffer is full (database
+ * down or too slow) records are dropped and counted rather than blocking jobs.
+ */
+@Slf4j
+@Service
+public class ExecutionHistoryService {
+
+	private final ExecutionHistoryRepository repository;
+	private final Scheduler scheduler;
+	private final SchedulerProperties.History config;
+
+	private final Queue<ExecutionRecord> buffer = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger buffered = new AtomicInteger();
+	private final AtomicLong dropped = new AtomicLong();
+
+	public ExecutionHistoryService(ExecutionHistoryRepository repository, Scheduler scheduler,
+			SchedulerProperties properties) {
+		this.repository = repository;
+		this.scheduler = scheduler;
+		this.config = properties.getHistory();
+	}
+
+	public void record(ExecutionRecord record) {
+		if (!config.isEnabled())
+			return;
+		if (buffered.incrementAndGet() > config.getBufferCapacity()) {
+			buffered.decrementAndGet();
+			dropped.incrementAndGet();
+			return;
+		}
+		buffer.add(record);
+	}
+
+	public int getBuffered() {
+		return buffered.get();
+	}
+
+	public long getDropped() {
+		return dropped.get();
+	}
+
+	@Scheduled(fixedDelayString = "${roombillz.scheduler.history.flush-interval-ms:1000}")
+	void flush() {
+		if (buffer.isEmpty())
+			return;
+		List<ExecutionRecord> batch = new ArrayList<>(config.getBatchSize());
+		try {
+			String schedName = scheduler.getSchedulerName();
+			ExecutionRecord record;
+			while ((record = buffer.poll()) != null) {
+				buffered.decrementAndGet();
+				batch.add(record);
+				if (batch.size() == config.getBatchSize()) {
+					repository.insertBatch(schedName, batch, config.getBatchSize());
+					batch.clear();
+				}
+			}
+			if (!batch.isEmpty())
+				repository.insertBatch(schedName, batch, config.getBatchSize());
+		} catch (Exception ex) {
+			log.warn("Execution history flush failed, {} records lost: {}", batch.size(), ex.getMessage());
+		}
+
+		long lost = dropped.getAndSet(0);
+		if (lost > 0)
+			log.warn("Execution history buffer full, dropped {} records", lost);
+	}
+
+	@Scheduled(cron = "${roombillz.scheduler.history.purge-cron:0 17 * * * *}")
+	void purge() {
+		long cutoff = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(config.getRetentionDays());
+		int total = 0;
+		int deleted;
+		try {
+			do {
+				deleted = repository.deleteOlderThan(cutoff, config.getPurgeChunkSize());
+				total += deleted;
+			} while (deleted == config.getPurgeChunkSize());
+		} catch (Exception ex) {
+			log.warn("Execution history purge failed after {} rows: {}", total, ex.getMessage());
+		}
+		if (total > 0)
+			log.info("Purged {} execution history rows older than {} days", total, config.getRetentionDays());
+	}
+
+	@PreDestroy
+	void shutdown() {
+		flush();
+	}
+
+	public PageResponse<ExecutionRecord> findRuns(String group, String name, Long beforeId, int limit)
+			throws SchedulerException {
+		String schedName = scheduler.getSchedulerName();
+		List<ExecutionRecord> items = repository.findByJob(schedName, group, name, beforeId, limit + 1);
+
+		String nextCursor = null;
+		if (items.size() > limit) {
+			items = items.subList(0, limit);
+			nextCursor = String.valueOf(items.get(limit - 1).getId());
+		}
+		return PageResponse.<ExecutionRecord>builder().items(items)
+				.total(repository.countByJob(schedName, group, name)).nextCursor(nextCursor).build();
+	}
+}
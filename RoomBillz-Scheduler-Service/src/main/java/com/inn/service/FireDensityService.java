@@ -0,0 +1,104 @@
+package com.inn.service;
+
+import java.text.ParseException;
+import java.util.Date;
+import java.util.TimeZone;
+
+import org.quartz.CronExpression;
+import org.quartz.SchedulerException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.inn.dto.FireDensityResponse;
+import com.inn.repository.TriggerQueryRepository;
+import com.inn.repository.TriggerQueryRepository.CronSchedule;
+import com.inn.repository.TriggerQueryRepository.SimpleSchedule;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Histogram of upcoming JobStore fires per second or minute, to see cron storms
+ * and check that smearing flattens them. Triggers are read grouped by schedule,
+ * so the cost grows with the number of distinct schedules and buckets, not with
+ * the number of triggers. Repeat counts and end times are honoured. Paused
+ * triggers and ephemeral jobs are not counted.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FireDensityService {
+
+	// 24 hours per second or 60 days per minute
+	static final int MAX_BUCKETS = 86400;
+
+	private final TriggerQueryRepository triggerQueryRepository;
+
+	public FireDensityResponse density(Date from, int horizonMinutes, String resolution) throws SchedulerException {
+		long bucketMs = switch (resolution.toUpperCase()) {
+		case "SECOND" -> 1000L;
+		case "MINUTE" -> 60_000L;
+		default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown resolution " + resolution);
+		};
+		long start = from.getTime() - Math.floorMod(from.getTime(), bucketMs);
+		long buckets = horizonMinutes * 60_000L / bucketMs;
+		if (horizonMinutes <= 0 || buckets > MAX_BUCKETS)
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+					"horizonMinutes must give 1 to " + MAX_BUCKETS + " buckets");
+		long end = start + buckets * bucketMs;
+		long[] counts = new long[(int) buckets];
+
+		for (CronSchedule schedule : triggerQueryRepository.findCronSchedules()) {
+			long cronEnd = schedule.endTime() > 0 ? Math.min(end, schedule.endTime() + 1) : end;
+			CronExpression cron;
+			try {
+				cron = new CronExpression(schedule.cronExpression());
+			} catch (ParseException ex) {
+				log.warn("Skipping unparsable cron expression {}: {}", schedule.cronExpression(), ex.getMessage());
+				continue;
+			}
+			if (schedule.timeZoneId() != null)
+				cron.setTimeZone(TimeZone.getTimeZone(schedule.timeZoneId()));
+			for (Date next = cron.getTimeAfter(new Date(start - 1)); next != null
+					&& next.getTime() < cronEnd; next = cron.getTimeAfter(next))
+				counts[(int) ((next.getTime() - start) / bucketMs)] += schedule.triggers();
+		}
+
+		for (SimpleSchedule schedule : triggerQueryRepository.findSimpleSchedules(end))
+			addSimple(counts, schedule, start, end, bucketMs);
+
+		long total = 0;
+		int peak = 0;
+		for (int i = 0; i < counts.length; i++) {
+			total += counts[i];
+			if (counts[i] > counts[peak])
+				peak = i;
+		}
+		return FireDensityResponse.builder().from(new Date(start)).to(new Date(end))
+				.resolution(resolution.toUpperCase()).total(total).peak(counts[peak])
+				.peakAt(new Date(start + peak * bucketMs)).mean((double) total / counts.length).counts(counts)
+				.build();
+	}
+
+	// Fires at or before the end time count, like SimpleTrigger.getFireTimeAfter
+	static void addSimple(long[] counts, SimpleSchedule schedule, long start, long end, long bucketMs) {
+		long next = schedule.nextFireTime();
+		long interval = schedule.repeatIntervalMs();
+		long remaining = schedule.remainingFires();
+		long until = schedule.endTime() > 0 ? Math.min(end, schedule.endTime() + 1) : end;
+		if (next < start) {
+			if (interval <= 0)
+				return;
+			long skipped = Math.ceilDiv(start - next, interval);
+			next += skipped * interval;
+			if (remaining >= 0)
+				remaining = Math.max(0, remaining - skipped);
+		}
+		for (; next < until && remaining != 0; next += interval, remaining--) {
+			counts[(int) ((next - start) / bucketMs)] += schedule.triggers();
+			if (interval <= 0)
+				break;
+		}
+	}
+}
@@ -0,0 +1,132 @@
+package com.inn.service;
+
+import org.quartz.JobKey;
+
+/**
+ * Spreads jobs that share a schedule over a tolerance window, so thousands of
+ * "0 0 * * * ?" jobs don't all fire in the same second. Each job gets an offset
+ * in [0, window) from a hash of its key: deterministic (recreating or replacing
+ * the job, on any node, gives the same offset) and uniform across jobs.
+ * <p>
+ * Cron triggers are shifted by rewriting the seconds and minutes fields, so the
+ * offset costs nothing per fire and shows in the stored expression. Only shifts
+ * that keep the schedule's shape are applied: the seconds field must be a
+ * number or a step dividing 60, and a carry into the minutes field needs a
+ * number, list, range or step dividing 60 there with room below 60 (a carry
+ * never touches the hour). The window is cut to what the expression allows.
+ * Simple triggers just start {@code offset} later.
+ */
+public final class FireSmearPlanner {
+
+	private FireSmearPlanner() {
+	}
+
+	/**
+	 * @param cronExpression null for simple triggers
+	 * @return the plan; offset 0 and the expression unchanged when there is no
+	 *         window or the expression can't be shifted
+	 */
+	public static Plan plan(JobKey key, String cronExpression, Integer windowSeconds) {
+		if (windowSeconds == null || windowSeconds <= 1)
+			return new Plan(cronExpression, 0);
+		if (cronExpression == null || cronExpression.isBlank())
+			return new Plan(cronExpression, offset(key, windowSeconds));
+
+		String[] fields = cronExpression.trim().split("\\s+");
+		if (fields.length < 6)
+			return new Plan(cronExpression, 0);
+
+		if (isNumber(fields[0])) {
+			int second = Integer.parseInt(fields[0]);
+			long capacity = shiftCapacity(fields[1]) * 60L + (59 - second);
+			int offset = offset(key, (int) Math.min(windowSeconds, capacity + 1));
+			int total = second + offset;
+			fields[0] = String.valueOf(total % 60);
+			fields[1] = shift(fields[1], total / 60);
+			return new Plan(String.join(" ", fields), offset);
+		}
+		// Sub-minute schedule: only the seconds field moves
+		int offset = offset(key, (int) Math.min(windowSeconds, shiftCapacity(fields[0]) + 1L));
+		fields[0] = shift(fields[0], offset);
+		return new Plan(String.join(" ", fields), offset);
+	}
+
+	// Largest c such that every value of a 0-59 field can move c up without
+	// wrapping or changing the spacing; 0 if the field can't be shifted
+	private static int shiftCapacity(String field) {
+		if (isNumber(field))
+			return 59 - Integer.parseInt(field);
+		int slash = field.indexOf('/');
+		if (slash > 0 && isNumber(field.substring(slash + 1))) {
+			String start = field.substring(0, slash);
+			int step = Integer.parseInt(field.substring(slash + 1));
+			if (step <= 0 || 60 % step != 0 || !(start.equals("*") || isNumber(start)))
+				return 0;
+			int first = start.equals("*") ? 0 : Integer.parseInt(start);
+			return Math.max(0, step - 1 - first);
+		}
+		int dash = field.indexOf('-');
+		if (dash > 0 && isNumber(field.substring(0, dash)) && isNumber(field.substring(dash + 1)))
+			return Math.max(0, 59 - Integer.parseInt(field.substring(dash + 1)));
+		if (field.indexOf(',') > 0) {
+			int max = -1;
+			for (String value : field.split(",")) {
+				if (!isNumber(value))
+					return 0;
+				max = Math.max(max, Integer.parseInt(value));
+			}
+			return 59 - max;
+		}
+		return 0;
+	}
+
+	private static String shift(String field, int by) {
+		if (by == 0)
+			return field;
+		if (isNumber(field))
+			return String.valueOf(Integer.parseInt(field) + by);
+		int slash = field.indexOf('/');
+		if (slash > 0) {
+			String start = field.substring(0, slash);
+			return ((start.equals("*") ? 0 : Integer.parseInt(start)) + by) + field.substring(slash);
+		}
+		int dash = field.indexOf('-');
+		if (dash > 0)
+			return (Integer.parseInt(field.substring(0, dash)) + by) + "-"
+					+ (Integer.parseInt(field.substring(dash + 1)) + by);
+		StringBuilder out = new StringBuilder();
+		for (String value : field.split(",")) {
+			if (!out.isEmpty())
+				out.append(',');
+			out.append(Integer.parseInt(value) + by);
+		}
+		return out.toString();
+	}
+
+	private static boolean isNumber(String field) {
+		if (field.isEmpty() || field.length() > 2)
+			return false;
+		for (int i = 0; i < field.length(); i++)
+			if (!Character.isDigit(field.charAt(i)))
+				return false;
+		return Integer.parseInt(field) < 60;
+	}
+
+	// Stable across JVMs and nodes: String.hashCode is specified, fmix64 spreads it
+	private static int offset(JobKey key, int window) {
+		long h = key.getGroup().hashCode() * 31L + key.getName().hashCode();
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return (int) Math.floorMod(h, (long) window);
+	}
+
+	/**
+	 * @param cronExpression the shifted expression, null for simple triggers
+	 * @param offsetSeconds  how much later than requested the job fires
+	 */
+	public record Plan(String cronExpression, int offsetSeconds) {
+	}
+}
@@ -0,0 +1,384 @@
+package com.inn.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import org.quartz.CronScheduleBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.SimpleScheduleBuilder;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inn.config.SchedulerProperties;
+import com.inn.dto.BatchCreateResponse;
+import com.inn.dto.BatchItemResult;
+import com.inn.dto.CreateJobRequest;
+import com.inn.dto.HttpHeaderKV;
+import com.inn.dto.JobExport;
+import com.inn.ephemeral.EphemeralJob;
+import com.inn.http.RequestPlan;
+import com.inn.jobs.AsyncRestInvokeJob;
+import com.inn.jobstore.ShardedJobStoreTX;
+import com.inn.payload.JobDataMigration;
+import com.inn.payload.JobPayload;
+import com.inn.payload.JobPayloadStore;
+import com.inn.repository.EphemeralJobRepository;
+import com.inn.repository.TriggerQueryRepository;
+import com.inn.repository.TriggerQueryRepository.ExportRow;
+import com.inn.retry.RetryPolicy;
+import com.inn.service.BatchJobService.PreparedJob;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Streams job definitions out as NDJSON {@link JobExport} lines and back in.
+ * Either way only a chunk is held at a time, so memory does not grow with the
+ * number of jobs: export reads the JobStore and RB_EPHEMERAL_JOB in keyset
+ * pages and flushes after each page; import parses line by line and persists
+ * each chunk in one JobStore transaction through {@link BatchJobService}, with
+ * at most {@code parallelism} chunks in flight. PAUSED jobs are stored paused
+ * in that same transaction, so they can't fire during the import. The import
+ * response counts every line but only lists the first {@value #MAX_REPORTED}
+ * that failed.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class JobTransferService {
+
+	static final int MAX_REPORTED = 1000;
+
+	private final Scheduler scheduler;
+	private final SchedulerService schedulerService;
+	private final BatchJobService batchJobService;
+	private final TriggerQueryRepository triggerQueryRepository;
+	private final EphemeralJobRepository ephemeralJobRepository;
+	private final JobPayloadStore payloadStore;
+	private final ObjectMapper objectMapper;
+	private final SchedulerProperties properties;
+
+	/**
+	 * @param group only this job group, or every job if null
+	 * @return number of jobs written
+	 */
+	public long exportJobs(String group, OutputStream out) throws IOException, SchedulerException {
+		long start = System.currentTimeMillis();
+		int page = properties.getBatch().getChunkSize();
+		long count = 0;
+
+		JobKey after = null;
+		List<ExportRow> rows;
+		do {
+			rows = triggerQueryRepository.findExportPage(group, after, page);
+			for (ExportRow row : rows)
+				writeLine(out, toExport(row));
+			out.flush();
+			count += rows.size();
+			after = rows.isEmpty() ? null : rows.get(rows.size() - 1).jobKey();
+		} while (rows.size() == page);
+
+		String schedName = scheduler.getSchedulerName();
+		long now = System.currentTimeMillis();
+		after = null;
+		List<EphemeralJob> jobs;
+		do {
+			jobs = ephemeralJobRepository.findPage(schedName, group, after, page);
+			for (EphemeralJob job : jobs)
+				writeLine(out, toExport(job, now));
+			out.flush();
+			count += jobs.size();
+			after = jobs.isEmpty() ? null : jobs.get(jobs.size() - 1).key();
+		} while (jobs.size() == page);
+
+		log.info("Exported {} jobs{} in {} ms", count, group != null ? " of group " + group : "",
+				System.currentTimeMillis() - start);
+		return count;
+	}
+
+	public BatchCreateResponse importJobs(BufferedReader ndjson, Integer chunkSize, Integer parallelism,
+			boolean replace) throws IOException {
+		long start = System.currentTimeMillis();
+		int size = Math.min(chunkSize != null && chunkSize > 0 ? chunkSize : properties.getBatch().getChunkSize(),
+				properties.getBatch().getMaxChunkSize());
+		int threads = Math.min(
+				parallelism != null && parallelism > 0 ? parallelism : properties.getBatch().getParallelism(),
+				properties.getBatch().getMaxParallelism());
+		boolean storesPaused = storesPaused();
+		Tally tally = new Tally();
+		Semaphore inFlight = new Semaphore(threads);
+		int chunks = 0;
+
+		try (ExecutorService pool = Executors.newFixedThreadPool(threads)) {
+			List<PreparedJob> chunk = new ArrayList<>(size);
+			Set<TriggerKey> paused = new HashSet<>();
+			int index = 0;
+			String line;
+			while ((line = ndjson.readLine()) != null) {
+				if (line.isBlank())
+					continue;
+				int i = index++;
+				JobExport req;
+				try {
+					req = objectMapper.readValue(line, JobExport.class);
+				} catch (JsonProcessingException ex) {
+					tally.add(BatchJobService.invalid(i, null, "Malformed JSON: " + ex.getOriginalMessage()));
+					continue;
+				}
+				String error = batchJobService.validate(req);
+				if (error != null) {
+					tally.add(BatchJobService.invalid(i, req, error));
+					continue;
+				}
+				if (req.isEphemeral()) {
+					// Stored paused by SchedulerService
+					tally.add(batchJobService.createEphemeral(i, req));
+					continue;
+				}
+				try {
+					List<JobPayloadStore.Encoded> payloads = new ArrayList<>(1);
+					JobDetail jobDetail = schedulerService.buildJobDetail(req, payloads);
+					Trigger trigger = restoreTrigger(req, jobDetail);
+					chunk.add(new PreparedJob(i, jobDetail, trigger, payloads));
+					if ("PAUSED".equals(req.getState()))
+						paused.add(trigger.getKey());
+				} catch (RuntimeException ex) {
+					tally.add(BatchJobService.invalid(i, req, ex.getMessage()));
+					continue;
+				}
+				if (chunk.size() == size) {
+					submit(pool, inFlight, chunk, paused, storesPaused, replace, tally);
+					chunks++;
+					chunk = new ArrayList<>(size);
+					paused = new HashSet<>();
+				}
+			}
+			if (!chunk.isEmpty()) {
+				submit(pool, inFlight, chunk, paused, storesPaused, replace, tally);
+				chunks++;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while importing jobs", e);
+		}
+
+		long elapsed = System.currentTimeMillis() - start;
+		log.info("Import: {} lines in {} chunks, {} ms, {} created, {} invalid, {} failed", tally.total, chunks,
+				elapsed, tally.created, tally.invalid, tally.failed);
+		return tally.response(elapsed);
+	}
+
+	// Blocks while parallelism chunks are in flight, which bounds what is held in memory
+	private void submit(ExecutorService pool, Semaphore inFlight, List<PreparedJob> chunk, Set<TriggerKey> paused,
+			boolean storesPaused, boolean replace, Tally tally) throws InterruptedException {
+		inFlight.acquire();
+		pool.execute(() -> {
+			try {
+				ShardedJobStoreTX.storingPaused(paused, () -> {
+					batchJobService.persistChunk(chunk, replace, result -> {
+						tally.add(result);
+						JobKey key = JobKey.jobKey(result.getJobName(), result.getJobGroup());
+						if (!storesPaused && "CREATED".equals(result.getStatus())
+								&& paused.contains(TriggerKey.triggerKey(key.getName() + "_trigger", key.getGroup())))
+							pause(key);
+					});
+					return null;
+				});
+			} finally {
+				inFlight.release();
+			}
+		});
+	}
+
+	// Whether the JobStore stores triggers paused on creation; other stores are paused afterwards
+	private boolean storesPaused() {
+		try {
+			return ShardedJobStoreTX.class.isAssignableFrom(scheduler.getMetaData().getJobStoreClass());
+		} catch (SchedulerException ex) {
+			return false;
+		}
+	}
+
+	private void pause(JobKey key) {
+		try {
+			schedulerService.pauseJob(key.getGroup(), key.getName());
+		} catch (SchedulerException ex) {
+			log.warn("Imported job {} could not be paused: {}", key, ex.getMessage());
+		}
+	}
+
+	/**
+	 * Like {@link SchedulerService#buildTrigger}, but resumes the exported
+	 * schedule: the interval and remaining repeats of simple triggers from their
+	 * next fire time, cron triggers in their time zone.
+	 */
+	private Trigger restoreTrigger(JobExport req, JobDetail jobDetail) {
+		long now = System.currentTimeMillis();
+		TriggerBuilder<Trigger> builder = TriggerBuilder.newTrigger()
+				.withIdentity(req.getJobName() + "_trigger", req.getJobGroup()).forJob(jobDetail);
+		if (req.getEndAt() != null)
+			builder.endAt(Date.from(req.getEndAt().toInstant()));
+
+		if (req.getCronExpression() != null && !req.getCronExpression().isBlank()) {
+			CronScheduleBuilder cron = CronScheduleBuilder.cronSchedule(req.getCronExpression())
+					.withMisfireHandlingInstructionFireAndProceed();
+			if (req.getTimeZone() != null)
+				cron.inTimeZone(TimeZone.getTimeZone(req.getTimeZone()));
+			long startAt = req.getStartAt() != null ? req.getStartAt().toInstant().toEpochMilli() : now;
+			return builder.startAt(new Date(Math.max(startAt, now))).withSchedule(cron).build();
+		}
+
+		int interval = req.getRepeatIntervalSeconds() != null && req.getRepeatIntervalSeconds() > 0
+				? req.getRepeatIntervalSeconds()
+				: 60;
+		SimpleScheduleBuilder simple = SimpleScheduleBuilder.simpleSchedule().withIntervalInSeconds(interval)
+				.withMisfireHandlingInstructionFireNow();
+		if (req.getRepeatCount() != null && req.getRepeatCount() >= 0)
+			simple.withRepeatCount(req.getRepeatCount());
+		else
+			simple.repeatForever();
+		Date first = req.getNextFireTime() != null ? req.getNextFireTime()
+				: req.getStartAt() != null ? Date.from(req.getStartAt().toInstant()) : null;
+		return builder.startAt(first != null && first.getTime() > now ? first : new Date(now)).withSchedule(simple)
+				.build();
+	}
+
+	private JobExport toExport(ExportRow row) {
+		JobExport export = new JobExport();
+		fill(export, row.jobKey(), row.jobClass(), JobDataMigration.read(row.jobData(), row.jobKey().toString()));
+		if (row.cronExpression() != null) {
+			export.setCronExpression(row.cronExpression());
+			export.setTimeZone(row.timeZoneId());
+		} else if (row.repeatInterval() != null) {
+			export.setRepeatIntervalSeconds((int) (row.repeatInterval() / 1000));
+			// Counted from nextFireTime, where the import resumes
+			export.setRepeatCount(row.repeatCount() < 0 ? -1 : Math.max(0, row.repeatCount() - row.timesTriggered()));
+		}
+		export.setStartAt(toOffset(row.startTime()));
+		export.setEndAt(toOffset(row.endTime()));
+		export.setState(row.state());
+		export.setPreviousFireTime(row.previousFireTime());
+		export.setNextFireTime(row.nextFireTime());
+		return export;
+	}
+
+	private JobExport toExport(EphemeralJob job, long now) {
+		JobExport export = new JobExport();
+		fill(export, job.key(), job.jobClass(), Map.copyOf(job.jobData()));
+		export.setEphemeral(true);
+		export.setRepeatIntervalSeconds((int) (job.intervalMs() / 1000));
+		export.setRepeatCount(job.repeatCount());
+		export.setStartAt(toOffset(new Date(job.startMs())));
+		export.setEndAt(job.endMs() != null ? toOffset(new Date(job.endMs())) : null);
+		export.setState(job.paused() ? "PAUSED" : "NORMAL");
+		long previous = job.lastFireAtOrBefore(now);
+		long next = job.nextFireAfter(now);
+		export.setPreviousFireTime(previous >= 0 ? new Date(previous) : null);
+		export.setNextFireTime(next >= 0 ? new Date(next) : null);
+		return export;
+	}
+
+	// The inverse of SchedulerService.buildJobDetail
+	private void fill(JobExport export, JobKey key, String jobClass, Map<String, ?> data) {
+		export.setJobName(key.getName());
+		export.setJobGroup(key.getGroup());
+		export.setTargetUrl(string(data.get("targetUrl")));
+		export.setHttpMethod(string(data.get("httpMethod")));
+		export.setResponseCapture(string(data.get("responseCapture")));
+		Object misfirePolicy = data.get(RequestPlan.MISFIRE_POLICY);
+		export.setMisfirePolicy(misfirePolicy != null ? misfirePolicy.toString() : RequestPlan.DEFAULT_MISFIRE_POLICY);
+
+		Object maxAttempts = data.get(RetryPolicy.MAX_ATTEMPTS);
+		if (maxAttempts != null) {
+			export.setRetryMaxAttempts(Integer.valueOf(maxAttempts.toString()));
+			Object backoff = data.get(RetryPolicy.BACKOFF_MS);
+			Object maxBackoff = data.get(RetryPolicy.MAX_BACKOFF_MS);
+			export.setRetryBackoffMs(backoff != null ? Long.valueOf(backoff.toString()) : null);
+			export.setRetryMaxBackoffMs(maxBackoff != null ? Long.valueOf(maxBackoff.toString()) : null);
+			export.setRetryOn(string(data.get(RetryPolicy.RETRY_ON)));
+		}
+
+		boolean async = AsyncRestInvokeJob.class.getName().equals(jobClass);
+		export.setExecutionMode(async ? "ASYNC" : "SYNC");
+		export.setBatchKey(string(data.get(RequestPlan.BATCH_KEY)));
+		export.setBatchUrl(string(data.get(RequestPlan.BATCH_URL)));
+		Object timeoutMs = data.get("timeoutMs");
+		if (timeoutMs != null)
+			export.setTimeoutMs(Integer.valueOf(timeoutMs.toString()));
+
+		JobPayload payload = payloadStore.resolve(data);
+		if (payload.headers() != null) {
+			List<HttpHeaderKV> headers = new ArrayList<>(payload.headers().size());
+			payload.headers().forEach((name, value) -> {
+				HttpHeaderKV header = new HttpHeaderKV();
+				header.setName(name);
+				header.setValue(value);
+				headers.add(header);
+			});
+			export.setHeaders(headers);
+		}
+		export.setQueryParams(payload.queryParams());
+		export.setBody(payload.body());
+		export.setResponseFields(payload.responseFields());
+	}
+
+	private void writeLine(OutputStream out, CreateJobRequest line) throws IOException {
+		out.write(objectMapper.writeValueAsBytes(line));
+		out.write('\n');
+	}
+
+	private static String string(Object value) {
+		return value != null ? value.toString() : null;
+	}
+
+	private static OffsetDateTime toOffset(Date date) {
+		return date != null ? OffsetDateTime.ofInstant(Instant.ofEpochMilli(date.getTime()), ZoneOffset.UTC) : null;
+	}
+
+	// Counts every line, keeps the first MAX_REPORTED failures
+	private static final class Tally {
+		int total;
+		int created;
+		int invalid;
+		int failed;
+		final List<BatchItemResult> reported = new ArrayList<>();
+
+		synchronized void add(BatchItemResult result) {
+			total++;
+			switch (result.getStatus()) {
+			case "CREATED" -> created++;
+			case "INVALID" -> invalid++;
+			default -> failed++;
+			}
+			if (!"CREATED".equals(result.getStatus()) && reported.size() < MAX_REPORTED)
+				reported.add(result);
+		}
+
+		synchronized BatchCreateResponse response(long elapsedMs) {
+			reported.sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+			return BatchCreateResponse.builder().total(total).created(created).invalid(invalid).failed(failed)
+					.elapsedMs(elapsedMs).items(reported).build();
+		}
+	}
+}
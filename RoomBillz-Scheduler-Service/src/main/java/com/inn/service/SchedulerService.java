@@ -2,16 +2,21 @@ package com.inn.service;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletionException;
 
 import org.quartz.CronScheduleBuilder;
 import org.quartz.CronTrigger;
+import org.quartz.Job;
 import org.quartz.JobBuilder;
 import org.quartz.JobDataMap;
 import org.quartz.JobDetail;
 import org.quartz.JobKey;
+import org.quartz.ObjectAlreadyExistsException;
 import org.quartz.Scheduler;
 import org.quartz.SchedulerException;
 import org.quartz.SimpleScheduleBuilder;
@@ -19,13 +24,28 @@ import org.quartz.Trigger;
 import org.quartz.TriggerBuilder;
 import org.quartz.TriggerKey;
 import org.quartz.impl.matchers.GroupMatcher;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import com.inn.cache.TriggerInfoCache;
 import com.inn.dto.CreateJobRequest;
 import com.inn.dto.CreateJobResponse;
+import com.inn.dto.HttpHeaderKV;
+import com.inn.dto.JobExport;
+import com.inn.dto.PageResponse;
+import com.inn.dto.TriggerPageQuery;
+import com.inn.ephemeral.EphemeralJob;
+import com.inn.ephemeral.EphemeralJobEngine;
+import com.inn.http.RequestPlan;
+import com.inn.jobs.AsyncRestInvokeJob;
 import com.inn.jobs.HttpCallJob;
+import com.inn.payload.JobPayload;
+import com.inn.payload.JobPayloadStore;
+import com.inn.repository.TriggerQueryRepository;
+import com.inn.retry.RetryPolicy;
 
-import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 
 @Service
@@ -33,50 +53,177 @@ import lombok.RequiredArgsConstructor;
 public class SchedulerService {
 
 	private final Scheduler scheduler;
+	private final TriggerQueryRepository triggerQueryRepository;
+	private final TriggerInfoCache triggerInfoCache;
+	private final JobPayloadStore payloadStore;
+	private final EphemeralJobEngine ephemeralJobs;
 
-	@PostConstruct
-	void startScheduler() {
-		try {
-			if (!scheduler.isStarted())
-				scheduler.start();
-		} catch (SchedulerException e) {
-			throw new RuntimeException(e);
-		}
+	public CreateJobResponse createJob(CreateJobRequest req) throws SchedulerException {
+		JobDetail jobDetail = buildJobDetail(req);
+		if (req.isEphemeral())
+			return createEphemeralJob(req, jobDetail);
+		if (ephemeralJobs.exists(jobDetail.getKey()))
+			throw new ObjectAlreadyExistsException(jobDetail);
+		FireSmearPlanner.Plan smear = FireSmearPlanner.plan(jobDetail.getKey(), req.getCronExpression(),
+				req.getSmearWindowSeconds());
+		Trigger trigger = buildTrigger(req, jobDetail, smear);
+
+		Date next = scheduler.scheduleJob(jobDetail, trigger);
+
+		return CreateJobResponse.builder().jobName(req.getJobName()).jobGroup(req.getJobGroup())
+				.triggerName(trigger.getKey().getName()).triggerType(trigger instanceof CronTrigger ? "CRON" : "SIMPLE")
+				.nextFireTime(next)
+				.cronExpression(trigger instanceof CronTrigger cron ? cron.getCronExpression() : null)
+				.smearOffsetSeconds(smear.offsetSeconds()).build();
 	}
 
-	public CreateJobResponse createJob(CreateJobRequest req) throws SchedulerException {
+	/**
+	 * Ephemeral jobs keep their definition in RB_EPHEMERAL_JOB and fire from
+	 * {@link EphemeralJobEngine}; the key must not be taken by a JobStore job.
+	 */
+	private CreateJobResponse createEphemeralJob(CreateJobRequest req, JobDetail jobDetail) throws SchedulerException {
+		if (req.getCronExpression() != null && !req.getCronExpression().isBlank())
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+					"Ephemeral jobs take repeatIntervalSeconds, not cronExpression");
+		if (req.getRepeatIntervalSeconds() == null || req.getRepeatIntervalSeconds() <= 0)
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+					"Ephemeral jobs need a positive repeatIntervalSeconds");
+		if (scheduler.checkExists(jobDetail.getKey()))
+			throw new ObjectAlreadyExistsException(jobDetail);
+
+		long now = System.currentTimeMillis();
+		long smear = FireSmearPlanner.plan(jobDetail.getKey(), null, req.getSmearWindowSeconds()).offsetSeconds()
+				* 1000L;
+		// Imported PAUSED jobs are stored paused, so they never fire in between
+		boolean paused = req instanceof JobExport export && "PAUSED".equals(export.getState());
+		Map<String, String> jobData = new HashMap<>();
+		jobDetail.getJobDataMap().forEach((key, value) -> jobData.put(key, value.toString()));
+		// Fires refused by an overloaded target can't be deferred outside the JobStore
+		jobData.put(RequestPlan.MISFIRE_POLICY, "DO_NOTHING");
+		EphemeralJob job = new EphemeralJob(jobDetail.getKey(), jobDetail.getJobClass().getName(), jobData,
+				(req.getStartAt() != null ? req.getStartAt().toInstant().toEpochMilli() : now) + smear,
+				req.getRepeatIntervalSeconds() * 1000L,
+				req.getRepeatCount() != null && req.getRepeatCount() >= 0 ? req.getRepeatCount() : -1,
+				req.getEndAt() != null ? req.getEndAt().toInstant().toEpochMilli() : null, paused, now);
+		if (!ephemeralJobs.schedule(job))
+			throw new ObjectAlreadyExistsException(jobDetail);
 
+		long next = paused ? -1 : job.nextFireAfter(now - 1);
+		return CreateJobResponse.builder().jobName(req.getJobName()).jobGroup(req.getJobGroup())
+				.triggerName(req.getJobName() + "_trigger").triggerType(EphemeralJobEngine.TRIGGER_TYPE)
+				.nextFireTime(next >= 0 ? new Date(next) : null).build();
+	}
+
+	public JobDetail buildJobDetail(CreateJobRequest req) {
+		return buildJobDetail(req, null);
+	}
+
+	/**
+	 * Builds the job without storing its payload when {@code payloads} is given:
+	 * the payload is added to it instead, for the caller to store with
+	 * {@link JobPayloadStore#putAll} before scheduling the job.
+	 */
+	public JobDetail buildJobDetail(CreateJobRequest req, List<JobPayloadStore.Encoded> payloads) {
+		checkHost("targetUrl", req.getTargetUrl());
+		if (req.getBatchUrl() != null)
+			checkHost("batchUrl", req.getBatchUrl());
 		JobDataMap dataMap = new JobDataMap();
 		dataMap.put("targetUrl", req.getTargetUrl());
 		dataMap.put("httpMethod", req.getHttpMethod());
+		if (req.getResponseCapture() != null)
+			dataMap.put("responseCapture", req.getResponseCapture());
+		if (req.getMisfirePolicy() != null && !RequestPlan.DEFAULT_MISFIRE_POLICY.equals(req.getMisfirePolicy()))
+			dataMap.put(RequestPlan.MISFIRE_POLICY, req.getMisfirePolicy());
+		if (req.getRetryMaxAttempts() != null && req.getRetryMaxAttempts() > 0) {
+			dataMap.put(RetryPolicy.MAX_ATTEMPTS, String.valueOf(req.getRetryMaxAttempts()));
+			if (req.getRetryBackoffMs() != null)
+				dataMap.put(RetryPolicy.BACKOFF_MS, String.valueOf(req.getRetryBackoffMs()));
+			if (req.getRetryMaxBackoffMs() != null)
+				dataMap.put(RetryPolicy.MAX_BACKOFF_MS, String.valueOf(req.getRetryMaxBackoffMs()));
+			if (req.getRetryOn() != null)
+				dataMap.put(RetryPolicy.RETRY_ON, req.getRetryOn());
+			// Parsed again on every failed fire, so a bad spec is refused here rather than there
+			try {
+				RetryPolicy.of(dataMap);
+			} catch (IllegalArgumentException ex) {
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+			}
+		}
+
+		boolean async = "ASYNC".equals(req.getExecutionMode()) || req.getBatchKey() != null;
+		if (req.getBatchKey() != null) {
+			dataMap.put(RequestPlan.BATCH_KEY, req.getBatchKey());
+			if (req.getBatchUrl() != null)
+				dataMap.put(RequestPlan.BATCH_URL, req.getBatchUrl());
+		}
+		Class<? extends Job> jobClass = async ? AsyncRestInvokeJob.class : HttpCallJob.class;
+		putRequestSpec(dataMap, req, async, payloads);
+
+		return JobBuilder.newJob(jobClass).withIdentity(req.getJobName(), req.getJobGroup()).usingJobData(dataMap)
+				.storeDurably(false).build();
+	}
 
-		JobDetail jobDetail = JobBuilder.newJob(HttpCallJob.class).withIdentity(req.getJobName(), req.getJobGroup())
-				.usingJobData(dataMap).storeDurably(false).build();
+	// Fires look their connection pool up by host, so a URL without one could never be called
+	private static void checkHost(String field, String url) {
+		String host;
+		try {
+			host = UriComponentsBuilder.fromUriString(url).build().getHost();
+		} catch (IllegalArgumentException ex) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, field + " is not a valid URL: " + url);
+		}
+		if (host == null || host.isEmpty())
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, field + " needs an absolute URL with a host");
+	}
 
-		Trigger trigger;
+	public Trigger buildTrigger(CreateJobRequest req, JobDetail jobDetail) {
+		return buildTrigger(req, jobDetail,
+				FireSmearPlanner.plan(jobDetail.getKey(), req.getCronExpression(), req.getSmearWindowSeconds()));
+	}
 
+	private Trigger buildTrigger(CreateJobRequest req, JobDetail jobDetail, FireSmearPlanner.Plan smear) {
 		if (req.getCronExpression() != null && !req.getCronExpression().isBlank()) {
-			CronScheduleBuilder cron = CronScheduleBuilder.cronSchedule(req.getCronExpression())
+			CronScheduleBuilder cron = CronScheduleBuilder.cronSchedule(smear.cronExpression())
 					.withMisfireHandlingInstructionFireAndProceed();
 
-			trigger = TriggerBuilder.newTrigger().withIdentity(req.getJobName() + "_trigger", req.getJobGroup())
+			return TriggerBuilder.newTrigger().withIdentity(req.getJobName() + "_trigger", req.getJobGroup())
 					.startNow() // important
 					.withSchedule(cron).forJob(jobDetail).build();
+		}
 
-		} else {
-			SimpleScheduleBuilder simple = SimpleScheduleBuilder.simpleSchedule().withIntervalInSeconds(60)
-					.repeatForever().withMisfireHandlingInstructionFireNow();
+		SimpleScheduleBuilder simple = SimpleScheduleBuilder.simpleSchedule().withIntervalInSeconds(60)
+				.repeatForever().withMisfireHandlingInstructionFireNow();
 
-			trigger = TriggerBuilder.newTrigger().withIdentity(req.getJobName() + "_trigger", req.getJobGroup())
-					.startNow() // important
-					.withSchedule(simple).forJob(jobDetail).build();
-		}
+		return TriggerBuilder.newTrigger().withIdentity(req.getJobName() + "_trigger", req.getJobGroup())
+				.startAt(new Date(System.currentTimeMillis() + smear.offsetSeconds() * 1000L)) // now unless smeared
+				.withSchedule(simple).forJob(jobDetail).build();
+	}
 
-		Date next = scheduler.scheduleJob(jobDetail, trigger);
+	// The JobDataMap is loaded on every fire, so it only holds short strings
+	// (also what org.quartz.jobStore.useProperties requires). Headers, query and
+	// body go to the payload store, shared by jobs with identical content.
+	private void putRequestSpec(JobDataMap dataMap, CreateJobRequest req, boolean async,
+			List<JobPayloadStore.Encoded> payloads) {
+		Map<String, String> headers = null;
+		if (async && req.getHeaders() != null) {
+			headers = new HashMap<>();
+			for (HttpHeaderKV h : req.getHeaders())
+				headers.put(h.getName(), h.getValue());
+		}
+		JobPayload payload = new JobPayload(headers, async ? req.getQueryParams() : null, async ? req.getBody() : null,
+				req.getResponseFields());
+		if (!payload.isEmpty() && payloads != null) {
+			JobPayloadStore.Encoded encoded = payloadStore.encode(payload);
+			payloads.add(encoded);
+			dataMap.put(JobPayloadStore.REF, encoded.ref());
+		} else if (!payload.isEmpty()) {
+			dataMap.put(JobPayloadStore.REF, payloadStore.put(payload));
+		}
+		if (async && req.getTimeoutMs() != null)
+			dataMap.put("timeoutMs", String.valueOf(req.getTimeoutMs()));
+	}
 
-		return CreateJobResponse.builder().jobName(req.getJobName()).jobGroup(req.getJobGroup())
-				.triggerName(trigger.getKey().getName()).triggerType(trigger instanceof CronTrigger ? "CRON" : "SIMPLE")
-				.nextFireTime(next).build();
+	public PageResponse<TriggerInfoView> listTriggers(TriggerPageQuery query) throws SchedulerException {
+		return triggerQueryRepository.findPage(query);
 	}
 
 	public List<TriggerInfoView> listAllTriggers() throws SchedulerException {
@@ -101,31 +248,52 @@ public class SchedulerService {
 
 	public Optional<TriggerInfoView> getTriggerInfo(String group, String name) throws SchedulerException {
 		TriggerKey tk = TriggerKey.triggerKey(name + "_trigger", group);
-		Trigger t = scheduler.getTrigger(tk);
-		if (t == null)
-			return Optional.empty();
-		Trigger.TriggerState state = scheduler.getTriggerState(tk);
-		JobKey jobKey = t.getJobKey();
+		TriggerInfoView view;
+		try {
+			view = triggerInfoCache.get(tk, this::loadTriggerInfo);
+		} catch (CompletionException ex) {
+			throw (SchedulerException) ex.getCause();
+		}
+		return view != null ? Optional.of(view) : ephemeralJobs.info(JobKey.jobKey(name, group));
+	}
 
-		return Optional.of(TriggerInfoView.builder().jobGroup(jobKey.getGroup()).jobName(jobKey.getName())
-				.triggerName(tk.getName()).triggerGroup(tk.getGroup())
-				.triggerType(t instanceof CronTrigger ? "CRON" : "SIMPLE").previousFireTime(t.getPreviousFireTime())
-				.nextFireTime(t.getNextFireTime()).state(state.name()).build());
+	// Loads through the cache, so null (not cached) for ephemeral and unknown jobs
+	private TriggerInfoView loadTriggerInfo(TriggerKey tk) {
+		try {
+			Trigger t = scheduler.getTrigger(tk);
+			if (t == null)
+				return null;
+			Trigger.TriggerState state = scheduler.getTriggerState(tk);
+			JobKey jobKey = t.getJobKey();
+			return TriggerInfoView.builder().jobGroup(jobKey.getGroup()).jobName(jobKey.getName())
+					.triggerName(tk.getName()).triggerGroup(tk.getGroup())
+					.triggerType(t instanceof CronTrigger ? "CRON" : "SIMPLE").previousFireTime(t.getPreviousFireTime())
+					.nextFireTime(t.getNextFireTime()).state(state.name()).build();
+		} catch (SchedulerException ex) {
+			throw new CompletionException(ex);
+		}
 	}
 
 	public void triggerNow(String group, String name) throws SchedulerException {
-		scheduler.triggerJob(JobKey.jobKey(name, group));
+		JobKey key = JobKey.jobKey(name, group);
+		if (!ephemeralJobs.triggerNow(key))
+			scheduler.triggerJob(key);
 	}
 
 	public void pauseJob(String group, String name) throws SchedulerException {
-		scheduler.pauseJob(JobKey.jobKey(name, group));
+		JobKey key = JobKey.jobKey(name, group);
+		if (!ephemeralJobs.pause(key))
+			scheduler.pauseJob(key);
 	}
 
 	public void resumeJob(String group, String name) throws SchedulerException {
-		scheduler.resumeJob(JobKey.jobKey(name, group));
+		JobKey key = JobKey.jobKey(name, group);
+		if (!ephemeralJobs.resume(key))
+			scheduler.resumeJob(key);
 	}
 
 	public boolean deleteJob(String group, String name) throws SchedulerException {
-		return scheduler.deleteJob(JobKey.jobKey(name, group));
+		JobKey key = JobKey.jobKey(name, group);
+		return ephemeralJobs.delete(key) || scheduler.deleteJob(key);
 	}
 }
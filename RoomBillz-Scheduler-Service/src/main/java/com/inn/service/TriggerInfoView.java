@@ -12,8 +12,10 @@ public class TriggerInfoView {
 	private String jobName;
 	private String triggerName;
 	private String triggerGroup;
-	private String triggerType; // CRON/SIMPLE
+	private String triggerType; // CRON/SIMPLE/EPHEMERAL
 	private Date previousFireTime;
 	private Date nextFireTime;
 	private String state; // NORMAL/PAUSED/...
+	private String cronExpression; // CRON only
+	private Long repeatIntervalMs; // SIMPLE only
 }
@@ -0,0 +1,87 @@
+-- RoomBillz scheduler tables that live next to the QRTZ_ tables.
+-- Applied on startup through spring.sql.init; every statement must be idempotent.
+
+-- Trigger changes made on one cluster node, polled by the others to invalidate
+-- their TriggerInfoView cache. TRIGGER_NAME is NULL for group-wide changes.
+CREATE TABLE IF NOT EXISTS RB_TRIGGER_CHANGE_LOG (
+    ID            BIGINT       NOT NULL AUTO_INCREMENT,
+    SCHED_NAME    VARCHAR(120) NOT NULL,
+    TRIGGER_GROUP VARCHAR(190) NOT NULL,
+    TRIGGER_NAME  VARCHAR(190) NULL,
+    CHANGED_AT    BIGINT       NOT NULL,
+    PRIMARY KEY (ID)
+);
+
+-- One row per job execution, written behind in JDBC batches by ExecutionHistoryService.
+CREATE TABLE IF NOT EXISTS RB_JOB_EXECUTION_HISTORY (
+    ID                  BIGINT        NOT NULL AUTO_INCREMENT,
+    SCHED_NAME          VARCHAR(120)  NOT NULL,
+    INSTANCE_ID         VARCHAR(190)  NULL,
+    JOB_GROUP           VARCHAR(190)  NOT NULL,
+    JOB_NAME            VARCHAR(190)  NOT NULL,
+    SCHEDULED_FIRE_TIME BIGINT        NULL,
+    FIRE_TIME           BIGINT        NOT NULL,
+    DURATION_MS         BIGINT        NOT NULL,
+    HTTP_STATUS         INT           NULL,
+    RESPONSE_SIZE       BIGINT        NULL,
+    SUCCESS             BOOLEAN       NOT NULL,
+    ERROR               VARCHAR(1000) NULL,
+    PRIMARY KEY (ID),
+    INDEX IDX_RB_JEH_JOB (SCHED_NAME, JOB_GROUP, JOB_NAME, ID),
+    INDEX IDX_RB_JEH_FIRE_TIME (FIRE_TIME)
+);
+
+-- Job request payloads (headers, query params, body) referenced from the JobDataMap
+-- by content hash, so jobs with identical payloads share one row. CREATED_AT is the
+-- last time a job stored the content; JobPayloadStore sweeps old unreferenced rows.
+CREATE TABLE IF NOT EXISTS RB_JOB_PAYLOAD (
+    HASH       CHAR(64)    NOT NULL,
+    CODEC      VARCHAR(20) NOT NULL,
+    PAYLOAD    BLOB        NOT NULL,
+    CREATED_AT BIGINT      NOT NULL,
+    PRIMARY KEY (HASH)
+);
+
+-- Ephemeral (in-memory timed) job definitions. Fires are not recorded here; OWNER is
+-- the scheduler instance running the job, taken over by another node once it is gone.
+CREATE TABLE IF NOT EXISTS RB_EPHEMERAL_JOB (
+    SCHED_NAME   VARCHAR(120) NOT NULL,
+    JOB_GROUP    VARCHAR(190) NOT NULL,
+    JOB_NAME     VARCHAR(190) NOT NULL,
+    JOB_CLASS    VARCHAR(250) NOT NULL,
+    JOB_DATA     BLOB         NOT NULL,
+    START_TIME   BIGINT       NOT NULL,
+    INTERVAL_MS  BIGINT       NOT NULL,
+    REPEAT_COUNT INT          NOT NULL,
+    END_TIME     BIGINT       NULL,
+    PAUSED       BOOLEAN      NOT NULL,
+    OWNER        VARCHAR(190) NULL,
+    UPDATED_AT   BIGINT       NOT NULL,
+    PRIMARY KEY (SCHED_NAME, JOB_GROUP, JOB_NAME),
+    INDEX IDX_RB_EJ_OWNER (SCHED_NAME, OWNER)
+);
+
+-- Retries waiting on a node's in-memory retry wheel, kept only so another node (or a
+-- restart) can pick them up after a crash. One insert when a call fails, one delete
+-- when the retry has run; OWNER works as in RB_EPHEMERAL_JOB.
+CREATE TABLE IF NOT EXISTS RB_RETRY_OUTBOX (
+    ID                  BIGINT       NOT NULL AUTO_INCREMENT,
+    SCHED_NAME          VARCHAR(120) NOT NULL,
+    JOB_GROUP           VARCHAR(190) NOT NULL,
+    JOB_NAME            VARCHAR(190) NOT NULL,
+    ATTEMPT             INT          NOT NULL,
+    DUE_AT              BIGINT       NOT NULL,
+    SCHEDULED_FIRE_TIME BIGINT       NULL,
+    OWNER               VARCHAR(190) NULL,
+    PRIMARY KEY (ID),
+    INDEX IDX_RB_RO_OWNER (SCHED_NAME, OWNER)
+);
+
+-- Hash of every trigger group, so sharded acquisition (ShardedJDBCDelegate) can skip other
+-- nodes' shards with MOD(GROUP_HASH, shardCount) instead of listing their groups.
+CREATE TABLE IF NOT EXISTS RB_TRIGGER_GROUP_HASH (
+    SCHED_NAME    VARCHAR(120) NOT NULL,
+    TRIGGER_GROUP VARCHAR(190) NOT NULL,
+    GROUP_HASH    BIGINT       NOT NULL,
+    PRIMARY KEY (SCHED_NAME, TRIGGER_GROUP)
+);
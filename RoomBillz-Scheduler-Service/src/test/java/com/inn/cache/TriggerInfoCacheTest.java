@@ -0,0 +1,96 @@
+package com.inn.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.quartz.Scheduler;
+import org.quartz.TriggerKey;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import com.inn.config.SchedulerProperties;
+import com.inn.repository.TriggerChangeLogRepository;
+import com.inn.service.TriggerInfoView;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TriggerInfoCacheTest {
+
+	private static final TriggerKey A = TriggerKey.triggerKey("a_trigger", "tenant");
+	private static final TriggerKey B = TriggerKey.triggerKey("b_trigger", "tenant");
+
+	private JdbcTemplate jdbc;
+	private TriggerInfoCache cache;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:changelog;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+		new ResourceDatabasePopulator(new ClassPathResource("db/scheduler-schema.sql")).execute(dataSource);
+		jdbc = new JdbcTemplate(dataSource);
+		Scheduler scheduler = mock(Scheduler.class);
+		when(scheduler.getSchedulerName()).thenReturn("sched");
+		cache = new TriggerInfoCache(new SchedulerProperties(), new SimpleMeterRegistry(),
+				new TriggerChangeLogRepository(jdbc), scheduler, true);
+		cache.init();
+	}
+
+	@AfterEach
+	void tearDown() {
+		jdbc.execute("DROP ALL OBJECTS");
+	}
+
+	@Test
+	void loadsThroughTheCacheAndSkipsNulls() {
+		assertThat(cache.get(A, key -> view(key))).isNotNull();
+		assertThat(cache.get(A)).isNotNull();
+
+		assertThat(cache.get(B, key -> null)).isNull();
+		assertThat(cache.get(B)).isNull();
+	}
+
+	@Test
+	void appliesRowsFromOtherNodes() {
+		cache.get(A, key -> view(key));
+		cache.get(B, key -> view(key));
+
+		change(1, A);
+		cache.syncCluster();
+
+		assertThat(cache.get(A)).isNull();
+		assertThat(cache.get(B)).isNotNull();
+	}
+
+	// Row 1 commits after row 2 was already polled
+	@Test
+	void appliesRowsCommittedOutOfIdOrder() {
+		change(2, B);
+		cache.syncCluster();
+
+		cache.get(A, key -> view(key));
+		cache.get(B, key -> view(key));
+		change(1, A);
+		cache.syncCluster();
+
+		assertThat(cache.get(A)).isNull();
+		// Row 2 was applied before B was cached and is not applied again
+		assertThat(cache.get(B)).isNotNull();
+	}
+
+	private void change(long id, TriggerKey key) {
+		jdbc.update(
+				"INSERT INTO RB_TRIGGER_CHANGE_LOG (ID, SCHED_NAME, TRIGGER_GROUP, TRIGGER_NAME, CHANGED_AT) VALUES (?, 'sched', ?, ?, ?)",
+				id, key.getGroup(), key.getName(), System.currentTimeMillis());
+	}
+
+	private static TriggerInfoView view(TriggerKey key) {
+		return TriggerInfoView.builder().triggerName(key.getName()).triggerGroup(key.getGroup()).state("NORMAL")
+				.build();
+	}
+}
@@ -0,0 +1,120 @@
+package com.inn.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.quartz.Job;
+import org.quartz.JobBuilder;
+import org.quartz.JobExecutionContext;
+import org.quartz.TriggerBuilder;
+import org.quartz.core.JobRunShell;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.TriggerFiredBundle;
+
+class FairShareThreadPoolTest {
+
+	private final CountDownLatch release = new CountDownLatch(1);
+	private FairShareThreadPool pool;
+
+	public static class NoopJob implements Job {
+		@Override
+		public void execute(JobExecutionContext context) {
+		}
+	}
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		if (pool != null)
+			pool.shutdown(false);
+	}
+
+	// Pins the private JobRunShell field the pool reads the job group from
+	@Test
+	void groupIsReadFromTheJobRunShellBundle() {
+		TriggerFiredBundle bundle = new TriggerFiredBundle(
+				JobBuilder.newJob(NoopJob.class).withIdentity("job", "chain-a").build(),
+				(OperableTrigger) TriggerBuilder.newTrigger().withIdentity("trigger", "chain-a").build(), null, false,
+				new Date(), new Date(), null, null);
+
+		assertThat(FairShareThreadPool.groupOf(new JobRunShell(null, bundle))).isEqualTo("chain-a");
+		assertThat(FairShareThreadPool.groupOf(new JobRunShell(null, null))).isEmpty();
+		assertThat(FairShareThreadPool.groupOf(() -> {
+		})).isEmpty();
+	}
+
+	@Test
+	void lookAheadIsAMultipleOfTheWorkerCount() throws Exception {
+		pool = pool(2, 3, 20000);
+
+		assertThat(pool.blockForAvailableThreads()).isEqualTo(6);
+		for (int i = 0; i < 6; i++)
+			assertThat(pool.runInThread(this::await)).isTrue();
+
+		// Two start, four wait for a worker
+		assertThat(pool.getQueued()).isEqualTo(4);
+		assertThat(pool.blockForAvailableThreads()).isEqualTo(2);
+	}
+
+	@Test
+	void maxQueuedCapsTheLookAhead() throws Exception {
+		pool = pool(10, 4, 25);
+
+		assertThat(pool.lookAheadLimit()).isEqualTo(25);
+		assertThat(pool.blockForAvailableThreads()).isEqualTo(25);
+	}
+
+	// Fires of a group at its cap can't take a free worker, so they mustn't use up the look-ahead
+	@Test
+	void cappedGroupFiresLeaveTheLookAheadToOtherGroups() throws Exception {
+		pool = new FairShareThreadPool();
+		pool.setThreadCount(2);
+		pool.setLookAhead(2);
+		pool.setGroupMaxConcurrency("capped=1");
+		pool.initialize();
+
+		for (int i = 0; i < 5; i++)
+			assertThat(pool.runInThread(fire("capped"))).isTrue();
+		assertThat(pool.getRunning("capped")).isEqualTo(1);
+		assertThat(pool.getQueued("capped")).isEqualTo(4);
+		assertThat(pool.blockForAvailableThreads()).isEqualTo(4);
+
+		assertThat(pool.runInThread(fire("other"))).isTrue();
+		assertThat(pool.getRunning("other")).isEqualTo(1);
+		assertThat(pool.blockForAvailableThreads()).isEqualTo(4);
+	}
+
+	private Runnable fire(String group) {
+		TriggerFiredBundle bundle = new TriggerFiredBundle(
+				JobBuilder.newJob(NoopJob.class).withIdentity("job", group).build(),
+				(OperableTrigger) TriggerBuilder.newTrigger().withIdentity("trigger", group).build(), null, false,
+				new Date(), new Date(), null, null);
+		return new JobRunShell(null, bundle) {
+			@Override
+			public void run() {
+				await();
+			}
+		};
+	}
+
+	private void await() {
+		try {
+			release.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static FairShareThreadPool pool(int threadCount, int lookAhead, int maxQueued) throws Exception {
+		FairShareThreadPool pool = new FairShareThreadPool();
+		pool.setThreadCount(threadCount);
+		pool.setLookAhead(lookAhead);
+		pool.setMaxQueued(maxQueued);
+		pool.initialize();
+		return pool;
+	}
+}
@@ -0,0 +1,165 @@
+package com.inn.dispatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.quartz.JobKey;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inn.config.SchedulerProperties;
+import com.inn.http.RequestPlan;
+import com.inn.http.RequestPlanCache;
+import com.inn.metrics.SchedulerMetrics;
+
+class CallBatcherTest {
+
+	private final SchedulerProperties properties = new SchedulerProperties();
+	private final List<DispatchRequest> sent = new CopyOnWriteArrayList<>();
+	private final List<byte[]> bodies = new CopyOnWriteArrayList<>();
+	private ReactiveDispatcher dispatcher;
+	private RequestPlanCache plans;
+	private RequestPlan plan;
+
+	@BeforeEach
+	void setUp() {
+		dispatcher = mock(ReactiveDispatcher.class);
+		when(dispatcher.submit(any())).thenAnswer(invocation -> sent.add(invocation.getArgument(0)));
+		plan = mock(RequestPlan.class);
+		when(plan.getBatchKey()).thenReturn("tenant-sync");
+		when(plan.getBatchUri()).thenReturn(URI.create("http://target/bulk"));
+		when(plan.getBody()).thenReturn("{\"n\":1}".getBytes());
+		plans = mock(RequestPlanCache.class);
+		when(plans.bulk(any(), any())).thenAnswer(invocation -> {
+			bodies.add(invocation.getArgument(1));
+			return plan;
+		});
+	}
+
+	@Test
+	void fullBatchIsSentOnceAndItsLingerDoesNothing() throws Exception {
+		properties.getCallBatch().setMaxSize(3);
+		properties.getCallBatch().setLingerMs(500);
+		CallBatcher batcher = batcher();
+
+		for (int i = 0; i < 3; i++)
+			assertThat(batcher.submit(fire(i))).isTrue();
+		assertThat(sent).hasSize(1);
+
+		Thread.sleep(700);
+		assertThat(sent).hasSize(1);
+		assertThat(sent.get(0).getItems()).hasSize(3);
+		assertThat(batcher.getPending()).isZero();
+	}
+
+	@Test
+	void lingerSendsAPartialBatchInFireOrder() throws Exception {
+		properties.getCallBatch().setMaxSize(10);
+		properties.getCallBatch().setLingerMs(20);
+		CallBatcher batcher = batcher();
+
+		batcher.submit(fire(0));
+		batcher.submit(fire(1));
+		awaitSent(1);
+
+		assertThat(sent.get(0).getItems()).extracting(item -> item.getJobKey().getName()).containsExactly("job-0",
+				"job-1");
+		JsonNode body = new ObjectMapper().readTree(bodies.get(0));
+		assertThat(body).hasSize(2);
+		assertThat(body.get(1).path("jobName").asText()).isEqualTo("job-1");
+		assertThat(body.get(1).path("body").path("n").asInt()).isEqualTo(1);
+		assertThat(batcher.getPending()).isZero();
+	}
+
+	/*
+	 * A linger of 1 ms against four submitting threads makes the linger timer
+	 * race batches being closed by size. Each fire must be sent exactly once, in
+	 * a batch no bigger than maxSize.
+	 */
+	@Test
+	void lingerRacingSizeFlushesSendsEveryFireOnce() throws Exception {
+		properties.getCallBatch().setMaxSize(7);
+		properties.getCallBatch().setLingerMs(1);
+		CallBatcher batcher = batcher();
+		int perThread = 5000;
+
+		ExecutorService callers = Executors.newFixedThreadPool(4);
+		List<Future<?>> done = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			int thread = t;
+			done.add(callers.submit(() -> {
+				for (int i = 0; i < perThread; i++) {
+					assertThat(batcher.submit(fire(thread * perThread + i))).isTrue();
+					if (i % 100 == 0)
+						Thread.yield();
+				}
+			}));
+		}
+		for (Future<?> future : done)
+			future.get(60, TimeUnit.SECONDS);
+		callers.shutdown();
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (batcher.getPending() > 0 && System.currentTimeMillis() < deadline)
+			Thread.sleep(5);
+		assertThat(batcher.getPending()).isZero();
+		Set<DispatchRequest> fires = new HashSet<>();
+		for (DispatchRequest bulk : sent) {
+			assertThat(bulk.getItems()).hasSizeBetween(1, 7);
+			for (DispatchRequest item : bulk.getItems())
+				assertThat(fires.add(item)).isTrue();
+		}
+		assertThat(fires).hasSize(4 * perThread);
+	}
+
+	@Test
+	void fullDispatchQueueFailsTheBatchFires() {
+		properties.getCallBatch().setMaxSize(2);
+		when(dispatcher.submit(any())).thenReturn(false);
+		CallBatcher batcher = batcher();
+		DispatchRequest first = fire(0);
+		DispatchRequest second = fire(1);
+
+		batcher.submit(first);
+		batcher.submit(second);
+
+		ArgumentCaptor<DispatchResult> results = ArgumentCaptor.forClass(DispatchResult.class);
+		verify(dispatcher, times(2)).publish(results.capture());
+		assertThat(results.getAllValues()).extracting(DispatchResult::getRequest).containsExactly(first, second);
+		assertThat(results.getAllValues()).allSatisfy(result -> assertThat(result.isSuccess()).isFalse());
+		assertThat(batcher.getPending()).isZero();
+	}
+
+	private CallBatcher batcher() {
+		return new CallBatcher(dispatcher, plans, new ObjectMapper(), mock(SchedulerMetrics.class), properties);
+	}
+
+	private DispatchRequest fire(int i) {
+		return DispatchRequest.builder().jobKey(JobKey.jobKey("job-" + i, "tenant")).plan(plan).build();
+	}
+
+	private void awaitSent(int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (sent.size() < count && System.currentTimeMillis() < deadline)
+			Thread.sleep(5);
+		assertThat(sent).hasSize(count);
+	}
+}
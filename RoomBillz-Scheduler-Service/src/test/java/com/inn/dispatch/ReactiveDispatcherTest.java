@@ -0,0 +1,147 @@
+package com.inn.dispatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Test;
+import org.quartz.JobKey;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inn.config.SchedulerProperties;
+import com.inn.http.RequestPlan;
+import com.inn.http.ResponseBodyReader;
+import com.inn.http.ResponseCapture;
+import com.inn.http.TargetLimiter;
+
+import reactor.core.publisher.Mono;
+
+class ReactiveDispatcherTest {
+
+	private final SchedulerProperties properties = new SchedulerProperties();
+	private final List<DispatchResult> results = new CopyOnWriteArrayList<>();
+
+	// Every call fails before it is subscribed, so each one releases its slot on the submitting thread
+	@Test
+	void synchronousFailuresFreeTheirSlotAndDrainTheQueue() {
+		properties.getDispatch().setMaxInFlight(1);
+		properties.getDispatch().setQueueCapacity(10_000);
+		ReactiveDispatcher dispatcher = dispatcher();
+		RequestPlan plan = mock(RequestPlan.class);
+		when(plan.getLimiter()).thenThrow(new IllegalStateException("no limiter"));
+
+		for (int i = 0; i < 5_000; i++)
+			assertThat(dispatcher.submit(DispatchRequest.builder().plan(plan).build())).isTrue();
+
+		assertThat(results).hasSize(5_000).allSatisfy(result -> assertThat(result.isSuccess()).isFalse());
+		assertThat(dispatcher.getQueued()).isZero();
+		assertThat(dispatcher.getInFlight()).isZero();
+	}
+
+	@Test
+	void entryPerFireGivesEachFireItsOwnOutcome() throws Exception {
+		List<DispatchResult> fires = bulk(HttpStatus.OK, "[{\"status\":200},{\"status\":503,\"error\":\"busy\"},204]",
+				3);
+
+		assertThat(fires).extracting(DispatchResult::getStatus).containsExactly(200, 503, 204);
+		assertThat(fires.get(0).isSuccess()).isTrue();
+		assertThat(fires.get(1).getError()).hasMessage("Batch item failed with status 503: busy");
+		assertThat(fires.get(2).isSuccess()).isTrue();
+		assertThat(fires.get(1).getResponse().preview()).isEqualTo("{\"status\":503,\"error\":\"busy\"}");
+		assertThat(fires.get(2).getResponse().preview()).isEqualTo("204");
+	}
+
+	// Entries without a usable status keep the bulk call's, but still carry their own text
+	@Test
+	void entriesWithoutAStatusKeepTheBulkStatus() throws Exception {
+		List<DispatchResult> fires = bulk(HttpStatus.OK, "[{\"id\":7},\"queued\",{\"status\":\"n/a\"}]", 3);
+
+		assertThat(fires).extracting(DispatchResult::getStatus).containsExactly(200, 200, 200);
+		assertThat(fires).allSatisfy(fire -> assertThat(fire.isSuccess()).isTrue());
+		assertThat(fires).extracting(fire -> fire.getResponse().preview()).containsExactly("{\"id\":7}",
+				"\"queued\"", "{\"status\":\"n/a\"}");
+	}
+
+	@Test
+	void entryCountMismatchFallsBackToTheBulkOutcome() throws Exception {
+		String body = "[200,500]";
+		List<DispatchResult> fires = bulk(HttpStatus.OK, body, 3);
+
+		assertThat(fires).extracting(DispatchResult::getStatus).containsExactly(200, 200, 200);
+		assertThat(fires).allSatisfy(fire -> {
+			assertThat(fire.isSuccess()).isTrue();
+			assertThat(fire.getResponse().body()).isEqualTo(body);
+		});
+	}
+
+	@Test
+	void truncatedBodyFallsBackToTheBulkOutcome() throws Exception {
+		properties.getHttp().setMaxCaptureBytes(8);
+		List<DispatchResult> fires = bulk(HttpStatus.OK, "[200,500,200]", 3);
+
+		assertThat(fires).extracting(DispatchResult::getStatus).containsExactly(200, 200, 200);
+		assertThat(fires).allSatisfy(fire -> {
+			assertThat(fire.isSuccess()).isTrue();
+			assertThat(fire.getResponse().truncated()).isTrue();
+		});
+	}
+
+	@Test
+	void failedBulkCallFailsEveryFire() throws Exception {
+		List<DispatchResult> fires = bulk(HttpStatus.BAD_GATEWAY, "[200,200]", 2);
+
+		assertThat(fires).extracting(DispatchResult::getStatus).containsExactly(502, 502);
+		assertThat(fires).allSatisfy(fire -> assertThat(fire.isSuccess()).isFalse());
+	}
+
+	// One bulk call for count fires, answered with status and body; results in fire order
+	private List<DispatchResult> bulk(HttpStatus status, String body, int count) throws Exception {
+		ReactiveDispatcher dispatcher = dispatcher();
+		WebClient webClient = WebClient.builder()
+				.exchangeFunction(request -> Mono.just(ClientResponse.create(status)
+						.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE).body(body).build()))
+				.build();
+		TargetLimiter limiter = mock(TargetLimiter.class);
+		when(limiter.acquireAsync()).thenReturn(Mono.just(mock(TargetLimiter.Permit.class)));
+		RequestPlan plan = mock(RequestPlan.class);
+		when(plan.getLimiter()).thenReturn(limiter);
+		when(plan.getTimeout()).thenReturn(Duration.ofSeconds(5));
+		when(plan.getCapture()).thenReturn(ResponseCapture.FULL);
+		when(plan.retrieve()).thenAnswer(invocation -> webClient.post().uri("http://target/bulk").retrieve());
+
+		List<DispatchRequest> items = new ArrayList<>();
+		for (int i = 0; i < count; i++)
+			items.add(DispatchRequest.builder().jobKey(JobKey.jobKey("job-" + i, "tenant")).plan(plan)
+					.submittedAt(System.nanoTime()).build());
+		assertThat(dispatcher.submit(DispatchRequest.builder().plan(plan).items(items).build())).isTrue();
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (results.size() < count && System.currentTimeMillis() < deadline)
+			Thread.sleep(5);
+		assertThat(results).hasSize(count);
+		List<DispatchResult> fires = new ArrayList<>(results);
+		fires.sort(Comparator.comparing(result -> items.indexOf(result.getRequest())));
+		return fires;
+	}
+
+	private ReactiveDispatcher dispatcher() {
+		ObjectMapper objectMapper = new ObjectMapper();
+		DispatchListener listener = results::add;
+		return new ReactiveDispatcher(new ResponseBodyReader(objectMapper, properties), properties,
+				new StaticListableBeanFactory(Map.of("listener", listener)).getBeanProvider(DispatchListener.class),
+				objectMapper);
+	}
+}
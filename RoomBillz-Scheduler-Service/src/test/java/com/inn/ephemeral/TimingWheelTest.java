@@ -0,0 +1,98 @@
+package com.inn.ephemeral;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs on small wheels (4 slots a level, a few levels) so deadlines cross
+ * level boundaries and the top of the wheel within milliseconds.
+ */
+class TimingWheelTest {
+
+	private TimingWheel wheel;
+
+	@AfterEach
+	void tearDown() {
+		if (wheel != null)
+			wheel.stop();
+	}
+
+	@Test
+	void timeoutsAcrossLevelsNeverFireEarly() throws Exception {
+		// 4 x 16 x 64 ticks of 2 ms
+		wheel = new TimingWheel("test-wheel", 2, 2, 3);
+		int count = 60;
+		Map<Long, Long> firedAt = new ConcurrentHashMap<>();
+		CountDownLatch fired = new CountDownLatch(count);
+		long now = System.currentTimeMillis();
+		for (int i = 0; i < count; i++) {
+			long deadline = now + i * 5L + i % 3;
+			wheel.schedule(deadline, () -> {
+				firedAt.put(deadline, System.currentTimeMillis());
+				fired.countDown();
+			});
+		}
+
+		assertThat(fired.await(5, TimeUnit.SECONDS)).isTrue();
+		firedAt.forEach((deadline, at) -> assertThat(at).isGreaterThanOrEqualTo(deadline));
+		assertThat(wheel.pending()).isZero();
+	}
+
+	@Test
+	void deadlineBeyondTheTopLevelIsPlacedAgain() throws Exception {
+		// The whole wheel spans 16 ticks of 1 ms
+		wheel = new TimingWheel("test-wheel", 1, 2, 2);
+		long deadline = System.currentTimeMillis() + 150;
+		CountDownLatch fired = new CountDownLatch(1);
+		long[] firedAt = new long[1];
+		wheel.schedule(deadline, () -> {
+			firedAt[0] = System.currentTimeMillis();
+			fired.countDown();
+		});
+
+		Thread.sleep(50);
+		assertThat(fired.getCount()).isOne();
+		assertThat(wheel.pending()).isOne();
+		assertThat(fired.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(firedAt[0]).isGreaterThanOrEqualTo(deadline);
+	}
+
+	@Test
+	void cancelAfterCascadeUnlinksFromTheLowerLevel() throws Exception {
+		// Level 2 holds deadlines 16..63 ticks of 5 ms away
+		wheel = new TimingWheel("test-wheel", 5, 2, 3);
+		CountDownLatch fired = new CountDownLatch(1);
+		long deadline = System.currentTimeMillis() + 250;
+		TimingWheel.Timeout timeout = wheel.schedule(deadline, fired::countDown);
+		// A neighbour in the same slots keeps the bucket list non-trivial
+		CountDownLatch neighbour = new CountDownLatch(1);
+		wheel.schedule(deadline + 5, neighbour::countDown);
+
+		// By now the timeout has cascaded to a lower level at least once
+		Thread.sleep(200);
+		assertThat(timeout.cancel()).isTrue();
+		assertThat(timeout.cancel()).isFalse();
+		assertThat(wheel.pending()).isOne();
+
+		assertThat(neighbour.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(fired.getCount()).isOne();
+		assertThat(wheel.pending()).isZero();
+	}
+
+	@Test
+	void cancelAfterFiringReturnsFalse() throws Exception {
+		wheel = new TimingWheel("test-wheel", 1, 4, 2);
+		CountDownLatch fired = new CountDownLatch(1);
+		TimingWheel.Timeout timeout = wheel.schedule(System.currentTimeMillis() - 1000, fired::countDown);
+
+		assertThat(fired.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(timeout.cancel()).isFalse();
+	}
+}
@@ -0,0 +1,80 @@
+package com.inn.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.net.URI;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.inn.config.SchedulerProperties;
+import com.inn.metrics.SchedulerMetrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class HttpClientRegistryTest {
+
+	private final SchedulerProperties properties = new SchedulerProperties();
+	private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+	private HttpClientRegistry registry;
+
+	@AfterEach
+	void tearDown() {
+		if (registry != null)
+			registry.close();
+	}
+
+	@Test
+	void poolKeyDefaultsThePortPerScheme() {
+		assertThat(HttpClientRegistry.poolKey(URI.create("http://target/a"))).isEqualTo("target-80");
+		assertThat(HttpClientRegistry.poolKey(URI.create("https://target/a"))).isEqualTo("target-443");
+		assertThat(HttpClientRegistry.poolKey(URI.create("http://target:8082/a"))).isEqualTo("target-8082");
+	}
+
+	@Test
+	void urlsWithoutAHostAreRejected() {
+		registry = registry();
+
+		assertThatThrownBy(() -> registry.limiter(URI.create("/relative/path")))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> registry.limiter(URI.create("http:///no-host")))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void hostsShareOneClientPerHostAndPort() {
+		registry = registry();
+		TargetLimiter limiter = registry.limiter(URI.create("http://target/a"));
+
+		assertThat(registry.limiter(URI.create("http://target/b?x=1"))).isSameAs(limiter);
+		assertThat(registry.limiter(URI.create("http://target:81/a"))).isNotSameAs(limiter);
+		assertThat(registry.isLive(limiter)).isTrue();
+		assertThat(meters.find("scheduler.http.limit").tag("host", "target-80").gauge()).isNotNull();
+	}
+
+	@Test
+	void idleHostsAreDroppedWithTheirGauges() throws Exception {
+		properties.getHttp().setMaxIdleTimeMs(100);
+		registry = registry();
+		TargetLimiter limiter = registry.limiter(URI.create("http://target/a"));
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (meters.find("scheduler.http.limit").tag("host", "target-80").gauge() != null
+				&& System.currentTimeMillis() < deadline)
+			Thread.sleep(20);
+
+		assertThat(meters.find("scheduler.http.limit").tag("host", "target-80").gauge()).isNull();
+		assertThat(registry.isLive(limiter)).isFalse();
+		// Looked up again, the host gets new clients and gauges
+		TargetLimiter again = registry.limiter(URI.create("http://target/a"));
+		assertThat(again).isNotSameAs(limiter);
+		assertThat(registry.isLive(again)).isTrue();
+		assertThat(meters.find("scheduler.http.limit").tag("host", "target-80").gauge()).isNotNull();
+	}
+
+	private HttpClientRegistry registry() {
+		return new HttpClientRegistry(WebClient.builder(), properties, new SchedulerMetrics(meters, properties));
+	}
+}
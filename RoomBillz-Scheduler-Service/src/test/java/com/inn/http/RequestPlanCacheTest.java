@@ -0,0 +1,135 @@
+package com.inn.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.quartz.JobKey;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inn.config.SchedulerProperties;
+import com.inn.metrics.SchedulerMetrics;
+import com.inn.payload.JobPayload;
+import com.inn.payload.JobPayloadStore;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RequestPlanCacheTest {
+
+	private static final JobKey KEY = JobKey.jobKey("job", "tenant");
+
+	private final SchedulerProperties properties = new SchedulerProperties();
+	private HttpClientRegistry clients;
+	private RequestPlanCache cache;
+
+	@BeforeEach
+	void setUp() {
+		SimpleMeterRegistry meters = new SimpleMeterRegistry();
+		clients = new HttpClientRegistry(WebClient.builder(), properties, new SchedulerMetrics(meters, properties));
+		JobPayloadStore payloads = mock(JobPayloadStore.class);
+		when(payloads.resolve(any())).thenAnswer(invocation -> {
+			Map<String, ?> jobData = invocation.getArgument(0);
+			return new JobPayload(Map.of("X-Ref", String.valueOf(jobData.get(JobPayloadStore.REF))), null,
+					Map.of("n", 1), null);
+		});
+		cache = new RequestPlanCache(clients, payloads, new ObjectMapper(), properties, meters);
+	}
+
+	@AfterEach
+	void tearDown() {
+		clients.close();
+	}
+
+	@Test
+	void matchingPlanIsReused() {
+		RequestPlan plan = cache.get(KEY, jobData());
+
+		// A fresh map with the same values, as every fire loads the JobDataMap again
+		assertThat(cache.get(KEY, jobData())).isSameAs(plan);
+		assertThat(plan.getTimeout()).isEqualTo(Duration.ofMillis(5000));
+		assertThat(plan.getHeaders().getFirst("X-Ref")).isEqualTo("ref-1");
+	}
+
+	// Each of these is what a job replaced on another node looks like from here
+	@Test
+	void stalePlanIsRecompiled() {
+		assertRecompiled(data -> data.put("targetUrl", "http://other/hook"),
+				plan -> assertThat(plan.getUri().getHost()).isEqualTo("other"));
+		assertRecompiled(data -> data.put(JobPayloadStore.REF, "ref-2"),
+				plan -> assertThat(plan.getHeaders().getFirst("X-Ref")).isEqualTo("ref-2"));
+		assertRecompiled(data -> data.put("timeoutMs", "750"),
+				plan -> assertThat(plan.getTimeout()).isEqualTo(Duration.ofMillis(750)));
+		assertRecompiled(data -> data.remove("timeoutMs"),
+				plan -> assertThat(plan.getTimeout()).isEqualTo(Duration.ofMillis(30000)));
+		assertRecompiled(data -> data.put("responseCapture", "FULL"),
+				plan -> assertThat(plan.getCapture()).isEqualTo(ResponseCapture.FULL));
+		assertRecompiled(data -> data.put("httpMethod", "PUT"),
+				plan -> assertThat(plan.getMethod().name()).isEqualTo("PUT"));
+		assertRecompiled(data -> data.put(RequestPlan.MISFIRE_POLICY, "IGNORE"),
+				plan -> assertThat(plan.getMisfirePolicy()).isEqualTo("IGNORE"));
+		assertRecompiled(data -> data.put(RequestPlan.BATCH_KEY, "sync"),
+				plan -> assertThat(plan.getBatchUri()).isEqualTo(plan.getUri()));
+	}
+
+	@Test
+	void compiledFromComparesEveryValueThePlanUses() {
+		RequestPlan plan = cache.get(KEY, jobData());
+
+		assertThat(plan.compiledFrom(jobData())).isTrue();
+		for (String key : List.of("targetUrl", "httpMethod", "timeoutMs", "responseCapture", JobPayloadStore.REF,
+				RequestPlan.MISFIRE_POLICY, RequestPlan.BATCH_KEY, RequestPlan.BATCH_URL)) {
+			Map<String, Object> changed = jobData();
+			changed.put(key, "changed");
+			assertThat(plan.compiledFrom(changed)).as(key).isFalse();
+		}
+		// Values the plan doesn't depend on
+		Map<String, Object> unrelated = jobData();
+		unrelated.put("retryMaxAttempts", "3");
+		assertThat(plan.compiledFrom(unrelated)).isTrue();
+	}
+
+	@Test
+	void evictedPlanIsRecompiled() {
+		RequestPlan plan = cache.get(KEY, jobData());
+
+		cache.evict(KEY);
+		RequestPlan recompiled = cache.get(KEY, jobData());
+		assertThat(recompiled).isNotSameAs(plan);
+
+		cache.evictAll();
+		assertThat(cache.get(KEY, jobData())).isNotSameAs(recompiled);
+	}
+
+	private void assertRecompiled(Consumer<Map<String, Object>> change, Consumer<RequestPlan> check) {
+		cache.evictAll();
+		RequestPlan plan = cache.get(KEY, jobData());
+		Map<String, Object> changed = jobData();
+		change.accept(changed);
+
+		RequestPlan recompiled = cache.get(KEY, changed);
+
+		assertThat(recompiled).isNotSameAs(plan);
+		check.accept(recompiled);
+		assertThat(cache.get(KEY, changed)).isSameAs(recompiled);
+	}
+
+	private static Map<String, Object> jobData() {
+		Map<String, Object> data = new HashMap<>();
+		data.put("targetUrl", "http://target/hook");
+		data.put("httpMethod", "POST");
+		data.put("timeoutMs", "5000");
+		data.put(JobPayloadStore.REF, "ref-1");
+		return data;
+	}
+}
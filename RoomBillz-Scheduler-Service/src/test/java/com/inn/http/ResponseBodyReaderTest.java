@@ -0,0 +1,148 @@
+package com.inn.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.core.io.buffer.PooledDataBuffer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inn.config.SchedulerProperties;
+
+import io.netty.buffer.UnpooledByteBufAllocator;
+import reactor.core.publisher.Flux;
+
+/**
+ * Every case runs through both variants: the reactive one gets the body in
+ * 3-byte buffers, so limits fall inside a buffer as well as between them.
+ */
+class ResponseBodyReaderTest {
+
+	private static final int PREVIEW = 4;
+	private static final int MAX_CAPTURE = 32;
+
+	private final NettyDataBufferFactory buffers = new NettyDataBufferFactory(UnpooledByteBufAllocator.DEFAULT);
+	private final List<PooledDataBuffer> sent = new ArrayList<>();
+	private final ResponseBodyReader reader;
+
+	ResponseBodyReaderTest() {
+		SchedulerProperties properties = new SchedulerProperties();
+		properties.getHttp().setResponsePreviewBytes(PREVIEW);
+		properties.getHttp().setMaxCaptureBytes(MAX_CAPTURE);
+		reader = new ResponseBodyReader(new ObjectMapper(), properties);
+	}
+
+	@Test
+	void previewKeepsTheLeadingBytes() throws Exception {
+		for (CapturedBody captured : read("0123456789", ResponseCapture.PREVIEW, null)) {
+			assertThat(captured.preview()).isEqualTo("0123");
+			assertThat(captured.body()).isNull();
+			assertThat(captured.size()).isEqualTo(10);
+			assertThat(captured.truncated()).isTrue();
+		}
+		for (CapturedBody captured : read("012", ResponseCapture.PREVIEW, null)) {
+			assertThat(captured.preview()).isEqualTo("012");
+			assertThat(captured.size()).isEqualTo(3);
+			assertThat(captured.truncated()).isFalse();
+		}
+		// Exactly the preview size is not truncated
+		for (CapturedBody captured : read("0123", ResponseCapture.PREVIEW, null))
+			assertThat(captured.truncated()).isFalse();
+	}
+
+	@Test
+	void fullKeepsTheWholeBody() throws Exception {
+		String body = "{\"id\":7,\"name\":\"x\"}";
+		for (CapturedBody captured : read(body, ResponseCapture.FULL, null)) {
+			assertThat(captured.body()).isEqualTo(body);
+			assertThat(captured.preview()).isEqualTo("{\"id");
+			assertThat(captured.size()).isEqualTo(body.length());
+			assertThat(captured.truncated()).isFalse();
+		}
+	}
+
+	@Test
+	void fullOverMaxCaptureBytesIsCutAndFlagged() throws Exception {
+		String body = "x".repeat(MAX_CAPTURE) + "tail-not-kept";
+		for (CapturedBody captured : read(body, ResponseCapture.FULL, null)) {
+			assertThat(captured.body()).isEqualTo("x".repeat(MAX_CAPTURE));
+			assertThat(captured.size()).isEqualTo(body.length());
+			assertThat(captured.truncated()).isTrue();
+		}
+	}
+
+	@Test
+	void jsonFieldsAreExtracted() throws Exception {
+		String body = "{\"data\":{\"id\":7},\"ok\":true}";
+		for (CapturedBody captured : read(body, ResponseCapture.JSON_FIELDS, List.of("/data/id", "/ok", "/data",
+				"/missing"))) {
+			assertThat(captured.fields()).containsExactly(Map.entry("/data/id", "7"), Map.entry("/ok", "true"),
+					Map.entry("/data", "{\"id\":7}"));
+			assertThat(captured.body()).isNull();
+			assertThat(captured.truncated()).isFalse();
+		}
+		for (CapturedBody captured : read("not json", ResponseCapture.JSON_FIELDS, List.of("/id")))
+			assertThat(captured.fields()).isEmpty();
+	}
+
+	// A cut JSON document would not parse, or worse parse into the wrong values
+	@Test
+	void jsonFieldsAreSkippedWhenTruncated() throws Exception {
+		String body = "{\"id\":7,\"padding\":\"" + "p".repeat(MAX_CAPTURE) + "\"}";
+		for (CapturedBody captured : read(body, ResponseCapture.JSON_FIELDS, List.of("/id"))) {
+			assertThat(captured.fields()).isEmpty();
+			assertThat(captured.truncated()).isTrue();
+			assertThat(captured.size()).isEqualTo(body.length());
+		}
+	}
+
+	@Test
+	void emptyAndMissingBodies() throws Exception {
+		for (CapturedBody captured : read("", ResponseCapture.FULL, null)) {
+			assertThat(captured.size()).isZero();
+			assertThat(captured.preview()).isEmpty();
+			assertThat(captured.truncated()).isFalse();
+		}
+		assertThat(reader.read((InputStream) null, ResponseCapture.FULL, null)).isEqualTo(CapturedBody.EMPTY);
+	}
+
+	// Bytes past the limit are counted, and every buffer is released, kept or not
+	@Test
+	void everyBufferIsReleased() {
+		String body = "y".repeat(10 * MAX_CAPTURE);
+		CapturedBody captured = reader.read(flux(body), ResponseCapture.FULL, null).block();
+
+		assertThat(captured.size()).isEqualTo(body.length());
+		assertThat(sent).hasSize((body.length() + 2) / 3).noneMatch(PooledDataBuffer::isAllocated);
+	}
+
+	// The reactive and the blocking result of the same body, after checking they agree
+	private List<CapturedBody> read(String body, ResponseCapture mode, List<String> fields) throws Exception {
+		CapturedBody reactive = reader.read(flux(body), mode, fields).block();
+		CapturedBody blocking = reader.read(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), mode,
+				fields);
+		assertThat(sent).noneMatch(PooledDataBuffer::isAllocated);
+		assertThat(reactive).isEqualTo(blocking);
+		return List.of(reactive, blocking);
+	}
+
+	private Flux<DataBuffer> flux(String body) {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		List<DataBuffer> chunks = new ArrayList<>();
+		for (int from = 0; from < bytes.length; from += 3) {
+			DataBuffer buffer = buffers.allocateBuffer(3);
+			buffer.write(bytes, from, Math.min(3, bytes.length - from));
+			sent.add((PooledDataBuffer) buffer);
+			chunks.add(buffer);
+		}
+		return Flux.fromIterable(chunks);
+	}
+}
@@ -0,0 +1,145 @@
+package com.inn.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.inn.config.SchedulerProperties;
+
+class TargetLimiterTest {
+
+	@Test
+	void overloadStatusesAndTimeoutsShrinkTheLimit() {
+		TargetLimiter limiter = limiter(20, 100);
+
+		limiter.acquire().release(503);
+		assertThat(limiter.getLimit()).isEqualTo(18);
+		limiter.acquire().release(504);
+		assertThat(limiter.getLimit()).isEqualTo(16);
+		limiter.acquire().release(null);
+		assertThat(limiter.getLimit()).isEqualTo(14);
+	}
+
+	// A 500 is the target's answer, not a sign it is overloaded
+	@Test
+	void applicationErrorsLeaveTheLimit() {
+		TargetLimiter limiter = limiter(20, 100);
+
+		limiter.acquire().release(500);
+		limiter.acquire().release(404);
+		assertThat(limiter.getLimit()).isEqualTo(20);
+	}
+
+	@Test
+	void limitGrowsOnlyWhileInUse() {
+		TargetLimiter limiter = limiter(4, 100);
+
+		// One call at a time never comes near the limit
+		for (int i = 0; i < 50; i++)
+			limiter.acquire().release(200);
+		assertThat(limiter.getLimit()).isEqualTo(4);
+
+		List<TargetLimiter.Permit> held = new ArrayList<>();
+		for (int i = 0; i < 3; i++)
+			held.add(limiter.acquire());
+		for (int i = 0; i < 50; i++)
+			limiter.acquire().release(200);
+		assertThat(limiter.getLimit()).isGreaterThan(4);
+		held.forEach(permit -> permit.release(200));
+	}
+
+	@Test
+	void limitStaysWithinBounds() {
+		TargetLimiter limiter = limiter(4, 5);
+		List<TargetLimiter.Permit> held = new ArrayList<>();
+		for (int i = 0; i < 3; i++)
+			held.add(limiter.acquire());
+		for (int i = 0; i < 500; i++)
+			limiter.acquire().release(200);
+		assertThat(limiter.getLimit()).isEqualTo(5);
+		held.forEach(permit -> permit.release(200));
+
+		for (int i = 0; i < 100; i++)
+			limiter.acquire().release(503);
+		assertThat(limiter.getLimit()).isEqualTo(1);
+	}
+
+	@Test
+	void waiterTimesOutWhenNoPermitFreesUp() {
+		SchedulerProperties.Limiter config = config(1);
+		config.setMaxWaitMs(20);
+		TargetLimiter limiter = new TargetLimiter("host:80", config, 1);
+		TargetLimiter.Permit held = limiter.acquire();
+
+		assertThatThrownBy(limiter::acquire).isInstanceOf(TargetOverloadedException.class)
+				.hasMessageContaining("no permit within 20 ms");
+		assertThat(limiter.getQueued()).isZero();
+		held.release(200);
+		assertThat(limiter.getInFlight()).isZero();
+	}
+
+	/*
+	 * Waits of 1 ms against constant releases make waiters time out just as a
+	 * permit is granted to them. Such a waiter must keep the permit rather than
+	 * leak it, so every slot is back once all callers are done.
+	 */
+	@Test
+	void permitGrantedAsTheWaiterTimesOutIsNotLost() throws Exception {
+		SchedulerProperties.Limiter config = config(2);
+		config.setMaxWaitMs(1);
+		config.setMaxQueue(1000);
+		TargetLimiter limiter = new TargetLimiter("host:80", config, 2);
+		AtomicInteger granted = new AtomicInteger();
+		AtomicInteger refused = new AtomicInteger();
+
+		ExecutorService callers = Executors.newFixedThreadPool(8);
+		List<Future<?>> done = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			done.add(callers.submit(() -> {
+				for (int i = 0; i < 2000; i++) {
+					TargetLimiter.Permit permit;
+					try {
+						permit = limiter.acquire();
+					} catch (TargetOverloadedException ex) {
+						refused.incrementAndGet();
+						continue;
+					}
+					granted.incrementAndGet();
+					if (ThreadLocalRandom.current().nextInt(4) == 0)
+						Thread.onSpinWait();
+					permit.release(200);
+				}
+			}));
+		}
+		for (Future<?> future : done)
+			future.get(60, TimeUnit.SECONDS);
+		callers.shutdown();
+
+		assertThat(granted.get()).isPositive();
+		assertThat(refused.get()).isPositive();
+		assertThat(limiter.getInFlight()).isZero();
+		assertThat(limiter.getQueued()).isZero();
+	}
+
+	private static TargetLimiter limiter(int initialLimit, int maxLimit) {
+		return new TargetLimiter("host:80", config(initialLimit), maxLimit);
+	}
+
+	// Latency never counts as slow, so only statuses move the limit
+	private static SchedulerProperties.Limiter config(int initialLimit) {
+		SchedulerProperties.Limiter config = new SchedulerProperties.Limiter();
+		config.setInitialLimit(initialLimit);
+		config.setLatencyTolerance(Double.MAX_VALUE);
+		return config;
+	}
+}
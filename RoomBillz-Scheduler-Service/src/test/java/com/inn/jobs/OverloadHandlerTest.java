@@ -0,0 +1,90 @@
+package com.inn.jobs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.ObjectAlreadyExistsException;
+import org.quartz.Scheduler;
+import org.quartz.Trigger;
+
+import com.inn.config.SchedulerProperties;
+import com.inn.http.TargetOverloadedException;
+import com.inn.metrics.SchedulerMetrics;
+import com.inn.retry.RetryEngine;
+
+class OverloadHandlerTest {
+
+	private static final TargetOverloadedException REFUSED = new TargetOverloadedException("target:80", "queue full");
+
+	private final JobDetail detail = JobBuilder.newJob(HttpCallJob.class).withIdentity("job", "tenant").build();
+	private Scheduler scheduler;
+	private RetryEngine retries;
+	private OverloadHandler handler;
+
+	@BeforeEach
+	void setUp() {
+		scheduler = mock(Scheduler.class);
+		retries = mock(RetryEngine.class);
+		handler = new OverloadHandler(scheduler, mock(SchedulerMetrics.class), retries, new SchedulerProperties());
+	}
+
+	// Every refused fire runs again, without a Quartz trigger per fire
+	@Test
+	void ignoreDefersEachFireOnTheRetryWheel() throws Exception {
+		for (int i = 0; i < 3; i++)
+			assertThat(handler.handle(detail.getKey(), detail, new Date(i * 1000L), "IGNORE", REFUSED))
+					.isEqualTo("deferred");
+
+		verify(retries, times(3)).schedule(eq(detail.getKey()), eq(detail), any(), eq(0), eq(30_000L));
+		verify(scheduler, never()).scheduleJob(any(Trigger.class));
+	}
+
+	@Test
+	void ignoreShedsWhenTheDeferralCannotBeQueued() {
+		doThrow(new IllegalStateException("stopped")).when(retries).schedule(any(JobKey.class), any(), any(),
+				anyInt(), anyLong());
+
+		assertThat(handler.handle(detail.getKey(), detail, new Date(), "IGNORE", REFUSED)).isEqualTo("shed");
+	}
+
+	@Test
+	void fireAndProceedCollapsesIntoOneDeferredTrigger() throws Exception {
+		when(scheduler.scheduleJob(any(Trigger.class))).thenReturn(new Date())
+				.thenThrow(new ObjectAlreadyExistsException("exists"));
+
+		assertThat(handler.handle(detail.getKey(), detail, new Date(), "FIRE_AND_PROCEED", REFUSED))
+				.isEqualTo("deferred");
+		assertThat(handler.handle(detail.getKey(), detail, new Date(), "FIRE_AND_PROCEED", REFUSED))
+				.isEqualTo("deferred");
+
+		ArgumentCaptor<Trigger> triggers = ArgumentCaptor.forClass(Trigger.class);
+		verify(scheduler, times(2)).scheduleJob(triggers.capture());
+		assertThat(triggers.getAllValues()).extracting(trigger -> trigger.getKey().getName())
+				.containsOnly("job" + OverloadHandler.DEFERRED_SUFFIX);
+		verify(retries, never()).schedule(any(JobKey.class), any(), any(), anyInt(), anyLong());
+	}
+
+	@Test
+	void doNothingSheds() throws Exception {
+		assertThat(handler.handle(detail.getKey(), detail, new Date(), "DO_NOTHING", REFUSED)).isEqualTo("shed");
+
+		verify(scheduler, never()).scheduleJob(any(Trigger.class));
+	}
+}
@@ -0,0 +1,63 @@
+package com.inn.jobstore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class ShardAssignmentTest {
+
+	private static final List<String> NODES = List.of("node-a", "node-b", "node-c");
+
+	@Test
+	void everyShardHasExactlyOneOwner() {
+		List<ShardAssignment> assignments = new ArrayList<>();
+		for (String node : NODES)
+			assignments.add(ShardAssignment.compute(node, NODES, 16));
+
+		for (int g = 0; g < 1000; g++) {
+			String group = "tenant-" + g;
+			assertThat(assignments.stream().filter(a -> a.owns(group))).hasSize(1);
+		}
+		assertThat(assignments.stream().mapToInt(ShardAssignment::ownedCount).sum()).isEqualTo(16);
+	}
+
+	@Test
+	void foreignShardsAreTheOnesNotOwned() {
+		ShardAssignment assignment = ShardAssignment.compute("node-a", NODES, 16);
+
+		List<Integer> foreign = assignment.foreignShards();
+		assertThat(foreign).hasSize(16 - assignment.ownedCount()).isSorted();
+		for (int g = 0; g < 1000; g++) {
+			String group = "tenant-" + g;
+			assertThat(foreign.contains(ShardAssignment.shardOf(group, 16))).isNotEqualTo(assignment.owns(group));
+		}
+	}
+
+	// The acquire query computes shards as MOD(GROUP_HASH, shardCount) in SQL
+	@Test
+	void shardIsTheStoredHashModuloShardCount() {
+		for (int g = 0; g < 1000; g++) {
+			String group = "tenant-" + g;
+			long hash = ShardAssignment.groupHash(group);
+			assertThat(hash).isNotNegative();
+			assertThat(ShardAssignment.shardOf(group, 7)).isEqualTo((int) (hash % 7));
+		}
+	}
+
+	@Test
+	void aJoiningNodeOnlyTakesShardsOverFromOthers() {
+		ShardAssignment before = ShardAssignment.compute("node-a", NODES, 64);
+		List<String> grown = new ArrayList<>(NODES);
+		grown.add("node-d");
+		ShardAssignment after = ShardAssignment.compute("node-a", grown, 64);
+
+		for (int g = 0; g < 1000; g++) {
+			String group = "tenant-" + g;
+			if (after.owns(group))
+				assertThat(before.owns(group)).isTrue();
+		}
+	}
+}
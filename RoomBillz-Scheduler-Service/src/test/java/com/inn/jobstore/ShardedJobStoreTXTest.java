@@ -0,0 +1,218 @@
+package com.inn.jobstore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.quartz.Job;
+import org.quartz.JobBuilder;
+import org.quartz.JobExecutionContext;
+import org.quartz.Scheduler;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
+import org.quartz.impl.StdSchedulerFactory;
+import org.quartz.simpl.CascadingClassLoadHelper;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+/**
+ * Sharded acquisition and locking against H2 in MySQL mode. The scheduler is
+ * never started, so this node owns every shard and nothing fires.
+ */
+class ShardedJobStoreTXTest {
+
+	private static final String URL = "jdbc:h2:mem:sharded;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+	private static final String NAME = "sharded";
+	private static final int SHARDS = 4;
+
+	private JdbcTemplate jdbc;
+	private Scheduler scheduler;
+
+	public static class NoopJob implements Job {
+		@Override
+		public void execute(JobExecutionContext context) {
+		}
+	}
+
+	@BeforeEach
+	void setUp() throws Exception {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(URL, "sa", "");
+		new ResourceDatabasePopulator(new ClassPathResource("org/quartz/impl/jdbcjobstore/tables_h2.sql"),
+				new ClassPathResource("db/scheduler-schema.sql")).execute(dataSource);
+		jdbc = new JdbcTemplate(dataSource);
+
+		Properties props = new Properties();
+		props.setProperty("org.quartz.scheduler.instanceName", NAME);
+		props.setProperty("org.quartz.scheduler.instanceId", "node-a");
+		props.setProperty("org.quartz.threadPool.threadCount", "1");
+		props.setProperty("org.quartz.jobStore.class", ShardedJobStoreTX.class.getName());
+		props.setProperty("org.quartz.jobStore.driverDelegateClass", ShardedJDBCDelegate.class.getName());
+		props.setProperty("org.quartz.jobStore.isClustered", "true");
+		props.setProperty("org.quartz.jobStore.shardCount", String.valueOf(SHARDS));
+		props.setProperty("org.quartz.jobStore.dataSource", "test");
+		props.setProperty("org.quartz.dataSource.test.provider", "hikaricp");
+		props.setProperty("org.quartz.dataSource.test.driver", "org.h2.Driver");
+		props.setProperty("org.quartz.dataSource.test.URL", URL);
+		props.setProperty("org.quartz.dataSource.test.user", "sa");
+		props.setProperty("org.quartz.dataSource.test.password", "");
+		scheduler = new StdSchedulerFactory(props).getScheduler();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		scheduler.shutdown(false);
+		jdbc.execute("DROP ALL OBJECTS");
+	}
+
+	@Test
+	void acquisitionSkipsGroupsOfForeignShards() throws Exception {
+		for (int g = 0; g < 40; g++)
+			schedule("tenant-" + g, new Date());
+		// Two members split the shards; node-a owns some but not all of them
+		ShardAssignment assignment = ShardAssignment.compute("node-a", List.of("node-a", "node-b"), SHARDS);
+		assertThat(assignment.ownedCount()).isBetween(1, SHARDS - 1);
+		ShardedJDBCDelegate delegate = delegate(assignment);
+
+		long later = System.currentTimeMillis() + 60_000;
+		try (Connection conn = DriverManager.getConnection(URL, "sa", "")) {
+			// Not registered yet: selected once, skipped and registered
+			assertThat(delegate.selectTriggerToAcquire(conn, later, 0, 100))
+					.allMatch(key -> assignment.owns(key.getGroup()));
+			assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM RB_TRIGGER_GROUP_HASH", Integer.class))
+					.isGreaterThan(0);
+
+			delegate.syncGroupHashes(conn);
+			assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM RB_TRIGGER_GROUP_HASH", Integer.class))
+					.isEqualTo(40);
+			List<TriggerKey> due = delegate.selectTriggerToAcquire(conn, later, 0, 100);
+			assertThat(due).isNotEmpty().allMatch(key -> assignment.owns(key.getGroup()));
+		}
+	}
+
+	@Test
+	void groupHashesOfDeletedGroupsAreDropped() throws Exception {
+		schedule("tenant-1", new Date());
+		schedule("tenant-2", new Date());
+		ShardedJDBCDelegate delegate = delegate(ShardAssignment.compute("node-a", List.of(), SHARDS));
+		try (Connection conn = DriverManager.getConnection(URL, "sa", "")) {
+			delegate.syncGroupHashes(conn);
+			scheduler.deleteJob(org.quartz.JobKey.jobKey("job", "tenant-2"));
+			delegate.syncGroupHashes(conn);
+		}
+		assertThat(jdbc.queryForList("SELECT TRIGGER_GROUP FROM RB_TRIGGER_GROUP_HASH", String.class))
+				.containsExactly("tenant-1");
+	}
+
+	// Firing holds only shard locks, so a pause must wait for them too
+	@Test
+	void pauseWaitsForTheShardLockHeldByFiring() throws Exception {
+		schedule("tenant-1", new Date(System.currentTimeMillis() + 60_000));
+		String lock = ShardAssignment.lockName(ShardAssignment.shardOf("tenant-1", SHARDS));
+		// Scheduling took the shard locks too, which created their rows
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM QRTZ_LOCKS WHERE SCHED_NAME = ? AND LOCK_NAME = ?",
+				Integer.class, NAME, lock)).isEqualTo(1);
+
+		try (Connection firing = DriverManager.getConnection(URL, "sa", "")) {
+			firing.setAutoCommit(false);
+			try (PreparedStatement ps = firing.prepareStatement(
+					"SELECT * FROM QRTZ_LOCKS WHERE SCHED_NAME = ? AND LOCK_NAME = ? FOR UPDATE")) {
+				ps.setString(1, NAME);
+				ps.setString(2, lock);
+				ps.executeQuery().close();
+			}
+
+			CompletableFuture<Void> pause = CompletableFuture.runAsync(() -> {
+				try {
+					scheduler.pauseTrigger(TriggerKey.triggerKey("trigger", "tenant-1"));
+				} catch (Exception ex) {
+					throw new IllegalStateException(ex);
+				}
+			});
+			Thread.sleep(500);
+			assertThat(pause).isNotDone();
+
+			firing.commit();
+			pause.get(10, TimeUnit.SECONDS);
+		}
+		assertThat(scheduler.getTriggerState(TriggerKey.triggerKey("trigger", "tenant-1")))
+				.isEqualTo(Trigger.TriggerState.PAUSED);
+	}
+
+	@Test
+	void triggersScheduledPausedAreStoredPaused() throws Exception {
+		TriggerKey paused = TriggerKey.triggerKey("trigger", "tenant-1");
+		ShardedJobStoreTX.storingPaused(Set.of(paused), () -> {
+			try {
+				schedule("tenant-1", new Date());
+				schedule("tenant-2", new Date());
+			} catch (Exception ex) {
+				throw new IllegalStateException(ex);
+			}
+			return null;
+		});
+
+		assertThat(scheduler.getTriggerState(paused)).isEqualTo(Trigger.TriggerState.PAUSED);
+		assertThat(scheduler.getTriggerState(TriggerKey.triggerKey("trigger", "tenant-2")))
+				.isEqualTo(Trigger.TriggerState.NORMAL);
+		// Only inside the call
+		schedule("tenant-3", new Date());
+		assertThat(scheduler.getTriggerState(TriggerKey.triggerKey("trigger", "tenant-3")))
+				.isEqualTo(Trigger.TriggerState.NORMAL);
+	}
+
+	// A flooding group's backlog is due earlier, yet each group's first due trigger comes first
+	@Test
+	void fairAcquisitionTakesEachGroupsFirstDueTriggerFirst() throws Exception {
+		long now = System.currentTimeMillis();
+		for (int i = 0; i < 20; i++)
+			schedule("flood", "job-" + i, new Date(now - 60_000 + i));
+		schedule("small", new Date(now - 1_000));
+		schedule("later", new Date(now + 30_000));
+		ShardedJDBCDelegate delegate = delegate(null);
+		delegate.fair(true);
+
+		try (Connection conn = DriverManager.getConnection(URL, "sa", "")) {
+			assertThat(delegate.selectTriggerToAcquire(conn, now + 60_000, 0, 3)).containsExactly(
+					TriggerKey.triggerKey("job-0", "flood"), TriggerKey.triggerKey("trigger", "small"),
+					TriggerKey.triggerKey("job-1", "flood"));
+			// Triggers not due yet come after every due one
+			List<TriggerKey> all = delegate.selectTriggerToAcquire(conn, now + 60_000, 0, 100);
+			assertThat(all).hasSize(22).endsWith(TriggerKey.triggerKey("trigger", "later"));
+		}
+	}
+
+	private void schedule(String group, Date startAt) throws Exception {
+		schedule(group, "job", startAt);
+	}
+
+	// Jobs other than "job" get a trigger of the same name
+	private void schedule(String group, String job, Date startAt) throws Exception {
+		scheduler.scheduleJob(JobBuilder.newJob(NoopJob.class).withIdentity(job, group).build(),
+				TriggerBuilder.newTrigger().withIdentity(job.equals("job") ? "trigger" : job, group).startAt(startAt)
+						.build());
+	}
+
+	private static ShardedJDBCDelegate delegate(ShardAssignment assignment) throws Exception {
+		ShardedJDBCDelegate delegate = new ShardedJDBCDelegate();
+		delegate.initialize(LoggerFactory.getLogger(ShardedJDBCDelegate.class), "QRTZ_", NAME, "node-a",
+				new CascadingClassLoadHelper(), false, null);
+		delegate.shard(new AtomicReference<>(assignment), 15000);
+		return delegate;
+	}
+}
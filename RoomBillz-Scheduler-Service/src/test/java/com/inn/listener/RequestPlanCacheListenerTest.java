@@ -0,0 +1,43 @@
+package com.inn.listener;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.Test;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+
+import com.inn.http.RequestPlanCache;
+import com.inn.jobs.HttpCallJob;
+
+class RequestPlanCacheListenerTest {
+
+	private final RequestPlanCache plans = mock(RequestPlanCache.class);
+	private final RequestPlanCacheListener listener = new RequestPlanCacheListener(mock(Scheduler.class), plans);
+
+	@Test
+	void deletedJobIsEvicted() {
+		listener.jobDeleted(JobKey.jobKey("job", "tenant"));
+
+		verify(plans).evict(JobKey.jobKey("job", "tenant"));
+	}
+
+	// Replacing a job stores it again, which Quartz reports as added
+	@Test
+	void replacedJobIsEvicted() {
+		JobDetail replaced = JobBuilder.newJob(HttpCallJob.class).withIdentity("job", "tenant").build();
+
+		listener.jobAdded(replaced);
+
+		verify(plans).evict(JobKey.jobKey("job", "tenant"));
+	}
+
+	@Test
+	void clearedSchedulingDataEvictsEveryPlan() {
+		listener.schedulingDataCleared();
+
+		verify(plans).evictAll();
+	}
+}
@@ -0,0 +1,79 @@
+package com.inn.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import org.junit.jupiter.api.Test;
+
+class BoundedTagValuesTest {
+
+	@Test
+	void valuesPastTheBoundAreOther() {
+		BoundedTagValues values = new BoundedTagValues(2);
+
+		assertThat(values.value("a")).isEqualTo("a");
+		assertThat(values.value("b")).isEqualTo("b");
+		assertThat(values.value("c")).isEqualTo(BoundedTagValues.OTHER);
+		assertThat(values.value("a")).isEqualTo("a");
+		assertThat(values.value(null)).isEqualTo("none");
+	}
+
+	// Each thread brings its own values; together they must not get more than max through
+	@Test
+	void racingThreadsNeverExceedTheBound() throws Exception {
+		for (int round = 0; round < 50; round++) {
+			BoundedTagValues values = new BoundedTagValues(10);
+			Set<String> kept = race(values, thread -> "t" + thread + "-");
+
+			assertThat(kept).hasSize(10);
+		}
+	}
+
+	// Threads racing on the same values must not use up slots twice
+	@Test
+	void sameValueRacingTakesOneSlot() throws Exception {
+		for (int round = 0; round < 50; round++) {
+			BoundedTagValues values = new BoundedTagValues(10);
+			Set<String> kept = race(values, thread -> "shared-");
+
+			assertThat(kept).hasSize(10);
+			for (String value : kept)
+				assertThat(values.value(value)).isEqualTo(value);
+		}
+	}
+
+	private static Set<String> race(BoundedTagValues values, IntFunction<String> prefix) throws Exception {
+		int threads = 8;
+		Set<String> kept = ConcurrentHashMap.newKeySet();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Future<?>> done = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			String p = prefix.apply(t);
+			done.add(pool.submit(() -> {
+				start.await();
+				for (int i = 0; i < 20; i++) {
+					String value = values.value(p + i);
+					if (!BoundedTagValues.OTHER.equals(value))
+						kept.add(value);
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> future : done)
+			future.get(10, TimeUnit.SECONDS);
+		pool.shutdown();
+		return kept;
+	}
+}
@@ -0,0 +1,136 @@
+package com.inn.payload;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inn.config.SchedulerProperties;
+import com.inn.repository.JobPayloadRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class JobPayloadStoreTest {
+
+	private static final long HOUR = 3_600_000L;
+
+	private JdbcTemplate jdbc;
+
+	@BeforeEach
+	void setUp() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:payload;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+		new ResourceDatabasePopulator(new ClassPathResource("org/quartz/impl/jdbcjobstore/tables_h2.sql"),
+				new ClassPathResource("db/scheduler-schema.sql")).execute(dataSource);
+		jdbc = new JdbcTemplate(dataSource);
+	}
+
+	@AfterEach
+	void tearDown() {
+		jdbc.execute("DROP ALL OBJECTS");
+	}
+
+	@Test
+	void sweepDeletesOnlyOldUnreferencedRows() {
+		JobPayloadStore store = store();
+		String referenced = store.put(payload("referenced"));
+		String orphan = store.put(payload("orphan"));
+		String recent = store.put(payload("recent"));
+		String ephemeral = store.put(payload("ephemeral"));
+		age(referenced, orphan, ephemeral);
+		job(referenced);
+		ephemeralJob(ephemeral);
+
+		store.sweep();
+
+		assertThat(hashes()).containsExactlyInAnyOrder(referenced, recent, ephemeral);
+	}
+
+	@Test
+	void storingAgainKeepsTheRow() {
+		String hash = store().put(payload("shared"));
+		age(hash);
+
+		// Another node, or this one after the grace period, stores the same content
+		store().put(payload("shared"));
+		store().sweep();
+
+		assertThat(hashes()).containsExactly(hash);
+	}
+
+	@Test
+	void putStoresASweptRowAgain() {
+		JobPayloadStore node = store();
+		String hash = node.put(payload("gone"));
+		jdbc.update("DELETE FROM RB_JOB_PAYLOAD");
+
+		assertThat(store().put(payload("gone"))).isEqualTo(hash);
+		assertThat(hashes()).containsExactly(hash);
+		assertThat(store().get(hash)).isEqualTo(payload("gone"));
+	}
+
+	@Test
+	void putAllInsertsNewRowsAndRefreshesExistingOnes() {
+		String old = store().put(payload("old"));
+		age(old);
+		JobPayloadStore store = store();
+		JobPayloadStore.Encoded fresh = store.encode(payload("fresh"));
+		// Not stored until putAll
+		assertThat(hashes()).containsExactly(old);
+
+		store.putAll(List.of(fresh, store.encode(payload("old")), store.encode(payload("fresh"))));
+		store.sweep();
+
+		assertThat(hashes()).containsExactlyInAnyOrder(old, fresh.ref());
+		assertThat(store().get(fresh.ref())).isEqualTo(payload("fresh"));
+	}
+
+	private JobPayloadStore store() {
+		return new JobPayloadStore(new JobPayloadRepository(jdbc, "QRTZ_"),
+				List.of(new JsonPayloadCodec(new ObjectMapper())), new SchedulerProperties(),
+				new SimpleMeterRegistry());
+	}
+
+	private void age(String... hashes) {
+		for (String hash : hashes)
+			jdbc.update("UPDATE RB_JOB_PAYLOAD SET CREATED_AT = ? WHERE HASH = ?",
+					System.currentTimeMillis() - 2 * HOUR, hash);
+	}
+
+	private void job(String ref) {
+		jdbc.update("INSERT INTO QRTZ_JOB_DETAILS (SCHED_NAME, JOB_NAME, JOB_GROUP, JOB_CLASS_NAME, IS_DURABLE,"
+				+ " IS_NONCONCURRENT, IS_UPDATE_DATA, REQUESTS_RECOVERY, JOB_DATA)"
+				+ " VALUES ('sched', 'job', 'tenant', 'com.inn.job.HttpCallJob', TRUE, FALSE, FALSE, FALSE, ?)",
+				(Object) properties(ref));
+	}
+
+	private void ephemeralJob(String ref) {
+		jdbc.update("INSERT INTO RB_EPHEMERAL_JOB (SCHED_NAME, JOB_GROUP, JOB_NAME, JOB_CLASS, JOB_DATA, START_TIME,"
+				+ " INTERVAL_MS, REPEAT_COUNT, PAUSED, UPDATED_AT)"
+				+ " VALUES ('sched', 'tenant', 'ephemeral', 'com.inn.job.HttpCallJob', ?, 0, 1000, -1, FALSE, 0)",
+				(Object) properties(ref));
+	}
+
+	private List<String> hashes() {
+		return jdbc.queryForList("SELECT HASH FROM RB_JOB_PAYLOAD", String.class);
+	}
+
+	private static byte[] properties(String ref) {
+		return ("#\n" + JobPayloadStore.REF + "=" + ref + "\nurl=http\\://target/\n")
+				.getBytes(StandardCharsets.ISO_8859_1);
+	}
+
+	private static JobPayload payload(String body) {
+		return new JobPayload(Map.of("X-Tenant", "tenant"), null, body, null);
+	}
+}
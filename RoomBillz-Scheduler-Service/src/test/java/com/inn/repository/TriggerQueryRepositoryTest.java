@@ -0,0 +1,177 @@
+package com.inn.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.quartz.Scheduler;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.inn.dto.PageResponse;
+import com.inn.dto.TriggerPageQuery;
+import com.inn.service.TriggerInfoView;
+
+/**
+ * Keyset paging against H2 in MySQL mode. Most triggers share a next fire
+ * time, so pages break inside runs of equal NEXT_FIRE_TIME and the group and
+ * name columns of the cursor decide what comes next.
+ */
+class TriggerQueryRepositoryTest {
+
+	private static final String SCHED = "sched";
+	private static final long T0 = 1_790_000_000_000L;
+
+	private JdbcTemplate jdbc;
+	private TriggerQueryRepository repository;
+	// Every trigger inserted for SCHED
+	private final List<Stored> stored = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() throws Exception {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:triggers;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+		new ResourceDatabasePopulator(new ClassPathResource("org/quartz/impl/jdbcjobstore/tables_h2.sql"),
+				new ClassPathResource("db/scheduler-schema.sql")).execute(dataSource);
+		jdbc = new JdbcTemplate(dataSource);
+		Scheduler scheduler = mock(Scheduler.class);
+		when(scheduler.getSchedulerName()).thenReturn(SCHED);
+		repository = new TriggerQueryRepository(new NamedParameterJdbcTemplate(dataSource), scheduler, "QRTZ_");
+
+		// 3 groups x 10 triggers over three fire times; every third trigger paused, odd ones simple
+		for (int g = 0; g < 3; g++) {
+			for (int n = 0; n < 10; n++) {
+				int i = g * 10 + n;
+				insert("group-" + g, "trigger-" + n, T0 + (i % 3) * 60_000, i % 3 == 0 ? "PAUSED" : "WAITING",
+						n % 2 == 0 ? "CRON" : "SIMPLE");
+			}
+		}
+		// Another scheduler's trigger sharing the tables
+		jdbc.update("INSERT INTO QRTZ_JOB_DETAILS (SCHED_NAME, JOB_NAME, JOB_GROUP, JOB_CLASS_NAME, IS_DURABLE,"
+				+ " IS_NONCONCURRENT, IS_UPDATE_DATA, REQUESTS_RECOVERY) VALUES ('other', 'job', 'group-0', 'Job',"
+				+ " FALSE, FALSE, FALSE, FALSE)");
+		jdbc.update("INSERT INTO QRTZ_TRIGGERS (SCHED_NAME, TRIGGER_NAME, TRIGGER_GROUP, JOB_NAME, JOB_GROUP,"
+				+ " NEXT_FIRE_TIME, TRIGGER_STATE, TRIGGER_TYPE, START_TIME) VALUES ('other', 'trigger-0', 'group-0',"
+				+ " 'job', 'group-0', ?, 'WAITING', 'CRON', 0)", T0);
+	}
+
+	@AfterEach
+	void tearDown() {
+		jdbc.execute("DROP ALL OBJECTS");
+	}
+
+	@Test
+	void pagesAscendingWithoutSkipsOrRepeats() throws Exception {
+		for (int limit : new int[] { 1, 4, 7, 10, 30, 31 })
+			assertThat(pageThrough(query().limit(limit))).as("limit %d", limit)
+					.containsExactlyElementsOf(expected(false));
+	}
+
+	@Test
+	void pagesDescendingWithoutSkipsOrRepeats() throws Exception {
+		for (int limit : new int[] { 1, 4, 7, 10, 30, 31 })
+			assertThat(pageThrough(query().limit(limit).descending(true))).as("limit %d", limit)
+					.containsExactlyElementsOf(expected(true));
+	}
+
+	// limit + 1 rows are read, so a last page that is exactly full has no cursor
+	@Test
+	void nextCursorOnlyWhenAnotherPageExists() throws Exception {
+		PageResponse<TriggerInfoView> first = repository.findPage(query().limit(15).build());
+		assertThat(first.getItems()).hasSize(15);
+		assertThat(first.getNextCursor()).isNotNull();
+		assertThat(first.getTotal()).isEqualTo(30);
+
+		PageResponse<TriggerInfoView> last = repository
+				.findPage(query().limit(15).cursor(first.getNextCursor()).build());
+		assertThat(last.getItems()).hasSize(15);
+		assertThat(last.getNextCursor()).isNull();
+
+		PageResponse<TriggerInfoView> all = repository.findPage(query().limit(30).build());
+		assertThat(all.getItems()).hasSize(30);
+		assertThat(all.getNextCursor()).isNull();
+	}
+
+	@Test
+	void stateAndTypeFiltersApplyToEveryPage() throws Exception {
+		assertThat(pageThrough(query().limit(3).state("paused")))
+				.containsExactlyElementsOf(expected(false, s -> s.state().equals("PAUSED")));
+		assertThat(pageThrough(query().limit(3).type("simple").descending(true)))
+				.containsExactlyElementsOf(expected(true, s -> s.type().equals("SIMPLE")));
+		assertThat(pageThrough(query().limit(2).state("NORMAL").type("CRON").group("group-1")))
+				.containsExactlyElementsOf(expected(false, s -> s.state().equals("WAITING")
+						&& s.type().equals("CRON") && s.group().equals("group-1")));
+
+		PageResponse<TriggerInfoView> paused = repository.findPage(query().limit(2).state("PAUSED").build());
+		assertThat(paused.getTotal()).isEqualTo(10);
+		assertThat(paused.getItems()).allSatisfy(view -> assertThat(view.getState()).isEqualTo("PAUSED"));
+	}
+
+	@Test
+	void badStateOrCursorIsRejected() {
+		assertThatThrownBy(() -> repository.findPage(query().limit(5).state("SLEEPING").build()))
+				.isInstanceOf(ResponseStatusException.class);
+		assertThatThrownBy(() -> repository.findPage(query().limit(5).cursor("not a cursor").build()))
+				.isInstanceOf(ResponseStatusException.class);
+	}
+
+	// Follows nextCursor to the end; checks every page but the last is full
+	private List<String> pageThrough(TriggerPageQuery.TriggerPageQueryBuilder query) throws Exception {
+		List<String> keys = new ArrayList<>();
+		String cursor = null;
+		int limit = query.build().getLimit();
+		do {
+			PageResponse<TriggerInfoView> page = repository.findPage(query.cursor(cursor).build());
+			cursor = page.getNextCursor();
+			if (cursor != null)
+				assertThat(page.getItems()).hasSize(limit);
+			assertThat(page.getItems()).isNotEmpty();
+			page.getItems().forEach(view -> keys.add(view.getTriggerGroup() + "." + view.getTriggerName()));
+		} while (cursor != null);
+		return keys;
+	}
+
+	private List<String> expected(boolean descending) {
+		return expected(descending, s -> true);
+	}
+
+	private List<String> expected(boolean descending, Predicate<Stored> filter) {
+		Comparator<Stored> order = Comparator.comparingLong(Stored::nextFireTime).thenComparing(Stored::group)
+				.thenComparing(Stored::name);
+		return stored.stream().filter(filter).sorted(descending ? order.reversed() : order)
+				.map(s -> s.group() + "." + s.name()).toList();
+	}
+
+	private static TriggerPageQuery.TriggerPageQueryBuilder query() {
+		return TriggerPageQuery.builder();
+	}
+
+	private void insert(String group, String name, long nextFireTime, String state, String type) {
+		jdbc.update("INSERT INTO QRTZ_JOB_DETAILS (SCHED_NAME, JOB_NAME, JOB_GROUP, JOB_CLASS_NAME, IS_DURABLE,"
+				+ " IS_NONCONCURRENT, IS_UPDATE_DATA, REQUESTS_RECOVERY) VALUES (?, ?, ?, 'Job', FALSE, FALSE, FALSE,"
+				+ " FALSE)", SCHED, name, group);
+		jdbc.update("INSERT INTO QRTZ_TRIGGERS (SCHED_NAME, TRIGGER_NAME, TRIGGER_GROUP, JOB_NAME, JOB_GROUP,"
+				+ " NEXT_FIRE_TIME, TRIGGER_STATE, TRIGGER_TYPE, START_TIME) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0)", SCHED,
+				name, group, name, group, nextFireTime, state, type);
+		if (type.equals("SIMPLE"))
+			jdbc.update("INSERT INTO QRTZ_SIMPLE_TRIGGERS (SCHED_NAME, TRIGGER_NAME, TRIGGER_GROUP, REPEAT_COUNT,"
+					+ " REPEAT_INTERVAL, TIMES_TRIGGERED) VALUES (?, ?, ?, -1, 60000, 0)", SCHED, name, group);
+		stored.add(new Stored(group, name, nextFireTime, state, type));
+	}
+
+	private record Stored(String group, String name, long nextFireTime, String state, String type) {
+	}
+}
@@ -0,0 +1,91 @@
+package com.inn.retry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.BitSet;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class RetryPolicyTest {
+
+	@Test
+	void noAttemptsMeansNoPolicy() {
+		assertThat(RetryPolicy.of(Map.of())).isSameAs(RetryPolicy.NONE);
+		assertThat(RetryPolicy.of(Map.of(RetryPolicy.MAX_ATTEMPTS, "0"))).isSameAs(RetryPolicy.NONE);
+	}
+
+	@Test
+	void defaultsRetryIoAndServerErrors() {
+		RetryPolicy policy = RetryPolicy.of(Map.of(RetryPolicy.MAX_ATTEMPTS, "3"));
+
+		assertThat(policy.maxAttempts()).isEqualTo(3);
+		assertThat(policy.backoffMs()).isEqualTo(RetryPolicy.DEFAULT_BACKOFF_MS);
+		assertThat(policy.maxBackoffMs()).isEqualTo(RetryPolicy.DEFAULT_MAX_BACKOFF_MS);
+		assertThat(policy.retryable(null)).isTrue();
+		assertThat(policy.retryable(408)).isTrue();
+		assertThat(policy.retryable(429)).isTrue();
+		assertThat(policy.retryable(500)).isTrue();
+		assertThat(policy.retryable(599)).isTrue();
+		assertThat(policy.retryable(404)).isFalse();
+		assertThat(policy.retryable(200)).isFalse();
+	}
+
+	@Test
+	void parsesListsAndRanges() {
+		RetryPolicy policy = RetryPolicy.of(Map.of(RetryPolicy.MAX_ATTEMPTS, "2", RetryPolicy.RETRY_ON,
+				"429, 502-504,io", RetryPolicy.BACKOFF_MS, "200", RetryPolicy.MAX_BACKOFF_MS, "5000"));
+
+		BitSet expected = new BitSet();
+		expected.set(429);
+		expected.set(502, 505);
+		assertThat(policy.retryOn()).isEqualTo(expected);
+		assertThat(policy.retryOnIo()).isTrue();
+		assertThat(policy.backoffMs()).isEqualTo(200);
+		assertThat(policy.maxBackoffMs()).isEqualTo(5000);
+	}
+
+	@Test
+	void withoutIoOnlyListedStatusesRetry() {
+		RetryPolicy policy = RetryPolicy.of(Map.of(RetryPolicy.MAX_ATTEMPTS, "1", RetryPolicy.RETRY_ON, "503"));
+
+		assertThat(policy.retryable(null)).isFalse();
+		assertThat(policy.retryable(503)).isTrue();
+		assertThat(policy.retryable(-1)).isFalse();
+	}
+
+	@Test
+	void rejectsBadSpecs() {
+		assertThatThrownBy(() -> RetryPolicy.of(Map.of(RetryPolicy.MAX_ATTEMPTS, "1", RetryPolicy.RETRY_ON, "599-500")))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageContaining("599-500");
+		assertThatThrownBy(() -> RetryPolicy.of(Map.of(RetryPolicy.MAX_ATTEMPTS, "1", RetryPolicy.RETRY_ON, "700")))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> RetryPolicy.of(Map.of(RetryPolicy.MAX_ATTEMPTS, "1", RetryPolicy.RETRY_ON, "5xx")))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> RetryPolicy.of(Map.of(RetryPolicy.MAX_ATTEMPTS, "1", RetryPolicy.BACKOFF_MS, "-1")))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void delayDoublesWithHalfJitterUpToTheCap() {
+		RetryPolicy policy = new RetryPolicy(10, 1000, 10_000, new BitSet(), true);
+
+		for (int i = 0; i < 200; i++) {
+			assertThat(policy.delayMs(1)).isBetween(500L, 1000L);
+			assertThat(policy.delayMs(2)).isBetween(1000L, 2000L);
+			assertThat(policy.delayMs(3)).isBetween(2000L, 4000L);
+			assertThat(policy.delayMs(5)).isBetween(5000L, 10_000L);
+			assertThat(policy.delayMs(10)).isBetween(5000L, 10_000L);
+		}
+	}
+
+	@Test
+	void largeBackoffDoesNotOverflow() {
+		RetryPolicy policy = new RetryPolicy(20, Long.MAX_VALUE / 4, Long.MAX_VALUE / 2, new BitSet(), true);
+
+		assertThat(policy.delayMs(20)).isBetween(Long.MAX_VALUE / 4, Long.MAX_VALUE / 2);
+		assertThat(new RetryPolicy(20, 1L << 40, 1L << 50, new BitSet(), true).delayMs(30))
+				.isBetween(1L << 49, 1L << 50);
+	}
+}
@@ -0,0 +1,94 @@
+package com.inn.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.inn.dto.FireDensityResponse;
+import com.inn.repository.TriggerQueryRepository;
+import com.inn.repository.TriggerQueryRepository.CronSchedule;
+import com.inn.repository.TriggerQueryRepository.SimpleSchedule;
+
+class FireDensityServiceTest {
+
+	// A whole hour, so minute buckets line up with the cron fields
+	private static final long START = 1_789_999_200_000L;
+	private static final long MINUTE = 60_000L;
+
+	private TriggerQueryRepository repository;
+	private FireDensityService service;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		repository = mock(TriggerQueryRepository.class);
+		when(repository.findCronSchedules()).thenReturn(List.of());
+		when(repository.findSimpleSchedules(anyLong())).thenReturn(List.of());
+		service = new FireDensityService(repository);
+	}
+
+	@Test
+	void unboundedSimpleTriggerFillsTheHorizon() throws Exception {
+		simple(new SimpleSchedule(START - 30_000, MINUTE, -1, 0, 3));
+
+		FireDensityResponse response = service.density(new Date(START), 10, "MINUTE");
+
+		assertThat(response.getCounts()).containsOnly(3);
+		assertThat(response.getTotal()).isEqualTo(30);
+	}
+
+	@Test
+	void repeatCountStopsTheSimpleTrigger() throws Exception {
+		// Four fires left, the first of them before the window
+		simple(new SimpleSchedule(START - MINUTE, MINUTE, 4, 0, 1));
+
+		FireDensityResponse response = service.density(new Date(START), 10, "MINUTE");
+
+		assertThat(response.getCounts()).startsWith(1, 1, 1, 0);
+		assertThat(response.getTotal()).isEqualTo(3);
+	}
+
+	@Test
+	void oneShotAndSpentTriggers() throws Exception {
+		simple(new SimpleSchedule(START + 2 * MINUTE, 0, 1, 0, 2),
+				new SimpleSchedule(START - 5 * MINUTE, MINUTE, 3, 0, 1));
+
+		FireDensityResponse response = service.density(new Date(START), 10, "MINUTE");
+
+		assertThat(response.getCounts()[2]).isEqualTo(2);
+		assertThat(response.getTotal()).isEqualTo(2);
+	}
+
+	@Test
+	void simpleTriggerFiresUpToItsEndTime() throws Exception {
+		simple(new SimpleSchedule(START, MINUTE, -1, START + 4 * MINUTE, 1));
+
+		FireDensityResponse response = service.density(new Date(START), 10, "MINUTE");
+
+		assertThat(response.getCounts()).startsWith(1, 1, 1, 1, 1, 0);
+		assertThat(response.getTotal()).isEqualTo(5);
+	}
+
+	@Test
+	void cronFiresUpToItsEndTime() throws Exception {
+		when(repository.findCronSchedules()).thenReturn(List.of(
+				new CronSchedule("0 */2 * * * ?", "UTC", START + 6 * MINUTE, 5),
+				new CronSchedule("0 5 * * * ?", "UTC", 0, 1)));
+
+		FireDensityResponse response = service.density(new Date(START), 10, "MINUTE");
+
+		assertThat(response.getCounts()).containsExactly(5, 0, 5, 0, 5, 1, 5, 0, 0, 0);
+		assertThat(response.getPeak()).isEqualTo(5);
+		assertThat(response.getPeakAt()).isEqualTo(new Date(START));
+	}
+
+	private void simple(SimpleSchedule... schedules) throws Exception {
+		when(repository.findSimpleSchedules(anyLong())).thenReturn(List.of(schedules));
+	}
+}
@@ -0,0 +1,110 @@
+package com.inn.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Date;
+import java.util.TimeZone;
+
+import org.junit.jupiter.api.Test;
+import org.quartz.CronExpression;
+import org.quartz.JobKey;
+
+class FireSmearPlannerTest {
+
+	private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+	private static final long FROM = 1_790_000_000_000L;
+
+	@Test
+	void noWindowLeavesTheExpression() {
+		JobKey key = JobKey.jobKey("job", "tenant");
+
+		assertThat(FireSmearPlanner.plan(key, "0 0 * * * ?", null))
+				.isEqualTo(new FireSmearPlanner.Plan("0 0 * * * ?", 0));
+		assertThat(FireSmearPlanner.plan(key, "0 0 * * * ?", 1))
+				.isEqualTo(new FireSmearPlanner.Plan("0 0 * * * ?", 0));
+	}
+
+	@Test
+	void simpleTriggersOnlyGetAnOffset() {
+		FireSmearPlanner.Plan plan = FireSmearPlanner.plan(JobKey.jobKey("job", "tenant"), null, 300);
+
+		assertThat(plan.cronExpression()).isNull();
+		assertThat(plan.offsetSeconds()).isBetween(0, 299);
+	}
+
+	@Test
+	void offsetIsStablePerKey() {
+		assertThat(FireSmearPlanner.plan(JobKey.jobKey("job", "tenant"), "0 0 * * * ?", 600))
+				.isEqualTo(FireSmearPlanner.plan(JobKey.jobKey("job", "tenant"), "0 0 * * * ?", 600));
+	}
+
+	// Whatever the offset, the shifted schedule is the original one moved later
+	@Test
+	void shiftedExpressionFiresOffsetLater() throws Exception {
+		String[] expressions = { "0 0 * * * ?", "0 */15 * * * ?", "30 0,20,40 * * * ?", "0 10-20 * * * ?",
+				"*/10 * * * * ?", "5 0/30 * * * ?", "45 5 * * * ?" };
+		for (String expression : expressions) {
+			for (int i = 0; i < 200; i++) {
+				FireSmearPlanner.Plan plan = FireSmearPlanner.plan(JobKey.jobKey("job-" + i, "tenant"), expression,
+						900);
+				assertFiresShifted(expression, plan);
+			}
+		}
+	}
+
+	@Test
+	void carryMovesIntoTheMinutesField() {
+		for (int i = 0; i < 200; i++) {
+			FireSmearPlanner.Plan plan = FireSmearPlanner.plan(JobKey.jobKey("job-" + i, "tenant"), "0 10-20 * * * ?",
+					600);
+			int minutes = plan.offsetSeconds() / 60;
+			String expected = minutes == 0 ? plan.offsetSeconds() + " 10-20 * * * ?"
+					: plan.offsetSeconds() % 60 + " " + (10 + minutes) + "-" + (20 + minutes) + " * * * ?";
+			assertThat(plan.cronExpression()).isEqualTo(expected);
+		}
+	}
+
+	@Test
+	void windowIsCutToWhatTheExpressionAllows() {
+		for (int i = 0; i < 200; i++) {
+			JobKey key = JobKey.jobKey("job-" + i, "tenant");
+			// Minute 59 leaves the seconds only
+			assertThat(FireSmearPlanner.plan(key, "0 59 * * * ?", 3600).offsetSeconds()).isBetween(0, 59);
+			// Seven doesn't divide 60, so the minutes can't move
+			assertThat(FireSmearPlanner.plan(key, "0 */7 * * * ?", 3600).offsetSeconds()).isBetween(0, 59);
+			// Every minute: a carry would skip minute 0
+			assertThat(FireSmearPlanner.plan(key, "0 * * * * ?", 3600).offsetSeconds()).isBetween(0, 59);
+			// Every 10 seconds spreads over one step
+			assertThat(FireSmearPlanner.plan(key, "*/10 * * * * ?", 3600).offsetSeconds()).isBetween(0, 9);
+		}
+	}
+
+	@Test
+	void unsupportedExpressionsAreLeftAlone() {
+		JobKey key = JobKey.jobKey("job", "tenant");
+
+		assertThat(FireSmearPlanner.plan(key, "* * * * * ?", 600))
+				.isEqualTo(new FireSmearPlanner.Plan("* * * * * ?", 0));
+		assertThat(FireSmearPlanner.plan(key, "0 0 * * ?", 600)).isEqualTo(new FireSmearPlanner.Plan("0 0 * * ?", 0));
+	}
+
+	private static void assertFiresShifted(String expression, FireSmearPlanner.Plan plan) throws Exception {
+		CronExpression original = cron(expression);
+		CronExpression shifted = cron(plan.cronExpression());
+		long offsetMs = plan.offsetSeconds() * 1000L;
+		Date expected = original.getTimeAfter(new Date(FROM));
+		Date actual = shifted.getTimeAfter(new Date(expected.getTime() + offsetMs - 1));
+		for (int n = 0; n < 20; n++) {
+			assertThat(actual.getTime()).as("%s -> %s", expression, plan.cronExpression())
+					.isEqualTo(expected.getTime() + offsetMs);
+			expected = original.getTimeAfter(expected);
+			actual = shifted.getTimeAfter(actual);
+		}
+	}
+
+	private static CronExpression cron(String expression) throws Exception {
+		CronExpression cron = new CronExpression(expression);
+		cron.setTimeZone(UTC);
+		return cron;
+	}
+}